@@ -1,5 +1,6 @@
 package com.iota.iri;
 
+import com.iota.iri.controllers.BundleViewModel;
 import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.crypto.*;
 import com.iota.iri.model.Hash;
@@ -18,6 +19,11 @@ import java.util.*;
  */
 public class BundleValidator {
 
+    /**
+     * The bundle index is only loaded up front while it holds at most this many times the transactions of a bundle.
+     */
+    private static final int MAX_PREFETCH_FACTOR = 4;
+
     /**
      * Fetches a bundle of transactions identified by the {@code tailHash} and validates the transactions.
      * Bundle is a group of transactions with the same bundle hash chained by their trunks.
@@ -221,15 +227,40 @@ public class BundleValidator {
         final Map<Hash, TransactionViewModel> bundleTransactions = new HashMap<>();
         final Hash bundleHash = tail.getBundleHash();
         try {
+            final Map<Hash, TransactionViewModel> prefetched = prefetchBundle(tangle, tail);
             TransactionViewModel tx = tail;
             long i = 0, end = tx.lastIndex();
             do {
                 bundleTransactions.put(tx.getHash(), tx);
-                tx = tx.getTrunkTransaction(tangle);
+                TransactionViewModel trunk = prefetched.get(tx.getTrunkTransactionHash());
+                tx = trunk != null ? trunk : tx.getTrunkTransaction(tangle);
             } while (i++ < end && tx.getCurrentIndex() != 0 && tx.getBundleHash().equals(bundleHash));
         } catch (Exception e) {
             e.printStackTrace();
         }
         return bundleTransactions;
     }
+
+    /**
+     * Loads the transactions that are indexed under the bundle hash of {@code tail} with a single lookup, so that
+     * walking down the trunk doesn't need a database read per transaction. Nothing is loaded if the bundle hash was
+     * reused by many more transactions than the bundle has, the trunk walk reads those one at a time instead.
+     *
+     * @param tangle connection to the persistence layer
+     * @param tail the last transaction of the bundle
+     * @return the transactions of the bundle hash, mapped by their transaction hash
+     * @throws Exception if the transactions can't be loaded
+     */
+    private static Map<Hash, TransactionViewModel> prefetchBundle(Tangle tangle, TransactionViewModel tail)
+            throws Exception {
+        final Set<Hash> hashes = BundleViewModel.load(tangle, tail.getBundleHash()).getHashes();
+        if (hashes.size() > MAX_PREFETCH_FACTOR * (tail.lastIndex() + 1)) {
+            return Collections.emptyMap();
+        }
+        final Map<Hash, TransactionViewModel> transactions = new HashMap<>();
+        for (TransactionViewModel transaction : TransactionViewModel.fromHashes(tangle, new ArrayList<>(hashes))) {
+            transactions.put(transaction.getHash(), transaction);
+        }
+        return transactions;
+    }
 }
@@ -94,7 +94,7 @@ public class Iota {
     public Iota(IotaConfig configuration) throws IOException {
         this.configuration = configuration;
         Snapshot initialSnapshot = Snapshot.init(configuration).clone();
-        tangle = new Tangle();
+        tangle = new Tangle(configuration.getTransactionCacheSize());
         messageQ = MessageQ.createWith(configuration);
         tipsViewModel = new TipsViewModel();
         transactionRequester = new TransactionRequester(tangle, messageQ);
@@ -186,7 +186,9 @@ public class Iota {
                 tangle.addPersistenceProvider(new RocksDBPersistenceProvider(
                         configuration.getDbPath(),
                         configuration.getDbLogPath(),
-                        configuration.getDbCacheSize()));
+                        configuration.getDbCacheSize(),
+                        configuration.isDbEntryIndexes(),
+                        configuration.getDbGroupCommitDelay()));
                 break;
             }
             default: {
@@ -10,6 +10,7 @@ import com.iota.iri.model.Hash;
 import com.iota.iri.model.TransactionHash;
 import com.iota.iri.network.TransactionRequester;
 import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.Converter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,7 +61,7 @@ public class TransactionValidator {
      * @param transactionRequester used to request missing transactions from neighbors
      * @param config configuration for obtaining snapshot data
      */
-    TransactionValidator(Tangle tangle, TipsViewModel tipsViewModel, TransactionRequester transactionRequester,
+    public TransactionValidator(Tangle tangle, TipsViewModel tipsViewModel, TransactionRequester transactionRequester,
                                 SnapshotConfig config) {
         this.tangle = tangle;
         this.tipsViewModel = tipsViewModel;
@@ -132,14 +133,47 @@ public class TransactionValidator {
      * Else returns <tt>false</tt>.
      */
     private boolean hasInvalidTimestamp(TransactionViewModel transactionViewModel) {
-        if (transactionViewModel.getAttachmentTimestamp() == 0) {
-            return transactionViewModel.getTimestamp() < snapshotTimestamp
+        return hasInvalidTimestamp(transactionViewModel.getTimestamp(), transactionViewModel.getAttachmentTimestamp(),
+                Objects.equals(transactionViewModel.getHash(), Hash.NULL_HASH));
+    }
+
+    private boolean hasInvalidTimestamp(long timestamp, long attachmentTimestamp, boolean genesis) {
+        if (attachmentTimestamp == 0) {
+            return timestamp < snapshotTimestamp
                     //you are valid if you are the genesis
-                    && !Objects.equals(transactionViewModel.getHash(), Hash.NULL_HASH)
-                    || transactionViewModel.getTimestamp() > (System.currentTimeMillis() / 1000) + MAX_TIMESTAMP_FUTURE;
+                    && !genesis
+                    || timestamp > (System.currentTimeMillis() / 1000) + MAX_TIMESTAMP_FUTURE;
+        }
+        return attachmentTimestamp < snapshotTimestampMs
+                || attachmentTimestamp > System.currentTimeMillis() + MAX_TIMESTAMP_FUTURE_MS;
+    }
+
+    /**
+     * Runs the checks of {@link #runValidation} that don't need the hash of a transaction on its raw bytes, decoding
+     * only the trits of the timestamps, the value and the last address trit. This is much cheaper than hashing the
+     * transaction and converting it to trits, so invalid transactions received from neighbors can be dropped early.
+     * The genesis is never received, so its exception of the timestamp check doesn't apply.
+     *
+     * @param bytes the bytes of a transaction
+     * @throws StaleTimestampException if timestamp check fails
+     * @throws IllegalStateException if the value or the address are invalid
+     */
+    public void preValidate(byte[] bytes) {
+        long timestamp = Converter.longValueFromBytes(bytes, TIMESTAMP_TRINARY_OFFSET, TIMESTAMP_TRINARY_SIZE);
+        long attachmentTimestamp = Converter.longValueFromBytes(bytes, ATTACHMENT_TIMESTAMP_TRINARY_OFFSET,
+                ATTACHMENT_TIMESTAMP_TRINARY_SIZE);
+        if (hasInvalidTimestamp(timestamp, attachmentTimestamp, false)) {
+            throw new StaleTimestampException("Invalid transaction timestamp.");
+        }
+        for (int i = VALUE_TRINARY_OFFSET + VALUE_USABLE_TRINARY_SIZE; i < VALUE_TRINARY_OFFSET + VALUE_TRINARY_SIZE; i++) {
+            if (Converter.tritFromBytes(bytes, i) != 0) {
+                throw new IllegalStateException("Invalid transaction value");
+            }
+        }
+        long value = Converter.longValueFromBytes(bytes, VALUE_TRINARY_OFFSET, VALUE_USABLE_TRINARY_SIZE);
+        if (value != 0 && Converter.tritFromBytes(bytes, ADDRESS_TRINARY_OFFSET + Curl.HASH_LENGTH - 1) != 0) {
+            throw new IllegalStateException("Invalid transaction address");
         }
-        return transactionViewModel.getAttachmentTimestamp() < snapshotTimestampMs
-                || transactionViewModel.getAttachmentTimestamp() > System.currentTimeMillis() + MAX_TIMESTAMP_FUTURE_MS;
     }
 
     /**
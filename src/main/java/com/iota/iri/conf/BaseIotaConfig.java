@@ -46,6 +46,18 @@ public abstract class BaseIotaConfig implements IotaConfig {
     protected boolean dnsRefresherEnabled = Defaults.DNS_REFRESHER_ENABLED;
     protected boolean dnsResolutionEnabled = Defaults.DNS_RESOLUTION_ENABLED;
     protected List<String> neighbors = new ArrayList<>();
+    protected int udpReceiverQueueSize = Defaults.UDP_RECEIVER_QUEUE_SIZE;
+    protected String udpReceiverDropPolicy = Defaults.UDP_RECEIVER_DROP_POLICY;
+    protected int hashingThreads = Defaults.HASHING_THREADS;
+    protected int hashingBatchTimeout = Defaults.HASHING_BATCH_TIMEOUT;
+    protected int storageWorkers = Defaults.STORAGE_WORKERS;
+    protected int neighborSendLimit = Defaults.NEIGHBOR_SEND_LIMIT;
+    protected int replySendWeight = Defaults.REPLY_SEND_WEIGHT;
+    protected int requestSendWeight = Defaults.REQUEST_SEND_WEIGHT;
+    protected int broadcastSendWeight = Defaults.BROADCAST_SEND_WEIGHT;
+    protected int neighborReceiveQuota = Defaults.NEIGHBOR_RECEIVE_QUOTA;
+    protected int replyWorkers = Defaults.REPLY_WORKERS;
+    protected int hotPacketCacheSize = Defaults.HOT_PACKET_CACHE_SIZE;
 
     //IXI
     protected String ixiDir = Defaults.IXI_DIR;
@@ -54,6 +66,9 @@ public abstract class BaseIotaConfig implements IotaConfig {
     protected String dbPath = Defaults.DB_PATH;
     protected String dbLogPath = Defaults.DB_LOG_PATH;
     protected int dbCacheSize = Defaults.DB_CACHE_SIZE; //KB
+    protected int transactionCacheSize = Defaults.TRANSACTION_CACHE_SIZE;
+    protected boolean dbEntryIndexes = Defaults.DB_ENTRY_INDEXES;
+    protected int dbGroupCommitDelay = Defaults.DB_GROUP_COMMIT_DELAY;
     protected String mainDb = Defaults.ROCKS_DB;
     protected boolean revalidate = Defaults.REVALIDATE;
     protected boolean rescanDb = Defaults.RESCAN_DB;
@@ -349,6 +364,39 @@ public abstract class BaseIotaConfig implements IotaConfig {
         this.dbCacheSize = dbCacheSize;
     }
 
+    @Override
+    public int getTransactionCacheSize() {
+        return transactionCacheSize;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--transaction-cache-size"}, description = DbConfig.Descriptions.TRANSACTION_CACHE_SIZE)
+    protected void setTransactionCacheSize(int transactionCacheSize) {
+        this.transactionCacheSize = transactionCacheSize;
+    }
+
+    @Override
+    public boolean isDbEntryIndexes() {
+        return dbEntryIndexes;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-entry-indexes"}, description = DbConfig.Descriptions.DB_ENTRY_INDEXES, arity = 1)
+    protected void setDbEntryIndexes(boolean dbEntryIndexes) {
+        this.dbEntryIndexes = dbEntryIndexes;
+    }
+
+    @Override
+    public int getDbGroupCommitDelay() {
+        return dbGroupCommitDelay;
+    }
+
+    @JsonProperty
+    @Parameter(names = {"--db-group-commit-delay"}, description = DbConfig.Descriptions.DB_GROUP_COMMIT_DELAY)
+    protected void setDbGroupCommitDelay(int dbGroupCommitDelay) {
+        this.dbGroupCommitDelay = dbGroupCommitDelay;
+    }
+
     @Override
     public String getMainDb() {
         return mainDb;
@@ -636,6 +684,138 @@ public abstract class BaseIotaConfig implements IotaConfig {
         this.cacheSizeBytes = cacheSizeBytes;
     }
 
+    @Override
+    public int getUdpReceiverQueueSize() {
+        return udpReceiverQueueSize;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--udp-receiver-queue-size", description = NetworkConfig.Descriptions.UDP_RECEIVER_QUEUE_SIZE)
+    protected void setUdpReceiverQueueSize(int udpReceiverQueueSize) {
+        this.udpReceiverQueueSize = udpReceiverQueueSize;
+    }
+
+    @Override
+    public String getUdpReceiverDropPolicy() {
+        return udpReceiverDropPolicy;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--udp-receiver-drop-policy", description = NetworkConfig.Descriptions.UDP_RECEIVER_DROP_POLICY)
+    protected void setUdpReceiverDropPolicy(String udpReceiverDropPolicy) {
+        this.udpReceiverDropPolicy = udpReceiverDropPolicy;
+    }
+
+    @Override
+    public int getHashingThreads() {
+        return hashingThreads;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--hashing-threads", description = NetworkConfig.Descriptions.HASHING_THREADS)
+    protected void setHashingThreads(int hashingThreads) {
+        this.hashingThreads = hashingThreads;
+    }
+
+    @Override
+    public int getHashingBatchTimeout() {
+        return hashingBatchTimeout;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--hashing-batch-timeout", description = NetworkConfig.Descriptions.HASHING_BATCH_TIMEOUT)
+    protected void setHashingBatchTimeout(int hashingBatchTimeout) {
+        this.hashingBatchTimeout = hashingBatchTimeout;
+    }
+
+    @Override
+    public int getStorageWorkers() {
+        return storageWorkers;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--storage-workers", description = NetworkConfig.Descriptions.STORAGE_WORKERS)
+    protected void setStorageWorkers(int storageWorkers) {
+        this.storageWorkers = storageWorkers;
+    }
+
+    @Override
+    public int getNeighborSendLimit() {
+        return neighborSendLimit;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--neighbor-send-limit", description = NetworkConfig.Descriptions.NEIGHBOR_SEND_LIMIT)
+    protected void setNeighborSendLimit(int neighborSendLimit) {
+        this.neighborSendLimit = neighborSendLimit;
+    }
+
+    @Override
+    public int getReplySendWeight() {
+        return replySendWeight;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--reply-send-weight", description = NetworkConfig.Descriptions.REPLY_SEND_WEIGHT)
+    protected void setReplySendWeight(int replySendWeight) {
+        this.replySendWeight = replySendWeight;
+    }
+
+    @Override
+    public int getRequestSendWeight() {
+        return requestSendWeight;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--request-send-weight", description = NetworkConfig.Descriptions.REQUEST_SEND_WEIGHT)
+    protected void setRequestSendWeight(int requestSendWeight) {
+        this.requestSendWeight = requestSendWeight;
+    }
+
+    @Override
+    public int getBroadcastSendWeight() {
+        return broadcastSendWeight;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--broadcast-send-weight", description = NetworkConfig.Descriptions.BROADCAST_SEND_WEIGHT)
+    protected void setBroadcastSendWeight(int broadcastSendWeight) {
+        this.broadcastSendWeight = broadcastSendWeight;
+    }
+
+    @Override
+    public int getNeighborReceiveQuota() {
+        return neighborReceiveQuota;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--neighbor-receive-quota", description = NetworkConfig.Descriptions.NEIGHBOR_RECEIVE_QUOTA)
+    protected void setNeighborReceiveQuota(int neighborReceiveQuota) {
+        this.neighborReceiveQuota = neighborReceiveQuota;
+    }
+
+    @Override
+    public int getReplyWorkers() {
+        return replyWorkers;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--reply-workers", description = NetworkConfig.Descriptions.REPLY_WORKERS)
+    protected void setReplyWorkers(int replyWorkers) {
+        this.replyWorkers = replyWorkers;
+    }
+
+    @Override
+    public int getHotPacketCacheSize() {
+        return hotPacketCacheSize;
+    }
+
+    @JsonProperty
+    @Parameter(names = "--hot-packet-cache-size", description = NetworkConfig.Descriptions.HOT_PACKET_CACHE_SIZE)
+    protected void setHotPacketCacheSize(int hotPacketCacheSize) {
+        this.hotPacketCacheSize = hotPacketCacheSize;
+    }
+
     @Override
     public String getCoordinator() {
         return Defaults.COORDINATOR_ADDRESS;
@@ -709,6 +889,18 @@ public abstract class BaseIotaConfig implements IotaConfig {
         int MAX_PEERS = 0;
         boolean DNS_REFRESHER_ENABLED = true;
         boolean DNS_RESOLUTION_ENABLED = true;
+        int UDP_RECEIVER_QUEUE_SIZE = 10_000;
+        String UDP_RECEIVER_DROP_POLICY = "DROP_NEWEST";
+        int HASHING_THREADS = 0;
+        int HASHING_BATCH_TIMEOUT = 20;
+        int STORAGE_WORKERS = 0;
+        int NEIGHBOR_SEND_LIMIT = -1;
+        int REPLY_SEND_WEIGHT = 4;
+        int REQUEST_SEND_WEIGHT = 2;
+        int BROADCAST_SEND_WEIGHT = 1;
+        int NEIGHBOR_RECEIVE_QUOTA = 16;
+        int REPLY_WORKERS = 0;
+        int HOT_PACKET_CACHE_SIZE = 8192;
 
         //ixi
         String IXI_DIR = "ixi";
@@ -717,6 +909,9 @@ public abstract class BaseIotaConfig implements IotaConfig {
         String DB_PATH = "mainnetdb";
         String DB_LOG_PATH = "mainnet.log";
         int DB_CACHE_SIZE = 100_000;
+        int TRANSACTION_CACHE_SIZE = 10_000;
+        boolean DB_ENTRY_INDEXES = false;
+        int DB_GROUP_COMMIT_DELAY = 0;
         String ROCKS_DB = "rocksdb";
         boolean REVALIDATE = false;
         boolean RESCAN_DB = false;
@@ -20,6 +20,21 @@ public interface DbConfig extends Config {
      */
     int getDbCacheSize();
 
+    /**
+     * @return {@value Descriptions#TRANSACTION_CACHE_SIZE}
+     */
+    int getTransactionCacheSize();
+
+    /**
+     * @return {@value Descriptions#DB_ENTRY_INDEXES}
+     */
+    boolean isDbEntryIndexes();
+
+    /**
+     * @return {@value Descriptions#DB_GROUP_COMMIT_DELAY}
+     */
+    int getDbGroupCommitDelay();
+
     /**
      * @return {@value Descriptions#MAIN_DB}
      */
@@ -40,6 +55,14 @@ public interface DbConfig extends Config {
         String DB_PATH = "The folder where the DB saves its data.";
         String DB_LOG_PATH = "The folder where the DB logs info";
         String DB_CACHE_SIZE = "The size of the DB cache in KB";
+        String TRANSACTION_CACHE_SIZE = "The number of recently loaded transactions that are kept in memory. " +
+                "0 disables the cache.";
+        String DB_ENTRY_INDEXES = "Store every transaction of the address, bundle, tag and approvee indexes under " +
+                "its own key instead of appending them to one value per index. The indexes are migrated at startup " +
+                "when this is changed.";
+        String DB_GROUP_COMMIT_DELAY = "The number of milliseconds the DB collects writes for before it commits " +
+                "them together. 0 commits every write on its own. Writes are acknowledged before they are " +
+                "committed, so the DB rejects all writes after a failed commit.";
         String MAIN_DB = "The DB engine used to store the transactions. Currently only RocksDB is supported.";
         String REVALIDATE = "Reload from the db data about confirmed transaction (milestones), state of the ledger, " +
                 "and transaction metadata.";
@@ -63,6 +63,66 @@ public interface NetworkConfig extends Config {
      */
     int getCacheSizeBytes();
 
+    /**
+     * @return Descriptions#UDP_RECEIVER_QUEUE_SIZE
+     */
+    int getUdpReceiverQueueSize();
+
+    /**
+     * @return Descriptions#UDP_RECEIVER_DROP_POLICY
+     */
+    String getUdpReceiverDropPolicy();
+
+    /**
+     * @return Descriptions#HASHING_THREADS
+     */
+    int getHashingThreads();
+
+    /**
+     * @return Descriptions#HASHING_BATCH_TIMEOUT
+     */
+    int getHashingBatchTimeout();
+
+    /**
+     * @return Descriptions#STORAGE_WORKERS
+     */
+    int getStorageWorkers();
+
+    /**
+     * @return Descriptions#NEIGHBOR_SEND_LIMIT
+     */
+    int getNeighborSendLimit();
+
+    /**
+     * @return Descriptions#REPLY_SEND_WEIGHT
+     */
+    int getReplySendWeight();
+
+    /**
+     * @return Descriptions#REQUEST_SEND_WEIGHT
+     */
+    int getRequestSendWeight();
+
+    /**
+     * @return Descriptions#BROADCAST_SEND_WEIGHT
+     */
+    int getBroadcastSendWeight();
+
+    /**
+     * @return Descriptions#NEIGHBOR_RECEIVE_QUOTA
+     */
+    int getNeighborReceiveQuota();
+
+    /**
+     * @return Descriptions#REPLY_WORKERS
+     */
+    int getReplyWorkers();
+
+    /**
+     * @return Descriptions#HOT_PACKET_CACHE_SIZE
+     */
+    int getHotPacketCacheSize();
+
     interface Descriptions {
         String UDP_RECEIVER_PORT = "The UDP Receiver Port.";
         String TCP_RECEIVER_PORT = "The TCP Receiver Port.";
@@ -76,5 +136,28 @@ public interface NetworkConfig extends Config {
         String Q_SIZE_NODE = "The size of the REPLY, BROADCAST, and RECEIVE network queues.";
         String P_DROP_CACHE_ENTRY = DescriptionHelper.PROB_OF + "dropping recently seen transactions out of the network cache.";
         String CACHE_SIZE_BYTES = "The size of the network cache in bytes";
+        String UDP_RECEIVER_QUEUE_SIZE = "The number of received UDP packets that may wait to be processed.";
+        String UDP_RECEIVER_DROP_POLICY = "What to do with a received UDP packet when the processing queue is full. " +
+            "One of DROP_NEWEST, DROP_OLDEST or BLOCK.";
+        String HASHING_THREADS = "The number of threads that hash received transactions in batches. " +
+            "If this number is 0 then half of the available processors are used.";
+        String HASHING_BATCH_TIMEOUT = "The maximum time in milliseconds a received transaction waits for its " +
+            "hashing batch to fill up.";
+        String STORAGE_WORKERS = "The number of threads that store received transactions. " +
+            "If this number is 0 then half of the available processors are used.";
+        String NEIGHBOR_SEND_LIMIT = "Like the send limit, but for every single neighbor. If this number is below 0 " +
+            "then there is no limit.";
+        String REPLY_SEND_WEIGHT = "The share of the outbound bandwidth of a neighbor that replies to its requests " +
+            "get, relative to the other send weights.";
+        String REQUEST_SEND_WEIGHT = "The share of the outbound bandwidth of a neighbor that tip requests get, " +
+            "relative to the other send weights.";
+        String BROADCAST_SEND_WEIGHT = "The share of the outbound bandwidth of a neighbor that broadcasts of new " +
+            "transactions get, relative to the other send weights.";
+        String NEIGHBOR_RECEIVE_QUOTA = "The number of received transactions of a neighbor that are stored before " +
+            "the transactions of the next neighbor get their turn.";
+        String REPLY_WORKERS = "The number of threads that answer transaction requests of the neighbors. " +
+            "If this number is 0 then half of the available processors are used.";
+        String HOT_PACKET_CACHE_SIZE = "The number of recently stored transactions that are kept outside of the " +
+            "database to answer requests of the neighbors.";
     }
 }
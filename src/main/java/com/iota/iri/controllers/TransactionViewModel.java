@@ -82,6 +82,26 @@ public class TransactionViewModel {
         return transactionViewModel;
     }
 
+    /**
+     * Loads several transactions with one lookup.
+     *
+     * @param tangle the tangle to read from
+     * @param hashes the hashes of the transactions
+     * @return the transactions in the order of <tt>hashes</tt>, missing ones are empty like in {@link #fromHash}
+     * @throws Exception if the database can't be read
+     */
+    public static List<TransactionViewModel> fromHashes(Tangle tangle, List<Hash> hashes) throws Exception {
+        List<Persistable> transactions = tangle.multiGet(Transaction.class, hashes);
+        List<TransactionViewModel> transactionViewModels = new ArrayList<>(hashes.size());
+        for (int i = 0; i < hashes.size(); i++) {
+            TransactionViewModel transactionViewModel =
+                    new TransactionViewModel((Transaction) transactions.get(i), hashes.get(i));
+            fillMetadata(tangle, transactionViewModel);
+            transactionViewModels.add(transactionViewModel);
+        }
+        return transactionViewModels;
+    }
+
     public static boolean mightExist(Tangle tangle, Hash hash) throws Exception {
         return tangle.maybeHas(Transaction.class, hash);
     }
@@ -0,0 +1,140 @@
+package com.iota.iri.crypto.batched;
+
+import com.iota.iri.crypto.Sponge;
+import com.iota.iri.crypto.SpongeFactory;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary coded ternary implementation of Curl that hashes up to {@value #MAX_BATCH_SIZE} inputs of the same length
+ * at once.
+ * <br>
+ * Every trit of the state is stored as one bit in a <tt>low</tt> and one bit in a <tt>high</tt> word, so each of the
+ * 64 bit positions is an independent Curl instance. A single transformation of the state therefore transforms all
+ * inputs of the batch together. The encoding is the same as in {@link com.iota.iri.crypto.PearlDiver}:
+ * <pre>
+ *     trit   low  high
+ *      0      1    1
+ *      1      0    1
+ *     -1      1    0
+ * </pre>
+ */
+public class BCTCurl {
+
+    /**
+     * The number of inputs that can be hashed in one pass.
+     */
+    public static final int MAX_BATCH_SIZE = 64;
+
+    private static final int HASH_LENGTH = Sponge.HASH_LENGTH;
+    private static final int STATE_LENGTH = 3 * HASH_LENGTH;
+    private static final long HIGH_BITS = -1L;
+
+    private final int numberOfRounds;
+
+    private final long[] stateLow = new long[STATE_LENGTH];
+    private final long[] stateHigh = new long[STATE_LENGTH];
+    private final long[] scratchpadLow = new long[STATE_LENGTH];
+    private final long[] scratchpadHigh = new long[STATE_LENGTH];
+
+    public BCTCurl(SpongeFactory.Mode mode) {
+        switch (mode) {
+            case CURLP27: {
+                numberOfRounds = 27;
+            } break;
+            case CURLP81: {
+                numberOfRounds = 81;
+            } break;
+            default: throw new NoSuchElementException("Only Curl-P-27 and Curl-P-81 are supported.");
+        }
+    }
+
+    /**
+     * Hashes a batch of inputs. The result for every input is the same as absorbing it into a fresh
+     * {@link com.iota.iri.crypto.Curl} and squeezing {@link Sponge#HASH_LENGTH} trits.
+     *
+     * @param inputs the trits to hash, each holding at least <tt>length</tt> trits
+     * @param count the number of inputs in the batch, at most {@value #MAX_BATCH_SIZE}
+     * @param length the number of trits to absorb from each input
+     * @param hashes receives the {@link Sponge#HASH_LENGTH} trits of the hash of each input
+     */
+    public void hash(byte[][] inputs, int count, int length, byte[][] hashes) {
+        if (count > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch can hold at most " + MAX_BATCH_SIZE + " inputs");
+        }
+
+        Arrays.fill(stateLow, HIGH_BITS);
+        Arrays.fill(stateHigh, HIGH_BITS);
+
+        int offset = 0;
+        do {
+            int blockLength = Math.min(length - offset, HASH_LENGTH);
+            absorbBlock(inputs, count, offset, blockLength);
+            transform();
+            offset += HASH_LENGTH;
+        } while (offset < length);
+
+        squeeze(hashes, count);
+    }
+
+    private void absorbBlock(byte[][] inputs, int count, int offset, int blockLength) {
+        for (int i = 0; i < blockLength; i++) {
+            long low = HIGH_BITS;
+            long high = HIGH_BITS;
+            for (int lane = 0; lane < count; lane++) {
+                switch (inputs[lane][offset + i]) {
+                    case 1:
+                        low &= ~(1L << lane);
+                        break;
+                    case -1:
+                        high &= ~(1L << lane);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            stateLow[i] = low;
+            stateHigh[i] = high;
+        }
+    }
+
+    private void squeeze(byte[][] hashes, int count) {
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            long low = stateLow[i];
+            long high = stateHigh[i];
+            for (int lane = 0; lane < count; lane++) {
+                if ((low >>> lane & 1L) == 0) {
+                    hashes[lane][i] = 1;
+                } else if ((high >>> lane & 1L) == 0) {
+                    hashes[lane][i] = -1;
+                } else {
+                    hashes[lane][i] = 0;
+                }
+            }
+        }
+    }
+
+    private void transform() {
+        for (int round = 0; round < numberOfRounds; round++) {
+            System.arraycopy(stateLow, 0, scratchpadLow, 0, STATE_LENGTH);
+            System.arraycopy(stateHigh, 0, scratchpadHigh, 0, STATE_LENGTH);
+
+            int scratchpadIndex = 0;
+            for (int stateIndex = 0; stateIndex < STATE_LENGTH; stateIndex++) {
+                final long alpha = scratchpadLow[scratchpadIndex];
+                final long beta = scratchpadHigh[scratchpadIndex];
+                if (scratchpadIndex < 365) {
+                    scratchpadIndex += 364;
+                } else {
+                    scratchpadIndex += -365;
+                }
+                final long gamma = scratchpadHigh[scratchpadIndex];
+                final long delta = (alpha | (~gamma)) & (scratchpadLow[scratchpadIndex] ^ beta);
+
+                stateLow[stateIndex] = ~delta;
+                stateHigh[stateIndex] = (alpha ^ gamma) | delta;
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.iota.iri.crypto.batched;
+
+/**
+ * Collects {@link HashRequest}s and hashes them in batches.
+ * <br>
+ * Hashing inputs together amortizes the cost of a Curl transformation over the whole batch, at the price of a short
+ * delay until a batch is either full or its timeout expires.
+ */
+public interface BatchedHasher {
+
+    /**
+     * Queues a request for hashing without blocking. The callback of the request is called from a hashing thread.
+     *
+     * @param hashRequest the request to hash
+     * @return <tt>true</tt> if the request was queued, <tt>false</tt> if the hashing threads fell behind and the
+     * request was dropped
+     */
+    boolean submitHashingRequest(HashRequest hashRequest);
+
+    /**
+     * @return the number of requests that were dropped because the hashing threads fell behind
+     */
+    long getDroppedCount();
+
+    /**
+     * Starts the hashing threads.
+     */
+    void init();
+
+    /**
+     * Stops the hashing threads. Requests that are still queued are dropped.
+     *
+     * @throws InterruptedException if interrupted while waiting for the threads to stop
+     */
+    void shutdown() throws InterruptedException;
+}
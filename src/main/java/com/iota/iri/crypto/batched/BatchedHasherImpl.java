@@ -0,0 +1,163 @@
+package com.iota.iri.crypto.batched;
+
+import com.iota.iri.crypto.Sponge;
+import com.iota.iri.crypto.SpongeFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link BatchedHasher} that hashes with {@link BCTCurl}.
+ * <br>
+ * Every hashing thread takes the oldest request from a shared queue and keeps collecting requests until the batch is
+ * full or the batch timeout has passed since the first request was taken. Under load batches fill up immediately;
+ * when the node is idle a single request is delayed by at most the batch timeout.
+ */
+public class BatchedHasherImpl implements BatchedHasher {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchedHasherImpl.class);
+
+    private static final long POLL_TIMEOUT = 100L;
+
+    private final SpongeFactory.Mode mode;
+    private final int inputLength;
+    private final int numberOfThreads;
+    private final long batchTimeoutNanos;
+
+    private final BlockingQueue<HashRequest> requests;
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicLong droppedCount = new AtomicLong(0L);
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param mode the Curl variant to hash with
+     * @param inputLength the number of trits of every input
+     * @param numberOfThreads the number of hashing threads
+     * @param batchTimeoutMilliseconds the maximum time a request waits for its batch to fill up
+     */
+    public BatchedHasherImpl(SpongeFactory.Mode mode, int inputLength, int numberOfThreads,
+                             int batchTimeoutMilliseconds) {
+        this.mode = mode;
+        this.inputLength = inputLength;
+        this.numberOfThreads = Math.max(1, numberOfThreads);
+        this.batchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(batchTimeoutMilliseconds);
+        this.requests = new LinkedBlockingQueue<>(BCTCurl.MAX_BATCH_SIZE * 4 * this.numberOfThreads);
+    }
+
+    /**
+     * Queues a request, or drops and counts it if the queue is full. The network threads submit the requests, so
+     * they must not wait for the hashing threads.
+     *
+     * @param hashRequest the request to hash
+     * @throws IllegalArgumentException if the input does not have the length this hasher was created for
+     */
+    @Override
+    public boolean submitHashingRequest(HashRequest hashRequest) {
+        if (hashRequest.getInput().length < inputLength) {
+            throw new IllegalArgumentException("Expected an input of " + inputLength + " trits");
+        }
+        if (!requests.offer(hashRequest)) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public void init() {
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(this::hashBatches, "Batched hasher " + i);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    private void hashBatches() {
+        BCTCurl curl = new BCTCurl(mode);
+        List<HashRequest> batch = new ArrayList<>(BCTCurl.MAX_BATCH_SIZE);
+        byte[][] inputs = new byte[BCTCurl.MAX_BATCH_SIZE][];
+        // the callbacks copy what they keep, so the output buffers are reused for every batch
+        byte[][] hashes = new byte[BCTCurl.MAX_BATCH_SIZE][Sponge.HASH_LENGTH];
+
+        while (!shutdown) {
+            try {
+                if (!collectBatch(batch)) {
+                    continue;
+                }
+
+                int count = batch.size();
+                for (int i = 0; i < count; i++) {
+                    inputs[i] = batch.get(i).getInput();
+                }
+                curl.hash(inputs, count, inputLength, hashes);
+
+                for (int i = 0; i < count; i++) {
+                    try {
+                        batch.get(i).getCallback().process(hashes[i]);
+                    } catch (Exception e) {
+                        log.error("Error processing a hashed request", e);
+                    }
+                    inputs[i] = null;
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Waits for the first request and collects more until the batch is full or its timeout expired.
+     *
+     * @param batch receives the requests of the batch
+     * @return <tt>true</tt> if the batch holds at least one request
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private boolean collectBatch(List<HashRequest> batch) throws InterruptedException {
+        HashRequest first = requests.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + batchTimeoutNanos;
+        while (batch.size() < BCTCurl.MAX_BATCH_SIZE) {
+            requests.drainTo(batch, BCTCurl.MAX_BATCH_SIZE - batch.size());
+            if (batch.size() == BCTCurl.MAX_BATCH_SIZE) {
+                break;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            HashRequest next = requests.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        shutdown = true;
+        for (Thread thread : threads) {
+            thread.join(6000L);
+        }
+        requests.clear();
+    }
+}
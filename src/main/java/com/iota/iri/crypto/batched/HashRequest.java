@@ -0,0 +1,27 @@
+package com.iota.iri.crypto.batched;
+
+/**
+ * A request to hash the trits of a single input, together with the callback that receives the result.
+ */
+public class HashRequest {
+
+    private final byte[] input;
+    private final HashRequestCallback callback;
+
+    /**
+     * @param input the trits to hash
+     * @param callback called with the trits of the hash once the batch containing this request was hashed
+     */
+    public HashRequest(byte[] input, HashRequestCallback callback) {
+        this.input = input;
+        this.callback = callback;
+    }
+
+    public byte[] getInput() {
+        return input;
+    }
+
+    public HashRequestCallback getCallback() {
+        return callback;
+    }
+}
@@ -0,0 +1,16 @@
+package com.iota.iri.crypto.batched;
+
+/**
+ * Receives the result of a {@link HashRequest}.
+ */
+@FunctionalInterface
+public interface HashRequestCallback {
+
+    /**
+     * Called from a hashing thread once the hash of the request is known.
+     *
+     * @param hashTrits the trits of the hash; the array is reused by the hashing thread after this method returns,
+     *                  so it has to be copied to be kept
+     */
+    void process(byte[] hashTrits);
+}
@@ -3,7 +3,6 @@ package com.iota.iri.model.persistables;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.HashFactory;
 import com.iota.iri.storage.Persistable;
-import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -16,10 +15,19 @@ public class Hashes implements Persistable {
     private static final byte delimiter = ",".getBytes()[0];
 
     public byte[] bytes() {
-        return set.parallelStream()
-                .map(Hash::bytes)
-                .reduce((a,b) -> ArrayUtils.addAll(ArrayUtils.add(a, delimiter), b))
-                .orElse(new byte[0]);
+        if (set.isEmpty()) {
+            return new byte[0];
+        }
+        byte[] bytes = new byte[set.size() * (1 + Hash.SIZE_IN_BYTES) - 1];
+        int i = 0;
+        for (Hash hash : set) {
+            if (i > 0) {
+                bytes[i++] = delimiter;
+            }
+            System.arraycopy(hash.bytes(), 0, bytes, i, Hash.SIZE_IN_BYTES);
+            i += Hash.SIZE_IN_BYTES;
+        }
+        return bytes;
     }
 
     public void read(byte[] bytes) {
@@ -169,6 +169,40 @@ public class Transaction implements Persistable {
         }
     }
 
+    /**
+     * Copies the transaction as it would be read back from the database. The bytes and hashes are shared, since
+     * they are replaced but never modified.
+     *
+     * @return a transaction with the same content
+     */
+    public Transaction copy() {
+        Transaction copy = new Transaction();
+        copy.bytes = bytes;
+        copy.address = address;
+        copy.bundle = bundle;
+        copy.trunk = trunk;
+        copy.branch = branch;
+        copy.obsoleteTag = obsoleteTag;
+        copy.value = value;
+        copy.currentIndex = currentIndex;
+        copy.lastIndex = lastIndex;
+        copy.timestamp = timestamp;
+        copy.tag = tag;
+        copy.attachmentTimestamp = attachmentTimestamp;
+        copy.attachmentTimestampLowerBound = attachmentTimestampLowerBound;
+        copy.attachmentTimestampUpperBound = attachmentTimestampUpperBound;
+        copy.validity = validity;
+        copy.type = type;
+        copy.arrivalTime = arrivalTime;
+        copy.parsed = parsed;
+        copy.solid = solid;
+        copy.milestone = milestone;
+        copy.height = height;
+        copy.sender = sender;
+        copy.snapshot = snapshot;
+        return copy;
+    }
+
     @Override
     public boolean merge() {
         return false;
@@ -0,0 +1,219 @@
+package com.iota.iri.network;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Decides whether received packets are admitted for processing, so the network ingest slows down when the storage
+ * can not keep up.
+ * <br>
+ * The decision is based on the occupancy of the receive queue of the {@link Node} and on the time it takes to store
+ * a batch of transactions, smoothed by an exponential moving average. Both are reported by the node, which asks
+ * {@link #admit()} for every packet that is not in its cache of recently seen packets before it is hashed and
+ * stored. The request a packet carries is answered either way, since replies are served from the caches.
+ * <br>
+ * The controller is in one of three {@link State}s. A state is entered as soon as one of the signals reaches its
+ * threshold, but only left once both signals fell below {@value #HYSTERESIS} times the thresholds, so the state
+ * doesn't flap while the storage works at its limit.
+ */
+public class AdmissionController {
+
+    /**
+     * Receive queue occupancy from which packets are throttled.
+     */
+    static final double THROTTLE_OCCUPANCY = 0.5;
+    /**
+     * Receive queue occupancy from which all packets are shed.
+     */
+    static final double SHED_OCCUPANCY = 0.9;
+    /**
+     * Average storage latency from which packets are throttled.
+     */
+    static final double THROTTLE_LATENCY_MS = 250;
+    /**
+     * Average storage latency from which all packets are shed.
+     */
+    static final double SHED_LATENCY_MS = 1000;
+    /**
+     * The share of packets that is admitted while throttled.
+     */
+    static final double THROTTLED_ADMIT_RATIO = 0.5;
+
+    private static final double HYSTERESIS = 0.8;
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    /**
+     * The load states of the node.
+     */
+    public enum State {
+        /**
+         * All packets are admitted.
+         */
+        NORMAL,
+
+        /**
+         * Only a share of the packets is admitted.
+         */
+        THROTTLED,
+
+        /**
+         * No packets are admitted until the storage caught up.
+         */
+        SHEDDING
+    }
+
+    private final int queueCapacity;
+    private final Consumer<State> stateListener;
+
+    private volatile State state = State.NORMAL;
+    private volatile double occupancy = 0;
+    private volatile double storageLatencyMs = 0;
+
+    private final LongAdder admittedCount = new LongAdder();
+    private final LongAdder throttledCount = new LongAdder();
+    private final LongAdder shedCount = new LongAdder();
+
+    /**
+     * @param queueCapacity the capacity of the receive queue
+     * @param stateListener called whenever the state changes
+     */
+    public AdmissionController(int queueCapacity, Consumer<State> stateListener) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.stateListener = stateListener;
+    }
+
+    /**
+     * Decides whether a received transaction is hashed and stored. Counts the decision.
+     *
+     * @return <tt>true</tt> if the transaction should be processed, <tt>false</tt> if it should be dropped
+     */
+    public boolean admit() {
+        switch (state) {
+            case SHEDDING:
+                shedCount.increment();
+                return false;
+            case THROTTLED:
+                if (ThreadLocalRandom.current().nextDouble() >= THROTTLED_ADMIT_RATIO) {
+                    throttledCount.increment();
+                    return false;
+                }
+                break;
+            default:
+                break;
+        }
+        admittedCount.increment();
+        return true;
+    }
+
+    /**
+     * Reports the current size of the receive queue.
+     *
+     * @param queueSize the number of queued transactions
+     */
+    public void updateQueueSize(int queueSize) {
+        occupancy = (double) queueSize / queueCapacity;
+        evaluate();
+    }
+
+    /**
+     * Reports how long storing a batch of transactions took.
+     *
+     * @param latencyMs the time it took to store the batch
+     */
+    public void recordStorageLatency(long latencyMs) {
+        // lost updates of concurrent storage workers only make the average a little less smooth
+        storageLatencyMs += (latencyMs - storageLatencyMs) * LATENCY_WEIGHT;
+        evaluate();
+    }
+
+    /**
+     * Reports that the storage had nothing to store, which counts like a batch that was stored instantly. Otherwise
+     * the average latency would stay high while all packets are shed and no batches are stored.
+     */
+    public void storageIdle() {
+        recordStorageLatency(0);
+    }
+
+    private void evaluate() {
+        State current = state;
+        State next = max(stateAt(1.0), min(current, stateAt(HYSTERESIS)));
+        if (next == current) {
+            return;
+        }
+        synchronized (this) {
+            current = state;
+            next = max(stateAt(1.0), min(current, stateAt(HYSTERESIS)));
+            if (next == current) {
+                return;
+            }
+            state = next;
+        }
+        if (stateListener != null) {
+            stateListener.accept(next);
+        }
+    }
+
+    /**
+     * @param scale the factor the thresholds are multiplied with
+     * @return the state the current signals call for
+     */
+    private State stateAt(double scale) {
+        double latency = storageLatencyMs;
+        double currentOccupancy = occupancy;
+        if (currentOccupancy >= SHED_OCCUPANCY * scale || latency >= SHED_LATENCY_MS * scale) {
+            return State.SHEDDING;
+        }
+        if (currentOccupancy >= THROTTLE_OCCUPANCY * scale || latency >= THROTTLE_LATENCY_MS * scale) {
+            return State.THROTTLED;
+        }
+        return State.NORMAL;
+    }
+
+    private static State max(State a, State b) {
+        return a.ordinal() >= b.ordinal() ? a : b;
+    }
+
+    private static State min(State a, State b) {
+        return a.ordinal() <= b.ordinal() ? a : b;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the occupancy of the receive queue between 0 and 1
+     */
+    public double getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * @return the average time it took to store a batch of transactions
+     */
+    public double getStorageLatencyMs() {
+        return storageLatencyMs;
+    }
+
+    /**
+     * @return the number of packets that were admitted
+     */
+    public long getAdmittedCount() {
+        return admittedCount.sum();
+    }
+
+    /**
+     * @return the number of packets that were dropped while throttled
+     */
+    public long getThrottledCount() {
+        return throttledCount.sum();
+    }
+
+    /**
+     * @return the number of packets that were dropped while shedding
+     */
+    public long getShedCount() {
+        return shedCount.sum();
+    }
+}
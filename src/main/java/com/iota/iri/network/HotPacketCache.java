@@ -0,0 +1,160 @@
+package com.iota.iri.network;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the raw bytes of recently stored transactions off the heap, so requests for them can be answered without a
+ * database lookup.
+ * <br>
+ * The transactions are written into a ring of fixed-size slots in a direct buffer; once the ring is full the oldest
+ * slot is overwritten. They are found by the first <tt>keySize</tt> bytes of their hash, which is what the neighbors
+ * send in their requests. The index maps a fingerprint of that key to a slot and is allowed to be wrong, since a
+ * lookup compares the key stored in the slot.
+ * <br>
+ * Every slot is guarded by a sequence lock: a writer makes its sequence odd while it writes the slot, and a reader
+ * only accepts bytes it copied while the sequence stayed the same. Neither puts nor lookups lock or allocate.
+ */
+public class HotPacketCache {
+
+    private final int keySize;
+    private final int payloadSize;
+    private final int slotSize;
+    private final int slotMask;
+    private final int indexMask;
+
+    private final ByteBuffer slots;
+    private final ThreadLocal<ByteBuffer> views;
+    private final AtomicLongArray sequences;
+    /**
+     * Maps a key fingerprint to the slot number plus one, 0 means empty.
+     */
+    private final AtomicIntegerArray index;
+    private final AtomicLong writeCursor = new AtomicLong(0L);
+
+    private final AtomicLong hitCount = new AtomicLong(0L);
+    private final AtomicLong missCount = new AtomicLong(0L);
+
+    /**
+     * @param capacity the number of transactions to keep, rounded up to a power of two
+     * @param keySize the number of hash bytes the transactions are looked up by
+     * @param payloadSize the number of bytes of a transaction
+     */
+    public HotPacketCache(int capacity, int keySize, int payloadSize) {
+        int slotCount = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.keySize = keySize;
+        this.payloadSize = payloadSize;
+        this.slotSize = keySize + payloadSize;
+        this.slotMask = slotCount - 1;
+        this.indexMask = 2 * slotCount - 1;
+
+        this.slots = ByteBuffer.allocateDirect(slotCount * slotSize);
+        this.views = ThreadLocal.withInitial(slots::duplicate);
+        this.sequences = new AtomicLongArray(slotCount);
+        this.index = new AtomicIntegerArray(2 * slotCount);
+    }
+
+    /**
+     * Adds a transaction unless it is cached already.
+     *
+     * @param hash the bytes of the transaction hash, at least <tt>keySize</tt> long
+     * @param payload the bytes of the transaction, at least <tt>payloadSize</tt> long
+     */
+    public void put(byte[] hash, byte[] payload) {
+        int bucket = bucket(hash);
+        ByteBuffer view = views.get();
+        int current = index.get(bucket) - 1;
+        if (current >= 0 && keyMatches(view, current, hash)) {
+            return;
+        }
+
+        int slot = (int) (writeCursor.getAndIncrement() & slotMask);
+        long sequence = sequences.get(slot);
+        // another writer still writes this slot after the ring wrapped around, skip the transaction
+        if ((sequence & 1) != 0 || !sequences.compareAndSet(slot, sequence, sequence + 1)) {
+            return;
+        }
+        view.clear();
+        view.position(slot * slotSize);
+        view.put(hash, 0, keySize);
+        view.put(payload, 0, payloadSize);
+        sequences.set(slot, sequence + 2);
+        index.set(bucket, slot + 1);
+    }
+
+    /**
+     * @param hash the bytes of the transaction hash, at least <tt>keySize</tt> long
+     * @return <tt>true</tt> if the transaction is cached at the moment
+     */
+    public boolean contains(byte[] hash) {
+        int slot = index.get(bucket(hash)) - 1;
+        return slot >= 0 && (sequences.get(slot) & 1) == 0 && keyMatches(views.get(), slot, hash);
+    }
+
+    /**
+     * Copies the bytes of a cached transaction to the start of <tt>target</tt>. The target may be changed even if
+     * the transaction was not found.
+     *
+     * @param hash the bytes of the transaction hash, at least <tt>keySize</tt> long
+     * @param target the array to copy the transaction to, at least <tt>payloadSize</tt> long
+     * @return <tt>true</tt> if the transaction was copied
+     */
+    public boolean copyTo(byte[] hash, byte[] target) {
+        int slot = index.get(bucket(hash)) - 1;
+        if (slot < 0) {
+            missCount.incrementAndGet();
+            return false;
+        }
+        long sequence = sequences.get(slot);
+        ByteBuffer view = views.get();
+        if ((sequence & 1) != 0 || !keyMatches(view, slot, hash)) {
+            missCount.incrementAndGet();
+            return false;
+        }
+        view.clear();
+        view.position(slot * slotSize + keySize);
+        view.get(target, 0, payloadSize);
+        // fails if a writer took the slot while we copied; as a write it also keeps the copy before the check
+        if (!sequences.compareAndSet(slot, sequence, sequence)) {
+            missCount.incrementAndGet();
+            return false;
+        }
+        hitCount.incrementAndGet();
+        return true;
+    }
+
+    private boolean keyMatches(ByteBuffer view, int slot, byte[] hash) {
+        int offset = slot * slotSize;
+        for (int i = 0; i < keySize; i++) {
+            if (view.get(offset + i) != hash[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int bucket(byte[] hash) {
+        int fingerprint = 0x811C9DC5;
+        for (int i = 0; i < keySize; i++) {
+            fingerprint = (fingerprint ^ hash[i]) * 0x01000193;
+        }
+        return (fingerprint ^ (fingerprint >>> 16)) & indexMask;
+    }
+
+    /**
+     * @return the number of transactions the cache holds at most
+     */
+    public int getCapacity() {
+        return slotMask + 1;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+}
@@ -1,15 +1,28 @@
 package com.iota.iri.network;
 
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.utils.collections.impl.RollingBloomFilter;
 import org.apache.commons.lang3.StringUtils;
 
 import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class Neighbor {
 
+    private static final int OUTBOUND_QUEUE_SIZE = 1000;
+    private static final int SEEN_FILTER_CAPACITY = 20_000;
+    private static final double SEEN_FILTER_FALSE_POSITIVE_RATE = 0.001;
+    private static final double INITIAL_REQUEST_SCORE = 0.5;
+    private static final double REQUEST_SCORE_WEIGHT = 0.1;
+
     private final InetSocketAddress address;
     
     private long numberOfAllTransactions;
@@ -18,6 +31,35 @@ public abstract class Neighbor {
     private long randomTransactionRequests;
     private long numberOfSentTransactions;
     private long numberOfStaleTransactions;
+    private final AtomicLong numberOfDroppedSentTransactions = new AtomicLong(0L);
+
+    /**
+     * Transactions waiting to be sent to this neighbor by one of the writer threads of the {@link Node}, one queue
+     * per {@link TrafficClass}.
+     */
+    private final BlockingQueue<OutboundTransaction>[] outboundQueues;
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+
+    /**
+     * State of the deficit round robin between the traffic classes. Only the writer thread that currently owns the
+     * neighbor touches it.
+     */
+    private final int[] deficits = new int[TrafficClass.VALUES.length];
+    private int currentTrafficClass = 0;
+    private TokenBucket sendBucket;
+
+    /**
+     * Transactions that this neighbor recently sent to us or received from us, so they don't have to be broadcast
+     * back to it.
+     */
+    private final RollingBloomFilter seenTransactions =
+            new RollingBloomFilter(SEEN_FILTER_CAPACITY, SEEN_FILTER_FALSE_POSITIVE_RATE);
+    private final AtomicLong numberOfSuppressedTransactions = new AtomicLong(0L);
+
+    /**
+     * Exponential moving average of how often the neighbor answered our transaction requests, between 0 and 1.
+     */
+    private volatile double requestScore = INITIAL_REQUEST_SCORE;
 
     private final boolean flagged;
     public boolean isFlagged() {
@@ -42,6 +84,16 @@ public abstract class Neighbor {
         this.address = address;
         this.hostAddress = address.getAddress().getHostAddress();
         this.flagged = isConfigured;
+        this.outboundQueues = createOutboundQueues();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BlockingQueue<OutboundTransaction>[] createOutboundQueues() {
+        BlockingQueue<OutboundTransaction>[] queues = new BlockingQueue[TrafficClass.VALUES.length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayBlockingQueue<>(OUTBOUND_QUEUE_SIZE);
+        }
+        return queues;
     }
 
     public abstract void send(final DatagramPacket packet);
@@ -96,6 +148,135 @@ public abstract class Neighbor {
         numberOfSentTransactions++;
     }
 
+    protected void incDroppedSentTransactions() {
+        numberOfDroppedSentTransactions.incrementAndGet();
+    }
+
+    /**
+     * Queues a transaction to be sent to this neighbor. If the queue of its traffic class is full the transaction is
+     * dropped and counted.
+     *
+     * @param transactionViewModel the transaction to send
+     * @param trafficClass the kind of packet the transaction is sent with
+     * @return <tt>true</tt> if the neighbor was not scheduled for writing yet and the caller has to schedule it
+     */
+    boolean queueOutbound(TransactionViewModel transactionViewModel, TrafficClass trafficClass) {
+        return queueOutbound(new OutboundTransaction(transactionViewModel, trafficClass));
+    }
+
+    /**
+     * Queues a transaction to be sent to this neighbor. If the queue of its traffic class is full the transaction is
+     * dropped and counted.
+     *
+     * @param outbound the transaction to send with the kind of packet it is sent with
+     * @return <tt>true</tt> if the neighbor was not scheduled for writing yet and the caller has to schedule it
+     */
+    boolean queueOutbound(OutboundTransaction outbound) {
+        if (!outboundQueues[outbound.getTrafficClass().ordinal()].offer(outbound)) {
+            incDroppedSentTransactions();
+            return false;
+        }
+        return writeScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Takes the next transaction to send. The traffic classes are served by deficit round robin: every time a class
+     * gets its turn it may send as many transactions as its weight before the next class is served. A class without
+     * queued transactions loses the rest of its turn.
+     *
+     * @param weights the weight of every traffic class, indexed by its ordinal
+     * @return the next transaction to send to this neighbor or <tt>null</tt> if none is queued
+     */
+    OutboundTransaction pollOutbound(int[] weights) {
+        for (int visited = 0; visited <= 2 * TrafficClass.VALUES.length; visited++) {
+            if (deficits[currentTrafficClass] > 0) {
+                OutboundTransaction outbound = outboundQueues[currentTrafficClass].poll();
+                if (outbound != null) {
+                    deficits[currentTrafficClass]--;
+                    return outbound;
+                }
+                deficits[currentTrafficClass] = 0;
+            }
+            currentTrafficClass = (currentTrafficClass + 1) % TrafficClass.VALUES.length;
+            deficits[currentTrafficClass] = Math.max(1, weights[currentTrafficClass]);
+        }
+        return null;
+    }
+
+    /**
+     * Called by the writer thread when it stops writing to this neighbor.
+     *
+     * @return <tt>true</tt> if transactions are still queued and the caller has to schedule the neighbor again
+     */
+    boolean finishWrite() {
+        writeScheduled.set(false);
+        return getOutboundQueueSize() > 0 && writeScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * @return the bucket that limits the packets sent to this neighbor, <tt>null</tt> until the {@link Node} set it
+     */
+    TokenBucket getSendBucket() {
+        return sendBucket;
+    }
+
+    void setSendBucket(TokenBucket sendBucket) {
+        this.sendBucket = sendBucket;
+    }
+
+    /**
+     * Remembers that this neighbor has a transaction, because it sent it to us or we sent it to the neighbor.
+     *
+     * @param hash the hash of the transaction
+     */
+    void markSeen(Hash hash) {
+        seenTransactions.add(hash.bytes());
+    }
+
+    /**
+     * @param hash the hash of a transaction
+     * @return <tt>true</tt> if the neighbor most likely has the transaction already
+     */
+    boolean hasSeen(Hash hash) {
+        return seenTransactions.mightContain(hash.bytes());
+    }
+
+    void incSuppressedTransactions() {
+        numberOfSuppressedTransactions.incrementAndGet();
+    }
+
+    public long getNumberOfSuppressedTransactions() {
+        return numberOfSuppressedTransactions.get();
+    }
+
+    /**
+     * Updates the request score with the outcome of a transaction request sent to this neighbor.
+     *
+     * @param answered <tt>true</tt> if the neighbor sent the requested transaction
+     */
+    synchronized void recordRequestAnswered(boolean answered) {
+        requestScore += REQUEST_SCORE_WEIGHT * ((answered ? 1 : 0) - requestScore);
+    }
+
+    /**
+     * @return how likely the neighbor answers a transaction request, between 0 and 1
+     */
+    public double getRequestScore() {
+        return requestScore;
+    }
+
+    public int getOutboundQueueSize() {
+        int size = 0;
+        for (BlockingQueue<OutboundTransaction> queue : outboundQueues) {
+            size += queue.size();
+        }
+        return size;
+    }
+
+    public long getNumberOfDroppedSentTransactions() {
+        return numberOfDroppedSentTransactions.get();
+    }
+
     public long getNumberOfAllTransactions() {
 		return numberOfAllTransactions;
 	}
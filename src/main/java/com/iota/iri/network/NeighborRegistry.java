@@ -0,0 +1,129 @@
+package com.iota.iri.network;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds the neighbors of a {@link Node} and finds the neighbor a packet came from.
+ * <br>
+ * Besides the list of neighbors, the registry indexes them by their IP address, separately for every connection
+ * type, so the sender of a packet is found with a single hash lookup instead of comparing the sender with every
+ * neighbor. Several neighbors may share an IP address on different ports; the index then points to the one that
+ * was added first, like the linear search did.
+ * <br>
+ * Changes are serialized, lookups don't lock.
+ */
+public class NeighborRegistry {
+
+    private final List<Neighbor> neighbors = new CopyOnWriteArrayList<>();
+    private final List<Neighbor> neighborsView = Collections.unmodifiableList(neighbors);
+    private final Map<InetAddress, Neighbor> udpNeighbors = new ConcurrentHashMap<>();
+    private final Map<InetAddress, Neighbor> tcpNeighbors = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a neighbor unless an equal one is registered already.
+     *
+     * @param neighbor the neighbor to add
+     * @return <tt>true</tt> if the neighbor was added
+     */
+    public synchronized boolean add(Neighbor neighbor) {
+        if (neighbors.contains(neighbor)) {
+            return false;
+        }
+        neighbors.add(neighbor);
+        InetAddress address = neighbor.getAddress().getAddress();
+        if (address != null) {
+            index(neighbor.connectionType()).putIfAbsent(address, neighbor);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a neighbor. If another neighbor with the same IP address and connection type is left, it takes over
+     * the address in the index.
+     *
+     * @param neighbor the neighbor to remove
+     * @return <tt>true</tt> if the neighbor was registered
+     */
+    public synchronized boolean remove(Neighbor neighbor) {
+        int position = neighbors.indexOf(neighbor);
+        if (position < 0) {
+            return false;
+        }
+        Neighbor removed = neighbors.remove(position);
+        InetAddress address = removed.getAddress().getAddress();
+        if (address != null) {
+            Map<InetAddress, Neighbor> index = index(removed.connectionType());
+            if (index.remove(address, removed)) {
+                neighbors.stream()
+                        .filter(n -> n.connectionType().equals(removed.connectionType())
+                                && address.equals(n.getAddress().getAddress()))
+                        .findFirst()
+                        .ifPresent(n -> index.put(address, n));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the neighbor that sent a packet. Neighbors with the connection type the packet was received with are
+     * preferred, but like before a neighbor of the other type with the same IP address is accepted as well.
+     *
+     * @param senderAddress the address the packet came from
+     * @param uriScheme the connection type the packet was received with, <tt>udp</tt> or <tt>tcp</tt>
+     * @return the neighbor or <tt>null</tt> if the sender is not a neighbor
+     */
+    public Neighbor find(SocketAddress senderAddress, String uriScheme) {
+        if (!(senderAddress instanceof InetSocketAddress)) {
+            return findByScan(senderAddress);
+        }
+        InetAddress address = ((InetSocketAddress) senderAddress).getAddress();
+        if (address == null) {
+            return null;
+        }
+        boolean tcp = "tcp".equals(uriScheme);
+        Neighbor neighbor = (tcp ? tcpNeighbors : udpNeighbors).get(address);
+        if (neighbor == null) {
+            neighbor = (tcp ? udpNeighbors : tcpNeighbors).get(address);
+        }
+        return neighbor;
+    }
+
+    /**
+     * @param address the IP address of a TCP connection
+     * @return the TCP neighbor with the IP address or <tt>null</tt> if there is none
+     */
+    public TCPNeighbor findTcpNeighbor(InetAddress address) {
+        return (TCPNeighbor) tcpNeighbors.get(address);
+    }
+
+    private Neighbor findByScan(SocketAddress senderAddress) {
+        for (Neighbor neighbor : neighbors) {
+            if (neighbor.matches(senderAddress)) {
+                return neighbor;
+            }
+        }
+        return null;
+    }
+
+    private Map<InetAddress, Neighbor> index(String connectionType) {
+        return "tcp".equals(connectionType) ? tcpNeighbors : udpNeighbors;
+    }
+
+    /**
+     * @return a read-only view of the registered neighbors in the order they were added
+     */
+    public List<Neighbor> getNeighbors() {
+        return neighborsView;
+    }
+
+    public int size() {
+        return neighbors.size();
+    }
+}
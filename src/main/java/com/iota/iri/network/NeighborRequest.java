@@ -0,0 +1,36 @@
+package com.iota.iri.network;
+
+import com.iota.iri.model.Hash;
+
+/**
+ * A transaction request of a {@link Neighbor} waiting in the reply queue.
+ */
+class NeighborRequest {
+
+    private final Hash requestedHash;
+    private final Neighbor neighbor;
+    private final boolean propagate;
+
+    /**
+     * @param requestedHash the requested hash, {@link Hash#NULL_HASH} requests a random tip
+     * @param neighbor the neighbor that sent the request
+     * @param propagate <tt>false</tt> if the requested transaction must not be requested by us when we don't have it
+     */
+    NeighborRequest(Hash requestedHash, Neighbor neighbor, boolean propagate) {
+        this.requestedHash = requestedHash;
+        this.neighbor = neighbor;
+        this.propagate = propagate;
+    }
+
+    Hash getRequestedHash() {
+        return requestedHash;
+    }
+
+    Neighbor getNeighbor() {
+        return neighbor;
+    }
+
+    boolean isPropagate() {
+        return propagate;
+    }
+}
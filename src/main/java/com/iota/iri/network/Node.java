@@ -5,11 +5,20 @@ import com.iota.iri.TransactionValidator;
 import com.iota.iri.conf.NodeConfig;
 import com.iota.iri.controllers.TipsViewModel;
 import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.crypto.Sponge;
 import com.iota.iri.crypto.SpongeFactory;
+import com.iota.iri.crypto.batched.BCTCurl;
+import com.iota.iri.crypto.batched.BatchedHasher;
+import com.iota.iri.crypto.batched.BatchedHasherImpl;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.HashFactory;
-import com.iota.iri.model.TransactionHash;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
 import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.TransactionCache;
+import com.iota.iri.utils.Converter;
+import com.iota.iri.utils.collections.impl.BoundedBlockingPriorityQueue;
+import com.iota.iri.utils.collections.impl.BoundedFairBlockingQueue;
 import com.iota.iri.zmq.MessageQ;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -18,14 +27,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.*;
-import java.nio.ByteBuffer;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.channels.DatagramChannel;
 import java.security.SecureRandom;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class Node is the core class for handling IRI gossip protocol packets. 
@@ -47,23 +53,39 @@ public class Node {
     private final int reqHashSize;
 
 
-    private int BROADCAST_QUEUE_SIZE;
-    private int RECV_QUEUE_SIZE;
-    private int REPLY_QUEUE_SIZE;
-    private static final int PAUSE_BETWEEN_TRANSACTIONS = 1;
+    private static final long QUEUE_POLL_TIMEOUT = 1000L;
+    private static final int STORAGE_BATCH_SIZE = 32;
+    private static final int REPLY_BATCH_SIZE = 32;
+    private static final int WRITE_BATCH_SIZE = 16;
+    private static final double MIN_REQUEST_SHARE = 0.1;
+    private static final long MAX_SEND_DELAY = TimeUnit.SECONDS.toNanos(1);
+    private static final int NUMBER_OF_WRITERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
 
     private final AtomicBoolean shuttingDown = new AtomicBoolean(false);
 
-    private final List<Neighbor> neighbors = new CopyOnWriteArrayList<>();
-    private final ConcurrentSkipListSet<TransactionViewModel> broadcastQueue = weightQueue();
-    private final ConcurrentSkipListSet<Pair<TransactionViewModel, Neighbor>> receiveQueue = weightQueueTxPair();
-    private final ConcurrentSkipListSet<Pair<Hash, Neighbor>> replyQueue = weightQueueHashPair();
+    private final NeighborRegistry neighborRegistry = new NeighborRegistry();
+    private final List<Neighbor> neighbors = neighborRegistry.getNeighbors();
+    private final BoundedBlockingPriorityQueue<TransactionViewModel> broadcastQueue;
+    private final BoundedFairBlockingQueue<Neighbor, Pair<TransactionViewModel, Neighbor>> receiveQueue;
+    private final BoundedBlockingPriorityQueue<NeighborRequest> replyQueue;
 
+    /**
+     * Neighbors with queued outbound transactions. A neighbor is in here at most once, so every neighbor is written
+     * by at most one writer thread at a time. Neighbors that ran out of send tokens are delayed until they may send
+     * again.
+     */
+    private final DelayQueue<ScheduledWrite> neighborsReadyToSend = new DelayQueue<>();
+
+    /**
+     * Limits the packets sent to all neighbors together.
+     */
+    private TokenBucket sendBucket;
+    private long neighborSendLimit;
+    private final int[] sendWeights = new int[TrafficClass.VALUES.length];
 
-    private final DatagramPacket sendingPacket;
-    private final DatagramPacket tipRequestingPacket;
+    private final Set<Hash> transactionsBeingStored = ConcurrentHashMap.newKeySet();
 
-    private final ExecutorService executor = Executors.newFixedThreadPool(5);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
     private final NodeConfig configuration;
     private final Tangle tangle;
     private final TipsViewModel tipsViewModel;
@@ -75,17 +97,16 @@ public class Node {
     private static final SecureRandom rnd = new SecureRandom();
 
 
-    private FIFOCache<ByteBuffer, Hash> recentSeenBytes;
-
-    private static AtomicLong recentSeenBytesMissCount = new AtomicLong(0L);
-    private static AtomicLong recentSeenBytesHitCount = new AtomicLong(0L);
-
-    private static long sendLimit = -1;
-    private static AtomicLong sendPacketsCounter = new AtomicLong(0L);
-    private static AtomicLong sendPacketsTimer = new AtomicLong(0L);
+    private RecentSeenBytesCache recentSeenBytes;
+    private final HotPacketCache hotPackets;
+    private final AdmissionController admissionController;
+    private final TipRequestScheduler tipRequestScheduler = new TipRequestScheduler();
+    private TransactionViewModel latestMilestonePacket = null;
+    private BatchedHasher batchedHasher;
+    private PacketScratchPool packetScratches;
 
     public static final ConcurrentSkipListSet<String> rejectedAddresses = new ConcurrentSkipListSet<String>();
-    private DatagramSocket udpSocket;
+    private DatagramChannel udpChannel;
 
     /**
      * Constructs a Node class instance. The constructor is passed reference
@@ -110,10 +131,18 @@ public class Node {
         this.milestoneTracker = milestoneTracker;
         this.messageQ = messageQ;
         this.reqHashSize = configuration.getRequestHashSize();
-        int packetSize = configuration.getTransactionPacketSize();
-        this.sendingPacket = new DatagramPacket(new byte[packetSize], packetSize);
-        this.tipRequestingPacket = new DatagramPacket(new byte[packetSize], packetSize);
 
+        int queueSize = configuration.getqSizeNode();
+        this.broadcastQueue = new BoundedBlockingPriorityQueue<>(queueSize, WEIGHT_ORDER);
+        this.receiveQueue = new BoundedFairBlockingQueue<>(queueSize, configuration.getNeighborReceiveQuota(),
+                Comparator.comparing(Pair::getLeft, WEIGHT_ORDER));
+        this.replyQueue = new BoundedBlockingPriorityQueue<>(queueSize, Comparator.comparing(NeighborRequest::getRequestedHash, HASH_ORDER));
+        this.hotPackets = new HotPacketCache(configuration.getHotPacketCacheSize(), reqHashSize,
+                TransactionViewModel.SIZE);
+        this.admissionController = new AdmissionController(queueSize, state -> {
+            log.info("Admission of received packets changed to {}", state);
+            messageQ.publish("adm %s", state);
+        });
     }
 
     /**
@@ -122,40 +151,73 @@ public class Node {
      */
     public void init() throws Exception {
 
-        //TODO ask Alon
-        sendLimit = (long) ((configuration.getSendLimit() * 1000000) / (configuration.getTransactionPacketSize() * 8));
+        sendBucket = new TokenBucket(toPacketsPerSecond(configuration.getSendLimit()));
+        neighborSendLimit = toPacketsPerSecond(configuration.getNeighborSendLimit());
+        sendWeights[TrafficClass.REPLY.ordinal()] = configuration.getReplySendWeight();
+        sendWeights[TrafficClass.REQUEST.ordinal()] = configuration.getRequestSendWeight();
+        sendWeights[TrafficClass.BROADCAST.ordinal()] = configuration.getBroadcastSendWeight();
+
+        recentSeenBytes = new RecentSeenBytesCache(configuration.getCacheSizeBytes(), configuration.getpDropCacheEntry());
 
-        BROADCAST_QUEUE_SIZE = RECV_QUEUE_SIZE = REPLY_QUEUE_SIZE = configuration.getqSizeNode();
-        recentSeenBytes = new FIFOCache<>(configuration.getCacheSizeBytes(), configuration.getpDropCacheEntry());
+        int hashingThreads = configuration.getHashingThreads() > 0 ? configuration.getHashingThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        batchedHasher = new BatchedHasherImpl(SpongeFactory.Mode.CURLP81, TransactionViewModel.TRINARY_SIZE,
+                hashingThreads, configuration.getHashingBatchTimeout());
+        batchedHasher.init();
+        // enough for the queue of the hasher and the batch every hashing thread works on
+        packetScratches = new PacketScratchPool(BCTCurl.MAX_BATCH_SIZE * 5 * hashingThreads,
+                TransactionViewModel.SIZE + reqHashSize, TransactionViewModel.TRINARY_SIZE, this::processHashedData);
 
         parseNeighborsConfig();
 
         executor.submit(spawnBroadcasterThread());
+        for (int i = 0; i < NUMBER_OF_WRITERS; i++) {
+            executor.submit(spawnNeighborWriterThread());
+        }
         executor.submit(spawnTipRequesterThread());
         executor.submit(spawnNeighborDNSRefresherThread());
-        executor.submit(spawnProcessReceivedThread());
-        executor.submit(spawnReplyToRequestThread());
+        int storageWorkers = configuration.getStorageWorkers() > 0 ? configuration.getStorageWorkers()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        for (int i = 0; i < storageWorkers; i++) {
+            executor.submit(spawnProcessReceivedThread());
+        }
+        int replyWorkers = configuration.getReplyWorkers() > 0 ? configuration.getReplyWorkers()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        for (int i = 0; i < replyWorkers; i++) {
+            executor.submit(spawnReplyToRequestThread());
+        }
 
         executor.shutdown();
     }
 
     /**
-     * Keeps the passed UDP DatagramSocket reference from {@link UDPReceiver}.
+     * Converts a send limit in Mbit/s to packets per second, keeping negative limits as "no limit". Limits below
+     * one packet per second come out as 0, which the {@link TokenBucket} raises to one packet per second.
+     */
+    private long toPacketsPerSecond(int sendLimit) {
+        if (sendLimit < 0) {
+            return -1;
+        }
+        return (long) ((sendLimit * 1000000L) / (configuration.getTransactionPacketSize() * 8));
+    }
+
+    /**
+     * Keeps the passed UDP DatagramChannel reference from {@link UDPReceiver}.
      * This is currently only used in creating a new {@link UDPNeighbor}. 
      * 
-     * @param {@link DatagramSocket} socket created by UDPReceiver 
+     * @param {@link DatagramChannel} channel created by UDPReceiver 
      */
-    public void setUDPSocket(final DatagramSocket socket) {
-        this.udpSocket = socket;
+    public void setUdpChannel(final DatagramChannel channel) {
+        this.udpChannel = channel;
     }
 
     /**
-     * Returns the stored UDP DatagramSocket reference from {@link UDPReceiver}.
+     * Returns the stored UDP DatagramChannel reference from {@link UDPReceiver}.
      * 
-     * @return {@link DatagramSocket} socket created by UDPReceiver 
+     * @return {@link DatagramChannel} channel created by UDPReceiver 
      */
-    public DatagramSocket getUdpSocket() {
-        return udpSocket;
+    public DatagramChannel getUdpChannel() {
+        return udpChannel;
     }
 
     /**
@@ -265,108 +327,69 @@ public class Node {
     /**
      * First Entry point for receiving any incoming transactions from TCP/UDP Receivers. 
      * At this point, the transport protocol (UDP/TCP) is irrelevant. We check if we have
-     * already received this packet by taking a hash of incoming payload and 
-     * comparing it against a saved hash set. If the packet is new, we construct
-     * a {@link TransactionViewModel} object from it and perform some basic validation
-     * on the received transaction via  {@link TransactionValidator#runValidation}
-     * 
-     * The packet is then added to  {@link receiveQueue} for further processing. 
+     * already received this packet by taking a fingerprint of incoming payload and 
+     * comparing it against a saved hash set. If the packet is new and the {@link AdmissionController} admits it, the
+     * checks that don't need the hash are run on its bytes by {@link TransactionValidator#preValidate}. Packets that
+     * are not admitted only get their request answered. If the checks pass, the packet is handed to the
+     * {@link BatchedHasher}, which hashes it together with other received transactions
+     * and continues in {@link #processHashedData}. Stale transactions are dropped before hashing and only the request
+     * they carry is answered, unless we request the hash they request: such a packet may be the transaction we
+     * requested, requesting itself, and is hashed so its request gets cleared.
+     *
+     * The passed array may be reused by the caller as soon as this method returns.
      */
      
     public void preProcessReceivedData(byte[] receivedData, SocketAddress senderAddress, String uriScheme) {
-        TransactionViewModel receivedTransactionViewModel = null;
-        Hash receivedTransactionHash = null;
-
-        boolean addressMatch = false;
-        boolean cached = false;
-        double pDropTransaction = configuration.getpDropTransaction();
-
-        for (final Neighbor neighbor : getNeighbors()) {
-            addressMatch = neighbor.matches(senderAddress);
-            if (addressMatch) {
-                //Validate transaction
-                neighbor.incAllTransactions();
-                if (rnd.nextDouble() < pDropTransaction) {
-                    //log.info("Randomly dropping transaction. Stand by... ");
-                    break;
-                }
+        final Neighbor neighbor = neighborRegistry.find(senderAddress, uriScheme);
+        if (neighbor != null) {
+            //Validate transaction
+            neighbor.incAllTransactions();
+            if (rnd.nextDouble() < configuration.getpDropTransaction()) {
+                //log.info("Randomly dropping transaction. Stand by... ");
+                return;
+            }
+            //check if cached
+            RecentSeenBytesCache.Key digest = recentSeenBytes.key(receivedData, TransactionViewModel.SIZE);
+            Hash receivedTransactionHash = recentSeenBytes.get(digest);
+
+            if (receivedTransactionHash != null) {
+                neighbor.markSeen(receivedTransactionHash);
+                addReceivedDataToReplyQueue(getRequestedHash(receivedData, receivedTransactionHash), neighbor);
+            } else if (!admissionController.admit()) {
+                //the storage falls behind, so the transaction is dropped but the request it carries is still
+                //answered; without the hash a request of the transaction itself can't be told apart
+                replyQueue.offer(new NeighborRequest(requestPrefix(receivedData), neighbor, false));
+            } else {
+                //drop junk before paying for the hash
                 try {
-
-                    //Transaction bytes
-                    ByteBuffer digest = getBytesDigest(receivedData);
-
-                    //check if cached
-                    synchronized (recentSeenBytes) {
-                        cached = (receivedTransactionHash = recentSeenBytes.get(digest)) != null;
-                    }
-
-                    if (!cached) {
-                        //if not, then validate
-                        receivedTransactionViewModel = new TransactionViewModel(receivedData, TransactionHash.calculate(receivedData, TransactionViewModel.TRINARY_SIZE, SpongeFactory.create(SpongeFactory.Mode.CURLP81)));
-                        receivedTransactionHash = receivedTransactionViewModel.getHash();
-                        transactionValidator.runValidation(receivedTransactionViewModel, transactionValidator.getMinWeightMagnitude());
-
-                        synchronized (recentSeenBytes) {
-                            recentSeenBytes.put(digest, receivedTransactionHash);
-                        }
-
-                        //if valid - add to receive queue (receivedTransactionViewModel, neighbor)
-                        addReceivedDataToReceiveQueue(receivedTransactionViewModel, neighbor);
-
-                    }
-
-                } catch (NoSuchAlgorithmException e) {
-                    log.error("MessageDigest: " + e);
+                    transactionValidator.preValidate(receivedData);
                 } catch (final TransactionValidator.StaleTimestampException e) {
-                    log.debug(e.getMessage());
-                    try {
-                        transactionRequester.clearTransactionRequest(receivedTransactionHash);
-                    } catch (Exception e1) {
-                        log.error(e1.getMessage());
+                    Hash requestedHash = requestPrefix(receivedData);
+                    //a packet that requests a hash we request may be that transaction, requesting itself; it is
+                    //hashed so processHashedData can clear our request
+                    if (!transactionRequester.isTransactionRequested(requestedHash, false)) {
+                        log.debug(e.getMessage());
+                        neighbor.incStaleTransactions();
+                        //the request may be the stale transaction itself, so it isn't requested by us
+                        replyQueue.offer(new NeighborRequest(requestedHash, neighbor, false));
+                        return;
                     }
-                    neighbor.incStaleTransactions();
                 } catch (final RuntimeException e) {
                     log.error(e.getMessage());
                     log.error("Received an Invalid TransactionViewModel. Dropping it...");
                     neighbor.incInvalidTransactions();
-                    break;
-                }
-
-                //Request bytes
-
-                //add request to reply queue (requestedHash, neighbor)
-                Hash requestedHash = HashFactory.TRANSACTION.create(receivedData, TransactionViewModel.SIZE, reqHashSize);
-                if (requestedHash.equals(receivedTransactionHash)) {
-                    //requesting a random tip
-                    requestedHash = Hash.NULL_HASH;
+                    return;
                 }
 
-                addReceivedDataToReplyQueue(requestedHash, neighbor);
-
-                //recentSeenBytes statistics
-
-                if (log.isDebugEnabled()) {
-                    long hitCount, missCount;
-                    if (cached) {
-                        hitCount = recentSeenBytesHitCount.incrementAndGet();
-                        missCount = recentSeenBytesMissCount.get();
-                    } else {
-                        hitCount = recentSeenBytesHitCount.get();
-                        missCount = recentSeenBytesMissCount.incrementAndGet();
-                    }
-                    if (((hitCount + missCount) % 50000L == 0)) {
-                        log.info("RecentSeenBytes cache hit/miss ratio: " + hitCount + "/" + missCount);
-                        messageQ.publish("hmr %d/%d", hitCount, missCount);
-                        recentSeenBytesMissCount.set(0L);
-                        recentSeenBytesHitCount.set(0L);
-                    }
+                //if not, then hash and validate it together with other received transactions
+                PacketScratchPool.Scratch scratch = packetScratches.acquire(receivedData, digest, neighbor);
+                Converter.getTrits(scratch.getPacket(), scratch.getTrits());
+                if (!batchedHasher.submitHashingRequest(scratch.getHashRequest())) {
+                    //the hasher fell behind, drop the packet like a full receive queue does
+                    packetScratches.release(scratch);
                 }
-
-                break;
             }
-        }
-
-        if (!addressMatch && configuration.isTestnet()) {
+        } else if (configuration.isTestnet()) {
             int maxPeersAllowed = configuration.getMaxPeers();
             String uriString = uriScheme + ":/" + senderAddress.toString();
             if (Neighbor.getNumPeers() < maxPeersAllowed) {
@@ -376,8 +399,7 @@ public class Node {
                     final URI uri = new URI(uriString);
                     // 3rd parameter false (not tcp), 4th parameter true (configured tethering)
                     final Neighbor newneighbor = newNeighbor(uri, false);
-                    if (!getNeighbors().contains(newneighbor)) {
-                        getNeighbors().add(newneighbor);
+                    if (addNeighbor(newneighbor)) {
                         Neighbor.incNumPeers();
                     }
                 } catch (URISyntaxException e) {
@@ -397,13 +419,82 @@ public class Node {
     }
     
     /**
-     * Adds incoming transactions to the {@link receiveQueue} to be processed later.
+     * Continues {@link #preProcessReceivedData} once the hash of a received transaction is known. We construct
+     * a {@link TransactionViewModel} object from it and perform some basic validation
+     * on the received transaction via  {@link TransactionValidator#runValidation}
+     *
+     * The transaction is then added to  {@link receiveQueue} for further processing and the request
+     * of the neighbor is added to the {@link replyQueue}.
+     *
+     * The pooled scratch of the packet is reused as soon as this method returns, so nothing may keep a reference
+     * to its arrays. The {@link TransactionViewModel} copies the transaction bytes.
+     *
+     * @param scratch the pooled copy of the received packet, its fingerprint and the neighbor that sent it
+     * @param hashTrits trits of the transaction hash
+     */
+    private void processHashedData(PacketScratchPool.Scratch scratch, byte[] hashTrits) {
+        byte[] packet = scratch.getPacket();
+        Neighbor neighbor = scratch.getNeighbor();
+        Hash receivedTransactionHash = HashFactory.TRANSACTION.create(hashTrits, 0, Sponge.HASH_LENGTH);
+        neighbor.markSeen(receivedTransactionHash);
+        try {
+            TransactionViewModel receivedTransactionViewModel = new TransactionViewModel(packet, receivedTransactionHash);
+            transactionValidator.runValidation(receivedTransactionViewModel, transactionValidator.getMinWeightMagnitude());
+
+            recentSeenBytes.put(scratch.getDigest(), receivedTransactionHash);
+
+            //if valid - add to receive queue (receivedTransactionViewModel, neighbor)
+            addReceivedDataToReceiveQueue(receivedTransactionViewModel, neighbor);
+        } catch (final TransactionValidator.StaleTimestampException e) {
+            log.debug(e.getMessage());
+            try {
+                transactionRequester.clearTransactionRequest(receivedTransactionHash);
+            } catch (Exception e1) {
+                log.error(e1.getMessage());
+            }
+            neighbor.incStaleTransactions();
+        } catch (final RuntimeException e) {
+            log.error(e.getMessage());
+            log.error("Received an Invalid TransactionViewModel. Dropping it...");
+            neighbor.incInvalidTransactions();
+            return;
+        }
+
+        //add request to reply queue (requestedHash, neighbor)
+        addReceivedDataToReplyQueue(getRequestedHash(packet, receivedTransactionHash), neighbor);
+    }
+
+    /**
+     * Reads the hash a neighbor requests with a packet.
+     *
+     * @param packet the received packet
+     * @param receivedTransactionHash the hash of the transaction in the packet
+     * @return the requested hash or {@link Hash#NULL_HASH} if a random tip is requested
      */
-    public void addReceivedDataToReceiveQueue(TransactionViewModel receivedTransactionViewModel, Neighbor neighbor) {
-        receiveQueue.add(new ImmutablePair<>(receivedTransactionViewModel, neighbor));
-        if (receiveQueue.size() > RECV_QUEUE_SIZE) {
-            receiveQueue.pollLast();
+    private Hash getRequestedHash(byte[] packet, Hash receivedTransactionHash) {
+        Hash requestedHash = requestPrefix(packet);
+        if (requestedHash.equals(receivedTransactionHash)) {
+            //requesting a random tip
+            requestedHash = Hash.NULL_HASH;
         }
+        return requestedHash;
+    }
+
+    /**
+     * @param packet the received packet
+     * @return the hash the packet requests, which may also be the hash of its own transaction
+     */
+    private Hash requestPrefix(byte[] packet) {
+        return HashFactory.TRANSACTION.create(packet, TransactionViewModel.SIZE, reqHashSize);
+    }
+
+    /**
+     * Adds incoming transactions to the {@link receiveQueue} to be processed later. Every neighbor has its own
+     * share of the queue, so a neighbor that floods us only pushes out its own transactions.
+     */
+    public void addReceivedDataToReceiveQueue(TransactionViewModel receivedTransactionViewModel, Neighbor neighbor) {
+        receiveQueue.offer(neighbor, new ImmutablePair<>(receivedTransactionViewModel, neighbor));
+        admissionController.updateQueueSize(receiveQueue.size());
 
     }
 
@@ -411,31 +502,40 @@ public class Node {
      * Adds incoming transactions to the {@link replyQueue} to be processed later
      */
     public void addReceivedDataToReplyQueue(Hash requestedHash, Neighbor neighbor) {
-        replyQueue.add(new ImmutablePair<>(requestedHash, neighbor));
-        if (replyQueue.size() > REPLY_QUEUE_SIZE) {
-            replyQueue.pollLast();
-        }
+        replyQueue.offer(new NeighborRequest(requestedHash, neighbor, true));
     }
 
     /**
-     * Picks up a transaction and neighbor pair from receive queue. Calls 
-     * {@link processReceivedData} on the pair. 
+     * Picks up transaction and neighbor pairs from receive queue, waiting for the first one to arrive. Up to
+     * {@link #STORAGE_BATCH_SIZE} pairs that are already queued are taken along and passed to
+     * {@link #processReceivedData(List)} together. The {@link AdmissionController} learns about the new occupancy
+     * of the queue afterwards.
      */
-    public void processReceivedDataFromQueue() {
-        final Pair<TransactionViewModel, Neighbor> receivedData = receiveQueue.pollFirst();
-        if (receivedData != null) {
-            processReceivedData(receivedData.getLeft(), receivedData.getRight());
+    public void processReceivedDataFromQueue() throws InterruptedException {
+        final Pair<TransactionViewModel, Neighbor> first = receiveQueue.poll(QUEUE_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+        if (first != null) {
+            List<Pair<TransactionViewModel, Neighbor>> receivedData = new ArrayList<>(STORAGE_BATCH_SIZE);
+            receivedData.add(first);
+            receiveQueue.drainTo(receivedData, STORAGE_BATCH_SIZE - 1);
+            processReceivedData(receivedData);
+        } else {
+            admissionController.storageIdle();
         }
+        admissionController.updateQueueSize(receiveQueue.size());
     }
 
     /**
-     * Picks up a transaction hash and neighbor pair from reply queue. Calls 
-     * {@link replyToRequest} on the pair. 
+     * Picks up a transaction hash and neighbor pair from reply queue, waiting for one to arrive. The pair is
+     * answered together with up to {@value #REPLY_BATCH_SIZE} - 1 further queued pairs by
+     * {@link #replyToRequest(List)}.
      */
-    public void replyToRequestFromQueue() {
-        final Pair<Hash, Neighbor> receivedData = replyQueue.pollFirst();
+    public void replyToRequestFromQueue() throws InterruptedException {
+        final NeighborRequest receivedData = replyQueue.poll(QUEUE_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
         if (receivedData != null) {
-            replyToRequest(receivedData.getLeft(), receivedData.getRight());
+            List<NeighborRequest> requests = new ArrayList<>(REPLY_BATCH_SIZE);
+            requests.add(receivedData);
+            replyQueue.drainTo(requests, REPLY_BATCH_SIZE - 1);
+            replyToRequest(requests);
         }
     }
 
@@ -446,86 +546,182 @@ public class Node {
      * transaction is then added to the broadcast queue, to be fruther spammed to the neighbors. 
      */
     public void processReceivedData(TransactionViewModel receivedTransactionViewModel, Neighbor neighbor) {
+        processReceivedData(Collections.singletonList(new ImmutablePair<>(receivedTransactionViewModel, neighbor)));
+    }
 
-        boolean stored = false;
-
-        //store new transaction
+    /**
+     * Stores several received transactions with a single {@link Tangle#saveBatch} call. The arrival time and the
+     * sender are set before saving, so they are written together with the transaction.
+     * <br>
+     * Several storage workers run this concurrently. A transaction whose hash is already being stored by another
+     * worker is skipped, so the same transaction is never stored twice at once.
+     *
+     * @param receivedData the received transactions with the neighbors that sent them
+     */
+    public void processReceivedData(List<Pair<TransactionViewModel, Neighbor>> receivedData) {
+        List<Hash> claimedHashes = new ArrayList<>(receivedData.size());
         try {
-            stored = receivedTransactionViewModel.store(tangle);
-        } catch (Exception e) {
-            log.error("Error accessing persistence store.", e);
-            neighbor.incInvalidTransactions();
-        }
+            List<Pair<TransactionViewModel, Neighbor>> newTransactions = new ArrayList<>(receivedData.size());
+            List<com.iota.iri.utils.Pair<Indexable, Persistable>> saveBatch = new ArrayList<>();
+            long arrivalTime = System.currentTimeMillis();
+
+            for (Pair<TransactionViewModel, Neighbor> pair : receivedData) {
+                TransactionViewModel transactionViewModel = pair.getLeft();
+                Neighbor neighbor = pair.getRight();
+                Hash hash = transactionViewModel.getHash();
+                if (hash.equals(Hash.NULL_HASH) || !transactionsBeingStored.add(hash)) {
+                    continue;
+                }
+                claimedHashes.add(hash);
 
-        //if new, then broadcast to all neighbors
-        if (stored) {
-            receivedTransactionViewModel.setArrivalTime(System.currentTimeMillis());
+                try {
+                    if (TransactionViewModel.exists(tangle, hash)) {
+                        continue;
+                    }
+                    transactionViewModel.setArrivalTime(arrivalTime);
+                    transactionViewModel.updateSender(neighbor.getAddress().toString());
+                    saveBatch.addAll(transactionViewModel.getSaveBatch());
+                    newTransactions.add(pair);
+                } catch (Exception e) {
+                    log.error("Error accessing persistence store.", e);
+                    neighbor.incInvalidTransactions();
+                }
+            }
+
+            if (newTransactions.isEmpty()) {
+                return;
+            }
+
+            //store new transactions
             try {
-                transactionValidator.updateStatus(receivedTransactionViewModel);
-                receivedTransactionViewModel.updateSender(neighbor.getAddress().toString());
-                receivedTransactionViewModel.update(tangle, "arrivalTime|sender");
+                long start = System.currentTimeMillis();
+                tangle.saveBatch(saveBatch);
+                admissionController.recordStorageLatency(System.currentTimeMillis() - start);
             } catch (Exception e) {
-                log.error("Error updating transactions.", e);
+                log.error("Error accessing persistence store.", e);
+                newTransactions.forEach(pair -> pair.getRight().incInvalidTransactions());
+                return;
             }
-            neighbor.incNewTransactions();
-            broadcast(receivedTransactionViewModel);
-        }
 
+            //new, so broadcast to all neighbors
+            for (Pair<TransactionViewModel, Neighbor> pair : newTransactions) {
+                TransactionViewModel transactionViewModel = pair.getLeft();
+                try {
+                    transactionRequester.recordReceived(transactionViewModel.getHash(), pair.getRight());
+                    transactionValidator.updateStatus(transactionViewModel);
+                    //lets the ZMQ provider publish the new transaction
+                    transactionViewModel.update(tangle, "arrivalTime|sender");
+                } catch (Exception e) {
+                    log.error("Error updating transactions.", e);
+                }
+                pair.getRight().incNewTransactions();
+                broadcast(transactionViewModel);
+            }
+        } finally {
+            claimedHashes.forEach(transactionsBeingStored::remove);
+        }
     }
 
     /**
-     * This is second step of incoming transaction processing. The newly received 
-     * and validated transactions are stored in {@link receiveQueue}. This function
-     * picks up these transaction and stores them into the {@link Tangle} Database. The 
-     * transaction is then added to the broadcast queue, to be fruther spammed to the neighbors. 
+     * Answers a single transaction request of a neighbor, see {@link #replyToRequest(List)}.
+     *
+     * @param requestedHash the requested hash, {@link Hash#NULL_HASH} requests a random tip
+     * @param neighbor the neighbor that sent the request
      */
     public void replyToRequest(Hash requestedHash, Neighbor neighbor) {
+        replyToRequest(Collections.singletonList(new NeighborRequest(requestedHash, neighbor, true)));
+    }
 
-        TransactionViewModel transactionViewModel = null;
-        Hash transactionPointer;
+    /**
+     * Answers the transaction requests of the neighbors. The requested transactions are read from the
+     * {@link Tangle} with a single lookup and queued for sending to the requesting neighbors. Requested
+     * transactions that we don't have are requested ourselves with the probability of
+     * {@link NodeConfig#getpPropagateRequest()}, unless the request must not be propagated.
+     *
+     * @param requests the requested hashes with the neighbors that sent them
+     */
+    void replyToRequest(List<NeighborRequest> requests) {
+        List<NeighborRequest> lookupRequests = new ArrayList<>(requests.size());
+        List<Hash> lookupHashes = new ArrayList<>(requests.size());
+        for (NeighborRequest request : requests) {
+            Hash requestedHash = request.getRequestedHash();
+            if (requestedHash.equals(Hash.NULL_HASH)) {
+                lookupRequests.add(request);
+            } else if (hotPackets.contains(requestedHash.bytes())) {
+                //the writer copies the transaction from the hot packet cache
+                queueForSending(new OutboundTransaction(requestedHash, TrafficClass.REPLY), request.getNeighbor());
+            } else {
+                lookupRequests.add(request);
+                lookupHashes.add(HashFactory.TRANSACTION.create(requestedHash.bytes(), 0, reqHashSize));
+            }
+        }
 
-        //retrieve requested transaction
-        if (requestedHash.equals(Hash.NULL_HASH)) {
-            //Random Tip Request
+        //find requested trytes
+        List<TransactionViewModel> foundTransactions = Collections.emptyList();
+        if (!lookupHashes.isEmpty()) {
             try {
-                if (transactionRequester.numberOfTransactionsToRequest() > 0
-                        && rnd.nextDouble() < configuration.getpReplyRandomTip()) {
-                    neighbor.incRandomTransactionRequests();
-                    transactionPointer = getRandomTipPointer();
-                    transactionViewModel = TransactionViewModel.fromHash(tangle, transactionPointer);
-                } else {
-                    //no tx to request, so no random tip will be sent as a reply.
-                    return;
-                }
+                foundTransactions = TransactionViewModel.fromHashes(tangle, lookupHashes);
             } catch (Exception e) {
-                log.error("Error getting random tip.", e);
+                log.error("Error while searching for transactions.", e);
             }
-        } else {
-            //find requested trytes
-            try {
-                //transactionViewModel = TransactionViewModel.find(Arrays.copyOf(requestedHash.bytes(), TransactionRequester.REQUEST_HASH_SIZE));
-                transactionViewModel = TransactionViewModel.fromHash(tangle, HashFactory.TRANSACTION.create(requestedHash.bytes(), 0, reqHashSize));
-                //log.debug("Requested Hash: " + requestedHash + " \nFound: " + transactionViewModel.getHash());
-            } catch (Exception e) {
-                log.error("Error while searching for transaction.", e);
+        }
+
+        int lookupIndex = 0;
+        for (NeighborRequest request : lookupRequests) {
+            Hash requestedHash = request.getRequestedHash();
+            Neighbor neighbor = request.getNeighbor();
+            TransactionViewModel transactionViewModel;
+            if (requestedHash.equals(Hash.NULL_HASH)) {
+                //Random Tip Request
+                transactionViewModel = randomTipToReply(neighbor);
+                if (transactionViewModel == null) {
+                    continue;
+                }
+            } else {
+                transactionViewModel = lookupIndex < foundTransactions.size()
+                        ? foundTransactions.get(lookupIndex) : null;
+                lookupIndex++;
             }
+            replyWithTransaction(requestedHash, neighbor, transactionViewModel, request.isPropagate());
         }
+    }
+
+    /**
+     * @param neighbor the neighbor that requested a random tip
+     * @return the tip to send or <tt>null</tt> if no reply should be sent
+     */
+    private TransactionViewModel randomTipToReply(Neighbor neighbor) {
+        try {
+            if (transactionRequester.numberOfTransactionsToRequest() > 0
+                    && rnd.nextDouble() < configuration.getpReplyRandomTip()) {
+                neighbor.incRandomTransactionRequests();
+                return TransactionViewModel.fromHash(tangle, getRandomTipPointer());
+            }
+            //no tx to request, so no random tip will be sent as a reply.
+        } catch (Exception e) {
+            log.error("Error getting random tip.", e);
+        }
+        return null;
+    }
 
+    private void replyWithTransaction(Hash requestedHash, Neighbor neighbor,
+                                      TransactionViewModel transactionViewModel, boolean propagate) {
         if (transactionViewModel != null && transactionViewModel.getType() == TransactionViewModel.FILLED_SLOT) {
             //send trytes back to neighbor
             try {
-                sendPacket(sendingPacket, transactionViewModel, neighbor);
+                queueForSending(transactionViewModel, neighbor, TrafficClass.REPLY);
 
-                ByteBuffer digest = getBytesDigest(transactionViewModel.getBytes());
-                synchronized (recentSeenBytes) {
-                    recentSeenBytes.put(digest, transactionViewModel.getHash());
-                }
+                byte[] transactionBytes = transactionViewModel.getBytes();
+                hotPackets.put(transactionViewModel.getHash().bytes(), transactionBytes);
+                recentSeenBytes.put(recentSeenBytes.key(transactionBytes, TransactionViewModel.SIZE),
+                        transactionViewModel.getHash());
             } catch (Exception e) {
                 log.error("Error fetching transaction to request.", e);
             }
         } else {
             //trytes not found
-            if (!requestedHash.equals(Hash.NULL_HASH) && rnd.nextDouble() < configuration.getpPropagateRequest()) {
+            if (propagate && !requestedHash.equals(Hash.NULL_HASH)
+                    && rnd.nextDouble() < configuration.getpPropagateRequest()) {
                 //request is an actual transaction and missing in request queue add it.
                 try {
                     transactionRequester.requestTransaction(requestedHash, false);
@@ -535,8 +731,11 @@ public class Node {
                 }
 
             }
+            if (!requestedHash.equals(Hash.NULL_HASH)) {
+                //the neighbor doesn't have it either, so don't ask it for the transaction
+                transactionRequester.markLacking(requestedHash, neighbor);
+            }
         }
-
     }
 
     private Hash getRandomTipPointer() throws Exception {
@@ -546,8 +745,8 @@ public class Node {
 
     /**
      * Sends a Datagram to the neighbour. Also appends a random hash request 
-     * to the outgoing packet. Note that this is only used for UDP handling. For TCP
-     * the outgoing packets are sent by {@link ReplicatorSinkProcessor}
+     * to the outgoing packet. The send limits are enforced by the writer threads
+     * before this is called.
      * 
      * @param {@link DatagramPacket} sendingPacket the UDP payload buffer
      * @param {@link TransactionViewModel} transactionViewModel which should be sent.  
@@ -555,36 +754,216 @@ public class Node {
      * 
      */     
     public void sendPacket(DatagramPacket sendingPacket, TransactionViewModel transactionViewModel, Neighbor neighbor) throws Exception {
+        Hash hash = nextRequestedHash(neighbor);
+        sendPacket(sendingPacket, transactionViewModel, hash != null ? hash : transactionViewModel.getHash(), neighbor);
+    }
 
-        //limit amount of sends per second
-        long now = System.currentTimeMillis();
-        if ((now - sendPacketsTimer.get()) > 1000L) {
-            //reset counter every second
-            sendPacketsCounter.set(0);
-            sendPacketsTimer.set(now);
+    /**
+     * @param neighbor the neighbor a packet is sent to
+     * @return the missing transaction to request with the packet or <tt>null</tt> to request a random tip
+     */
+    private Hash nextRequestedHash(Neighbor neighbor) throws Exception {
+        return rnd.nextDouble() < requestShare(neighbor)
+                ? transactionRequester.transactionToRequest(
+                        rnd.nextDouble() < configuration.getpSelectMilestoneChild(), neighbor)
+                : null;
+    }
+
+    /**
+     * Sends a transaction of the {@link HotPacketCache} to the neighbour, copying its bytes straight into the
+     * packet. If the transaction was evicted since the reply was queued it is read from the {@link Tangle}.
+     *
+     * @param sendingPacket the UDP payload buffer
+     * @param hash the hash of the transaction to send
+     * @param neighbor the neighbor where this should be sent
+     */
+    private void sendCachedPacket(DatagramPacket sendingPacket, Hash hash, Neighbor neighbor) throws Exception {
+        Hash requestedHash = nextRequestedHash(neighbor);
+        if (requestedHash == null) {
+            requestedHash = hash;
         }
-        if (sendLimit >= 0 && sendPacketsCounter.get() > sendLimit) {
-            //if exceeded limit - don't send
-            //log.info("exceeded limit - don't send - {}",sendPacketsCounter.get());
-            return;
+        synchronized (sendingPacket) {
+            if (hotPackets.copyTo(hash.bytes(), sendingPacket.getData())) {
+                System.arraycopy(requestedHash.bytes(), 0, sendingPacket.getData(), TransactionViewModel.SIZE, reqHashSize);
+                neighbor.send(sendingPacket);
+                return;
+            }
+        }
+        TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(tangle, hash);
+        if (transactionViewModel.getType() == TransactionViewModel.FILLED_SLOT) {
+            sendPacket(sendingPacket, transactionViewModel, requestedHash, neighbor);
+        }
+    }
+
+    /**
+     * Missing transactions are preferably requested from the neighbors that answer requests best. A neighbor's
+     * packets carry a request in proportion to its request score relative to the best neighbor; the other packets
+     * request a random tip. Every neighbor keeps a minimal share so its score can recover.
+     *
+     * @param neighbor the neighbor a packet is sent to
+     * @return the probability that the packet carries a request of a missing transaction
+     */
+    private double requestShare(Neighbor neighbor) {
+        double bestScore = 0;
+        for (Neighbor n : neighbors) {
+            bestScore = Math.max(bestScore, n.getRequestScore());
         }
+        if (bestScore <= 0) {
+            return 1;
+        }
+        return Math.max(MIN_REQUEST_SHARE, neighbor.getRequestScore() / bestScore);
+    }
 
+    /**
+     * Sends a Datagram with the given transaction and requested hash to the neighbour.
+     *
+     * @param sendingPacket the UDP payload buffer
+     * @param transactionViewModel the transaction to send
+     * @param requestedHash the hash to request, the hash of the sent transaction requests a random tip
+     * @param neighbor the neighbor where this should be sent
+     */
+    private void sendPacket(DatagramPacket sendingPacket, TransactionViewModel transactionViewModel, Hash requestedHash,
+                            Neighbor neighbor) {
         synchronized (sendingPacket) {
             System.arraycopy(transactionViewModel.getBytes(), 0, sendingPacket.getData(), 0, TransactionViewModel.SIZE);
-            Hash hash = transactionRequester.transactionToRequest(rnd.nextDouble() < configuration.getpSelectMilestoneChild());
-            System.arraycopy(hash != null ? hash.bytes() : transactionViewModel.getHash().bytes(), 0,
-                    sendingPacket.getData(), TransactionViewModel.SIZE, reqHashSize);
+            System.arraycopy(requestedHash.bytes(), 0, sendingPacket.getData(), TransactionViewModel.SIZE, reqHashSize);
             neighbor.send(sendingPacket);
         }
+    }
+
+    /**
+     * A neighbor waiting for a writer thread, possibly not before a given time.
+     */
+    private static class ScheduledWrite implements Delayed {
+
+        private final Neighbor neighbor;
+        private final long notBefore;
+
+        ScheduledWrite(Neighbor neighbor, long delayNanos) {
+            this.neighbor = neighbor;
+            this.notBefore = System.nanoTime() + delayNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(notBefore - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(notBefore, ((ScheduledWrite) other).notBefore);
+        }
+    }
+
+
+    /**
+     * Queues a transaction on the outbound queue of a neighbor and schedules the neighbor for the writer threads.
+     *
+     * @param transactionViewModel the transaction to send
+     * @param neighbor the neighbor to send it to
+     * @param trafficClass the kind of packet the transaction is sent with
+     */
+    private void queueForSending(TransactionViewModel transactionViewModel, Neighbor neighbor,
+                                 TrafficClass trafficClass) {
+        queueForSending(new OutboundTransaction(transactionViewModel, trafficClass), neighbor);
+    }
+
+    private void queueForSending(OutboundTransaction outbound, Neighbor neighbor) {
+        if (neighbor.queueOutbound(outbound)) {
+            neighborsReadyToSend.offer(new ScheduledWrite(neighbor, 0));
+        }
+    }
+
+    /**
+     * Sends up to {@link #WRITE_BATCH_SIZE} queued transactions to a neighbor, taking them from its traffic classes
+     * by their weights. If more are queued afterwards the neighbor is scheduled again behind the other ready
+     * neighbors, so a busy neighbor can not starve the rest.
+     * <br>
+     * Every packet needs a token of the global and of the neighbor's {@link TokenBucket}. If one of them is empty the
+     * neighbor is scheduled again once a token is available, so packets are delayed instead of dropped.
+     *
+     * @param neighbor the neighbor to write to
+     * @param packet the UDP payload buffer of the calling writer thread
+     */
+    private void writeQueuedTransactions(Neighbor neighbor, DatagramPacket packet) {
+        TokenBucket neighborBucket = neighbor.getSendBucket();
+        if (neighborBucket == null) {
+            neighborBucket = new TokenBucket(neighborSendLimit);
+            neighbor.setSendBucket(neighborBucket);
+        }
+
+        long delay = 0;
+        try {
+            for (int i = 0; i < WRITE_BATCH_SIZE; i++) {
+                delay = Math.max(sendBucket.nanosUntilAvailable(), neighborBucket.nanosUntilAvailable());
+                if (delay > 0) {
+                    break;
+                }
+                OutboundTransaction outbound = neighbor.pollOutbound(sendWeights);
+                if (outbound == null) {
+                    break;
+                }
+                sendBucket.consume();
+                neighborBucket.consume();
 
-        sendPacketsCounter.getAndIncrement();
+                TransactionViewModel transactionViewModel = outbound.getTransactionViewModel();
+                try {
+                    if (transactionViewModel == null) {
+                        sendCachedPacket(packet, outbound.getHash(), neighbor);
+                    } else if (outbound.getTrafficClass() == TrafficClass.REQUEST) {
+                        //without a missing transaction to request, the packet requests its own hash for a random tip
+                        Hash requestedHash = nextRequestedHash(neighbor);
+                        sendPacket(packet, transactionViewModel,
+                                requestedHash != null ? requestedHash : transactionViewModel.getHash(), neighbor);
+                    } else {
+                        sendPacket(packet, transactionViewModel, neighbor);
+                    }
+                    neighbor.markSeen(outbound.getHash());
+                } catch (final Exception e) {
+                    log.debug("Error sending to neighbor {}: {}", neighbor.getAddress(), e.toString());
+                }
+            }
+        } finally {
+            if (neighbor.finishWrite()) {
+                neighborsReadyToSend.offer(new ScheduledWrite(neighbor, Math.min(delay, MAX_SEND_DELAY)));
+            }
+        }
     }
 
+    /**
+     * This thread takes neighbors with queued outbound transactions and sends their transactions. Each writer has its
+     * own packet buffer, so writers never wait for each other.
+     */
+    private Runnable spawnNeighborWriterThread() {
+        return () -> {
+
+            log.info("Spawning Neighbor Writer Thread");
+            int packetSize = configuration.getTransactionPacketSize();
+            DatagramPacket packet = new DatagramPacket(new byte[packetSize], packetSize);
+
+            while (!shuttingDown.get()) {
+
+                try {
+                    final ScheduledWrite scheduledWrite = neighborsReadyToSend.poll(QUEUE_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                    if (scheduledWrite != null) {
+                        writeQueuedTransactions(scheduledWrite.neighbor, packet);
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (final Exception e) {
+                    log.error("Neighbor Writer Thread Exception:", e);
+                }
+            }
+            log.info("Shutting down Neighbor Writer Thread");
+        };
+    }
 
     /**
      * This thread picks up a new transaction from the broadcast queue and 
-     * spams it to all of the neigbors. Sadly, this also includes the neigbor who
-     * originally sent us the transaction. This could be improved in future. 
+     * queues it for all of the neigbors, except those that most likely have it
+     * already because they sent it to us or we sent it to them. Replies are not
+     * filtered, since the neighbor asked for the transaction. 
      * 
      */    
     private Runnable spawnBroadcasterThread() {
@@ -595,18 +974,17 @@ public class Node {
             while (!shuttingDown.get()) {
 
                 try {
-                    final TransactionViewModel transactionViewModel = broadcastQueue.pollFirst();
+                    final TransactionViewModel transactionViewModel = broadcastQueue.poll(QUEUE_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
                     if (transactionViewModel != null) {
 
                         for (final Neighbor neighbor : neighbors) {
-                            try {
-                                sendPacket(sendingPacket, transactionViewModel, neighbor);
-                            } catch (final Exception e) {
-                                // ignore
+                            if (neighbor.hasSeen(transactionViewModel.getHash())) {
+                                neighbor.incSuppressedTransactions();
+                            } else {
+                                queueForSending(transactionViewModel, neighbor, TrafficClass.BROADCAST);
                             }
                         }
                     }
-                    Thread.sleep(PAUSE_BETWEEN_TRANSACTIONS);
                 } catch (final Exception e) {
                     log.error("Broadcaster Thread Exception:", e);
                 }
@@ -616,26 +994,28 @@ public class Node {
     }
     
     /**
-     * We send a tip request packet (transaction corresponding to the latest milestone)
-     * to all of our neighbors periodically. 
-     */    
+     * Sends the latest milestone with a tip request to the neighbors, at the pace the {@link TipRequestScheduler}
+     * picks for the current backlog of the {@link TransactionRequester} and the lag of the solid milestone. The
+     * thread also logs the status of the node every 10 seconds.
+     */
     private Runnable spawnTipRequesterThread() {
         return () -> {
 
             log.info("Spawning Tips Requester Thread");
             long lastTime = 0;
+            long lastTipRequest = 0;
             while (!shuttingDown.get()) {
 
                 try {
-                    final TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(tangle, milestoneTracker.latestMilestone);
-                    System.arraycopy(transactionViewModel.getBytes(), 0, tipRequestingPacket.getData(), 0, TransactionViewModel.SIZE);
-                    System.arraycopy(transactionViewModel.getHash().bytes(), 0, tipRequestingPacket.getData(), TransactionViewModel.SIZE,
-                           reqHashSize);
-                    //Hash.SIZE_IN_BYTES);
-
-                    neighbors.forEach(n -> n.send(tipRequestingPacket));
-
                     long now = System.currentTimeMillis();
+                    int requestBacklog = transactionRequester.numberOfTransactionsToRequest();
+                    int milestoneLag = milestoneTracker.latestMilestoneIndex
+                            - milestoneTracker.latestSolidSubtangleMilestoneIndex;
+                    if (now - lastTipRequest >= tipRequestScheduler.interval(requestBacklog, milestoneLag)) {
+                        lastTipRequest = now;
+                        requestTips(tipRequestScheduler.isSynced(requestBacklog, milestoneLag));
+                    }
+
                     if ((now - lastTime) > 10000L) {
                         lastTime = now;
                         messageQ.publish("rstat %d %d %d %d %d",
@@ -646,9 +1026,41 @@ public class Node {
                                 getReceiveQueueSize(), getBroadcastQueueSize(),
                                 transactionRequester.numberOfTransactionsToRequest(), getReplyQueueSize(),
                                 TransactionViewModel.getNumberOfStoredTransactions(tangle));
+                        messageQ.publish("hmr %d/%d", recentSeenBytes.getHitCount(), recentSeenBytes.getMissCount());
+                        log.info("RecentSeenBytes cache hit/miss/evicted: {}/{}/{}", recentSeenBytes.getHitCount(),
+                                recentSeenBytes.getMissCount(), recentSeenBytes.getEvictionCount());
+                        log.info("HotPacket cache hit/miss: {}/{}", hotPackets.getHitCount(),
+                                hotPackets.getMissCount());
+                        log.info("Packet scratches allocated beyond the pool: {} , dropped hash requests: {}",
+                                packetScratches.getAllocationCount(), batchedHasher.getDroppedCount());
+                        TransactionCache transactionCache = tangle.getTransactionCache();
+                        messageQ.publish("tcs %d %d %d %d", transactionCache.getHitCount(),
+                                transactionCache.getMissCount(), transactionCache.getEvictionCount(),
+                                transactionCache.size());
+                        log.info("Transaction cache hit/miss/evicted: {}/{}/{} , size = {}",
+                                transactionCache.getHitCount(), transactionCache.getMissCount(),
+                                transactionCache.getEvictionCount(), transactionCache.size());
+                        messageQ.publish("adms %s %.2f %.0f %d %d %d", admissionController.getState(),
+                                admissionController.getOccupancy(), admissionController.getStorageLatencyMs(),
+                                admissionController.getAdmittedCount(), admissionController.getThrottledCount(),
+                                admissionController.getShedCount());
+                        log.info("Admission state = {} , occupancy = {} , storage latency = {} ms , admitted/throttled/shed = {}/{}/{}",
+                                admissionController.getState(), String.format("%.2f", admissionController.getOccupancy()),
+                                Math.round(admissionController.getStorageLatencyMs()),
+                                admissionController.getAdmittedCount(), admissionController.getThrottledCount(),
+                                admissionController.getShedCount());
+                        for (Neighbor neighbor : neighbors) {
+                            log.debug("Neighbor {} outbound queue = {} , dropped = {} , suppressed = {}",
+                                    neighbor.getAddress(), neighbor.getOutboundQueueSize(),
+                                    neighbor.getNumberOfDroppedSentTransactions(),
+                                    neighbor.getNumberOfSuppressedTransactions());
+                        }
                     }
 
-                    Thread.sleep(5000);
+                    Thread.sleep(TipRequestScheduler.MIN_INTERVAL_MS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 } catch (final Exception e) {
                     log.error("Tips Requester Thread Exception:", e);
                 }
@@ -657,6 +1069,32 @@ public class Node {
         };
     }
 
+    /**
+     * Queues a tip request for the neighbors. While the node is in sync only the neighbors that were not sent
+     * anything since the previous round get one, the other ones were asked for a tip by the packets they were sent.
+     * While the node is behind, the neighbors get one in proportion to their {@link #requestShare}, and the packets
+     * carry the requests of missing transactions where there are any.
+     *
+     * @param synced whether the node is in sync with its neighbors
+     */
+    private void requestTips(boolean synced) throws Exception {
+        Hash latestMilestone = milestoneTracker.latestMilestone;
+        if (latestMilestonePacket == null || !latestMilestonePacket.getHash().equals(latestMilestone)) {
+            latestMilestonePacket = TransactionViewModel.fromHash(tangle, latestMilestone);
+        }
+        final TransactionViewModel transactionViewModel = latestMilestonePacket;
+        if (synced) {
+            tipRequestScheduler.idleNeighbors(neighbors)
+                    .forEach(n -> queueForSending(transactionViewModel, n, TrafficClass.REQUEST));
+        } else {
+            for (Neighbor neighbor : neighbors) {
+                if (rnd.nextDouble() < requestShare(neighbor)) {
+                    queueForSending(transactionViewModel, neighbor, TrafficClass.REQUEST);
+                }
+            }
+        }
+    }
+
     private Runnable spawnProcessReceivedThread() {
         return () -> {
 
@@ -666,7 +1104,6 @@ public class Node {
 
                 try {
                     processReceivedDataFromQueue();
-                    Thread.sleep(1);
                 } catch (final Exception e) {
                     log.error("Process Received Data Thread Exception:", e);
                 }
@@ -684,7 +1121,6 @@ public class Node {
 
                 try {
                     replyToRequestFromQueue();
-                    Thread.sleep(1);
                 } catch (final Exception e) {
                     log.error("Reply To Request Thread Exception:", e);
                 }
@@ -694,70 +1130,41 @@ public class Node {
     }
 
 
-    private static ConcurrentSkipListSet<TransactionViewModel> weightQueue() {
-        return new ConcurrentSkipListSet<>((transaction1, transaction2) -> {
-            if (transaction1.weightMagnitude == transaction2.weightMagnitude) {
-                for (int i = Hash.SIZE_IN_BYTES; i-- > 0; ) {
-                    if (transaction1.getHash().bytes()[i] != transaction2.getHash().bytes()[i]) {
-                        return transaction2.getHash().bytes()[i] - transaction1.getHash().bytes()[i];
-                    }
-                }
-                return 0;
-            }
-            return transaction2.weightMagnitude - transaction1.weightMagnitude;
-        });
-    }
-
-    //TODO generalize these weightQueues
-    private static ConcurrentSkipListSet<Pair<Hash, Neighbor>> weightQueueHashPair() {
-        return new ConcurrentSkipListSet<Pair<Hash, Neighbor>>((transaction1, transaction2) -> {
-            Hash tx1 = transaction1.getLeft();
-            Hash tx2 = transaction2.getLeft();
-
-            for (int i = Hash.SIZE_IN_BYTES; i-- > 0; ) {
-                if (tx1.bytes()[i] != tx2.bytes()[i]) {
-                    return tx2.bytes()[i] - tx1.bytes()[i];
-                }
-            }
-            return 0;
-
-        });
-    }
-
-    private static ConcurrentSkipListSet<Pair<TransactionViewModel, Neighbor>> weightQueueTxPair() {
-        return new ConcurrentSkipListSet<Pair<TransactionViewModel, Neighbor>>((transaction1, transaction2) -> {
-            TransactionViewModel tx1 = transaction1.getLeft();
-            TransactionViewModel tx2 = transaction2.getLeft();
-
-            if (tx1.weightMagnitude == tx2.weightMagnitude) {
-                for (int i = Hash.SIZE_IN_BYTES; i-- > 0; ) {
-                    if (tx1.getHash().bytes()[i] != tx2.getHash().bytes()[i]) {
-                        return tx2.getHash().bytes()[i] - tx1.getHash().bytes()[i];
-                    }
-                }
-                return 0;
+    /**
+     * Orders hashes by their bytes, starting with the last one.
+     */
+    private static final Comparator<Hash> HASH_ORDER = (hash1, hash2) -> {
+        byte[] bytes1 = hash1.bytes();
+        byte[] bytes2 = hash2.bytes();
+        for (int i = Hash.SIZE_IN_BYTES; i-- > 0; ) {
+            if (bytes1[i] != bytes2[i]) {
+                return bytes2[i] - bytes1[i];
             }
-            return tx2.weightMagnitude - tx1.weightMagnitude;
-        });
-    }
+        }
+        return 0;
+    };
 
+    /**
+     * Orders transactions by descending weight magnitude, then by their hash.
+     */
+    private static final Comparator<TransactionViewModel> WEIGHT_ORDER = (transaction1, transaction2) -> {
+        if (transaction1.weightMagnitude == transaction2.weightMagnitude) {
+            return HASH_ORDER.compare(transaction1.getHash(), transaction2.getHash());
+        }
+        return transaction2.weightMagnitude - transaction1.weightMagnitude;
+    };
 
     public void broadcast(final TransactionViewModel transactionViewModel) {
-        broadcastQueue.add(transactionViewModel);
-        if (broadcastQueue.size() > BROADCAST_QUEUE_SIZE) {
-            broadcastQueue.pollLast();
-        }
+        hotPackets.put(transactionViewModel.getHash().bytes(), transactionViewModel.getBytes());
+        broadcastQueue.offer(transactionViewModel);
     }
 
     public void shutdown() throws InterruptedException {
         shuttingDown.set(true);
         executor.awaitTermination(6, TimeUnit.SECONDS);
-    }
-
-    private ByteBuffer getBytesDigest(byte[] receivedData) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        digest.update(receivedData, 0, TransactionViewModel.SIZE);
-        return ByteBuffer.wrap(digest.digest());
+        if (batchedHasher != null) {
+            batchedHasher.shutdown();
+        }
     }
 
     // helpers methods
@@ -770,11 +1177,27 @@ public class Node {
                     .filter(n -> n.equals(neighbor))
                     .forEach(TCPNeighbor::clear);
         }
-        return neighbors.remove(neighbor);
+        return neighborRegistry.remove(neighbor);
     }
 
+    /**
+     * Adds a neighbor unless an equal one exists already. All changes to the neighbors go through
+     * {@link #addNeighbor} and {@link #removeNeighbor}, which keep the address index of the
+     * {@link NeighborRegistry} up to date.
+     *
+     * @param neighbor the neighbor to add
+     * @return <tt>true</tt> if the neighbor was added
+     */
     public boolean addNeighbor(Neighbor neighbor) {
-        return !getNeighbors().contains(neighbor) && getNeighbors().add(neighbor);
+        return neighborRegistry.add(neighbor);
+    }
+
+    /**
+     * @param address the IP address of an incoming TCP connection
+     * @return the TCP neighbor with that address or <tt>null</tt> if there is none
+     */
+    public TCPNeighbor findTcpNeighbor(InetAddress address) {
+        return neighborRegistry.findTcpNeighbor(address);
     }
 
     public boolean isUriValid(final URI uri) {
@@ -797,7 +1220,7 @@ public class Node {
                 return new TCPNeighbor(new InetSocketAddress(uri.getHost(), uri.getPort()), isConfigured);
             }
             if (uri.getScheme().equals("udp")) {
-                return new UDPNeighbor(new InetSocketAddress(uri.getHost(), uri.getPort()), udpSocket, isConfigured);
+                return new UDPNeighbor(new InetSocketAddress(uri.getHost(), uri.getPort()), udpChannel, isConfigured);
             }
         }
         throw new RuntimeException(uri.toString());
@@ -821,7 +1244,7 @@ public class Node {
                 .peek(u -> {
                     log.info("-> Adding neighbor : {} ", u.getAddress());
                     messageQ.publish("-> Adding Neighbor : %s", u.getAddress());
-                }).forEach(neighbors::add);
+                }).forEach(this::addNeighbor);
     }
 
     public int queuedTransactionsSize() {
@@ -832,6 +1255,9 @@ public class Node {
         return getNeighbors().size();
     }
 
+    /**
+     * @return a read-only view of the neighbors, use {@link #addNeighbor} and {@link #removeNeighbor} to change them
+     */
     public List<Neighbor> getNeighbors() {
         return neighbors;
     }
@@ -840,6 +1266,13 @@ public class Node {
         return broadcastQueue.size();
     }
 
+    /**
+     * @return the controller the receivers ask before they process a packet
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
     public int getReceiveQueueSize() {
         return receiveQueue.size();
     }
@@ -848,39 +1281,4 @@ public class Node {
         return replyQueue.size();
     }
 
-    public class FIFOCache<K, V> {
-
-        private final int capacity;
-        private final double dropRate;
-        private LinkedHashMap<K, V> map;
-        private final SecureRandom rnd = new SecureRandom();
-
-        public FIFOCache(int capacity, double dropRate) {
-            this.capacity = capacity;
-            this.dropRate = dropRate;
-            this.map = new LinkedHashMap<>();
-        }
-
-        public V get(K key) {
-            V value = this.map.get(key);
-            if (value != null && (rnd.nextDouble() < this.dropRate)) {
-                this.map.remove(key);
-                return null;
-            }
-            return value;
-        }
-
-        public V put(K key, V value) {
-            if (this.map.containsKey(key)) {
-                return value;
-            }
-            if (this.map.size() >= this.capacity) {
-                Iterator<K> it = this.map.keySet().iterator();
-                it.next();
-                it.remove();
-            }
-            return this.map.put(key, value);
-        }
-    }
-
 }
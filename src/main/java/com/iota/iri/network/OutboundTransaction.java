@@ -0,0 +1,46 @@
+package com.iota.iri.network;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+
+/**
+ * A transaction waiting in the outbound queue of a {@link Neighbor}. Replies that can be served from the
+ * {@link HotPacketCache} only carry the hash of the transaction.
+ */
+class OutboundTransaction {
+
+    private final TransactionViewModel transactionViewModel;
+    private final Hash hash;
+    private final TrafficClass trafficClass;
+
+    OutboundTransaction(TransactionViewModel transactionViewModel, TrafficClass trafficClass) {
+        this.transactionViewModel = transactionViewModel;
+        this.hash = transactionViewModel.getHash();
+        this.trafficClass = trafficClass;
+    }
+
+    /**
+     * @param hash the hash of a transaction in the {@link HotPacketCache}
+     * @param trafficClass the kind of packet the transaction is sent with
+     */
+    OutboundTransaction(Hash hash, TrafficClass trafficClass) {
+        this.transactionViewModel = null;
+        this.hash = hash;
+        this.trafficClass = trafficClass;
+    }
+
+    /**
+     * @return the transaction or <tt>null</tt> if it is sent from the {@link HotPacketCache}
+     */
+    TransactionViewModel getTransactionViewModel() {
+        return transactionViewModel;
+    }
+
+    Hash getHash() {
+        return hash;
+    }
+
+    TrafficClass getTrafficClass() {
+        return trafficClass;
+    }
+}
@@ -0,0 +1,141 @@
+package com.iota.iri.network;
+
+import com.iota.iri.crypto.batched.HashRequest;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reusable working memory for received packets that wait to be hashed.
+ * <br>
+ * Every {@link Scratch} owns a copy of the packet, the trits the packet is hashed from and the {@link HashRequest}
+ * that is handed to the hasher, so a packet that misses the {@link RecentSeenBytesCache} doesn't allocate any of
+ * them. A scratch is returned to the pool as soon as its hash was processed. If more packets are in flight than the
+ * pool holds, new scratches are allocated and the surplus is discarded when it is released.
+ */
+public class PacketScratchPool {
+
+    private final BlockingQueue<Scratch> freeScratches;
+    private final int packetSize;
+    private final int tritsSize;
+    private final HashedPacketProcessor processor;
+
+    private final AtomicLong allocationCount = new AtomicLong(0L);
+
+    /**
+     * Continues the processing of a packet once its hash is known.
+     */
+    @FunctionalInterface
+    public interface HashedPacketProcessor {
+
+        /**
+         * @param scratch the scratch of the packet, it is released after this method returns
+         * @param hashTrits the trits of the transaction hash, reused by the hasher after this method returns
+         */
+        void process(Scratch scratch, byte[] hashTrits);
+    }
+
+    /**
+     * The working memory of a single packet.
+     */
+    public final class Scratch {
+        private final byte[] packet = new byte[packetSize];
+        private final byte[] trits = new byte[tritsSize];
+        private final HashRequest hashRequest = new HashRequest(trits, this::hashed);
+
+        private RecentSeenBytesCache.Key digest;
+        private Neighbor neighbor;
+
+        private Scratch() {
+        }
+
+        /**
+         * @return the copy of the received packet
+         */
+        public byte[] getPacket() {
+            return packet;
+        }
+
+        /**
+         * @return space for the trits of the transaction
+         */
+        public byte[] getTrits() {
+            return trits;
+        }
+
+        /**
+         * @return the request that hashes {@link #getTrits()} and continues with the {@link HashedPacketProcessor}
+         */
+        public HashRequest getHashRequest() {
+            return hashRequest;
+        }
+
+        public RecentSeenBytesCache.Key getDigest() {
+            return digest;
+        }
+
+        public Neighbor getNeighbor() {
+            return neighbor;
+        }
+
+        private void hashed(byte[] hashTrits) {
+            try {
+                processor.process(this, hashTrits);
+            } finally {
+                release(this);
+            }
+        }
+    }
+
+    /**
+     * @param capacity the number of scratches that are kept for reuse
+     * @param packetSize the number of bytes of a packet
+     * @param tritsSize the number of trits of a transaction
+     * @param processor called with every hashed packet
+     */
+    public PacketScratchPool(int capacity, int packetSize, int tritsSize, HashedPacketProcessor processor) {
+        this.freeScratches = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.packetSize = packetSize;
+        this.tritsSize = tritsSize;
+        this.processor = processor;
+    }
+
+    /**
+     * Takes a scratch from the pool and copies a packet into it.
+     *
+     * @param data the received data, at least <tt>packetSize</tt> long
+     * @param digest the fingerprint of the packet
+     * @param neighbor the neighbor that sent the packet
+     * @return the scratch holding the packet
+     */
+    public Scratch acquire(byte[] data, RecentSeenBytesCache.Key digest, Neighbor neighbor) {
+        Scratch scratch = freeScratches.poll();
+        if (scratch == null) {
+            allocationCount.incrementAndGet();
+            scratch = new Scratch();
+        }
+        System.arraycopy(data, 0, scratch.packet, 0, packetSize);
+        scratch.digest = digest;
+        scratch.neighbor = neighbor;
+        return scratch;
+    }
+
+    /**
+     * Returns a scratch to the pool. The scratch must not be used afterwards.
+     *
+     * @param scratch the scratch that is no longer needed
+     */
+    public void release(Scratch scratch) {
+        scratch.digest = null;
+        scratch.neighbor = null;
+        freeScratches.offer(scratch);
+    }
+
+    /**
+     * @return the number of scratches that were allocated because the pool was empty
+     */
+    public long getAllocationCount() {
+        return allocationCount.get();
+    }
+}
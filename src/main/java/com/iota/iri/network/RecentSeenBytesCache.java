@@ -0,0 +1,229 @@
+package com.iota.iri.network;
+
+import com.iota.iri.model.Hash;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the hashes of recently received transactions, so packets that were already seen don't have to be hashed
+ * and validated again.
+ * <br>
+ * Packets are identified by a 128 bit fingerprint of their transaction bytes. The fingerprint is not cryptographic but
+ * it is seeded randomly when the node starts, so collisions can not be crafted without knowing the seed.
+ * <br>
+ * The configured capacity is rounded up to the shard geometry: every shard gets a power of two of buckets, so the
+ * cache holds at least the configured number of entries and at most twice as many, but never less than one bucket
+ * per shard. The entries are spread over independent shards, each of which is a 2-way set associative table of {@link AtomicReferenceArray}
+ * slots. Lookups and inserts never lock: an insert replaces the older entry of its bucket and may simply lose against
+ * a concurrent insert, which only costs a cache miss later on.
+ */
+public class RecentSeenBytesCache {
+
+    private static final int NUMBER_OF_SHARDS = 64;
+    private static final int WAYS = 2;
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+
+    private final AtomicReferenceArray<Entry>[] shards;
+    private final int bucketMask;
+    private final double dropRate;
+    private final long seed1;
+    private final long seed2;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * The fingerprint of a packet.
+     */
+    public static final class Key {
+        private final long fingerprint1;
+        private final long fingerprint2;
+
+        private Key(long fingerprint1, long fingerprint2) {
+            this.fingerprint1 = fingerprint1;
+            this.fingerprint2 = fingerprint2;
+        }
+    }
+
+    private static final class Entry {
+        private final long fingerprint1;
+        private final long fingerprint2;
+        private final Hash hash;
+        private final long insertionTime;
+
+        private Entry(Key key, Hash hash, long insertionTime) {
+            this.fingerprint1 = key.fingerprint1;
+            this.fingerprint2 = key.fingerprint2;
+            this.hash = hash;
+            this.insertionTime = insertionTime;
+        }
+
+        private boolean matches(Key key) {
+            return fingerprint1 == key.fingerprint1 && fingerprint2 == key.fingerprint2;
+        }
+    }
+
+    /**
+     * @param capacity the number of cached entries, rounded up to the shard geometry
+     * @param dropRate the probability of dropping an entry when it is found, so transactions eventually get
+     *                 validated again
+     */
+    @SuppressWarnings("unchecked")
+    public RecentSeenBytesCache(int capacity, double dropRate) {
+        int minimumBuckets = Math.max(1, (capacity + NUMBER_OF_SHARDS * WAYS - 1) / (NUMBER_OF_SHARDS * WAYS));
+        int bucketsPerShard = minimumBuckets == 1 ? 1 : Integer.highestOneBit(minimumBuckets - 1) << 1;
+        this.bucketMask = bucketsPerShard - 1;
+        this.dropRate = dropRate;
+        this.shards = new AtomicReferenceArray[NUMBER_OF_SHARDS];
+        for (int i = 0; i < NUMBER_OF_SHARDS; i++) {
+            shards[i] = new AtomicReferenceArray<>(bucketsPerShard * WAYS);
+        }
+
+        SecureRandom random = new SecureRandom();
+        this.seed1 = random.nextLong();
+        this.seed2 = random.nextLong();
+    }
+
+    /**
+     * Calculates the fingerprint of a packet.
+     *
+     * @param data the received packet
+     * @param length the number of bytes to fingerprint
+     * @return the fingerprint
+     */
+    public Key key(byte[] data, int length) {
+        long h1 = seed1;
+        long h2 = seed2;
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            long word = getLong(data, i);
+            h1 = Long.rotateLeft(h1 ^ (word * PRIME_1), 31) * PRIME_2;
+            h2 = Long.rotateLeft(h2 + (word * PRIME_3), 27) * PRIME_1;
+        }
+        for (; i < length; i++) {
+            long value = data[i] & 0xFFL;
+            h1 = Long.rotateLeft(h1 ^ (value * PRIME_3), 11) * PRIME_1;
+            h2 = Long.rotateLeft(h2 + (value * PRIME_2), 13) * PRIME_3;
+        }
+        return new Key(mix(h1 ^ length), mix(h2 + h1));
+    }
+
+    /**
+     * Looks up the hash of a packet.
+     *
+     * @param key the fingerprint of the packet
+     * @return the hash of the transaction or <tt>null</tt> if the packet was not seen recently
+     */
+    public Hash get(Key key) {
+        AtomicReferenceArray<Entry> shard = shard(key);
+        int slot = firstSlot(key);
+        for (int way = 0; way < WAYS; way++) {
+            Entry entry = shard.get(slot + way);
+            if (entry != null && entry.matches(key)) {
+                if (dropRate > 0 && ThreadLocalRandom.current().nextDouble() < dropRate) {
+                    shard.compareAndSet(slot + way, entry, null);
+                    break;
+                }
+                hits.increment();
+                return entry.hash;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Remembers the hash of a packet, replacing the older entry of its bucket if necessary.
+     *
+     * @param key the fingerprint of the packet
+     * @param hash the hash of the transaction
+     */
+    public void put(Key key, Hash hash) {
+        AtomicReferenceArray<Entry> shard = shard(key);
+        int slot = firstSlot(key);
+
+        int victim = slot;
+        Entry victimEntry = shard.get(slot);
+        for (int way = 0; way < WAYS; way++) {
+            Entry entry = shard.get(slot + way);
+            if (entry != null && entry.matches(key)) {
+                return;
+            }
+            if (victimEntry != null && (entry == null || entry.insertionTime < victimEntry.insertionTime)) {
+                victim = slot + way;
+                victimEntry = entry;
+            }
+        }
+
+        Entry entry = new Entry(key, hash, System.nanoTime());
+        if (shard.compareAndSet(victim, victimEntry, entry) && victimEntry != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * @return the number of entries the cache holds at most
+     */
+    public int getCapacity() {
+        return NUMBER_OF_SHARDS * (bucketMask + 1) * WAYS;
+    }
+
+    /**
+     * @return the number of lookups that found the packet
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that did not find the packet
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of entries that were replaced by newer ones
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private AtomicReferenceArray<Entry> shard(Key key) {
+        return shards[(int) (key.fingerprint1 >>> 58) & (NUMBER_OF_SHARDS - 1)];
+    }
+
+    private int firstSlot(Key key) {
+        return ((int) key.fingerprint1 & bucketMask) * WAYS;
+    }
+
+    private static long getLong(byte[] data, int offset) {
+        return (data[offset] & 0xFFL)
+                | (data[offset + 1] & 0xFFL) << 8
+                | (data[offset + 2] & 0xFFL) << 16
+                | (data[offset + 3] & 0xFFL) << 24
+                | (data[offset + 4] & 0xFFL) << 32
+                | (data[offset + 5] & 0xFFL) << 40
+                | (data[offset + 6] & 0xFFL) << 48
+                | (data[offset + 7] & 0xFFL) << 56;
+    }
+
+    /**
+     * Final avalanche step, so every input bit affects every output bit.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
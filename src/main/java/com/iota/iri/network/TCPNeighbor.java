@@ -6,10 +6,9 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Created by paul on 4/15/17.
@@ -26,16 +25,21 @@ public class TCPNeighbor extends Neighbor {
     private int tcpPort;
 
     private final ArrayBlockingQueue<ByteBuffer> sendQueue = new ArrayBlockingQueue<>(10);
-    private boolean stopped = false;
+    private volatile boolean stopped = false;
+
+    /**
+     * Notified whenever a packet is queued for sending, so the sink can start writing.
+     */
+    private volatile Runnable sendListener;
 
     public TCPNeighbor(InetSocketAddress address, boolean isConfigured) {
         super(address, isConfigured);
         this.tcpPort = address.getPort();
     }
 
-    private Socket source = null;
+    private volatile SocketChannel source = null;
 
-    public Socket getSource() {
+    public SocketChannel getSource() {
         return source;
     }
 
@@ -49,9 +53,9 @@ public class TCPNeighbor extends Neighbor {
         return stopped;
     }
 
-    public void setSource(Socket source) {
+    public void setSource(SocketChannel source) {
         if (source == null) {
-            if (this.source != null && !this.source.isClosed()) {
+            if (this.source != null && this.source.isOpen()) {
                 try {
                     this.source.close();
                     log.info("Source {} closed", this.getHostAddress());
@@ -63,15 +67,16 @@ public class TCPNeighbor extends Neighbor {
         this.source = source;
     }
 
-    private Socket sink = null;
+    private volatile SocketChannel sink = null;
 
-    public Socket getSink() {
+    public SocketChannel getSink() {
         return sink;
     }
 
-    public void setSink(Socket sink) {
+    public void setSink(SocketChannel sink) {
         if (sink == null) {
-            if (this.sink != null && !this.sink.isClosed()) {
+            sendListener = null;
+            if (this.sink != null && this.sink.isOpen()) {
                 try {
                     this.sink.close();
                     log.info("Sink {} closed", this.getHostAddress());
@@ -83,6 +88,15 @@ public class TCPNeighbor extends Neighbor {
         this.sink = sink;
     }
 
+    /**
+     * Registers the listener that is notified whenever a packet is queued for sending.
+     *
+     * @param sendListener listener to notify or <tt>null</tt> to stop notifications
+     */
+    public void setSendListener(Runnable sendListener) {
+        this.sendListener = sendListener;
+    }
+
     /**
      * This is a non-blocking write and that makes it necessary to make a defensive copy of the sent data.
      *
@@ -93,13 +107,17 @@ public class TCPNeighbor extends Neighbor {
         synchronized (sendQueue) {
             if (sendQueue.remainingCapacity() == 0) {
                 sendQueue.poll();
-                log.info("Sendqueue full...dropped 1 tx");
+                incDroppedSentTransactions();
+                log.debug("Sendqueue full...dropped 1 tx");
             }
-            log.info("Sendqueue size: {}",sendQueue.size());
             byte[] bytes = packet.getData().clone();
             sendQueue.add(ByteBuffer.wrap(bytes));
         }
-            
+
+        Runnable listener = sendListener;
+        if (listener != null) {
+            listener.run();
+        }
     }
 
     @Override
@@ -116,8 +134,13 @@ public class TCPNeighbor extends Neighbor {
         this.tcpPort = tcpPort;
     }
 
-    public ByteBuffer getNextMessage() throws InterruptedException {
-        return (this.sendQueue.poll(10000, TimeUnit.MILLISECONDS));
+    /**
+     * Retrieves the next packet that should be sent without waiting.
+     *
+     * @return the next packet or <tt>null</tt> if there is nothing to send
+     */
+    public ByteBuffer pollNextMessage() {
+        return sendQueue.poll();
     }
 
 }
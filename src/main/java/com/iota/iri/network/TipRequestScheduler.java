@@ -0,0 +1,87 @@
+package com.iota.iri.network;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decides how often the {@link Node} sends tip requests to its neighbors and to which neighbors.
+ * <br>
+ * A node that is behind its neighbors sends tip requests more often the further it is behind, measured by the lag of
+ * the solid milestone behind the latest milestone and by the number of transactions it still has to request. A node
+ * that is in sync sends them rarely: every packet that is sent while nothing has to be requested asks for a random
+ * tip anyway, so only neighbors that were not sent anything since the previous round need an explicit tip request.
+ */
+public class TipRequestScheduler {
+
+    /**
+     * The shortest interval between two rounds of tip requests.
+     */
+    static final long MIN_INTERVAL_MS = 500;
+    /**
+     * The interval between two rounds while the node is behind by a single step.
+     */
+    static final long BASE_INTERVAL_MS = 5_000;
+    /**
+     * The interval between two rounds while the node is in sync.
+     */
+    static final long SYNCED_INTERVAL_MS = 30_000;
+    /**
+     * The largest milestone lag the node counts as in sync, the solid milestone usually trails the latest one while
+     * it is being solidified.
+     */
+    static final int SYNCED_MILESTONE_LAG = 1;
+    /**
+     * Every this many transactions that wait to be requested count like one milestone of lag.
+     */
+    static final int BACKLOG_PER_STEP = 1_000;
+
+    private Map<Neighbor, Long> sentAtLastRound = new HashMap<>();
+
+    /**
+     * @param requestBacklog the number of transactions that wait to be requested
+     * @param milestoneLag the number of milestones the solid milestone is behind the latest milestone
+     * @return <tt>true</tt> if the node counts as in sync with its neighbors
+     */
+    public boolean isSynced(int requestBacklog, int milestoneLag) {
+        return milestoneLag <= SYNCED_MILESTONE_LAG && requestBacklog < BACKLOG_PER_STEP;
+    }
+
+    /**
+     * @param requestBacklog the number of transactions that wait to be requested
+     * @param milestoneLag the number of milestones the solid milestone is behind the latest milestone
+     * @return the time to wait between two rounds of tip requests
+     */
+    public long interval(int requestBacklog, int milestoneLag) {
+        if (isSynced(requestBacklog, milestoneLag)) {
+            return SYNCED_INTERVAL_MS;
+        }
+        long steps = Math.max(0, milestoneLag) + requestBacklog / BACKLOG_PER_STEP;
+        return Math.max(MIN_INTERVAL_MS, BASE_INTERVAL_MS / Math.max(1, steps));
+    }
+
+    /**
+     * Starts a new round of tip requests for an in sync node, remembering how many packets were sent to every
+     * neighbor so far. The tip requests the idle neighbors are about to be sent are counted in advance, so they
+     * don't make the neighbors look busy in the next round.
+     *
+     * @param neighbors the current neighbors
+     * @return the neighbors that were not sent any packet since the previous round
+     */
+    public Collection<Neighbor> idleNeighbors(Collection<Neighbor> neighbors) {
+        Map<Neighbor, Long> sent = new HashMap<>(neighbors.size() * 2);
+        Collection<Neighbor> idle = new ArrayList<>();
+        for (Neighbor neighbor : neighbors) {
+            long sentTransactions = neighbor.getNumberOfSentTransactions();
+            Long previous = sentAtLastRound.get(neighbor);
+            if (previous == null || sentTransactions <= previous) {
+                idle.add(neighbor);
+                sentTransactions++;
+            }
+            sent.put(neighbor, sentTransactions);
+        }
+        sentAtLastRound = sent;
+        return idle;
+    }
+}
@@ -0,0 +1,65 @@
+package com.iota.iri.network;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many packets may be sent per second.
+ * <br>
+ * The bucket is refilled continuously at the configured rate and holds at most one second worth of tokens, so short
+ * bursts are allowed while the average rate stays below the limit. Every sent packet consumes one token. Tokens are
+ * consumed after checking {@link #nanosUntilAvailable()}, so concurrent senders may overdraw the bucket slightly;
+ * the debt is paid off by the following refills.
+ */
+public class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private final boolean unlimited;
+
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param packetsPerSecond the maximum average rate; below 0 means that the rate is not limited. A limit of 0 is
+     *                         raised to one packet per second, so the neighbor is never cut off completely.
+     */
+    public TokenBucket(long packetsPerSecond) {
+        this.unlimited = packetsPerSecond < 0;
+        this.capacity = Math.max(1, packetsPerSecond);
+        this.tokensPerNano = capacity / NANOS_PER_SECOND;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * @return 0 if a packet may be sent now, otherwise the number of nanoseconds until the next token is available
+     */
+    public synchronized long nanosUntilAvailable() {
+        if (unlimited) {
+            return 0;
+        }
+        refill();
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Takes the token of a sent packet.
+     */
+    public synchronized void consume() {
+        if (!unlimited) {
+            refill();
+            tokens -= 1;
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
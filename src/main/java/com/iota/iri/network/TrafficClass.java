@@ -0,0 +1,25 @@
+package com.iota.iri.network;
+
+/**
+ * The kinds of packets a {@link Node} sends to its neighbors. Every neighbor queues each class separately, and the
+ * writer threads share the bandwidth between the classes according to their configured weights.
+ */
+public enum TrafficClass {
+
+    /**
+     * Transactions a neighbor asked for.
+     */
+    REPLY,
+
+    /**
+     * Packets that request transactions from a neighbor, like the periodic tip requests.
+     */
+    REQUEST,
+
+    /**
+     * New transactions that are gossiped to all neighbors.
+     */
+    BROADCAST;
+
+    static final TrafficClass[] VALUES = values();
+}
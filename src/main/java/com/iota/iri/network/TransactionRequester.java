@@ -2,37 +2,134 @@ package com.iota.iri.network;
 
 import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
+import com.iota.iri.utils.collections.impl.RollingBloomFilter;
 import com.iota.iri.zmq.MessageQ;
 import com.iota.iri.storage.Tangle;
-import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
 /**
  * Created by paul on 3/27/17.
+ * <br>
+ * Schedules the transactions that are requested from the neighbors.
+ * <br>
+ * Every requested hash keeps its own state: when it was requested first, how often it was asked for and which
+ * neighbors were asked. A hash is requested again only after an exponentially growing backoff, so a few missing
+ * transactions don't take every outgoing packet. Requests of milestone transactions are served first and are not
+ * limited in number.
+ * <br>
+ * Requests are routed by neighbor: a neighbor that was asked for a hash recently, or asked us for it, is not asked
+ * for it again before the other neighbors had their turn. Neighbors that answer our requests raise their
+ * {@link Neighbor#getRequestScore() request score}, neighbors that didn't answer within {@value #MISS_TIMEOUT_MS}
+ * milliseconds lower it. That window is independent of the backoff, which is much shorter than the time a neighbor
+ * needs to answer.
+ * <br>
+ * {@link #transactionToRequest(boolean)} runs for every outgoing packet and doesn't lock. Received transactions are
+ * cleared with {@link #clearTransactionRequest(Hash)} and remembered in an in-memory filter; the database is only
+ * asked whether a requested transaction exists when that filter knows the hash or every few attempts.
  */
 public class TransactionRequester {
 
     private static final Logger log = LoggerFactory.getLogger(TransactionRequester.class);
     private final MessageQ messageQ;
-    private final Set<Hash> milestoneTransactionsToRequest = new LinkedHashSet<>();
-    private final Set<Hash> transactionsToRequest = new LinkedHashSet<>();
 
     public static final int MAX_TX_REQ_QUEUE_SIZE = 10000;
 
+    /**
+     * The first retry of a request waits this long, every further retry twice as long as the one before.
+     */
+    public static final long INITIAL_BACKOFF_MS = 50;
+    public static final long MAX_BACKOFF_MS = 2000;
+    /**
+     * A neighbor that didn't send a requested transaction within this time counts as not having answered. It covers
+     * the round trip, the hashing batch and the queues of the neighbor.
+     */
+    public static final long MISS_TIMEOUT_MS = 500;
+    /**
+     * Every this many attempts the database is asked if the transaction arrived without its request being cleared.
+     */
+    private static final int EXISTS_CHECK_INTERVAL = 4;
+    /**
+     * Maximal number of queued hashes that {@link #transactionToRequest(boolean)} looks at before giving up.
+     */
+    private static final int MAX_SCAN = 16;
+    private static final int MAX_ASKED_NEIGHBORS = 8;
+    /**
+     * A neighbor that was asked for a hash, or asked us for it, is asked for it again only after this many backoffs.
+     */
+    private static final int NEIGHBOR_RETRY_BACKOFFS = 4;
+    private static final int KNOWN_FILTER_CAPACITY = 50_000;
+    private static final double KNOWN_FILTER_FALSE_POSITIVE_RATE = 0.001;
+    private static final int MIN_STALE_ENTRIES_TO_COMPACT = 1000;
+
     private static double P_REMOVE_REQUEST;
     private static boolean initialized = false;
     private final SecureRandom random = new SecureRandom();
 
-    private final Object syncObj = new Object();
+    private final Map<Hash, Request> requests = new ConcurrentHashMap<>();
+    /**
+     * The queues hold the requests themselves, so an entry of a request that was cleared and requested again is
+     * recognized as stale even though its hash is requested.
+     */
+    private final Queue<Request> milestoneQueue = new ConcurrentLinkedQueue<>();
+    private final Queue<Request> normalQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger milestoneCount = new AtomicInteger();
+    private final AtomicInteger normalCount = new AtomicInteger();
+    /**
+     * Number of queue entries whose request was cleared or moved to the milestone class.
+     */
+    private final AtomicInteger staleEntries = new AtomicInteger();
+    private final RollingBloomFilter knownTransactions =
+            new RollingBloomFilter(KNOWN_FILTER_CAPACITY, KNOWN_FILTER_FALSE_POSITIVE_RATE);
+
     private final Tangle tangle;
+    private final LongSupplier clock;
+
+    /**
+     * State of a requested hash. Apart from {@link #milestone} all fields are guarded by the request itself.
+     */
+    private static class Request {
+        private final Hash hash;
+        private final long firstRequested;
+        private volatile boolean milestone;
+        private boolean removed;
+        private int attempts;
+        private long nextAttempt;
+        /**
+         * Neighbors that were asked for the hash or don't have it, with the time they were asked.
+         */
+        private Map<Neighbor, Long> askedNeighbors;
+        /**
+         * Neighbors that were asked for the hash and neither answered nor missed the answer yet, with the time they
+         * were asked.
+         */
+        private Map<Neighbor, Long> awaitedNeighbors;
+
+        private Request(Hash hash, boolean milestone, long now) {
+            this.hash = hash;
+            this.milestone = milestone;
+            this.firstRequested = now;
+        }
+    }
 
     public TransactionRequester(Tangle tangle, MessageQ messageQ) {
+        this(tangle, messageQ, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the current time in milliseconds
+     */
+    TransactionRequester(Tangle tangle, MessageQ messageQ, LongSupplier clock) {
         this.tangle = tangle;
         this.messageQ = messageQ;
+        this.clock = clock;
     }
 
     public void init(double pRemoveRequest) {
@@ -43,37 +140,89 @@ public class TransactionRequester {
     }
 
     public Hash[] getRequestedTransactions() {
-        synchronized (syncObj) {
-            return ArrayUtils.addAll(transactionsToRequest.stream().toArray(Hash[]::new),
-                    milestoneTransactionsToRequest.stream().toArray(Hash[]::new));
-        }
+        List<Hash> normal = new ArrayList<>();
+        List<Hash> milestone = new ArrayList<>();
+        requests.forEach((hash, request) -> (request.milestone ? milestone : normal).add(hash));
+        normal.addAll(milestone);
+        return normal.toArray(new Hash[0]);
     }
 
     public int numberOfTransactionsToRequest() {
-        return transactionsToRequest.size() + milestoneTransactionsToRequest.size();
+        return normalCount.get() + milestoneCount.get();
     }
 
+    /**
+     * Stops requesting a transaction, usually because it was received, and remembers it as known.
+     *
+     * @param hash hash of the transaction
+     * @return true if the transaction was requested
+     */
     public boolean clearTransactionRequest(Hash hash) {
-        synchronized (syncObj) {
-            boolean milestone = milestoneTransactionsToRequest.remove(hash);
-            boolean normal = transactionsToRequest.remove(hash);
-            return normal || milestone;
+        knownTransactions.add(hash.bytes());
+        return removeRequest(hash);
+    }
+
+    private boolean removeRequest(Hash hash) {
+        Request request = requests.get(hash);
+        return request != null && removeRequest(request);
+    }
+
+    private boolean removeRequest(Request request) {
+        if (!requests.remove(request.hash, request)) {
+            return false;
+        }
+        synchronized (request) {
+            request.removed = true;
+            count(request.milestone).decrementAndGet();
         }
+        staleEntries.incrementAndGet();
+        return true;
     }
 
     public void requestTransaction(Hash hash, boolean milestone) throws Exception {
-        if (!hash.equals(Hash.NULL_HASH) && !TransactionViewModel.exists(tangle, hash)) {
-            synchronized (syncObj) {
-                if(milestone) {
-                    transactionsToRequest.remove(hash);
-                    milestoneTransactionsToRequest.add(hash);
-                } else {
-                    if(!milestoneTransactionsToRequest.contains(hash) && !transactionsToRequestIsFull()) {
-                        transactionsToRequest.add(hash);
-                    }
-                }
+        if (hash.equals(Hash.NULL_HASH)) {
+            return;
+        }
+        Request existing = requests.get(hash);
+        if (existing != null) {
+            if (milestone) {
+                upgradeToMilestone(existing);
+            }
+            return;
+        }
+        if (!milestone && normalCount.get() >= MAX_TX_REQ_QUEUE_SIZE) {
+            return;
+        }
+        if (TransactionViewModel.exists(tangle, hash)) {
+            return;
+        }
+
+        Request request = new Request(hash, milestone, clock.getAsLong());
+        count(milestone).incrementAndGet();
+        existing = requests.putIfAbsent(hash, request);
+        if (existing == null) {
+            queue(milestone).offer(request);
+        } else {
+            count(milestone).decrementAndGet();
+            if (milestone) {
+                upgradeToMilestone(existing);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    private void upgradeToMilestone(Request request) {
+        synchronized (request) {
+            if (request.removed || request.milestone) {
+                return;
             }
+            request.milestone = true;
+            normalCount.decrementAndGet();
+            milestoneCount.incrementAndGet();
         }
+        // the entry in the normal queue is skipped from now on
+        staleEntries.incrementAndGet();
+        milestoneQueue.offer(request);
     }
 
     /**
@@ -87,61 +236,255 @@ public class TransactionRequester {
      * @return true if the transaction is in the set of transactions to be requested and false otherwise
      */
     public boolean isTransactionRequested(Hash transactionHash, boolean milestoneRequest) {
-        return (milestoneRequest && milestoneTransactionsToRequest.contains(transactionHash))
-                || (!milestoneRequest && milestoneTransactionsToRequest.contains(transactionHash) ||
-                transactionsToRequest.contains(transactionHash));
+        Request request = requests.get(transactionHash);
+        return request != null && (!milestoneRequest || request.milestone);
     }
 
-    private boolean transactionsToRequestIsFull() {
-        return transactionsToRequest.size() >= TransactionRequester.MAX_TX_REQ_QUEUE_SIZE;
+    public Hash transactionToRequest(boolean milestone) throws Exception {
+        return transactionToRequest(milestone, null);
     }
 
+    /**
+     * Picks the next transaction to request whose backoff has passed, preferring the given priority class.
+     *
+     * @param milestone true to prefer milestone requests
+     * @param neighbor the neighbor that will be asked, remembered in the state of the request; may be null
+     * @return the hash to request or null if no request is due
+     * @throws Exception if the database can't be read
+     */
+    public Hash transactionToRequest(boolean milestone, Neighbor neighbor) throws Exception {
+        Hash hash = nextDueRequest(milestone, neighbor);
+        if (hash == null) {
+            hash = nextDueRequest(!milestone, neighbor);
+        }
+        return hash;
+    }
 
-    public Hash transactionToRequest(boolean milestone) throws Exception {
-        // determine which set of transactions to operate on
-        Set<Hash> primarySet = milestone ? milestoneTransactionsToRequest : transactionsToRequest;
-        Set<Hash> alternativeSet = milestone ? transactionsToRequest : milestoneTransactionsToRequest;
-        Set<Hash> requestSet = primarySet.size() == 0 ? alternativeSet : primarySet;
-
-        // determine the first hash in our set that needs to be processed
-        Hash hash = null;
-        synchronized (syncObj) {
-            // repeat while we have transactions that shall be requested
-            while (requestSet.size() != 0) {
-                // remove the first item in our set for further examination
-                Iterator<Hash> iterator = requestSet.iterator();
-                hash = iterator.next();
-                iterator.remove();
-
-                // if we have received the transaction in the mean time ....
-                if (TransactionViewModel.exists(tangle, hash)) {
-                    // ... dump a log message ...
-                    log.info("Removed existing tx from request list: " + hash);
-                    messageQ.publish("rtl %s", hash);
-
-                    // ... and continue to the next element in the set
+    private Hash nextDueRequest(boolean milestone, Neighbor neighbor) throws Exception {
+        Queue<Request> queue = queue(milestone);
+        long now = clock.getAsLong();
+        for (int i = 0; i < MAX_SCAN; i++) {
+            Request request = queue.poll();
+            if (request == null) {
+                return null;
+            }
+            if (isStale(request, milestone)) {
+                // the request was cleared, requested anew or moved to the other queue
+                staleEntries.decrementAndGet();
+                continue;
+            }
+            Hash hash = request.hash;
+
+            boolean due;
+            boolean checkExists = false;
+            List<Neighbor> missed = Collections.emptyList();
+            synchronized (request) {
+                if (request.removed) {
+                    staleEntries.decrementAndGet();
                     continue;
                 }
+                due = request.nextAttempt <= now && !askedRecently(request, neighbor, now);
+                if (due) {
+                    missed = takeMissedNeighbors(request, now);
+                    request.attempts++;
+                    request.nextAttempt = now + backoff(request.attempts);
+                    rememberAskedNeighbor(request, neighbor, now);
+                    if (neighbor != null) {
+                        if (request.awaitedNeighbors == null) {
+                            request.awaitedNeighbors = new HashMap<>();
+                        }
+                        request.awaitedNeighbors.putIfAbsent(neighbor, now);
+                    }
+                    checkExists = request.attempts % EXISTS_CHECK_INTERVAL == 0;
+                }
+            }
+            for (Neighbor silent : missed) {
+                silent.recordRequestAnswered(false);
+            }
 
-                // ... otherwise -> re-add it at the end of the set ...
-                //
-                // Note: we always have enough space since we removed the element before
-                requestSet.add(hash);
+            // the transaction may have been stored without clearing its request
+            if (due && (checkExists || knownTransactions.mightContain(hash.bytes()))
+                    && TransactionViewModel.exists(tangle, hash)) {
+                removeRequest(request);
+                // the entry was polled already, so it is not stale
+                staleEntries.decrementAndGet();
+                log.info("Removed existing tx from request list: " + hash);
+                messageQ.publish("rtl %s", hash);
+                continue;
+            }
 
-                // ... and abort our loop to continue processing with the element we found
-                break;
+            // randomly drop "non-milestone" transactions so we don't keep on asking for non-existent transactions
+            // forever
+            if (due && !milestone && random.nextDouble() < P_REMOVE_REQUEST) {
+                removeRequest(request);
+                // the entry was polled already, so it is not stale
+                staleEntries.decrementAndGet();
+            } else {
+                queue.offer(request);
+            }
+            if (due) {
+                return hash;
             }
         }
+        return null;
+    }
+
+    /**
+     * @param request a request polled from a queue
+     * @param milestone true if it was polled from the milestone queue
+     * @return true if the entry doesn't belong to the live request of its hash in that queue any more
+     */
+    private boolean isStale(Request request, boolean milestone) {
+        return requests.get(request.hash) != request || request.milestone != milestone;
+    }
+
+    private static long backoff(int attempts) {
+        return Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(attempts - 1, 16));
+    }
 
-        // randomly drop "non-milestone" transactions so we don't keep on asking for non-existent transactions forever
-        if(random.nextDouble() < P_REMOVE_REQUEST && !requestSet.equals(milestoneTransactionsToRequest)) {
-            synchronized (syncObj) {
-                transactionsToRequest.remove(hash);
+    /**
+     * Removes the neighbors that were asked for the hash more than {@link #MISS_TIMEOUT_MS} ago and didn't answer.
+     *
+     * @return the neighbors that missed the request
+     */
+    private static List<Neighbor> takeMissedNeighbors(Request request, long now) {
+        if (request.awaitedNeighbors == null) {
+            return Collections.emptyList();
+        }
+        List<Neighbor> missed = new ArrayList<>();
+        request.awaitedNeighbors.entrySet().removeIf(awaited -> {
+            if (now - awaited.getValue() < MISS_TIMEOUT_MS) {
+                return false;
             }
+            missed.add(awaited.getKey());
+            return true;
+        });
+        return missed;
+    }
+
+    private static boolean askedRecently(Request request, Neighbor neighbor, long now) {
+        if (neighbor == null || request.askedNeighbors == null) {
+            return false;
         }
+        Long askedAt = request.askedNeighbors.get(neighbor);
+        return askedAt != null && now - askedAt < NEIGHBOR_RETRY_BACKOFFS * backoff(Math.max(1, request.attempts));
+    }
 
-        // return our result
-        return hash;
+    private static void rememberAskedNeighbor(Request request, Neighbor neighbor, long now) {
+        if (neighbor == null) {
+            return;
+        }
+        if (request.askedNeighbors == null) {
+            request.askedNeighbors = new HashMap<>();
+        }
+        if (request.askedNeighbors.size() >= MAX_ASKED_NEIGHBORS && !request.askedNeighbors.containsKey(neighbor)) {
+            // forget the neighbor that was asked longest ago
+            request.askedNeighbors.entrySet().stream()
+                    .min(Map.Entry.comparingByValue())
+                    .ifPresent(oldest -> request.askedNeighbors.remove(oldest.getKey()));
+        }
+        request.askedNeighbors.put(neighbor, now);
     }
 
+    /**
+     * Remembers that a neighbor doesn't have a transaction we request, e.g. because it requested the transaction
+     * from us, so it isn't asked for it soon.
+     *
+     * @param hash hash of the transaction
+     * @param neighbor the neighbor that lacks the transaction
+     */
+    public void markLacking(Hash hash, Neighbor neighbor) {
+        Request request = requests.get(hash);
+        if (request == null) {
+            return;
+        }
+        synchronized (request) {
+            rememberAskedNeighbor(request, neighbor, clock.getAsLong());
+        }
+    }
+
+    /**
+     * Credits a neighbor that sent a transaction we asked it for. Must be called before the request is cleared.
+     *
+     * @param hash hash of the received transaction
+     * @param neighbor the neighbor that sent it
+     */
+    public void recordReceived(Hash hash, Neighbor neighbor) {
+        Request request = requests.get(hash);
+        if (request == null) {
+            return;
+        }
+        boolean asked;
+        synchronized (request) {
+            asked = request.askedNeighbors != null && request.askedNeighbors.containsKey(neighbor);
+            if (request.awaitedNeighbors != null) {
+                request.awaitedNeighbors.remove(neighbor);
+            }
+        }
+        if (asked) {
+            neighbor.recordRequestAnswered(true);
+        }
+    }
+
+    /**
+     * @param hash hash of a requested transaction
+     * @return the number of times the transaction was requested, 0 if it is not requested
+     */
+    public int getAttempts(Hash hash) {
+        Request request = requests.get(hash);
+        if (request == null) {
+            return 0;
+        }
+        synchronized (request) {
+            return request.attempts;
+        }
+    }
+
+    /**
+     * @param hash hash of a requested transaction
+     * @return when the transaction was requested first in milliseconds since the epoch, 0 if it is not requested
+     */
+    public long getFirstRequested(Hash hash) {
+        Request request = requests.get(hash);
+        return request == null ? 0 : request.firstRequested;
+    }
+
+    /**
+     * @param hash hash of a requested transaction
+     * @param neighbor a neighbor
+     * @return true if the neighbor was already asked for the transaction
+     */
+    public boolean wasAsked(Hash hash, Neighbor neighbor) {
+        Request request = requests.get(hash);
+        if (request == null) {
+            return false;
+        }
+        synchronized (request) {
+            return request.askedNeighbors != null && request.askedNeighbors.containsKey(neighbor);
+        }
+    }
+
+    /**
+     * Drops the queue entries of cleared requests once there are many of them, so requests that are cleared while
+     * nothing is sent don't pile up in the queues.
+     */
+    private void compactIfNeeded() {
+        int stale = staleEntries.get();
+        if (stale < Math.max(MIN_STALE_ENTRIES_TO_COMPACT, numberOfTransactionsToRequest())) {
+            return;
+        }
+        if (!staleEntries.compareAndSet(stale, 0)) {
+            return;
+        }
+        milestoneQueue.removeIf(request -> isStale(request, true));
+        normalQueue.removeIf(request -> isStale(request, false));
+    }
+
+    private AtomicInteger count(boolean milestone) {
+        return milestone ? milestoneCount : normalCount;
+    }
+
+    private Queue<Request> queue(boolean milestone) {
+        return milestone ? milestoneQueue : normalQueue;
+    }
 }
@@ -4,8 +4,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 
 /**
  * Created by paul on 4/15/17.
@@ -13,30 +14,34 @@ import java.net.InetSocketAddress;
  
   /**
  * This class Extends {@link Neighbor} base class with UDP specific functionality. 
- * It keeps reference of socket and doesnt maintains any queue for UDP outgoing packets. 
+ * It keeps reference of the channel and doesnt maintains any queue for UDP outgoing packets. 
  * 
  */
 public class UDPNeighbor extends Neighbor {
 
     private static final Logger log = LoggerFactory.getLogger(UDPNeighbor.class);
 
-    private final DatagramSocket socket;
+    private final DatagramChannel channel;
 
-    UDPNeighbor(final InetSocketAddress address, final DatagramSocket socket, final boolean isConfigured) {
+    UDPNeighbor(final InetSocketAddress address, final DatagramChannel channel, final boolean isConfigured) {
         super(address, isConfigured);
-        this.socket = socket;
+        this.channel = channel;
     }
 
     /**
-     * This is a blocking write and it is not necessary to copy the sent data.
+     * This is a non-blocking write and it is not necessary to copy the sent data. If the send buffer of the socket is
+     * full the packet is dropped and counted.
      *
      * @param packet the packet to be sent immediately.
      */
     @Override
     public void send(DatagramPacket packet) {
         try {
-            packet.setSocketAddress(getAddress());
-            socket.send(packet);
+            ByteBuffer buffer = ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getLength());
+            if (channel.send(buffer, getAddress()) == 0) {
+                incDroppedSentTransactions();
+                return;
+            }
             incSentTransactions();
         } catch (final Exception e) {
             log.error("Error sending UDP packet to [{}]: {}", getAddress(), e.toString());
@@ -1,57 +1,157 @@
 package com.iota.iri.network;
 
 import com.iota.iri.conf.NodeConfig;
-import com.iota.iri.crypto.Sponge;
-import com.iota.iri.crypto.SpongeFactory;
-import com.iota.iri.model.Hash;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.DatagramPacket;
-import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.util.Arrays;
-import java.util.concurrent.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Created by paul on 4/16/17.
+ * Receives gossip packets on the UDP port of the node.
+ *
+ * A single non-blocking {@link DatagramChannel} is watched by a {@link Selector}. Whenever it becomes readable the
+ * receiving thread drains every datagram that is waiting in the socket buffer into pooled direct buffers and hands
+ * them to a bounded ring, which is consumed by the processor threads that call
+ * {@link Node#preProcessReceivedData(byte[], SocketAddress, String)}.
+ *
+ * If the processors can not keep up, the ring fills up and the configured {@link DropPolicy} decides which packets
+ * are discarded. Every discarded packet is counted.
  */
 public class UDPReceiver {
     private static final Logger log = LoggerFactory.getLogger(UDPReceiver.class);
 
-    private final DatagramPacket receivingPacket;
+    /**
+     * Maximum number of datagrams read from the socket before the selector is consulted again.
+     */
+    private static final int MAX_DATAGRAMS_PER_WAKEUP = 64;
+
+    private static final long STATISTICS_INTERVAL = 50_000L;
 
     private final AtomicBoolean shuttingDown = new AtomicBoolean(false);
     private final int port;
     private final Node node;
     private final int packetSize;
-
-    private DatagramSocket socket;
+    private final DropPolicy dropPolicy;
 
     private final int PROCESSOR_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() * 4 );
 
-    private final ExecutorService processor = new ThreadPoolExecutor(PROCESSOR_THREADS, PROCESSOR_THREADS, 5000L,
-                                            TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(PROCESSOR_THREADS, true),
-                                             new ThreadPoolExecutor.AbortPolicy());
+    /**
+     * Received packets waiting to be processed.
+     */
+    private final BlockingQueue<ReceivedPacket> receivedPackets;
+
+    /**
+     * Packets that are currently not in use. It is sized so the receiving thread never runs out of buffers.
+     */
+    private final BlockingQueue<ReceivedPacket> freePackets;
+
+    private final AtomicLong receivedCount = new AtomicLong(0L);
+    private final AtomicLong droppedCount = new AtomicLong(0L);
+    private final AtomicLong malformedCount = new AtomicLong(0L);
+
+    private DatagramChannel channel;
+    private Selector selector;
 
     private Thread receivingThread;
+    private final List<Thread> processorThreads = new ArrayList<>();
+
+    /**
+     * Decides which packet is discarded when a packet is received while the processing ring is full.
+     */
+    public enum DropPolicy {
+        /**
+         * The packet that was just received is discarded.
+         */
+        DROP_NEWEST,
+
+        /**
+         * The packet that waited the longest is discarded to make room for the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * The receiving thread waits for free space. Packets that arrive in the meantime queue up in the socket buffer
+         * of the operating system, which discards them once it is full.
+         */
+        BLOCK;
+
+        /**
+         * Parses the configured policy name.
+         *
+         * @param name name of the policy, case insensitive
+         * @return the matching policy
+         * @throws IllegalArgumentException if there is no policy with the given name
+         */
+        public static DropPolicy fromString(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+        }
+    }
+
+    /**
+     * A pooled direct buffer together with the address of the neighbor that sent the contained datagram.
+     */
+    private static class ReceivedPacket {
+        private final ByteBuffer buffer;
+        private SocketAddress senderAddress;
+
+        private ReceivedPacket(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
 
     public UDPReceiver(Node node, NodeConfig config) {
         this.node = node;
         this.port = config.getUdpReceiverPort();
         this.packetSize = config.getTransactionPacketSize();
-        this.receivingPacket = new DatagramPacket(new byte[packetSize], packetSize);
+        this.dropPolicy = DropPolicy.fromString(config.getUdpReceiverDropPolicy());
+
+        int queueSize = Math.max(1, config.getUdpReceiverQueueSize());
+        this.receivedPackets = new ArrayBlockingQueue<>(queueSize);
+
+        // every processor and the receiving thread hold at most one packet at a time
+        int poolSize = queueSize + PROCESSOR_THREADS + 1;
+        this.freePackets = new ArrayBlockingQueue<>(poolSize);
+
+        // one byte more than a packet, so oversized datagrams can be told apart from valid ones
+        int bufferSize = packetSize + 1;
+        ByteBuffer slab = ByteBuffer.allocateDirect(poolSize * bufferSize);
+        for (int i = 0; i < poolSize; i++) {
+            slab.limit((i + 1) * bufferSize).position(i * bufferSize);
+            freePackets.add(new ReceivedPacket(slab.slice()));
+        }
     }
 
     public void init() throws Exception {
-
-        socket = new DatagramSocket(port);
-        node.setUDPSocket(socket);
+        selector = Selector.open();
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(new InetSocketAddress(port));
+        channel.register(selector, SelectionKey.OP_READ);
+        node.setUdpChannel(channel);
         log.info("UDP replicator is accepting connections on udp port " + port);
 
+        for (int i = 0; i < PROCESSOR_THREADS; i++) {
+            Thread processorThread = new Thread(spawnProcessorThread(), "UDP processor thread " + i);
+            processorThreads.add(processorThread);
+            processorThread.start();
+        }
+
         receivingThread = new Thread(spawnReceiverThread(), "UDP receiving thread");
         receivingThread.start();
     }
@@ -59,70 +159,193 @@ public class UDPReceiver {
     private Runnable spawnReceiverThread() {
         return () -> {
 
-
             log.info("Spawning Receiver Thread");
 
-            final Sponge curl = SpongeFactory.create(SpongeFactory.Mode.CURLP81);
-            final byte[] requestedTransaction = new byte[Hash.SIZE_IN_BYTES];
-
-            int processed = 0, dropped = 0;
+            long lastReported = 0;
 
             while (!shuttingDown.get()) {
+                try {
+                    selector.select();
+                    selector.selectedKeys().clear();
+                    if (shuttingDown.get()) {
+                        break;
+                    }
+
+                    for (int i = 0; i < MAX_DATAGRAMS_PER_WAKEUP; i++) {
+                        if (!receive()) {
+                            break;
+                        }
+                    }
 
-                if (((processed + dropped) % 50000 == 49999)) {
-                    log.info("Receiver thread processed/dropped ratio: "+processed+"/"+dropped);
-                    processed = 0;
-                    dropped = 0;
+                    long received = receivedCount.get();
+                    if (received - lastReported >= STATISTICS_INTERVAL) {
+                        lastReported = received;
+                        log.info("Receiver thread received/dropped/malformed: {}/{}/{}", received,
+                                droppedCount.get(), malformedCount.get());
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (final Exception e) {
+                    if (!shuttingDown.get()) {
+                        log.error("Receiver Thread Exception:", e);
+                    }
                 }
+            }
+            log.info("Shutting down spawning Receiver Thread");
+        };
+    }
 
-                try {
-                    socket.receive(receivingPacket);
+    /**
+     * Reads a single datagram from the channel and hands it to the processors.
+     *
+     * @return <tt>true</tt> if a datagram was read and <tt>false</tt> if the socket buffer is empty
+     * @throws IOException if reading from the channel fails
+     * @throws InterruptedException if the thread is interrupted while waiting for free space
+     */
+    private boolean receive() throws IOException, InterruptedException {
+        ReceivedPacket packet = freePackets.take();
+        packet.buffer.clear();
+        SocketAddress senderAddress = channel.receive(packet.buffer);
+        if (senderAddress == null) {
+            freePackets.offer(packet);
+            return false;
+        }
 
-                    if (receivingPacket.getLength() == packetSize) {
+        if (packet.buffer.position() != packetSize) {
+            malformedCount.incrementAndGet();
+            freePackets.offer(packet);
+            return true;
+        }
 
-                        byte[] bytes = Arrays.copyOf(receivingPacket.getData(), receivingPacket.getLength());
-                        SocketAddress address = receivingPacket.getSocketAddress();
+        receivedCount.incrementAndGet();
+        packet.buffer.flip();
+        packet.senderAddress = senderAddress;
+        enqueue(packet);
+        return true;
+    }
 
-                        processor.submit(() -> node.preProcessReceivedData(bytes, address, "udp"));
-                        processed++;
+    private void enqueue(ReceivedPacket packet) throws InterruptedException {
+        switch (dropPolicy) {
+            case DROP_OLDEST:
+                while (!receivedPackets.offer(packet)) {
+                    ReceivedPacket oldest = receivedPackets.poll();
+                    if (oldest != null) {
+                        droppedCount.incrementAndGet();
+                        freePackets.offer(oldest);
+                    }
+                }
+                break;
+            case BLOCK:
+                while (!receivedPackets.offer(packet, 100, TimeUnit.MILLISECONDS)) {
+                    if (shuttingDown.get()) {
+                        freePackets.offer(packet);
+                        return;
+                    }
+                }
+                break;
+            default:
+                if (!receivedPackets.offer(packet)) {
+                    droppedCount.incrementAndGet();
+                    freePackets.offer(packet);
+                }
+        }
+    }
 
-                        Thread.yield();
+    private Runnable spawnProcessorThread() {
+        return () -> {
+            final byte[] receivedData = new byte[packetSize];
 
-                    } else {
-                        receivingPacket.setLength(packetSize);
-                    }
-                } catch (final RejectedExecutionException e) {
-                    //no free thread, packet dropped
-                    dropped++;
+            while (!shuttingDown.get()) {
+                ReceivedPacket packet;
+                try {
+                    packet = receivedPackets.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (packet == null) {
+                    continue;
+                }
 
+                try {
+                    packet.buffer.get(receivedData, 0, packetSize);
+                    node.preProcessReceivedData(receivedData, packet.senderAddress, "udp");
                 } catch (final Exception e) {
-                    log.error("Receiver Thread Exception:", e);
+                    log.error("Processor Thread Exception:", e);
+                } finally {
+                    packet.senderAddress = null;
+                    freePackets.offer(packet);
                 }
             }
-            log.info("Shutting down spawning Receiver Thread");
         };
     }
 
     public void send(final DatagramPacket packet) {
         try {
-            if (socket != null) {
-                socket.send(packet);
+            if (channel != null) {
+                channel.send(ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getLength()),
+                        packet.getSocketAddress());
             }
         } catch (IOException e) {
             // ignore
         }
     }
 
+    /**
+     * @return the number of valid packets that were read from the socket
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    /**
+     * @return the number of packets that were discarded by the {@link DropPolicy}
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return the number of datagrams that were discarded because they did not have the size of a packet
+     */
+    public long getMalformedCount() {
+        return malformedCount.get();
+    }
+
+    /**
+     * @return the number of received packets that are waiting to be processed
+     */
+    public int getQueueSize() {
+        return receivedPackets.size();
+    }
+
     public void shutdown() throws InterruptedException {
         shuttingDown.set(true);
-        processor.shutdown();
-        processor.awaitTermination(6, TimeUnit.SECONDS);
+        if (selector != null) {
+            selector.wakeup();
+        }
         try {
-            receivingThread.join(6000L);
+            if (receivingThread != null) {
+                receivingThread.join(6000L);
+            }
+            for (Thread processorThread : processorThreads) {
+                processorThread.join(6000L);
+            }
         }
         catch (Exception e) {
             // ignore
         }
+        try {
+            if (selector != null) {
+                selector.close();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            // ignore
+        }
     }
 
 }
@@ -0,0 +1,30 @@
+package com.iota.iri.network.replicator;
+
+import java.nio.channels.SelectionKey;
+
+/**
+ * Handles the I/O events of a single channel that is registered with a {@link ReplicatorEventLoop}.
+ * All methods are called from the thread of the event loop.
+ */
+interface ChannelHandler {
+
+    /**
+     * Called when the channel is ready for at least one of its interest operations.
+     *
+     * @param key the selection key of the channel
+     */
+    void handle(SelectionKey key);
+
+    /**
+     * Called periodically, so handlers can give up operations that take too long.
+     *
+     * @param now the current time in milliseconds
+     */
+    default void checkTimeout(long now) {
+    }
+
+    /**
+     * Closes the channel and releases everything related to it.
+     */
+    void close();
+}
@@ -0,0 +1,54 @@
+package com.iota.iri.network.replicator;
+
+/**
+ * Encodes and verifies the CRC32 checksum that follows every packet on the TCP wire.
+ * <br>
+ * The checksum is transmitted as {@value #CRC32_BYTES} lowercase ASCII hex digits, padded with leading zeros. This
+ * works directly on the bytes of the frame, so no intermediate {@link String} is created.
+ */
+final class Crc32Hex {
+
+    /**
+     * Number of bytes of the checksum on the wire.
+     */
+    static final int CRC32_BYTES = 16;
+
+    private static final byte[] HEX_DIGITS = {
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+
+    private Crc32Hex() {
+    }
+
+    /**
+     * Writes the hex representation of a checksum.
+     *
+     * @param checksum value of the checksum
+     * @param destination array the digits are written to
+     * @param offset index of the first digit in <tt>destination</tt>
+     */
+    static void encode(long checksum, byte[] destination, int offset) {
+        for (int i = CRC32_BYTES - 1; i >= 0; i--) {
+            destination[offset + i] = HEX_DIGITS[(int) (checksum & 0xF)];
+            checksum >>>= 4;
+        }
+    }
+
+    /**
+     * Checks if the digits at the given position are the hex representation of a checksum.
+     *
+     * @param checksum value of the checksum
+     * @param source array holding the received digits
+     * @param offset index of the first digit in <tt>source</tt>
+     * @return <tt>true</tt> if the digits match the checksum
+     */
+    static boolean matches(long checksum, byte[] source, int offset) {
+        for (int i = CRC32_BYTES - 1; i >= 0; i--) {
+            if (source[offset + i] != HEX_DIGITS[(int) (checksum & 0xF)]) {
+                return false;
+            }
+            checksum >>>= 4;
+        }
+        return true;
+    }
+}
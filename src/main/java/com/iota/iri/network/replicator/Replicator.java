@@ -5,47 +5,72 @@ import com.iota.iri.network.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 
 /**
- * This class manages a set of Source and Sink pool workers {@link ReplicatorSourceProcessor}
- * and {@link ReplicatorSinkProcessor}. The workers are managed by the Pool manager threads
- * {@link ReplicatorSourcePool} and {@link ReplicatorSinkPool}
+ * This class manages the TCP connections to all neighbors. Every TCP neighbor has a source, which is the connection
+ * the neighbor sends transactions to us through, and a sink, which we send transactions through.
  * <br>
- * A **Sink** is basically a received end point for TCP where all  the peers send
- * trnasactions to. Since there is only one global endpoint for all the peers, we need
- * only a single thread to manage all the incoming messages. 
+ * The connections are served by a small fixed number of {@link ReplicatorEventLoop}s, independent of the number of
+ * neighbors. The reads are handled by {@link ReplicatorSourceProcessor} and the writes by
+ * {@link ReplicatorSinkProcessor}.
  * <br>
- * A **Source** is a single peer which sends packets to us, therefore we need multiple worker
- * threads to manage sending transaction to multiple peers. 
- * 
+ * The {@link ReplicatorSourcePool} accepts incoming connections and registers them as sources, while the
+ * {@link ReplicatorSinkPool} opens the sinks and reconnects configured neighbors.
  */
- 
+
 public class Replicator {
-    
-    public static final int NUM_THREADS = 32;
-    
+
+    public static final int NUM_IO_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
     private static final Logger log = LoggerFactory.getLogger(Replicator.class);
     private final ReplicatorSinkPool replicatorSinkPool;
     private final int port;
     private ReplicatorSourcePool replicatorSourcePool;
 
+    private final ReplicatorEventLoop[] eventLoops = new ReplicatorEventLoop[NUM_IO_THREADS];
+    private final AtomicInteger nextEventLoop = new AtomicInteger(0);
+
+    private Thread sinkPoolThread;
+    private Thread sourcePoolThread;
+
     public Replicator(Node node, NodeConfig configuration) {
         this.port = configuration.getTcpReceiverPort();
-        replicatorSinkPool = new ReplicatorSinkPool(node, port, configuration.getTransactionPacketSize());
+        replicatorSinkPool = new ReplicatorSinkPool(node, port, configuration.getTransactionPacketSize(),
+                this::nextEventLoop);
         replicatorSourcePool = new ReplicatorSourcePool(replicatorSinkPool, node, configuration.getMaxPeers(),
-                configuration.isTestnet());
+                configuration.isTestnet(), configuration.getTransactionPacketSize(), this::nextEventLoop);
     }
 
-    public void init() {
-        new Thread(replicatorSinkPool).start();
-        new Thread(replicatorSourcePool.init(port)).start();
+    public void init() throws IOException {
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new ReplicatorEventLoop("TCP replicator I/O thread " + i);
+            eventLoops[i].start();
+        }
+        sinkPoolThread = new Thread(replicatorSinkPool, "TCP replicator sink pool");
+        sinkPoolThread.start();
+        sourcePoolThread = new Thread(replicatorSourcePool.init(port), "TCP replicator source pool");
+        sourcePoolThread.start();
         log.info("Started ReplicatorSourcePool");
     }
-    
+
+    private ReplicatorEventLoop nextEventLoop() {
+        return eventLoops[Math.floorMod(nextEventLoop.getAndIncrement(), eventLoops.length)];
+    }
+
     public void shutdown() throws InterruptedException {
-        // TODO
         replicatorSourcePool.shutdown();
         replicatorSinkPool.shutdown();
+        if (sinkPoolThread != null) {
+            sinkPoolThread.interrupt();
+        }
+        for (ReplicatorEventLoop eventLoop : eventLoops) {
+            if (eventLoop != null) {
+                eventLoop.shutdown();
+            }
+        }
     }
-    
+
 }
@@ -0,0 +1,133 @@
+package com.iota.iri.network.replicator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single I/O thread that serves the TCP channels of many neighbors.
+ * <br>
+ * Channels are registered together with a {@link ChannelHandler} that is notified whenever the channel is ready.
+ * Other threads interact with the channels only through {@link #execute(Runnable)}, so the handlers never have to
+ * synchronize their state.
+ */
+class ReplicatorEventLoop implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicatorEventLoop.class);
+
+    private static final long SELECT_TIMEOUT = 1000L;
+
+    private final String name;
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean shutdown = false;
+    private Thread thread;
+
+    ReplicatorEventLoop(String name) throws IOException {
+        this.name = name;
+        this.selector = Selector.open();
+    }
+
+    void start() {
+        thread = new Thread(this, name);
+        thread.start();
+    }
+
+    /**
+     * Runs a task on the thread of this event loop.
+     *
+     * @param task the task to run
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Registers a channel with this event loop. Must be called from the thread of the event loop.
+     *
+     * @param channel a non-blocking channel
+     * @param ops the initial interest operations
+     * @param handler the handler that is notified about the readiness of the channel
+     * @return the selection key of the channel
+     * @throws ClosedChannelException if the channel was closed in the meantime
+     */
+    SelectionKey register(SelectableChannel channel, int ops, ChannelHandler handler) throws ClosedChannelException {
+        return channel.register(selector, ops, handler);
+    }
+
+    @Override
+    public void run() {
+        log.info("Started {}", name);
+        while (!shutdown) {
+            try {
+                selector.select(SELECT_TIMEOUT);
+                runTasks();
+
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    ChannelHandler handler = (ChannelHandler) key.attachment();
+                    try {
+                        if (key.isValid()) {
+                            handler.handle(key);
+                        }
+                    } catch (CancelledKeyException e) {
+                        handler.close();
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                for (SelectionKey key : selector.keys()) {
+                    if (key.isValid()) {
+                        ((ChannelHandler) key.attachment()).checkTimeout(now);
+                    }
+                }
+            } catch (Exception e) {
+                if (!shutdown) {
+                    log.error("Error in " + name, e);
+                }
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            ((ChannelHandler) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // don't care.
+        }
+        log.info("Stopped {}", name);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Error running task in " + name, e);
+            }
+        }
+    }
+
+    void shutdown() throws InterruptedException {
+        shutdown = true;
+        selector.wakeup();
+        if (thread != null) {
+            thread.join(6000L);
+        }
+    }
+}
@@ -1,11 +1,10 @@
 package com.iota.iri.network.replicator;
 
 import java.io.IOException;
-import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import com.iota.iri.network.TCPNeighbor;
 import org.slf4j.Logger;
@@ -14,34 +13,36 @@ import org.slf4j.LoggerFactory;
 import com.iota.iri.network.Neighbor;
 import com.iota.iri.network.Node;
 
+/**
+ * Opens the sinks of TCP neighbors and hands them to the event loops of the {@link Replicator}.
+ * Configured neighbors whose sink got lost are reconnected periodically.
+ */
 public class ReplicatorSinkPool  implements Runnable {
-    
+
     private static final Logger log = LoggerFactory.getLogger(ReplicatorSinkPool.class);
     private final int port;
     private int transactionPacketSize;
     private final Node node;
+    private final Supplier<ReplicatorEventLoop> eventLoops;
 
-    private ExecutorService sinkPool;
-    
-    public boolean shutdown = false;
+    public volatile boolean shutdown = false;
 
     public final static int PORT_BYTES = 10;
 
-    public ReplicatorSinkPool(Node node, int port, int transactionPacketSize) {
+    ReplicatorSinkPool(Node node, int port, int transactionPacketSize, Supplier<ReplicatorEventLoop> eventLoops) {
         this.node = node;
         this.port = port;
         this.transactionPacketSize = transactionPacketSize;
+        this.eventLoops = eventLoops;
     }
 
     @Override
     public void run() {
-        
-        sinkPool = Executors.newFixedThreadPool(Replicator.NUM_THREADS);
-        {           
+        {
             List<Neighbor> neighbors = node.getNeighbors();
             // wait until list is populated
             int loopcnt = 10;
-            while ((loopcnt-- > 0) && neighbors.size() == 0) {
+            while ((loopcnt-- > 0) && neighbors.size() == 0 && !shutdown) {
                 try {
                     Thread.sleep(1000);
                 } catch (InterruptedException e) {
@@ -52,13 +53,14 @@ public class ReplicatorSinkPool  implements Runnable {
                     .map(n -> ((TCPNeighbor) n))
                     .forEach(this::createSink);
         }
-        
-        while (!Thread.interrupted()) {
+
+        while (!shutdown) {
             // Restart attempt for neighbors that are in the configuration.
             try {
                 Thread.sleep(30000);
             } catch (InterruptedException e) {
                 log.debug("Interrupted: ", e);
+                continue;
             }
             List<Neighbor> neighbors = node.getNeighbors();
             neighbors.stream()
@@ -68,31 +70,38 @@ public class ReplicatorSinkPool  implements Runnable {
                     .forEach(this::createSink);
         }
     }
-    
+
     public void createSink(TCPNeighbor neighbor) {
-        Runnable proc = new ReplicatorSinkProcessor( neighbor, this, port, transactionPacketSize);
-        sinkPool.submit(proc);
-    }
-    
-    public void shutdownSink(TCPNeighbor neighbor) {
-        Socket socket = neighbor.getSink();
-        if (socket != null) {
-            if (!socket.isClosed()) {
-                try {
-                    socket.close();
-                    log.info("Sink {} closed", neighbor.getHostAddress());
-                } catch (IOException e) {
-                    // TODO
-                }
+        SocketChannel channel;
+        synchronized (neighbor) {
+            if (neighbor.getSink() != null) {
+                log.info("Sink {} already created", neighbor.getHostAddress());
+                return;
             }
+            log.info("Opening sink {}", neighbor.getHostAddress());
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.SO_LINGER, 0);
+            } catch (IOException e) {
+                log.error("Sink {} could not be opened: {}", neighbor.getHostAddress(), e.toString());
+                return;
+            }
+            neighbor.setSink(channel);
         }
+
+        ReplicatorEventLoop eventLoop = eventLoops.get();
+        ReplicatorSinkProcessor processor = new ReplicatorSinkProcessor(neighbor, channel, eventLoop, port,
+                transactionPacketSize);
+        eventLoop.execute(processor::connect);
+    }
+
+    public void shutdownSink(TCPNeighbor neighbor) {
         neighbor.setSink(null);
     }
 
 
-    public void shutdown() throws InterruptedException {
+    public void shutdown() {
         shutdown = true;
-        sinkPool.shutdown();
-        sinkPool.awaitTermination(6, TimeUnit.SECONDS);
     }
 }
@@ -5,136 +5,206 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.CRC32;
 
-class ReplicatorSinkProcessor implements Runnable {
+/**
+ * Writes the packets queued in a {@link TCPNeighbor} to its sink channel.
+ * <br>
+ * After connecting, the port of our TCP listener is sent once, followed by one frame per packet which consists of the
+ * packet and its {@link Crc32Hex} checksum. Every frame is built in a reusable direct buffer, which is written as far
+ * as the socket accepts and completed the next time the channel becomes writable.
+ */
+class ReplicatorSinkProcessor implements ChannelHandler {
 
     private static final Logger log = LoggerFactory.getLogger(ReplicatorSinkProcessor.class);
 
+    private static final long CONNECT_TIMEOUT = 30000L;
+
     private final TCPNeighbor neighbor;
-    
-    public final static int CRC32_BYTES = 16;
-    private final ReplicatorSinkPool replicatorSinkPool;
+    private final SocketChannel channel;
+    private final ReplicatorEventLoop eventLoop;
     private final int port;
-    private int transactionPacketSize;
+    private final int transactionPacketSize;
+
+    private final ByteBuffer writeBuffer;
+    private final byte[] crc32Digits = new byte[Crc32Hex.CRC32_BYTES];
+    private final CRC32 crc32 = new CRC32();
+
+    /**
+     * Set while the channel is (or is about to be) registered for writing, so queued packets only wake up the event
+     * loop once.
+     */
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
 
-    public ReplicatorSinkProcessor(final TCPNeighbor neighbor,
-                                   final ReplicatorSinkPool replicatorSinkPool,
-                                   final int port, int transactionPacketSize) {
+    private SelectionKey key;
+    private boolean connected = false;
+    private long connectStarted;
+
+    ReplicatorSinkProcessor(final TCPNeighbor neighbor,
+                            final SocketChannel channel,
+                            final ReplicatorEventLoop eventLoop,
+                            final int port, int transactionPacketSize) {
         this.neighbor = neighbor;
-        this.replicatorSinkPool = replicatorSinkPool;
+        this.channel = channel;
+        this.eventLoop = eventLoop;
         this.port = port;
         this.transactionPacketSize = transactionPacketSize;
+        this.writeBuffer = ByteBuffer.allocateDirect(transactionPacketSize + Crc32Hex.CRC32_BYTES);
     }
 
-    @Override
-    public void run() {
-    	try {
-    		Thread.sleep(1000);
-    	}
-    	catch (InterruptedException e) {
-    		log.info("Interrupted");
-    	}
-
+    /**
+     * Starts connecting to the neighbor. Must be called from the thread of the event loop.
+     */
+    void connect() {
         String remoteAddress = neighbor.getHostAddress();
-        
         try {
-            Socket socket;
-            synchronized (neighbor) { 
-                Socket sink = neighbor.getSink();
-                if ( sink == null ) {
-                    log.info("Opening sink {}", remoteAddress);
-                    socket = new Socket();
-                    socket.setSoLinger(true, 0);
-                    socket.setSoTimeout(30000);
-                    neighbor.setSink(socket);
+            log.info("Connecting sink {}", remoteAddress);
+            connectStarted = System.currentTimeMillis();
+            if (channel.connect(new InetSocketAddress(remoteAddress, neighbor.getPort()))) {
+                key = eventLoop.register(channel, 0, this);
+                onConnected();
+            } else {
+                key = eventLoop.register(channel, SelectionKey.OP_CONNECT, this);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void handle(SelectionKey key) {
+        try {
+            if (key.isConnectable()) {
+                if (channel.finishConnect()) {
+                    onConnected();
                 }
-                else {
-                    // Sink already created
-                    log.info("Sink {} already created", remoteAddress);
+            } else if (key.isWritable()) {
+                write();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void checkTimeout(long now) {
+        if (!connected && now - connectStarted > CONNECT_TIMEOUT) {
+            fail(new SocketTimeoutException("connect timed out"));
+        }
+    }
+
+    private void onConnected() {
+        connected = true;
+        log.info("----- NETWORK INFO ----- Sink {} is connected", neighbor.getHostAddress());
+
+        // Let neighbor know our tcp listener port
+        String fmt = "%0" + String.valueOf(ReplicatorSinkPool.PORT_BYTES) + "d";
+        writeBuffer.clear();
+        writeBuffer.put(String.format(fmt, port).getBytes(StandardCharsets.US_ASCII), 0, ReplicatorSinkPool.PORT_BYTES);
+        writeBuffer.flip();
+
+        writeScheduled.set(true);
+        key.interestOps(SelectionKey.OP_WRITE);
+        neighbor.setSendListener(this::scheduleWrite);
+    }
+
+    /**
+     * Called by {@link TCPNeighbor#send} from any thread when a packet was queued.
+     */
+    private void scheduleWrite() {
+        if (writeScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(() -> {
+                if (key.isValid()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                }
+            });
+        }
+    }
+
+    private void write() throws IOException {
+        while (true) {
+            if (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+                if (writeBuffer.hasRemaining()) {
+                    // the socket buffer is full, continue when the channel is writable again
                     return;
                 }
             }
-            
-            if (socket != null) {
-                log.info("Connecting sink {}", remoteAddress);
-                socket.connect(new InetSocketAddress(remoteAddress, neighbor.getPort()), 30000);
-                if (!socket.isClosed() && socket.isConnected()) {
-                    OutputStream out = socket.getOutputStream();
-                    log.info("----- NETWORK INFO ----- Sink {} is connected", remoteAddress);
-                    
-                    // Let neighbor know our tcp listener port
-                    String fmt = "%0"+String.valueOf(ReplicatorSinkPool.PORT_BYTES)+"d";
-                    byte [] portAsByteArray = new byte [10];
-                    System.arraycopy(String.format(fmt, port).getBytes(), 0,
-                            portAsByteArray, 0, ReplicatorSinkPool.PORT_BYTES);
-                    out.write(portAsByteArray);
-                    
-                    while (!replicatorSinkPool.shutdown && !neighbor.isStopped()) {
-                        try {
-                            ByteBuffer message = neighbor.getNextMessage();
-                            if (neighbor.getSink() != null) { 
-                                if (neighbor.getSink().isClosed() || !neighbor.getSink().isConnected()) {
-                                    log.info("----- NETWORK INFO ----- Sink {} got disconnected", remoteAddress);
-                                    return;
-                                } else {
-                                    if ((message != null) && (neighbor.getSink() != null && neighbor.getSink().isConnected())
-                                        && (neighbor.getSource() != null && neighbor.getSource().isConnected())) {
-                                    
-                                        byte[] bytes = message.array();
-
-                                        if (bytes.length == transactionPacketSize) {
-                                            try {
-                                                CRC32 crc32 = new CRC32();                                        
-                                                crc32.update(message.array());
-                                                String crc32String = Long.toHexString(crc32.getValue());
-                                                while (crc32String.length() < CRC32_BYTES) {
-                                                    crc32String = "0"+crc32String;
-                                                }
-                                                out.write(message.array());
-                                                out.write(crc32String.getBytes());
-                                                out.flush();
-                                                neighbor.incSentTransactions();
-                                            } catch (IOException e2) {
-                                                if (!neighbor.getSink().isClosed() && neighbor.getSink().isConnected()) {
-                                                    out.close();
-                                                    out = neighbor.getSink().getOutputStream();
-                                                } else {
-                                                    log.info("----- NETWORK INFO ----- Sink {} thread terminating",
-                                                        remoteAddress);
-                                                    return;
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        } catch (InterruptedException e) {
-                            log.error("Interrupted while waiting for send buffer");
-                        }                        
-                    }
+
+            if (!nextFrame()) {
+                writeScheduled.set(false);
+                // a packet might have been queued before the flag was cleared
+                if (!nextFrame()) {
+                    key.interestOps(0);
+                    return;
                 }
+                writeScheduled.set(true);
             }
-        } catch (Exception e) {
-            String reason = e.getMessage();
-            if (reason == null || reason.equals("null")) {
-                reason = "closed";
+        }
+    }
+
+    /**
+     * Fills the write buffer with the next queued packet and its checksum.
+     *
+     * @return <tt>true</tt> if a frame is ready to be written
+     */
+    private boolean nextFrame() {
+        ByteBuffer message;
+        while ((message = neighbor.pollNextMessage()) != null) {
+            byte[] bytes = message.array();
+            SocketChannel source = neighbor.getSource();
+            if (bytes.length != transactionPacketSize || source == null || !source.isConnected()) {
+                continue;
             }
-            log.error("***** NETWORK ALERT ***** No sink to apiHost {}:{}, reason: {}", remoteAddress, neighbor.getPort(),
-                    reason);
-            synchronized (neighbor) {
-                Socket sourceSocket = neighbor.getSource();
-                if (sourceSocket != null && (sourceSocket.isClosed() || !sourceSocket.isConnected())) {
-                    neighbor.setSource(null);
-                }
+
+            crc32.reset();
+            crc32.update(bytes, 0, transactionPacketSize);
+            Crc32Hex.encode(crc32.getValue(), crc32Digits, 0);
+
+            writeBuffer.clear();
+            writeBuffer.put(bytes).put(crc32Digits);
+            writeBuffer.flip();
+            neighbor.incSentTransactions();
+            return true;
+        }
+        return false;
+    }
+
+    private void fail(Exception e) {
+        String reason = e.getMessage();
+        if (reason == null || reason.equals("null")) {
+            reason = "closed";
+        }
+        log.error("***** NETWORK ALERT ***** No sink to apiHost {}:{}, reason: {}", neighbor.getHostAddress(),
+                neighbor.getPort(), reason);
+        synchronized (neighbor) {
+            SocketChannel source = neighbor.getSource();
+            if (source != null && (!source.isOpen() || !source.isConnected())) {
+                neighbor.setSource(null);
+            }
+            if (neighbor.getSink() == channel) {
                 neighbor.setSink(null);
             }
         }
-
+        close();
     }
 
+    @Override
+    public void close() {
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // don't care.
+        }
+    }
 }
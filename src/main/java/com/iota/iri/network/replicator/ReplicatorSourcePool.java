@@ -1,77 +1,135 @@
 package com.iota.iri.network.replicator;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.function.Supplier;
 
+import com.iota.iri.network.Neighbor;
 import com.iota.iri.network.Node;
+import com.iota.iri.network.TCPNeighbor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Accepts incoming TCP connections, matches them with a known neighbor and hands them as source of that neighbor to
+ * the event loops of the {@link Replicator}.
+ */
 public class ReplicatorSourcePool implements Runnable {
 
     private final ReplicatorSinkPool replicatorSinkPool;
     private final Node node;
     private final int maxPeers;
     private final boolean testnet;
+    private final int transactionPacketSize;
+    private final Supplier<ReplicatorEventLoop> eventLoops;
     private volatile boolean shutdown = false;
 
     private static final Logger log = LoggerFactory.getLogger(ReplicatorSourcePool.class);
-    private ExecutorService pool;
+    private volatile ServerSocketChannel server;
     private int port;
 
-    public ReplicatorSourcePool(final ReplicatorSinkPool replicatorSinkPool,
-                                final Node node,
-                                final int maxPeers,
-                                final boolean testnet) {
+    ReplicatorSourcePool(final ReplicatorSinkPool replicatorSinkPool,
+                         final Node node,
+                         final int maxPeers,
+                         final boolean testnet,
+                         final int transactionPacketSize,
+                         final Supplier<ReplicatorEventLoop> eventLoops) {
         this.replicatorSinkPool = replicatorSinkPool;
         this.node = node;
         this.maxPeers = maxPeers;
         this.testnet = testnet;
+        this.transactionPacketSize = transactionPacketSize;
+        this.eventLoops = eventLoops;
     }
 
     @Override
     public void run() {
-        ExecutorService pool;
-        ServerSocket server = null;
-        pool = Executors.newFixedThreadPool(Replicator.NUM_THREADS);
-        this.pool = pool;
         try {
-            server = new ServerSocket(port);
-            log.info("TCP replicator is accepting connections on tcp port " + server.getLocalPort());
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(port));
+            log.info("TCP replicator is accepting connections on tcp port " + port);
             while (!shutdown) {
                 try {
-                    Socket request = server.accept();
-                    request.setSoLinger(true, 0);
-                    Runnable proc = new ReplicatorSourceProcessor( replicatorSinkPool, request, node, maxPeers, testnet);
-                    pool.submit(proc);
+                    SocketChannel request = server.accept();
+                    request.setOption(StandardSocketOptions.SO_LINGER, 0);
+                    accept(request);
+                } catch (ClosedChannelException ex) {
+                    break;
                 } catch (IOException ex) {
                     log.error("Error accepting connection", ex);
                 }
             }
-            log.info("ReplicatorSinkPool shutting down");
+            log.info("ReplicatorSourcePool shutting down");
         } catch (IOException e) {
             log.error("***** NETWORK ALERT ***** Cannot create server socket on port {}, {}", port, e.getMessage());
         } finally {
-            if (server != null) {
-                try {
-                    server.close();
+            closeServer();
+        }
+    }
+
+    private void accept(SocketChannel connection) throws IOException {
+        InetSocketAddress inetSocketAddress = (InetSocketAddress) connection.getRemoteAddress();
+        String hisAddress = inetSocketAddress.getAddress().getHostAddress();
+
+        TCPNeighbor neighbor = node.findTcpNeighbor(inetSocketAddress.getAddress());
+
+        if (neighbor == null) {
+            int maxPeersAllowed = maxPeers;
+            if (!testnet || Neighbor.getNumPeers() >= maxPeersAllowed) {
+                String hostAndPort = inetSocketAddress.getHostName() + ":" + String.valueOf(inetSocketAddress.getPort());
+                if (Node.rejectedAddresses.add(inetSocketAddress.getHostName())) {
+                    String sb = "***** NETWORK ALERT ***** Got connected from unknown neighbor tcp://"
+                        + hostAndPort
+                        + " (" + hisAddress + ") - closing connection";
+                    if (testnet && Neighbor.getNumPeers() >= maxPeersAllowed) {
+                        sb = sb + (" (max-peers allowed is "+String.valueOf(maxPeersAllowed)+")");
+                    }
+                    log.info(sb);
                 }
-                catch (Exception e) {
-                    // don't care.
+                connection.close();
+                return;
+            } else {
+                final TCPNeighbor freshNeighbor = new TCPNeighbor(inetSocketAddress, false);
+                if (node.addNeighbor(freshNeighbor)) {
+                    Neighbor.incNumPeers();
                 }
+                neighbor = node.findTcpNeighbor(inetSocketAddress.getAddress());
+            }
+        }
+
+        synchronized (neighbor) {
+            if (neighbor.getSource() != null) {
+                log.info("Source {} already connected", hisAddress);
+                connection.close();
+                return;
+            }
+            neighbor.setSource(connection);
+        }
+
+        ReplicatorEventLoop eventLoop = eventLoops.get();
+        ReplicatorSourceProcessor processor = new ReplicatorSourceProcessor(replicatorSinkPool, connection, node,
+                neighbor, eventLoop, transactionPacketSize);
+        eventLoop.execute(processor::start);
+    }
+
+    private void closeServer() {
+        if (server != null) {
+            try {
+                server.close();
+            }
+            catch (Exception e) {
+                // don't care.
             }
         }
     }
 
-    public void shutdown() throws InterruptedException {
+    public void shutdown() {
         shutdown = true;
-        //notify();
-        pool.shutdown();
-        pool.awaitTermination(6, TimeUnit.SECONDS);
+        closeServer();
     }
 
     public ReplicatorSourcePool init(int port) {
@@ -1,197 +1,177 @@
 package com.iota.iri.network.replicator;
 
-import com.iota.iri.conf.MainnetConfig;
-import com.iota.iri.conf.TestnetConfig;
-import com.iota.iri.network.Neighbor;
 import com.iota.iri.network.Node;
 import com.iota.iri.network.TCPNeighbor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.net.SocketAddress;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.util.zip.CRC32;
 
-class ReplicatorSourceProcessor implements Runnable {
+/**
+ * Reads the frames a {@link TCPNeighbor} sends through its source channel.
+ * <br>
+ * The neighbor first sends the port of its TCP listener, followed by one frame per packet which consists of the packet
+ * and its {@link Crc32Hex} checksum. Frames are read straight into a reusable buffer; every frame with a valid
+ * checksum is passed on to {@link Node#preProcessReceivedData(byte[], SocketAddress, String)}.
+ */
+class ReplicatorSourceProcessor implements ChannelHandler {
 
     private static final Logger log = LoggerFactory.getLogger(ReplicatorSourceProcessor.class);
 
-    private final Socket connection;
+    /**
+     * Maximum number of frames read in one go, so a busy neighbor can not starve the others of the event loop.
+     */
+    private static final int MAX_FRAMES_PER_READ = 16;
 
-    private final boolean shutdown = false;
+    private final SocketChannel connection;
     private final Node node;
-    private final int maxPeers;
-    private final boolean testnet;
+    private final TCPNeighbor neighbor;
+    private final ReplicatorEventLoop eventLoop;
     private final ReplicatorSinkPool replicatorSinkPool;
     private final int packetSize;
+    private final SocketAddress address;
 
-    private boolean existingNeighbor;
-    
-    private TCPNeighbor neighbor;
+    private final ByteBuffer portBuffer = ByteBuffer.allocate(ReplicatorSinkPool.PORT_BYTES);
+    private final ByteBuffer frameBuffer;
+    private final CRC32 crc32 = new CRC32();
 
-    public ReplicatorSourceProcessor(final ReplicatorSinkPool replicatorSinkPool,
-                                     final Socket connection,
-                                     final Node node,
-                                     final int maxPeers,
-                                     final boolean testnet) {
+    private SelectionKey key;
+
+    ReplicatorSourceProcessor(final ReplicatorSinkPool replicatorSinkPool,
+                              final SocketChannel connection,
+                              final Node node,
+                              final TCPNeighbor neighbor,
+                              final ReplicatorEventLoop eventLoop,
+                              final int packetSize) throws IOException {
         this.connection = connection;
         this.node = node;
-        this.maxPeers = maxPeers;
-        this.testnet = testnet;
+        this.neighbor = neighbor;
+        this.eventLoop = eventLoop;
         this.replicatorSinkPool = replicatorSinkPool;
-        this.packetSize = testnet
-                ? TestnetConfig.Defaults.PACKET_SIZE
-                : MainnetConfig.Defaults.PACKET_SIZE;
+        this.packetSize = packetSize;
+        this.address = connection.getRemoteAddress();
+        this.frameBuffer = ByteBuffer.allocate(packetSize + Crc32Hex.CRC32_BYTES);
     }
 
-    @Override
-    public void run() {
-        int count;
-        byte[] data = new byte[2000];
-        int offset = 0;
-        //boolean isNew;
-        boolean finallyClose = true;
+    /**
+     * Starts reading from the source. Must be called from the thread of the event loop.
+     */
+    void start() {
+        try {
+            connection.configureBlocking(false);
+            key = eventLoop.register(connection, SelectionKey.OP_READ, this);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
 
+    @Override
+    public void handle(SelectionKey key) {
         try {
-            SocketAddress address = connection.getRemoteSocketAddress();
-            InetSocketAddress inetSocketAddress = (InetSocketAddress) address;
-
-            existingNeighbor = false;
-            List<Neighbor> neighbors = node.getNeighbors();
-            neighbors.stream().filter(n -> n instanceof TCPNeighbor)
-                    .map(n -> ((TCPNeighbor) n))
-                    .forEach(n -> {
-                        String hisAddress = inetSocketAddress.getAddress().getHostAddress();
-                        if (n.getHostAddress().equals(hisAddress)) {
-                            existingNeighbor = true;
-                            neighbor = n;
-                        }
-                    });
-            
-            if (!existingNeighbor) {
-                int maxPeersAllowed = maxPeers;
-                if (!testnet || Neighbor.getNumPeers() >= maxPeersAllowed) {
-                    String hostAndPort = inetSocketAddress.getHostName() + ":" + String.valueOf(inetSocketAddress.getPort());
-                    if (Node.rejectedAddresses.add(inetSocketAddress.getHostName())) {
-                        String sb = "***** NETWORK ALERT ***** Got connected from unknown neighbor tcp://"
-                            + hostAndPort
-                            + " (" + inetSocketAddress.getAddress().getHostAddress() + ") - closing connection";
-                        if (testnet && Neighbor.getNumPeers() >= maxPeersAllowed) {
-                            sb = sb + (" (max-peers allowed is "+String.valueOf(maxPeersAllowed)+")");
-                        }
-                        log.info(sb);
-                    }
-                    connection.getInputStream().close();
-                    connection.shutdownInput();
-                    connection.shutdownOutput();
-                    connection.close();
-                    return;
-                } else {
-                    final TCPNeighbor freshNeighbor = new TCPNeighbor(inetSocketAddress, false);
-                    node.getNeighbors().add(freshNeighbor);
-                    neighbor = freshNeighbor;
-                    Neighbor.incNumPeers();
+            for (int i = 0; i < MAX_FRAMES_PER_READ; i++) {
+                if (!read()) {
+                    break;
                 }
             }
-            
-            if ( neighbor.getSource() != null ) {
-                log.info("Source {} already connected", inetSocketAddress.getAddress().getHostAddress());
-                finallyClose = false;
-                return;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Reads from the channel until the current frame is complete.
+     *
+     * @return <tt>true</tt> if a frame was completed and more data might be available
+     * @throws IOException if reading fails or the neighbor closed the connection
+     */
+    private boolean read() throws IOException {
+        if (portBuffer.hasRemaining()) {
+            if (connection.read(portBuffer) == -1) {
+                log.error("Did not receive neighbors listener port");
+                throw new EOFException("closed");
             }
-            neighbor.setSource(connection);
-            
-            // Read neighbors tcp listener port number.
-            InputStream stream = connection.getInputStream();
-            offset = 0;
-            while (((count = stream.read(data, offset, ReplicatorSinkPool.PORT_BYTES - offset)) != -1) && (offset < ReplicatorSinkPool.PORT_BYTES)) {
-                offset += count;
+            if (portBuffer.hasRemaining()) {
+                return false;
             }
-          
-            if ( count == -1 || connection.isClosed() ) {
+            onPortReceived();
+        }
+
+        if (connection.read(frameBuffer) == -1) {
+            throw new EOFException("closed");
+        }
+        if (frameBuffer.hasRemaining()) {
+            return false;
+        }
+
+        processFrame(frameBuffer.array());
+        frameBuffer.clear();
+        return true;
+    }
+
+    private void onPortReceived() throws IOException {
+        byte[] portBytes = portBuffer.array();
+        int port = 0;
+        for (byte digit : portBytes) {
+            if (digit < '0' || digit > '9') {
                 log.error("Did not receive neighbors listener port");
-                return;
+                throw new IOException("invalid listener port");
             }
-            
-            byte [] pbytes = new byte [10];
-            System.arraycopy(data, 0, pbytes, 0, ReplicatorSinkPool.PORT_BYTES);
-            neighbor.setTcpPort((int)Long.parseLong(new String(pbytes)));
-            
-            if (neighbor.getSink() == null) {
-                log.info("Creating sink for {}", neighbor.getHostAddress());
-                replicatorSinkPool.createSink(neighbor);
-            }           
-            
-            if (connection.isConnected()) {
-                log.info("----- NETWORK INFO ----- Source {} is connected", inetSocketAddress.getAddress().getHostAddress());
-            }
-            
-            connection.setSoTimeout(0);  // infinite timeout - blocking read
+            port = port * 10 + (digit - '0');
+        }
+        neighbor.setTcpPort(port);
 
-            offset = 0;
-            while (!shutdown && !neighbor.isStopped()) {
+        if (neighbor.getSink() == null) {
+            log.info("Creating sink for {}", neighbor.getHostAddress());
+            replicatorSinkPool.createSink(neighbor);
+        }
 
-                while ( ((count = stream.read(data, offset, (packetSize- offset + ReplicatorSinkProcessor.CRC32_BYTES))) != -1)
-                        && (offset < (packetSize + ReplicatorSinkProcessor.CRC32_BYTES))) {
-                    offset += count;
-                }
-              
-                if ( count == -1 || connection.isClosed() ) {
-                    break;
-                }
-                
-                offset = 0;
-
-                try {
-                    CRC32 crc32 = new CRC32();
-                    for (int i=0; i<packetSize; i++) {
-                        crc32.update(data[i]);
-                    }
-                    String crc32String = Long.toHexString(crc32.getValue());
-                    while (crc32String.length() < ReplicatorSinkProcessor.CRC32_BYTES) {
-                        crc32String = "0"+crc32String;
-                    }
-                    byte [] crc32Bytes = crc32String.getBytes();
-                    
-                    boolean crcError = false;
-                    for (int i=0; i<ReplicatorSinkProcessor.CRC32_BYTES; i++) {
-                        if (crc32Bytes[i] != data[packetSize + i]) {
-                            crcError = true;
-                            break;
-                        }
-                    }
-                    if (!crcError) {
-                        node.preProcessReceivedData(data, address, "tcp");
-                    }
-                }
-                  catch (IllegalStateException e) {
-                    log.error("Queue is full for neighbor IP {}",inetSocketAddress.getAddress().getHostAddress());
-                } catch (final RuntimeException e) {
-                    log.error("Transaction processing runtime exception ",e);
-                    neighbor.incInvalidTransactions();
-                } catch (Exception e) {
-                    log.info("Transaction processing exception " + e.getMessage());
-                    log.error("Transaction processing exception ",e);
-                }
+        log.info("----- NETWORK INFO ----- Source {} is connected", neighbor.getHostAddress());
+    }
+
+    private void processFrame(byte[] data) {
+        crc32.reset();
+        crc32.update(data, 0, packetSize);
+        if (!Crc32Hex.matches(crc32.getValue(), data, packetSize)) {
+            return;
+        }
+
+        try {
+            node.preProcessReceivedData(data, address, "tcp");
+        } catch (IllegalStateException e) {
+            log.error("Queue is full for neighbor IP {}", neighbor.getHostAddress());
+        } catch (final RuntimeException e) {
+            log.error("Transaction processing runtime exception ", e);
+            neighbor.incInvalidTransactions();
+        }
+    }
+
+    private void fail(IOException e) {
+        log.error("***** NETWORK ALERT ***** TCP connection reset by neighbor {}, source closed, {}",
+                neighbor.getHostAddress(), e.getMessage());
+        close();
+    }
+
+    @Override
+    public void close() {
+        if (key != null) {
+            key.cancel();
+        }
+        replicatorSinkPool.shutdownSink(neighbor);
+        synchronized (neighbor) {
+            if (neighbor.getSource() == connection) {
+                neighbor.setSource(null);
             }
+        }
+        try {
+            connection.close();
         } catch (IOException e) {
-            log.error("***** NETWORK ALERT ***** TCP connection reset by neighbor {}, source closed, {}", neighbor.getHostAddress(), e.getMessage());
-            replicatorSinkPool.shutdownSink(neighbor);
-        } finally {
-            if (neighbor != null) {
-                if (finallyClose) {
-                    replicatorSinkPool.shutdownSink(neighbor);
-                    neighbor.setSource(null);
-                    neighbor.setSink(null);
-                    //if (!neighbor.isFlagged() ) {
-                    //   Node.instance().getNeighbors().remove(neighbor);   
-                    //}
-                }                   
-            }
+            // don't care.
         }
     }
 }
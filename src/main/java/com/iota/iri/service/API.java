@@ -3,9 +3,6 @@ package com.iota.iri.service;
 import com.iota.iri.*;
 import com.iota.iri.conf.APIConfig;
 import com.iota.iri.conf.ConsensusConfig;
-import com.iota.iri.controllers.AddressViewModel;
-import com.iota.iri.controllers.BundleViewModel;
-import com.iota.iri.controllers.TagViewModel;
 import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.crypto.Curl;
 import com.iota.iri.crypto.PearlDiver;
@@ -13,11 +10,19 @@ import com.iota.iri.crypto.Sponge;
 import com.iota.iri.crypto.SpongeFactory;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.HashFactory;
+import com.iota.iri.model.persistables.Address;
+import com.iota.iri.model.persistables.Approvee;
+import com.iota.iri.model.persistables.Bundle;
+import com.iota.iri.model.persistables.ObsoleteTag;
+import com.iota.iri.model.persistables.Tag;
 import com.iota.iri.model.persistables.Transaction;
 import com.iota.iri.network.Neighbor;
 import com.iota.iri.service.dto.*;
 import com.iota.iri.service.tipselection.TipSelector;
 import com.iota.iri.service.tipselection.impl.WalkValidatorImpl;
+import com.iota.iri.storage.HashCursor;
+import com.iota.iri.storage.HashCursors;
+import com.iota.iri.storage.IndexCursor;
 import com.iota.iri.utils.Converter;
 import com.iota.iri.utils.IotaIOUtils;
 import com.iota.iri.utils.MapIdentityManager;
@@ -110,6 +115,11 @@ public class API {
     private final boolean testNet;
 
     private final static String overMaxErrorMessage = "Could not complete request";
+    /**
+     * The number of hashes that are read from an index at once by {@code findTransactions} and
+     * {@code wereAddressesSpentFrom}.
+     */
+    private static final int INDEX_PAGE_SIZE = 1000;
     private final static String invalidParams = "Invalid parameters";
 
     private ConcurrentHashMap<Hash, Boolean> previousEpochsSpentAddresses;
@@ -558,20 +568,29 @@ public class API {
             return true;
         }
         
-        Set<Hash> hashes = AddressViewModel.load(instance.tangle, address).getHashes();
-        for (Hash hash : hashes) {
-            final TransactionViewModel tx = TransactionViewModel.fromHash(instance.tangle, hash);
-            // Check for spending transactions
-            if (tx.value() < 0) {
-                // Transaction is confirmed
-                if (tx.snapshotIndex() != 0) {
-                    return true;
-                }
-                
-                // Transaction is pending
-                Hash tail = findTail(hash);
-                if (tail != null && BundleValidator.validate(instance.tangle, tail).size() != 0) {
-                    return true;
+        // the transactions are loaded a page at a time, so an address with many transactions doesn't fill the heap
+        final HashCursor cursor = new IndexCursor(instance.tangle, Address.class, address, INDEX_PAGE_SIZE);
+        final List<Hash> hashes = new ArrayList<>(INDEX_PAGE_SIZE);
+        for (Hash next = cursor.current(); next != null; next = cursor.current()) {
+            hashes.clear();
+            for (; next != null && hashes.size() < INDEX_PAGE_SIZE; next = cursor.current()) {
+                hashes.add(next);
+                cursor.advance();
+            }
+            for (final TransactionViewModel tx : TransactionViewModel.fromHashes(instance.tangle, hashes)) {
+                final Hash hash = tx.getHash();
+                // Check for spending transactions
+                if (tx.value() < 0) {
+                    // Transaction is confirmed
+                    if (tx.snapshotIndex() != 0) {
+                        return true;
+                    }
+
+                    // Transaction is pending
+                    Hash tail = findTail(hash);
+                    if (tail != null && BundleValidator.validate(instance.tangle, tail).size() != 0) {
+                        return true;
+                    }
                 }
             }
         }
@@ -719,8 +738,7 @@ public class API {
            for (final String uriString : uris) {
                log.info("Adding neighbor: " + uriString);
                final Neighbor neighbor = instance.node.newNeighbor(new URI(uriString), true);
-               if (!instance.node.getNeighbors().contains(neighbor)) {
-                   instance.node.getNeighbors().add(neighbor);
+               if (instance.node.addNeighbor(neighbor)) {
                    numberOfAddedNeighbors++;
                }
            }
@@ -767,15 +785,16 @@ public class API {
       * @return {@link com.iota.iri.service.dto.GetTrytesResponse}
       **/
     private synchronized AbstractResponse getTrytesStatement(List<String> hashes) throws Exception {
-        final List<String> elements = new LinkedList<>();
+        if (hashes.size() > maxGetTrytes){
+            return ErrorResponse.create(overMaxErrorMessage);
+        }
+        final List<Hash> transactionHashes = new ArrayList<>(hashes.size());
         for (final String hash : hashes) {
-            final TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(instance.tangle, HashFactory.TRANSACTION.create(hash));
-            if (transactionViewModel != null) {
-                elements.add(Converter.trytes(transactionViewModel.trits()));
-            }
+            transactionHashes.add(HashFactory.TRANSACTION.create(hash));
         }
-        if (elements.size() > maxGetTrytes){
-            return ErrorResponse.create(overMaxErrorMessage);
+        final List<String> elements = new LinkedList<>();
+        for (final TransactionViewModel transactionViewModel : TransactionViewModel.fromHashes(instance.tangle, transactionHashes)) {
+            elements.add(Converter.trytes(transactionViewModel.trits()));
         }
         return GetTrytesResponse.create(elements);
     }
@@ -933,6 +952,8 @@ public class API {
                 transactionViewModel.update(instance.tangle, "sender");
             }
         }
+        //the transactions are only reported as stored once they are persisted
+        instance.tangle.pendingWrites().get();
     }
     
     /**
@@ -1003,10 +1024,13 @@ public class API {
         int numberOfNonMetTransactions = trans.size();
         final byte[] inclusionStates = new byte[numberOfNonMetTransactions];
 
+        // Loads the transactions and tips once, every loop below works on these
+        final List<TransactionViewModel> transactionViewModels = TransactionViewModel.fromHashes(instance.tangle, trans);
+        final List<TransactionViewModel> tipViewModels = TransactionViewModel.fromHashes(instance.tangle, tps);
+
         List<Integer> tipsIndex = new LinkedList<>();
         {
-            for(Hash tip: tps) {
-                TransactionViewModel tx = TransactionViewModel.fromHash(instance.tangle, tip);
+            for(TransactionViewModel tx: tipViewModels) {
                 if (tx.getType() != TransactionViewModel.PREFILLED_SLOT) {
                     tipsIndex.add(tx.snapshotIndex());
                 }
@@ -1029,8 +1053,7 @@ public class API {
             // or has no index, or index is above the max tip index (not included).
 
             // Sets to 1 if the transaction index is below the max index of tips (included).
-            for(Hash hash: trans) {
-                TransactionViewModel transaction = TransactionViewModel.fromHash(instance.tangle, hash);
+            for(TransactionViewModel transaction: transactionViewModels) {
                 if(transaction.getType() == TransactionViewModel.PREFILLED_SLOT || transaction.snapshotIndex() == 0) {
                     inclusionStates[count] = -1;
                 } else if(transaction.snapshotIndex() > maxTipsIndex) {
@@ -1047,8 +1070,8 @@ public class API {
         Map<Integer, Queue<Hash>> sameIndexTips = new HashMap<>();
         
         // Sorts all tips per snapshot index. Stops if a tip is not in our database, or just as a hash.
-        for (final Hash tip : tps) {
-            TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(instance.tangle, tip);
+        for (final TransactionViewModel transactionViewModel : tipViewModels) {
+            final Hash tip = transactionViewModel.getHash();
             if (transactionViewModel.getType() == TransactionViewModel.PREFILLED_SLOT){
                 return ErrorResponse.create("One of the tips is absent");
             }
@@ -1060,7 +1083,7 @@ public class API {
         // Loop over all transactions without a state, and counts the amount per snapshot index
         for(int i = 0; i < inclusionStates.length; i++) {
             if(inclusionStates[i] == 0) {
-                TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(instance.tangle, trans.get(i));
+                TransactionViewModel transactionViewModel = transactionViewModels.get(i);
                 int snapshotIndex = transactionViewModel.snapshotIndex();
                 sameIndexTransactionCount.putIfAbsent(snapshotIndex, 0);
                 sameIndexTransactionCount.put(snapshotIndex, sameIndexTransactionCount.get(snapshotIndex) + 1);
@@ -1164,103 +1187,108 @@ public class API {
       * 
       * Using multiple of these input fields returns the intersection of the values.
       * Returns an {@link com.iota.iri.service.dto.ErrorResponse} if more than maxFindTxs was found.
+      * <p>
+      *     The hashes are returned in a fixed order. With the optional <tt>pageSize</tt> at most that many hashes
+      *     are returned, together with a <tt>cursor</tt> if there are more. Passing the <tt>cursor</tt> with the
+      *     next request continues after the returned hashes. The indexes are read in this order and intersected
+      *     while they are read. Indexes stored with one key per entry are read a page at a time; indexes stored as a
+      *     single value are read and sorted as a whole, once per index and request.
+      * </p>
       *
       * @param request The map with input fields
       *                Must contain at least one of 'bundles', 'addresses', 'tags' or 'approvees'.
+      *                May contain a 'pageSize' of at most {@link APIConfig#getMaxFindTransactions()}
+      *                and the 'cursor' of the previous page.
       * @return {@link com.iota.iri.service.dto.FindTransactionsResponse}.
       * @throws Exception If a model cannot be loaded, no valid input fields were supplied 
       *                   or the total transactions to find exceeds {@link APIConfig#getMaxFindTransactions()}.
       **/
     private synchronized AbstractResponse findTransactionsStatement(final Map<String, Object> request) throws Exception {
 
-        final Set<Hash> foundTransactions =  new HashSet<>();
-        boolean containsKey = false;
+        final List<HashCursor> criteria = new ArrayList<>();
 
-        final Set<Hash> bundlesTransactions = new HashSet<>();
         if (request.containsKey("bundles")) {
             final Set<String> bundles = getParameterAsSet(request,"bundles",HASH_SIZE);
-            for (final String bundle : bundles) {
-                bundlesTransactions.addAll(
-                        BundleViewModel.load(instance.tangle, HashFactory.BUNDLE.create(bundle))
-                        .getHashes());
-            }
-            foundTransactions.addAll(bundlesTransactions);
-            containsKey = true;
+            criteria.add(indexCursor(Bundle.class, HashFactory.BUNDLE, bundles));
         }
 
-        final Set<Hash> addressesTransactions = new HashSet<>();
         if (request.containsKey("addresses")) {
             final Set<String> addresses = getParameterAsSet(request,"addresses",HASH_SIZE);
-            for (final String address : addresses) {
-                addressesTransactions.addAll(
-                        AddressViewModel.load(instance.tangle, HashFactory.ADDRESS.create(address))
-                        .getHashes());
-            }
-            foundTransactions.addAll(addressesTransactions);
-            containsKey = true;
+            criteria.add(indexCursor(Address.class, HashFactory.ADDRESS, addresses));
         }
 
-        final Set<Hash> tagsTransactions = new HashSet<>();
         if (request.containsKey("tags")) {
-            final Set<String> tags = getParameterAsSet(request,"tags",0);
-            for (String tag : tags) {
-                tag = padTag(tag);
-                tagsTransactions.addAll(
-                        TagViewModel.load(instance.tangle, HashFactory.TAG.create(tag))
-                        .getHashes());
+            final Set<String> tags = new LinkedHashSet<>();
+            for (String tag : getParameterAsSet(request,"tags",0)) {
+                tags.add(padTag(tag));
             }
-            if (tagsTransactions.isEmpty()) {
-                for (String tag : tags) {
-                    tag = padTag(tag);
-                    tagsTransactions.addAll(
-                            TagViewModel.loadObsolete(instance.tangle, HashFactory.OBSOLETETAG.create(tag))
-                            .getHashes());
-                }
+            HashCursor tagsTransactions = indexCursor(Tag.class, HashFactory.TAG, tags);
+            if (tagsTransactions.current() == null) {
+                tagsTransactions = indexCursor(ObsoleteTag.class, HashFactory.OBSOLETETAG, tags);
             }
-            foundTransactions.addAll(tagsTransactions);
-            containsKey = true;
+            criteria.add(tagsTransactions);
         }
 
-        final Set<Hash> approveeTransactions = new HashSet<>();
-
         if (request.containsKey("approvees")) {
             final Set<String> approvees = getParameterAsSet(request,"approvees",HASH_SIZE);
-            for (final String approvee : approvees) {
-                approveeTransactions.addAll(
-                        TransactionViewModel.fromHash(instance.tangle, HashFactory.TRANSACTION.create(approvee))
-                        .getApprovers(instance.tangle)
-                        .getHashes());
-            }
-            foundTransactions.addAll(approveeTransactions);
-            containsKey = true;
+            criteria.add(indexCursor(Approvee.class, HashFactory.TRANSACTION, approvees));
         }
 
-        if (!containsKey) {
+        if (criteria.isEmpty()) {
             throw new ValidationException(invalidParams);
         }
 
         //Using multiple of these input fields returns the intersection of the values.
-        if (request.containsKey("bundles")) {
-            foundTransactions.retainAll(bundlesTransactions);
+        final HashCursor foundTransactions = HashCursors.intersection(criteria);
+
+        if (request.containsKey("cursor")) {
+            final Hash after = HashFactory.TRANSACTION.create(
+                    getParameterAsStringAndValidate(request, "cursor", HASH_SIZE));
+            foundTransactions.seek(after);
+            final Hash first = foundTransactions.current();
+            if (first != null && HashCursors.compare(first, after) == 0) {
+                foundTransactions.advance();
+            }
         }
-        if (request.containsKey("addresses")) {
-            foundTransactions.retainAll(addressesTransactions);
+
+        final boolean paged = request.containsKey("pageSize");
+        final int limit = paged ? getParameterAsInt(request, "pageSize") : maxFindTxs;
+        if (limit < 1 || limit > maxFindTxs) {
+            throw new ValidationException("Invalid pageSize input");
         }
-        if (request.containsKey("tags")) {
-            foundTransactions.retainAll(tagsTransactions);
+
+        final List<String> elements = new LinkedList<>();
+        String last = null;
+        Hash hash;
+        while (elements.size() < limit && (hash = foundTransactions.current()) != null) {
+            last = hash.toString();
+            elements.add(last);
+            foundTransactions.advance();
         }
-        if (request.containsKey("approvees")) {
-            foundTransactions.retainAll(approveeTransactions);
+
+        if (foundTransactions.current() == null) {
+            return FindTransactionsResponse.create(elements);
         }
-        if (foundTransactions.size() > maxFindTxs){
+        if (!paged) {
             return ErrorResponse.create(overMaxErrorMessage);
         }
+        return FindTransactionsResponse.create(elements, last);
+    }
 
-        final List<String> elements = foundTransactions.stream()
-                .map(Hash::toString)
-                .collect(Collectors.toCollection(LinkedList::new));
-
-        return FindTransactionsResponse.create(elements);
+    /**
+     * Creates a cursor over the transactions stored in any of the given indexes.
+     *
+     * @param model The type of the indexes.
+     * @param factory The factory of the index keys.
+     * @param keys The keys of the indexes as trytes.
+     * @return A {@link HashCursor} over the union of the indexes.
+     */
+    private HashCursor indexCursor(Class<?> model, HashFactory factory, Set<String> keys) {
+        final List<HashCursor> cursors = new ArrayList<>(keys.size());
+        for (final String key : keys) {
+            cursors.add(new IndexCursor(instance.tangle, model, factory.create(key), INDEX_PAGE_SIZE));
+        }
+        return HashCursors.union(cursors);
     }
 
     /**
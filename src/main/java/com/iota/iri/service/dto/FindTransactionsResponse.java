@@ -22,6 +22,12 @@ public class FindTransactionsResponse extends AbstractResponse {
     */
 	private String [] hashes;
 
+	/**
+	 * The position to continue from with the next page, only set if the <code>pageSize</code> was reached
+	 * and there are more transactions.
+	 */
+	private String cursor;
+
 	/**
 	 * Creates a new {@link FindTransactionsResponse}
 	 * 
@@ -33,6 +39,20 @@ public class FindTransactionsResponse extends AbstractResponse {
 		res.hashes = elements.toArray(new String[] {});
 		return res;
 	}
+
+	/**
+	 * Creates a new {@link FindTransactionsResponse} for a page that is followed by more transactions
+	 *
+	 * @param elements {@link #hashes}
+	 * @param cursor {@link #cursor}
+	 * @return an {@link FindTransactionsResponse} filled with the hashes and the cursor
+	 */
+	public static AbstractResponse create(List<String> elements, String cursor) {
+		FindTransactionsResponse res = new FindTransactionsResponse();
+		res.hashes = elements.toArray(new String[] {});
+		res.cursor = cursor;
+		return res;
+	}
 	
     
 	/**
@@ -42,4 +62,12 @@ public class FindTransactionsResponse extends AbstractResponse {
 	public String[] getHashes() {
 		return hashes;
 	}
+
+	/**
+	 *
+	 * @return {@link #cursor}
+	 */
+	public String getCursor() {
+		return cursor;
+	}
 }
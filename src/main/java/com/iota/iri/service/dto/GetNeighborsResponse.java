@@ -24,6 +24,9 @@ public class GetNeighborsResponse extends AbstractResponse {
      *     <li>numberOfInvalidTransactions</li>
      *     <li>numberOfSentTransactions</li>
      *     <li>numberOfStaleTransactions</li>
+     *     <li>numberOfDroppedSentTransactions</li>
+     *     <li>numberOfSuppressedTransactions</li>
+     *     <li>outboundQueueSize</li>
      * </ol>
      * @see {@link com.iota.iri.service.dto.GetNeighborsResponse.Neighbor}
      */
@@ -66,7 +69,10 @@ public class GetNeighborsResponse extends AbstractResponse {
                 numberOfNewTransactions,
                 numberOfInvalidTransactions,
                 numberOfStaleTransactions,
-                numberOfSentTransactions;
+                numberOfSentTransactions,
+                numberOfDroppedSentTransactions,
+                numberOfSuppressedTransactions;
+        public int outboundQueueSize;
         public String connectionType;
 
         /**
@@ -125,6 +131,33 @@ public class GetNeighborsResponse extends AbstractResponse {
             return numberOfSentTransactions;
         }
 
+        /**
+         * Transactions that were not sent to your neighbor because its outbound queue or socket buffer was full
+         *
+         * @return the number
+         */
+        public long getNumberOfDroppedSentTransactions() {
+            return numberOfDroppedSentTransactions;
+        }
+
+        /**
+         * Transactions that were not broadcast to your neighbor because it most likely has them already
+         *
+         * @return the number
+         */
+        public long getNumberOfSuppressedTransactions() {
+            return numberOfSuppressedTransactions;
+        }
+
+        /**
+         * Transactions waiting to be sent to your neighbor
+         *
+         * @return the number
+         */
+        public int getOutboundQueueSize() {
+            return outboundQueueSize;
+        }
+
         /**
          * The method type your neighbor is using to connect (TCP / UDP)
          * 
@@ -149,6 +182,9 @@ public class GetNeighborsResponse extends AbstractResponse {
             ne.numberOfNewTransactions = n.getNumberOfNewTransactions();
             ne.numberOfRandomTransactionRequests = n.getNumberOfRandomTransactionRequests();
             ne.numberOfSentTransactions = n.getNumberOfSentTransactions();
+            ne.numberOfDroppedSentTransactions = n.getNumberOfDroppedSentTransactions();
+            ne.numberOfSuppressedTransactions = n.getNumberOfSuppressedTransactions();
+            ne.outboundQueueSize = n.getOutboundQueueSize();
             ne.connectionType = n.connectionType();
             return ne;
         }
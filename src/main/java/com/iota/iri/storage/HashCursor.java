@@ -0,0 +1,32 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.Hash;
+
+/**
+ * Walks through a set of hashes in the order of {@link HashCursors#compare} without holding the whole set in
+ * memory. A new cursor is positioned at its smallest hash.
+ */
+public interface HashCursor {
+
+    /**
+     * @return the hash the cursor is positioned at, or <tt>null</tt> if it moved past the last hash
+     * @throws Exception if the hashes can't be read
+     */
+    Hash current() throws Exception;
+
+    /**
+     * Moves the cursor to the next hash.
+     *
+     * @throws Exception if the hashes can't be read
+     */
+    void advance() throws Exception;
+
+    /**
+     * Moves the cursor forward to the smallest hash that is not smaller than <tt>target</tt>. The cursor doesn't
+     * move if it is positioned there already.
+     *
+     * @param target the hash to move to
+     * @throws Exception if the hashes can't be read
+     */
+    void seek(Hash target) throws Exception;
+}
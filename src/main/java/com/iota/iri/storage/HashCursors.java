@@ -0,0 +1,179 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.Hash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Combines sorted {@link HashCursor}s without reading them into memory.
+ * <br>
+ * All cursors are sorted by the unsigned bytes of the hashes, which is the order RocksDB stores its keys in. The
+ * combined cursors only ever hold the current hash of every input, and the intersection skips over the hashes that
+ * can't match with {@link HashCursor#seek}, so a small input bounds how much of a large one is read.
+ */
+public final class HashCursors {
+
+    private static final HashCursor EMPTY = new HashCursor() {
+        @Override
+        public Hash current() {
+            return null;
+        }
+
+        @Override
+        public void advance() {
+        }
+
+        @Override
+        public void seek(Hash target) {
+        }
+    };
+
+    private HashCursors() {
+    }
+
+    /**
+     * Compares hashes by their unsigned bytes.
+     *
+     * @param a a hash
+     * @param b another hash
+     * @return a negative number, zero, or a positive number if <tt>a</tt> is smaller than, equal to, or larger than
+     * <tt>b</tt>
+     */
+    public static int compare(Hash a, Hash b) {
+        byte[] left = a.bytes();
+        byte[] right = b.bytes();
+        int length = Math.min(left.length, right.length);
+        for (int i = 0; i < length; i++) {
+            int difference = (left[i] & 0xFF) - (right[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return left.length - right.length;
+    }
+
+    /**
+     * @param cursors the cursors to combine
+     * @return a cursor over the hashes that are in any of the <tt>cursors</tt>
+     */
+    public static HashCursor union(List<? extends HashCursor> cursors) {
+        if (cursors.isEmpty()) {
+            return EMPTY;
+        }
+        return cursors.size() == 1 ? cursors.get(0) : new Union(cursors);
+    }
+
+    /**
+     * @param cursors the cursors to combine
+     * @return a cursor over the hashes that are in all of the <tt>cursors</tt>
+     */
+    public static HashCursor intersection(List<? extends HashCursor> cursors) {
+        if (cursors.isEmpty()) {
+            return EMPTY;
+        }
+        return cursors.size() == 1 ? cursors.get(0) : new Intersection(cursors);
+    }
+
+    private static class Union implements HashCursor {
+        private final List<HashCursor> cursors;
+
+        private Union(List<? extends HashCursor> cursors) {
+            this.cursors = new ArrayList<>(cursors);
+        }
+
+        @Override
+        public Hash current() throws Exception {
+            Hash smallest = null;
+            for (HashCursor cursor : cursors) {
+                Hash current = cursor.current();
+                if (current != null && (smallest == null || compare(current, smallest) < 0)) {
+                    smallest = current;
+                }
+            }
+            return smallest;
+        }
+
+        @Override
+        public void advance() throws Exception {
+            Hash smallest = current();
+            if (smallest == null) {
+                return;
+            }
+            for (HashCursor cursor : cursors) {
+                Hash current = cursor.current();
+                if (current != null && compare(current, smallest) == 0) {
+                    cursor.advance();
+                }
+            }
+        }
+
+        @Override
+        public void seek(Hash target) throws Exception {
+            for (HashCursor cursor : cursors) {
+                cursor.seek(target);
+            }
+        }
+    }
+
+    private static class Intersection implements HashCursor {
+        private final List<HashCursor> cursors;
+        private boolean aligned = false;
+        private boolean exhausted = false;
+
+        private Intersection(List<? extends HashCursor> cursors) {
+            this.cursors = Collections.unmodifiableList(new ArrayList<>(cursors));
+        }
+
+        @Override
+        public Hash current() throws Exception {
+            if (!aligned) {
+                align();
+            }
+            return exhausted ? null : cursors.get(0).current();
+        }
+
+        @Override
+        public void advance() throws Exception {
+            if (current() != null) {
+                cursors.get(0).advance();
+                aligned = false;
+            }
+        }
+
+        @Override
+        public void seek(Hash target) throws Exception {
+            if (!exhausted) {
+                cursors.get(0).seek(target);
+                aligned = false;
+            }
+        }
+
+        /**
+         * Seeks all cursors to the largest of their current hashes until they agree or one of them is exhausted.
+         */
+        private void align() throws Exception {
+            Hash largest = cursors.get(0).current();
+            int agreeing = 0;
+            while (largest != null && agreeing < cursors.size()) {
+                agreeing = 0;
+                for (HashCursor cursor : cursors) {
+                    cursor.seek(largest);
+                    Hash current = cursor.current();
+                    if (current == null) {
+                        largest = null;
+                        break;
+                    }
+                    if (compare(current, largest) > 0) {
+                        largest = current;
+                    } else {
+                        agreeing++;
+                    }
+                }
+            }
+            exhausted = largest == null;
+            aligned = true;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.Hash;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link HashCursor} over the hashes of an index like the transactions of an address, which reads them from the
+ * {@link Tangle} one page at a time. A page with more hashes than requested holds the rest of the index, so an index
+ * that is stored as a single value is read and sorted only once.
+ */
+public class IndexCursor implements HashCursor {
+
+    private final Tangle tangle;
+    private final Class<?> model;
+    private final Indexable index;
+    private final int pageSize;
+
+    private List<Hash> page = Collections.emptyList();
+    private int position = 0;
+    private boolean lastPage = false;
+    private boolean loaded = false;
+
+    /**
+     * @param tangle the tangle to read from
+     * @param model the type of the index
+     * @param index the key of the index
+     * @param pageSize the number of hashes to read at once
+     */
+    public IndexCursor(Tangle tangle, Class<?> model, Indexable index, int pageSize) {
+        this.tangle = tangle;
+        this.model = model;
+        this.index = index;
+        this.pageSize = Math.max(2, pageSize);
+    }
+
+    @Override
+    public Hash current() throws Exception {
+        if (!loaded) {
+            load(null);
+        }
+        return position < page.size() ? page.get(position) : null;
+    }
+
+    @Override
+    public void advance() throws Exception {
+        Hash current = current();
+        if (current == null) {
+            return;
+        }
+        if (++position == page.size() && !lastPage) {
+            load(current);
+            if (position < page.size() && HashCursors.compare(page.get(position), current) == 0) {
+                position++;
+            }
+        }
+    }
+
+    @Override
+    public void seek(Hash target) throws Exception {
+        Hash current = current();
+        if (current == null || HashCursors.compare(current, target) >= 0) {
+            return;
+        }
+        if (lastPage || HashCursors.compare(page.get(page.size() - 1), target) >= 0) {
+            while (position < page.size() && HashCursors.compare(page.get(position), target) < 0) {
+                position++;
+            }
+            return;
+        }
+        load(target);
+    }
+
+    private void load(Hash from) throws Exception {
+        page = tangle.indexPage(model, index, from, pageSize);
+        position = 0;
+        lastPage = page.size() != pageSize;
+        loaded = true;
+    }
+}
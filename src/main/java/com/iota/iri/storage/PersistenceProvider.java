@@ -1,10 +1,12 @@
 package com.iota.iri.storage;
 
+import com.iota.iri.model.Hash;
 import com.iota.iri.utils.Pair;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by paul on 3/2/17 for iri.
@@ -27,6 +29,28 @@ public interface PersistenceProvider {
 
     Persistable get(Class<?> model, Indexable index) throws Exception;
 
+    /**
+     * Reads several models of the same type with one lookup.
+     * @param model the type of the models
+     * @param indexes the keys of the models
+     * @return the models in the order of {@code indexes}, missing models are empty like in {@link #get},
+     *         or {@code null} if this provider doesn't store models
+     * @throws Exception
+     */
+    List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception;
+
+    /**
+     * Reads a page of the hashes stored in an index, in the order of {@link HashCursors#compare}.
+     * @param model the type of the index, a subclass of {@link com.iota.iri.model.persistables.Hashes}
+     * @param index the key of the index
+     * @param from the first hash of the page if it is stored, {@code null} to start with the smallest hash
+     * @param limit the number of hashes to read
+     * @return the hashes of the page, or {@code null} if this provider doesn't store indexes. A provider that can only
+     * read the index as a whole returns all hashes from {@code from} on, which may be more than {@code limit}
+     * @throws Exception
+     */
+    List<Hash> indexPage(Class<?> model, Indexable index, Hash from, int limit) throws Exception;
+
     boolean mayExist(Class<?> model, Indexable index) throws Exception;
 
     long count(Class<?> model) throws Exception;
@@ -51,4 +75,11 @@ public interface PersistenceProvider {
 
     void clear(Class<?> column) throws Exception;
     void clearMetadata(Class<?> column) throws Exception;
+
+    /**
+     * Writes may return before they are persisted; reads see them right away nevertheless.
+     * @return a future that completes once the writes made before the call are persisted,
+     *         or {@code null} if this provider persists every write before it returns
+     */
+    CompletableFuture<Void> pendingWrites();
 }
@@ -1,13 +1,17 @@
 package com.iota.iri.storage;
 
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Transaction;
 import com.iota.iri.utils.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by paul on 3/3/17 for iri.
@@ -16,6 +20,19 @@ public class Tangle {
     private static final Logger log = LoggerFactory.getLogger(Tangle.class);
 
     private final List<PersistenceProvider> persistenceProviders = new ArrayList<>();
+    private final TransactionCache transactionCache;
+
+    public Tangle() {
+        this(0);
+    }
+
+    /**
+     * @param transactionCacheSize the number of transactions that are kept in memory for repeated loads,
+     *                             <tt>0</tt> to always read them from the persistence providers
+     */
+    public Tangle(int transactionCacheSize) {
+        this.transactionCache = new TransactionCache(transactionCacheSize);
+    }
 
     public void addPersistenceProvider(PersistenceProvider provider) {
         this.persistenceProviders.add(provider);
@@ -32,50 +49,172 @@ public class Tangle {
         log.info("Shutting down Tangle Persistence Providers... ");
         this.persistenceProviders.forEach(PersistenceProvider::shutdown);
         this.persistenceProviders.clear();
+        transactionCache.clear();
     }
 
     public Persistable load(Class<?> model, Indexable index) throws Exception {
+            boolean cached = model == Transaction.class && transactionCache.isEnabled();
+            long generation = 0;
+            if (cached) {
+                Transaction transaction = transactionCache.get(index);
+                if (transaction != null) {
+                    return transaction;
+                }
+                generation = transactionCache.generation(index);
+            }
             Persistable out = null;
             for(PersistenceProvider provider: this.persistenceProviders) {
                 if((out = provider.get(model, index)) != null) {
                     break;
                 }
             }
+            if (cached) {
+                transactionCache.put(index, (Transaction) out, generation);
+            }
+            return out;
+    }
+
+    /**
+     * Loads several models of the same type with one lookup.
+     *
+     * @param model the type of the models
+     * @param indexes the keys of the models
+     * @return the models in the order of {@code indexes}, entries are {@code null} if no provider stores models
+     * @throws Exception
+     */
+    public List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+            if (model == Transaction.class && transactionCache.isEnabled()) {
+                return multiGetCached(indexes);
+            }
+            return multiGetUncached(model, indexes);
+    }
+
+    /**
+     * Reads a page of the hashes stored in an index, see {@link IndexCursor} for walking through all of them.
+     *
+     * @param model the type of the index
+     * @param index the key of the index
+     * @param from the first hash of the page if it is stored, {@code null} to start with the smallest hash
+     * @param limit the number of hashes to read
+     * @return the hashes in the order of {@link HashCursors#compare}, empty if no provider stores indexes. More than
+     * {@code limit} hashes are returned if the provider reads the index as a whole
+     * @throws Exception
+     */
+    public List<Hash> indexPage(Class<?> model, Indexable index, Hash from, int limit) throws Exception {
+            List<Hash> out = null;
+            for(PersistenceProvider provider: this.persistenceProviders) {
+                if((out = provider.indexPage(model, index, from, limit)) != null) {
+                    break;
+                }
+            }
+            return out == null ? Collections.emptyList() : out;
+    }
+
+    private List<Persistable> multiGetUncached(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+            List<Persistable> out = null;
+            for(PersistenceProvider provider: this.persistenceProviders) {
+                if((out = provider.multiGet(model, indexes)) != null) {
+                    break;
+                }
+            }
+            return out == null ? Collections.nCopies(indexes.size(), null) : out;
+    }
+
+    /**
+     * Serves the transactions that are cached and loads only the others from the persistence providers.
+     */
+    private List<Persistable> multiGetCached(List<? extends Indexable> indexes) throws Exception {
+            List<Persistable> out = new ArrayList<>(indexes.size());
+            List<Integer> missingPositions = new ArrayList<>();
+            List<Indexable> missing = new ArrayList<>();
+            List<Long> generations = new ArrayList<>();
+            for (Indexable index : indexes) {
+                Transaction transaction = index == null ? null : transactionCache.get(index);
+                if (transaction == null) {
+                    missingPositions.add(out.size());
+                    missing.add(index);
+                    generations.add(index == null ? 0L : transactionCache.generation(index));
+                }
+                out.add(transaction);
+            }
+            if (missing.isEmpty()) {
+                return out;
+            }
+            List<Persistable> loaded = multiGetUncached(Transaction.class, missing);
+            for (int i = 0; i < missing.size(); i++) {
+                Persistable transaction = loaded.get(i);
+                if (missing.get(i) != null) {
+                    transactionCache.put(missing.get(i), (Transaction) transaction, generations.get(i));
+                }
+                out.set(missingPositions.get(i), transaction);
+            }
             return out;
     }
 
     public Boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
         boolean exists = false;
-        for(PersistenceProvider provider: persistenceProviders) {
-            if(exists) {
-                provider.saveBatch(models);
-            } else {
-                exists = provider.saveBatch(models);
+        try {
+            for(PersistenceProvider provider: persistenceProviders) {
+                if(exists) {
+                    provider.saveBatch(models);
+                } else {
+                    exists = provider.saveBatch(models);
+                }
             }
+        } finally {
+            List<Indexable> transactions = new ArrayList<>();
+            for (Pair<Indexable, Persistable> model : models) {
+                if (model.hi instanceof Transaction) {
+                    transactionCache.invalidate(model.low);
+                    transactions.add(model.low);
+                }
+            }
+            invalidateIfNotCommitted(transactions);
         }
         return exists;
     }
     public Boolean save(Persistable model, Indexable index) throws Exception {
             boolean exists = false;
-            for(PersistenceProvider provider: persistenceProviders) {
-                if(exists) {
-                    provider.save(model, index);
-                } else {
-                   exists = provider.save(model, index);
+            try {
+                for(PersistenceProvider provider: persistenceProviders) {
+                    if(exists) {
+                        provider.save(model, index);
+                    } else {
+                       exists = provider.save(model, index);
+                    }
+                }
+            } finally {
+                if (model instanceof Transaction) {
+                    transactionCache.invalidate(index);
+                    invalidateIfNotCommitted(Collections.singletonList(index));
                 }
             }
             return exists;
     }
 
     public void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models) throws Exception {
-        for(PersistenceProvider provider: persistenceProviders) {
-            provider.deleteBatch(models);
+        try {
+            for(PersistenceProvider provider: persistenceProviders) {
+                provider.deleteBatch(models);
+            }
+        } finally {
+            for (Pair<Indexable, ? extends Class<? extends Persistable>> model : models) {
+                if (model.hi == Transaction.class) {
+                    transactionCache.invalidate(model.low);
+                }
+            }
         }
     }
 
     public void delete(Class<?> model, Indexable index) throws Exception {
-            for(PersistenceProvider provider: persistenceProviders) {
-                provider.delete(model, index);
+            try {
+                for(PersistenceProvider provider: persistenceProviders) {
+                    provider.delete(model, index);
+                }
+            } finally {
+                if (model == Transaction.class) {
+                    transactionCache.invalidate(index);
+                }
             }
     }
 
@@ -91,11 +230,18 @@ public class Tangle {
 
     public Boolean update(Persistable model, Indexable index, String item) throws Exception {
             boolean success = false;
-            for(PersistenceProvider provider: this.persistenceProviders) {
-                if(success) {
-                    provider.update(model, index, item);
-                } else {
-                    success = provider.update(model, index, item);
+            try {
+                for(PersistenceProvider provider: this.persistenceProviders) {
+                    if(success) {
+                        provider.update(model, index, item);
+                    } else {
+                        success = provider.update(model, index, item);
+                    }
+                }
+            } finally {
+                if (model instanceof Transaction) {
+                    transactionCache.invalidate(index);
+                    invalidateIfNotCommitted(Collections.singletonList(index));
                 }
             }
             return success;
@@ -192,15 +338,68 @@ public class Tangle {
     }
 
     public void clearColumn(Class<?> column) throws Exception {
-        for(PersistenceProvider provider: persistenceProviders) {
-            provider.clear(column);
+        try {
+            for(PersistenceProvider provider: persistenceProviders) {
+                provider.clear(column);
+            }
+        } finally {
+            if (column == Transaction.class) {
+                transactionCache.clear();
+            }
         }
     }
 
     public void clearMetadata(Class<?> column) throws Exception {
-        for(PersistenceProvider provider: persistenceProviders) {
-            provider.clearMetadata(column);
+        try {
+            for(PersistenceProvider provider: persistenceProviders) {
+                provider.clearMetadata(column);
+            }
+        } finally {
+            if (column == Transaction.class) {
+                transactionCache.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes can return before the persistence providers persisted them, this future tells when they did.
+     *
+     * @return a future that completes once the writes made before the call are persisted by all providers
+     */
+    public CompletableFuture<Void> pendingWrites() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for(PersistenceProvider provider: this.persistenceProviders) {
+            CompletableFuture<Void> future = provider.pendingWrites();
+            if (future != null) {
+                futures.add(future);
+            }
         }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Removes transactions from the cache again if their writes fail to commit later. Until then loads may cache the
+     * transactions from the writes that are still pending.
+     *
+     * @param indexes the hashes of the transactions that were written
+     */
+    private void invalidateIfNotCommitted(List<Indexable> indexes) {
+        if (indexes.isEmpty() || !transactionCache.isEnabled()) {
+            return;
+        }
+        // a failed commit fails all writes after it, so the last pending write fails if this one did
+        pendingWrites().whenComplete((result, failure) -> {
+            if (failure != null) {
+                indexes.forEach(transactionCache::invalidate);
+            }
+        });
+    }
+
+    /**
+     * @return the cache of recently loaded transactions, for its statistics
+     */
+    public TransactionCache getTransactionCache() {
+        return transactionCache;
     }
 
     /*
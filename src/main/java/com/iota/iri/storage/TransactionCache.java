@@ -0,0 +1,215 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.persistables.Transaction;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps recently loaded transactions in memory, so the {@link Tangle} can serve repeated loads of the same
+ * transactions without reading and decoding the transaction and its metadata from the database.
+ * <br>
+ * The cache holds at most the configured number of transactions, rounded up to fill whole segments. Every segment is
+ * an access ordered map that evicts its least recently used entry once it is full, and is guarded by its own lock.
+ * Transactions are looked up by the bytes of their hash, so hashes of different types find the same entry.
+ * <br>
+ * The cache never hands out the transactions it holds, but copies of them, since callers modify the transactions
+ * they loaded before they store them again. Writes to the database invalidate the cached transaction instead of
+ * replacing it, and a loaded transaction is only added if no write hit its segment while it was read, so a load that
+ * raced with a write can't put an outdated transaction back.
+ */
+public class TransactionCache {
+
+    private static final int SEGMENT_COUNT = 64;
+    /**
+     * Smaller caches use fewer segments, so the eviction stays close to a least recently used order over all entries.
+     */
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private class Segment extends LinkedHashMap<ByteBuffer, Transaction> {
+        private final int capacity;
+        private long generation = 0;
+
+        private Segment(int capacity) {
+            super(capacity * 2, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Transaction> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @param capacity the number of transactions to keep, <tt>0</tt> disables the cache
+     */
+    public TransactionCache(int capacity) {
+        if (capacity <= 0) {
+            segments = new Segment[0];
+            return;
+        }
+        int segmentCount = Math.max(1, Math.min(SEGMENT_COUNT, capacity / MIN_SEGMENT_CAPACITY));
+        int segmentCapacity = (capacity + segmentCount - 1) / segmentCount;
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if the cache holds any transactions at all
+     */
+    public boolean isEnabled() {
+        return segments.length > 0;
+    }
+
+    /**
+     * Looks up a transaction and counts the hit or miss.
+     *
+     * @param index the hash of the transaction
+     * @return a copy of the cached transaction or <tt>null</tt> if it is not cached
+     */
+    public Transaction get(Indexable index) {
+        if (!isEnabled()) {
+            return null;
+        }
+        ByteBuffer key = key(index);
+        Segment segment = segment(key);
+        Transaction transaction;
+        synchronized (segment) {
+            transaction = segment.get(key);
+        }
+        if (transaction == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return transaction.copy();
+    }
+
+    /**
+     * Returns a token that has to be passed to {@link #put} for a transaction that is read from the database after
+     * this call.
+     *
+     * @param index the hash of the transaction that is about to be read
+     * @return the number of writes the segment of the transaction has seen so far
+     */
+    public long generation(Indexable index) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        Segment segment = segment(key(index));
+        synchronized (segment) {
+            return segment.generation;
+        }
+    }
+
+    /**
+     * Adds a copy of a transaction that was read from the database, unless it is missing in the database or a write
+     * hit its segment since <tt>generation</tt> was taken.
+     *
+     * @param index the hash of the transaction
+     * @param transaction the transaction that was read
+     * @param generation the result of {@link #generation} before the transaction was read
+     */
+    public void put(Indexable index, Transaction transaction, long generation) {
+        if (!isEnabled() || transaction == null || transaction.type != TransactionViewModel.FILLED_SLOT) {
+            return;
+        }
+        ByteBuffer key = key(index);
+        Segment segment = segment(key);
+        Transaction copy = transaction.copy();
+        synchronized (segment) {
+            if (segment.generation == generation) {
+                segment.put(key, copy);
+            }
+        }
+    }
+
+    /**
+     * Removes a transaction after it was written to or deleted from the database.
+     *
+     * @param index the hash of the transaction
+     */
+    public void invalidate(Indexable index) {
+        if (!isEnabled()) {
+            return;
+        }
+        ByteBuffer key = key(index);
+        Segment segment = segment(key);
+        synchronized (segment) {
+            segment.generation++;
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * Removes all transactions.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.generation++;
+                segment.clear();
+            }
+        }
+    }
+
+    private static ByteBuffer key(Indexable index) {
+        return ByteBuffer.wrap(index.bytes());
+    }
+
+    private Segment segment(ByteBuffer key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[(hash & Integer.MAX_VALUE) % segments.length];
+    }
+
+    /**
+     * @return the number of cached transactions
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of loads that were served from the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of loads that had to read the database
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of transactions that were dropped to make room for others
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+}
@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class ZmqPublishProvider implements PersistenceProvider {
 
@@ -125,6 +126,16 @@ public class ZmqPublishProvider implements PersistenceProvider {
         return null;
     }
 
+    @Override
+    public List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+        return null;
+    }
+
+    @Override
+    public List<Hash> indexPage(Class<?> model, Indexable index, Hash from, int limit) throws Exception {
+        return null;
+    }
+
     @Override
     public boolean mayExist(Class<?> model, Indexable index) throws Exception {
         return false;
@@ -179,4 +190,9 @@ public class ZmqPublishProvider implements PersistenceProvider {
     public void clearMetadata(Class<?> column) throws Exception {
 
     }
+
+    @Override
+    public CompletableFuture<Void> pendingWrites() {
+        return null;
+    }
 }
\ No newline at end of file
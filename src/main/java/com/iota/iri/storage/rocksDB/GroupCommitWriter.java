@@ -0,0 +1,485 @@
+package com.iota.iri.storage.rocksDB;
+
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Commits the writes of all threads to RocksDB together.
+ * <br>
+ * Writes are handed over as a {@link Batch} and return right away with a future. A single thread collects the
+ * batches that arrive within the configured delay and commits them with one {@link WriteBatch}, in the order they
+ * were submitted. Until a batch is committed its values are kept in an overlay, so {@link #get} sees every write
+ * that was submitted before it was called, and {@link #keys} sees the keys they add or remove. Iterators don't see
+ * the overlay; other readers that iterate wait for the pending writes with {@link #awaitCommitted()} first.
+ * <br>
+ * A batch is acknowledged before it is committed, so a failed commit can't be reported to the writer that
+ * submitted it. Instead the futures of the failed group complete exceptionally, their writes are removed from the
+ * overlay, and the writer fails from then on: the batches that are queued already are not committed and
+ * {@link #submit} rejects new ones. This keeps the database from taking later writes that build on the lost ones.
+ */
+public class GroupCommitWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitWriter.class);
+
+    /**
+     * The delimiter of the {@link org.rocksdb.StringAppendOperator} the column families merge their values with.
+     */
+    private static final byte MERGE_DELIMITER = ',';
+    private static final int MAX_GROUP_SIZE = 1_000;
+    private static final int MAX_PENDING_BATCHES = 10_000;
+    /**
+     * The order of the keys in the database, which compares their bytes as unsigned values.
+     */
+    private static final Comparator<ByteBuffer> KEY_ORDER = (first, second) ->
+            compareKeys(first.array(), second.array());
+
+    private final RocksDB db;
+    private final long delayNanos;
+
+    private final BlockingQueue<Batch> queue = new LinkedBlockingQueue<>();
+    private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+    private final Map<ColumnFamilyHandle, ConcurrentNavigableMap<ByteBuffer, List<Operation>>> overlay =
+            new ConcurrentHashMap<>();
+    /**
+     * Readers of the overlay hold the read lock, so that a commit can't move their operations into the database
+     * between reading the overlay and reading the database.
+     */
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private final Object submitLock = new Object();
+    private final Thread thread;
+
+    private final AtomicLong commitCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    private volatile boolean running = true;
+    private volatile RocksDBException failure;
+    private volatile CompletableFuture<Void> lastSubmitted = CompletableFuture.completedFuture(null);
+
+    /**
+     * Starts the thread that commits the writes.
+     *
+     * @param db the database to write to
+     * @param delay the number of milliseconds writes are collected for before they are committed
+     */
+    public GroupCommitWriter(RocksDB db, long delay) {
+        this.db = db;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delay);
+        this.thread = new Thread(this::run, "Group Commit Writer");
+        this.thread.start();
+    }
+
+    /**
+     * Queues a batch to be committed with the next group. Blocks while too many batches are waiting already.
+     *
+     * @param batch the writes to commit atomically
+     * @return a future that completes once the batch is committed
+     * @throws InterruptedException if the thread is interrupted while it waits for room in the queue
+     * @throws RocksDBException if an earlier commit failed
+     */
+    public CompletableFuture<Void> submit(Batch batch) throws InterruptedException, RocksDBException {
+        if (batch.isEmpty()) {
+            return lastSubmitted;
+        }
+        pendingBatches.acquire();
+        synchronized (submitLock) {
+            if (!running) {
+                pendingBatches.release();
+                throw new IllegalStateException("The group commit writer is shut down");
+            }
+            if (failure != null) {
+                pendingBatches.release();
+                throw new RocksDBException("Writes are rejected since a group commit failed: " + failure.getMessage());
+            }
+            for (Operation operation : batch.operations) {
+                overlay.computeIfAbsent(operation.handle, handle -> new ConcurrentSkipListMap<>(KEY_ORDER))
+                        .compute(ByteBuffer.wrap(operation.key), (key, operations) -> {
+                            // copied on write, so readers can go through the operations without a lock
+                            List<Operation> pending = operations == null
+                                    ? new ArrayList<>(1) : new ArrayList<>(operations);
+                            pending.add(operation);
+                            return pending;
+                        });
+            }
+            queue.add(batch);
+            lastSubmitted = batch.future;
+        }
+        return batch.future;
+    }
+
+    /**
+     * Reads a value, including the writes that are not committed yet.
+     *
+     * @param handle the column family of the value
+     * @param key the key of the value
+     * @return the value, <tt>null</tt> if there is none
+     * @throws RocksDBException if the database can't be read
+     */
+    public byte[] get(ColumnFamilyHandle handle, byte[] key) throws RocksDBException {
+        if (!isPending(handle, key)) {
+            return db.get(handle, key);
+        }
+        commitLock.readLock().lock();
+        try {
+            List<Operation> operations = pendingOperations(handle, key);
+            int start = operations.size();
+            while (start > 0 && operations.get(start - 1).type == Operation.Type.MERGE) {
+                start--;
+            }
+            // only merges have to be applied to the committed value
+            byte[] value = start == 0 ? db.get(handle, key) : null;
+            for (Operation operation : operations.subList(Math.max(0, start - 1), operations.size())) {
+                value = operation.apply(value);
+            }
+            return value;
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the keys that start with a prefix, including the writes that are not committed yet. Unlike an iterator
+     * this doesn't wait for the pending writes to be committed.
+     *
+     * @param handle the column family of the keys
+     * @param prefix the prefix of the keys
+     * @param from the key to start with, it starts with <tt>prefix</tt>
+     * @param limit the number of keys to read at most
+     * @return the keys in the order of the database
+     */
+    public List<byte[]> keys(ColumnFamilyHandle handle, byte[] prefix, byte[] from, int limit) {
+        // the overlay is read before the database, so a commit in between only moves writes it holds already
+        NavigableMap<ByteBuffer, Boolean> pending = new TreeMap<>(KEY_ORDER);
+        ConcurrentNavigableMap<ByteBuffer, List<Operation>> column = overlay.get(handle);
+        if (column != null) {
+            int added = 0;
+            for (Map.Entry<ByteBuffer, List<Operation>> entry : column.tailMap(ByteBuffer.wrap(from)).entrySet()) {
+                if (added == limit || !startsWith(entry.getKey().array(), prefix)) {
+                    break;
+                }
+                List<Operation> operations = entry.getValue();
+                boolean exists = operations.get(operations.size() - 1).type != Operation.Type.REMOVE;
+                pending.put(entry.getKey(), exists);
+                if (exists) {
+                    added++;
+                }
+            }
+        }
+
+        List<byte[]> keys = new ArrayList<>();
+        Iterator<Map.Entry<ByteBuffer, Boolean>> pendingKeys = pending.entrySet().iterator();
+        Map.Entry<ByteBuffer, Boolean> nextPending = pendingKeys.hasNext() ? pendingKeys.next() : null;
+        try (RocksIterator iterator = db.newIterator(handle)) {
+            iterator.seek(from);
+            while (keys.size() < limit) {
+                byte[] committed = iterator.isValid() ? iterator.key() : null;
+                if (committed != null && !startsWith(committed, prefix)) {
+                    committed = null;
+                }
+                if (committed == null && nextPending == null) {
+                    break;
+                }
+                int order = committed == null ? 1
+                        : nextPending == null ? -1 : compareKeys(committed, nextPending.getKey().array());
+                if (order < 0) {
+                    keys.add(committed);
+                    iterator.next();
+                    continue;
+                }
+                // a pending write replaces the committed key
+                if (nextPending.getValue()) {
+                    keys.add(nextPending.getKey().array());
+                }
+                if (order == 0) {
+                    iterator.next();
+                }
+                nextPending = pendingKeys.hasNext() ? pendingKeys.next() : null;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @param handle the column family of the value
+     * @param key the key of the value
+     * @return <tt>true</tt> if there are writes to the value that are not committed yet
+     */
+    public boolean isPending(ColumnFamilyHandle handle, byte[] key) {
+        Map<ByteBuffer, List<Operation>> column = overlay.get(handle);
+        return column != null && column.containsKey(ByteBuffer.wrap(key));
+    }
+
+    /**
+     * @return a future that completes once the batches that were submitted before are committed, exceptionally if
+     * the last of them couldn't be committed
+     */
+    public CompletableFuture<Void> pendingWrites() {
+        return lastSubmitted;
+    }
+
+    /**
+     * Waits until the batches that were submitted before are committed or failed to commit.
+     */
+    public void awaitCommitted() {
+        lastSubmitted.handle((result, failure) -> null).join();
+    }
+
+    /**
+     * Commits the batches that are queued and stops the writer. Batches that are submitted afterwards are rejected.
+     */
+    public void shutdown() {
+        synchronized (submitLock) {
+            running = false;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of groups that were committed
+     */
+    public long getCommitCount() {
+        return commitCount.get();
+    }
+
+    /**
+     * @return the number of batches that were committed
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    private void run() {
+        List<Batch> group = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Batch first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + delayNanos;
+                while (group.size() < MAX_GROUP_SIZE) {
+                    long remaining = deadline - System.nanoTime();
+                    Batch next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                log.info("Group commit writer interrupted, committing the queued writes");
+                running = false;
+                queue.drainTo(group, MAX_GROUP_SIZE - group.size());
+            }
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<Batch> group) {
+        RocksDBException failure = this.failure;
+        boolean sync = false;
+        commitLock.writeLock().lock();
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            // the batches that were queued behind a failed group are dropped as well
+            if (failure == null) {
+                for (Batch batch : group) {
+                    sync |= batch.sync;
+                    for (Operation operation : batch.operations) {
+                        operation.writeTo(writeBatch);
+                    }
+                }
+                db.write(writeOptions.setSync(sync), writeBatch);
+            }
+        } catch (RocksDBException e) {
+            failure = e;
+            this.failure = e;
+            log.error("Could not commit {} batches, their writes are dropped and further writes are rejected",
+                    group.size(), e);
+        } finally {
+            for (Batch batch : group) {
+                batch.operations.forEach(this::removeFromOverlay);
+            }
+            commitLock.writeLock().unlock();
+        }
+
+        pendingBatches.release(group.size());
+        if (failure == null) {
+            commitCount.incrementAndGet();
+            batchCount.addAndGet(group.size());
+        }
+        for (Batch batch : group) {
+            if (failure == null) {
+                batch.future.complete(null);
+            } else {
+                batch.future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compareKeys(byte[] first, byte[] second) {
+        for (int i = 0; i < Math.min(first.length, second.length); i++) {
+            int difference = (first[i] & 0xFF) - (second[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return first.length - second.length;
+    }
+
+    private List<Operation> pendingOperations(ColumnFamilyHandle handle, byte[] key) {
+        Map<ByteBuffer, List<Operation>> column = overlay.get(handle);
+        List<Operation> operations = column == null ? null : column.get(ByteBuffer.wrap(key));
+        return operations == null ? Collections.emptyList() : operations;
+    }
+
+    private void removeFromOverlay(Operation operation) {
+        Map<ByteBuffer, List<Operation>> column = overlay.get(operation.handle);
+        column.computeIfPresent(ByteBuffer.wrap(operation.key), (key, operations) -> {
+            List<Operation> pending = new ArrayList<>(operations);
+            pending.remove(operation);
+            return pending.isEmpty() ? null : pending;
+        });
+    }
+
+    /**
+     * Writes that are committed atomically, with the same operations as a {@link WriteBatch}.
+     */
+    public static class Batch {
+        private final List<Operation> operations = new ArrayList<>();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private boolean sync = false;
+
+        public void put(ColumnFamilyHandle handle, byte[] key, byte[] value) {
+            operations.add(new Operation(Operation.Type.PUT, handle, key, value));
+        }
+
+        public void merge(ColumnFamilyHandle handle, byte[] key, byte[] value) {
+            operations.add(new Operation(Operation.Type.MERGE, handle, key, value));
+        }
+
+        public void remove(ColumnFamilyHandle handle, byte[] key) {
+            operations.add(new Operation(Operation.Type.REMOVE, handle, key, null));
+        }
+
+        /**
+         * Makes the commit of this batch wait until the database synced its log to disk.
+         */
+        public void sync() {
+            sync = true;
+        }
+
+        public boolean isSync() {
+            return sync;
+        }
+
+        public boolean isEmpty() {
+            return operations.isEmpty();
+        }
+
+        /**
+         * @param writeBatch the write batch to add the operations of this batch to
+         */
+        public void writeTo(WriteBatch writeBatch) {
+            for (Operation operation : operations) {
+                operation.writeTo(writeBatch);
+            }
+        }
+    }
+
+    private static class Operation {
+        private enum Type { PUT, MERGE, REMOVE }
+
+        private final Type type;
+        private final ColumnFamilyHandle handle;
+        private final byte[] key;
+        private final byte[] value;
+
+        private Operation(Type type, ColumnFamilyHandle handle, byte[] key, byte[] value) {
+            this.type = type;
+            this.handle = handle;
+            this.key = key;
+            this.value = value;
+        }
+
+        private void writeTo(WriteBatch writeBatch) {
+            switch (type) {
+                case PUT:
+                    writeBatch.put(handle, key, value);
+                    break;
+                case MERGE:
+                    writeBatch.merge(handle, key, value);
+                    break;
+                default:
+                    writeBatch.remove(handle, key);
+            }
+        }
+
+        /**
+         * @param previous the value before this operation, <tt>null</tt> if there is none
+         * @return the value after this operation
+         */
+        private byte[] apply(byte[] previous) {
+            switch (type) {
+                case PUT:
+                    return value;
+                case MERGE:
+                    if (previous == null) {
+                        return value;
+                    }
+                    byte[] merged = new byte[previous.length + 1 + value.length];
+                    System.arraycopy(previous, 0, merged, 0, previous.length);
+                    merged[previous.length] = MERGE_DELIMITER;
+                    System.arraycopy(value, 0, merged, previous.length + 1, value.length);
+                    return merged;
+                default:
+                    return null;
+            }
+        }
+    }
+}
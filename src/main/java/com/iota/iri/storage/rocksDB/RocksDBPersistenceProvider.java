@@ -4,10 +4,12 @@ import com.iota.iri.model.*;
 import com.iota.iri.model.persistables.Address;
 import com.iota.iri.model.persistables.Approvee;
 import com.iota.iri.model.persistables.Bundle;
+import com.iota.iri.model.persistables.Hashes;
 import com.iota.iri.model.persistables.Milestone;
 import com.iota.iri.model.persistables.ObsoleteTag;
 import com.iota.iri.model.persistables.Tag;
 import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.HashCursors;
 import com.iota.iri.storage.Indexable;
 import com.iota.iri.storage.Persistable;
 import com.iota.iri.storage.PersistenceProvider;
@@ -24,12 +26,15 @@ import java.io.File;
 import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     private static final Logger log = LoggerFactory.getLogger(RocksDBPersistenceProvider.class);
     private static final int BLOOM_FILTER_BITS_PER_KEY = 10;
+    private static final int MIGRATION_BATCH_SIZE = 10_000;
+    private static final byte[] EMPTY_VALUE = new byte[0];
 
     private static final Pair<Indexable, Persistable> PAIR_OF_NULLS = new Pair<>(null, null);
 
@@ -43,7 +48,12 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         "approvee",
         "bundle",
         "obsoleteTag",
-        "tag"
+        "tag",
+        "address-entries",
+        "approvee-entries",
+        "bundle-entries",
+        "obsoleteTag-entries",
+        "tag-entries"
     );
 
     private final List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>();
@@ -52,6 +62,8 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     private final String dbPath;
     private final String logPath;
     private final int cacheSize;
+    private final boolean entryIndexes;
+    private final int groupCommitDelay;
 
     private ColumnFamilyHandle transactionHandle;
     private ColumnFamilyHandle transactionMetadataHandle;
@@ -62,20 +74,58 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     private ColumnFamilyHandle bundleHandle;
     private ColumnFamilyHandle obsoleteTagHandle;
     private ColumnFamilyHandle tagHandle;
+    private ColumnFamilyHandle addressEntriesHandle;
+    private ColumnFamilyHandle approveeEntriesHandle;
+    private ColumnFamilyHandle bundleEntriesHandle;
+    private ColumnFamilyHandle obsoleteTagEntriesHandle;
+    private ColumnFamilyHandle tagEntriesHandle;
 
     private Map<Class<?>, ColumnFamilyHandle> classTreeMap;
     private Map<Class<?>, ColumnFamilyHandle> metadataReference;
+    /**
+     * The column families that store the {@link Hashes} indexes with one key per entry: the key is the index hash
+     * followed by the member hash, and the value is empty.
+     */
+    private Map<Class<?>, ColumnFamilyHandle> entryReference;
 
     private RocksDB db;
     // DBOptions is only used in initDB(). However, it is closeable - so we keep a reference for shutdown.
     private DBOptions options;
     private BloomFilter bloomFilter;
+    private GroupCommitWriter groupCommitWriter;
     private boolean available;
 
     public RocksDBPersistenceProvider(String dbPath, String logPath, int cacheSize) {
+        this(dbPath, logPath, cacheSize, false);
+    }
+
+    /**
+     * @param dbPath the folder of the database
+     * @param logPath the folder of the database logs
+     * @param cacheSize the size of the block cache in KB
+     * @param entryIndexes <tt>true</tt> to store every member of the address, approvee, bundle, obsolete tag and tag
+     *                     indexes under its own key, <tt>false</tt> to append them to one value per index. Indexes
+     *                     stored in the other layout are moved when the provider is initialized.
+     */
+    public RocksDBPersistenceProvider(String dbPath, String logPath, int cacheSize, boolean entryIndexes) {
+        this(dbPath, logPath, cacheSize, entryIndexes, 0);
+    }
+
+    /**
+     * @param dbPath the folder of the database
+     * @param logPath the folder of the database logs
+     * @param cacheSize the size of the block cache in KB
+     * @param entryIndexes see {@link #RocksDBPersistenceProvider(String, String, int, boolean)}
+     * @param groupCommitDelay the number of milliseconds writes are collected for by a {@link GroupCommitWriter}
+     *                         before they are committed together, <tt>0</tt> to commit every write before it returns
+     */
+    public RocksDBPersistenceProvider(String dbPath, String logPath, int cacheSize, boolean entryIndexes,
+            int groupCommitDelay) {
         this.dbPath = dbPath;
         this.logPath = logPath;
         this.cacheSize = cacheSize;
+        this.entryIndexes = entryIndexes;
+        this.groupCommitDelay = groupCommitDelay;
     }
 
     @Override
@@ -83,6 +133,14 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         log.info("Initializing Database Backend... ");
         initDB(dbPath, logPath);
         initClassTreeMap();
+        try {
+            migrateIndexes();
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Could not migrate the indexes of the database", e);
+        }
+        if (groupCommitDelay > 0) {
+            groupCommitWriter = new GroupCommitWriter(db, groupCommitDelay);
+        }
         available = true;
         log.info("RocksDB persistence provider initialized.");
     }
@@ -107,10 +165,89 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         Map<Class<?>, ColumnFamilyHandle> metadataHashMap = new HashMap<>();
         metadataHashMap.put(Transaction.class, transactionMetadataHandle);
         metadataReference = metadataHashMap;
+
+        Map<Class<?>, ColumnFamilyHandle> entryMap = new LinkedHashMap<>();
+        entryMap.put(Address.class, addressEntriesHandle);
+        entryMap.put(Approvee.class, approveeEntriesHandle);
+        entryMap.put(Bundle.class, bundleEntriesHandle);
+        entryMap.put(ObsoleteTag.class, obsoleteTagEntriesHandle);
+        entryMap.put(Tag.class, tagEntriesHandle);
+        entryReference = entryMap;
+    }
+
+    /**
+     * @param model the type of a model
+     * @return the column family the model is stored in with one key per entry, or <tt>null</tt> if the model is
+     * stored as a single value
+     */
+    private ColumnFamilyHandle entryHandle(Class<?> model) {
+        return entryIndexes ? entryReference.get(model) : null;
+    }
+
+    /**
+     * Commits the batch right away, or hands it to the group commit writer if there is one.
+     *
+     * @return a future that completes once the batch is committed
+     */
+    private CompletableFuture<Void> write(GroupCommitWriter.Batch batch) throws InterruptedException,
+            RocksDBException {
+        if (groupCommitWriter != null) {
+            return groupCommitWriter.submit(batch);
+        }
+        commit(batch);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void commit(GroupCommitWriter.Batch batch) throws RocksDBException {
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions().setSync(batch.isSync())) {
+            batch.writeTo(writeBatch);
+            db.write(writeOptions, writeBatch);
+        }
+    }
+
+    /**
+     * Reads a value including the writes the group commit writer didn't commit yet.
+     */
+    private byte[] read(ColumnFamilyHandle handle, byte[] key) throws RocksDBException {
+        return groupCommitWriter != null ? groupCommitWriter.get(handle, key) : db.get(handle, key);
+    }
+
+    /**
+     * Creates an iterator once the pending writes are committed, because iterators only see committed writes. The
+     * entries of a single index are read with {@link #entries} instead, which doesn't wait.
+     */
+    private RocksIterator newIterator(ColumnFamilyHandle handle) {
+        awaitPendingWrites();
+        return db.newIterator(handle);
+    }
+
+    private void awaitPendingWrites() {
+        if (groupCommitWriter != null) {
+            groupCommitWriter.awaitCommitted();
+        }
+    }
+
+    /**
+     * Writes are committed before they return unless a group commit delay is configured.
+     */
+    @Override
+    public CompletableFuture<Void> pendingWrites() {
+        return groupCommitWriter != null ? groupCommitWriter.pendingWrites() : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * @return the writer that commits the writes in groups, <tt>null</tt> if every write is committed on its own
+     */
+    public GroupCommitWriter getGroupCommitWriter() {
+        return groupCommitWriter;
     }
 
     @Override
     public void shutdown() {
+        if (groupCommitWriter != null) {
+            groupCommitWriter.shutdown();
+        }
         for (final ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
             IotaIOUtils.closeQuietly(columnFamilyHandle);
         }
@@ -119,39 +256,67 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     @Override
     public boolean save(Persistable thing, Indexable index) throws Exception {
+        GroupCommitWriter.Batch batch = new GroupCommitWriter.Batch();
+        ColumnFamilyHandle entryHandle = entryHandle(thing.getClass());
+        if (entryHandle != null) {
+            removeEntries(batch, entryHandle, index.bytes());
+            putEntries(batch, entryHandle, index.bytes(), (Hashes) thing);
+            write(batch);
+            return true;
+        }
+
         ColumnFamilyHandle handle = classTreeMap.get(thing.getClass());
-        db.put(handle, index.bytes(), thing.bytes());
+        batch.put(handle, index.bytes(), thing.bytes());
 
         ColumnFamilyHandle referenceHandle = metadataReference.get(thing.getClass());
         if (referenceHandle != null) {
-            db.put(referenceHandle, index.bytes(), thing.metadata());
+            batch.put(referenceHandle, index.bytes(), thing.metadata());
         }
+        write(batch);
         return true;
     }
 
     @Override
     public void delete(Class<?> model, Indexable index) throws Exception {
-        db.delete(classTreeMap.get(model), index.bytes());
+        GroupCommitWriter.Batch batch = new GroupCommitWriter.Batch();
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        if (entryHandle != null) {
+            removeEntries(batch, entryHandle, index.bytes());
+        } else {
+            batch.remove(classTreeMap.get(model), index.bytes());
+        }
+        write(batch);
     }
 
     @Override
     public boolean exists(Class<?> model, Indexable key) throws Exception {
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        if (entryHandle != null) {
+            return hasEntries(entryHandle, key.bytes());
+        }
         ColumnFamilyHandle handle = classTreeMap.get(model);
-        return handle != null && db.get(handle, key.bytes()) != null;
+        return handle != null && read(handle, key.bytes()) != null;
     }
 
     @Override
     public Set<Indexable> keysWithMissingReferences(Class<?> model, Class<?> other) throws Exception {
-        ColumnFamilyHandle handle = classTreeMap.get(model);
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        ColumnFamilyHandle handle = entryHandle != null ? entryHandle : classTreeMap.get(model);
         ColumnFamilyHandle otherHandle = classTreeMap.get(other);
 
-        try (RocksIterator iterator = db.newIterator(handle)) {
+        try (RocksIterator iterator = newIterator(handle)) {
             Set<Indexable> indexables = null;
 
-            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
-                if (db.get(otherHandle, iterator.key()) == null) {
+            for (iterator.seekToFirst(); iterator.isValid(); ) {
+                byte[] key = entryHandle != null ? indexOf(iterator.key()) : iterator.key();
+                if (read(otherHandle, key) == null) {
                     indexables = indexables == null ? new HashSet<>() : indexables;
-                    indexables.add(HashFactory.GENERIC.create(model, iterator.key()));
+                    indexables.add(HashFactory.GENERIC.create(model, key));
+                }
+                if (entryHandle != null) {
+                    seekPastEntries(iterator, key);
+                } else {
+                    iterator.next();
                 }
             }
             return indexables == null ? Collections.emptySet() : Collections.unmodifiableSet(indexables);
@@ -160,20 +325,107 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     @Override
     public Persistable get(Class<?> model, Indexable index) throws Exception {
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        if (entryHandle != null) {
+            return readEntries(model, entryHandle, index == null ? null : index.bytes());
+        }
+
         Persistable object = (Persistable) model.newInstance();
-        object.read(db.get(classTreeMap.get(model), index == null ? new byte[0] : index.bytes()));
+        object.read(read(classTreeMap.get(model), index == null ? new byte[0] : index.bytes()));
 
         ColumnFamilyHandle referenceHandle = metadataReference.get(model);
         if (referenceHandle != null) {
-            object.readMetadata(db.get(referenceHandle, index == null ? new byte[0] : index.bytes()));
+            object.readMetadata(read(referenceHandle, index == null ? new byte[0] : index.bytes()));
         }
         return object;
     }
 
+    @Override
+    public List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) throws Exception {
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        if (entryHandle != null) {
+            List<Persistable> models = new ArrayList<>(indexes.size());
+            for (Indexable index : indexes) {
+                models.add(readEntries(model, entryHandle, index == null ? null : index.bytes()));
+            }
+            return models;
+        }
+
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        ColumnFamilyHandle referenceHandle = metadataReference.get(model);
+        int size = indexes.size();
+        List<ColumnFamilyHandle> handles = new ArrayList<>(2 * size);
+        List<byte[]> keys = new ArrayList<>(2 * size);
+        for (Indexable index : indexes) {
+            handles.add(handle);
+            keys.add(index == null ? new byte[0] : index.bytes());
+        }
+        if (referenceHandle != null) {
+            // the values are mapped by the identity of the key arrays, so the metadata needs its own keys
+            for (int i = 0; i < size; i++) {
+                handles.add(referenceHandle);
+                keys.add(keys.get(i).clone());
+            }
+        }
+
+        // writes that are pending when the lookup starts are read through the group commit writer afterwards
+        boolean[] pending = new boolean[keys.size()];
+        if (groupCommitWriter != null) {
+            for (int i = 0; i < keys.size(); i++) {
+                pending[i] = groupCommitWriter.isPending(handles.get(i), keys.get(i));
+            }
+        }
+        Map<byte[], byte[]> values = new HashMap<>(db.multiGet(handles, keys));
+        for (int i = 0; i < keys.size(); i++) {
+            if (pending[i]) {
+                values.put(keys.get(i), groupCommitWriter.get(handles.get(i), keys.get(i)));
+            }
+        }
+
+        List<Persistable> models = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Persistable object = (Persistable) model.newInstance();
+            object.read(values.get(keys.get(i)));
+            if (referenceHandle != null) {
+                object.readMetadata(values.get(keys.get(size + i)));
+            }
+            models.add(object);
+        }
+        return models;
+    }
+
+    /**
+     * Indexes that are stored as a single value have to be read as a whole, so all their hashes from <tt>from</tt>
+     * on are returned at once instead of a page; only indexes stored with one key per entry are read page by page.
+     */
+    @Override
+    public List<Hash> indexPage(Class<?> model, Indexable index, Hash from, int limit) throws Exception {
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        if (entryHandle == null) {
+            Hashes hashes = (Hashes) get(model, index);
+            return hashes.set.stream()
+                    .filter(hash -> from == null || HashCursors.compare(hash, from) >= 0)
+                    .sorted(HashCursors::compare)
+                    .collect(Collectors.toList());
+        }
+
+        byte[] key = index.bytes();
+        List<Hash> hashes = new ArrayList<>();
+        for (byte[] entry : entries(entryHandle, key, from == null ? key : entryKey(key, from.bytes()), limit)) {
+            hashes.add(HashFactory.TRANSACTION.create(entry, key.length, Hash.SIZE_IN_BYTES));
+        }
+        return hashes;
+    }
+
     @Override
     public boolean mayExist(Class<?> model, Indexable index) {
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        if (entryHandle != null) {
+            return hasEntries(entryHandle, index.bytes());
+        }
         ColumnFamilyHandle handle = classTreeMap.get(model);
-        return db.keyMayExist(handle, index.bytes(), new StringBuilder());
+        return groupCommitWriter != null && groupCommitWriter.isPending(handle, index.bytes())
+                || db.keyMayExist(handle, index.bytes(), new StringBuilder());
     }
 
     @Override
@@ -181,18 +433,26 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         return getCountEstimate(model);
     }
 
+    /**
+     * Indexes stored with one key per entry are estimated by their number of entries.
+     */
     private long getCountEstimate(Class<?> model) throws RocksDBException {
-        ColumnFamilyHandle handle = classTreeMap.get(model);
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        ColumnFamilyHandle handle = entryHandle != null ? entryHandle : classTreeMap.get(model);
         return db.getLongProperty(handle, "rocksdb.estimate-num-keys");
     }
 
     @Override
     public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
         Objects.requireNonNull(value, "value byte[] cannot be null");
+        ColumnFamilyHandle entryHandle = entryHandle(modelClass);
+        if (entryHandle != null) {
+            return indexesStartingWith(modelClass, entryHandle, value);
+        }
         ColumnFamilyHandle handle = classTreeMap.get(modelClass);
         Set<Indexable> keys = null;
         if (handle != null) {
-            try (RocksIterator iterator = db.newIterator(handle)) {
+            try (RocksIterator iterator = newIterator(handle)) {
                 iterator.seek(HashFactory.GENERIC.create(modelClass, value, 0, value.length).bytes());
 
                 byte[] found;
@@ -250,14 +510,35 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
         ColumnFamilyHandle referenceHandle = metadataReference.get(model);
         if (referenceHandle != null) {
-            object.readMetadata(db.get(referenceHandle, iterator.key()));
+            object.readMetadata(read(referenceHandle, iterator.key()));
         }
         return new Pair<>(indexable, object);
     }
 
+    /**
+     * Reads the index of the entry the iterator points at, like {@link #modelAndIndex} does for other models. The
+     * keys of these indexes are always hashes, so they are created by the {@link HashFactory} of the model.
+     */
+    private Pair<Indexable, Persistable> indexAndEntries(Class<?> model, ColumnFamilyHandle entryHandle,
+            RocksIterator iterator) throws Exception {
+
+        if (!iterator.isValid()) {
+            return PAIR_OF_NULLS;
+        }
+        byte[] key = indexOf(iterator.key());
+        return new Pair<>(HashFactory.GENERIC.create(model, key), readEntries(model, entryHandle, key));
+    }
+
     @Override
     public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        if (entryHandle != null) {
+            try (RocksIterator iterator = newIterator(entryHandle)) {
+                seekPastEntries(iterator, index.bytes());
+                return indexAndEntries(model, entryHandle, iterator);
+            }
+        }
+        try (RocksIterator iterator = newIterator(classTreeMap.get(model))) {
             iterator.seek(index.bytes());
             iterator.next();
             return modelAndIndex(model, index.getClass(), iterator);
@@ -266,7 +547,15 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     @Override
     public Pair<Indexable, Persistable> previous(Class<?> model, Indexable index) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        if (entryHandle != null) {
+            try (RocksIterator iterator = newIterator(entryHandle)) {
+                iterator.seek(index.bytes());
+                iterator.prev();
+                return indexAndEntries(model, entryHandle, iterator);
+            }
+        }
+        try (RocksIterator iterator = newIterator(classTreeMap.get(model))) {
             iterator.seek(index.bytes());
             iterator.prev();
             return modelAndIndex(model, index.getClass(), iterator);
@@ -276,7 +565,14 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     @SuppressWarnings("unchecked")
     @Override
     public Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        if (entryHandle != null) {
+            try (RocksIterator iterator = newIterator(entryHandle)) {
+                iterator.seekToLast();
+                return indexAndEntries(model, entryHandle, iterator);
+            }
+        }
+        try (RocksIterator iterator = newIterator(classTreeMap.get(model))) {
             iterator.seekToLast();
             return modelAndIndex(model, (Class<Indexable>) indexModel, iterator);
         }
@@ -285,7 +581,14 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     @SuppressWarnings("unchecked")
     @Override
     public Pair<Indexable, Persistable> first(Class<?> model, Class<?> index) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        ColumnFamilyHandle entryHandle = entryHandle(model);
+        if (entryHandle != null) {
+            try (RocksIterator iterator = newIterator(entryHandle)) {
+                iterator.seekToFirst();
+                return indexAndEntries(model, entryHandle, iterator);
+            }
+        }
+        try (RocksIterator iterator = newIterator(classTreeMap.get(model))) {
             iterator.seekToFirst();
             return modelAndIndex(model, (Class<Indexable>) index, iterator);
         }
@@ -300,65 +603,76 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     @Override
     public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
-        try (WriteBatch writeBatch = new WriteBatch();
-             WriteOptions writeOptions = new WriteOptions()) {
+        GroupCommitWriter.Batch batch = new GroupCommitWriter.Batch();
 
-            for (Pair<Indexable, Persistable> entry : models) {
+        for (Pair<Indexable, Persistable> entry : models) {
 
-                Indexable key = entry.low;
-                Persistable value = entry.hi;
+            Indexable key = entry.low;
+            Persistable value = entry.hi;
 
-                ColumnFamilyHandle handle = classTreeMap.get(value.getClass());
-                ColumnFamilyHandle referenceHandle = metadataReference.get(value.getClass());
-
-                if (value.merge()) {
-                    writeBatch.merge(handle, key.bytes(), value.bytes());
-                } else {
-                    writeBatch.put(handle, key.bytes(), value.bytes());
-                }
-                if (referenceHandle != null) {
-                    writeBatch.put(referenceHandle, key.bytes(), value.metadata());
-                }
+            ColumnFamilyHandle entryHandle = entryHandle(value.getClass());
+            if (entryHandle != null) {
+                putEntries(batch, entryHandle, key.bytes(), (Hashes) value);
+                continue;
             }
 
-            db.write(writeOptions, writeBatch);
-            return true;
+            ColumnFamilyHandle handle = classTreeMap.get(value.getClass());
+            ColumnFamilyHandle referenceHandle = metadataReference.get(value.getClass());
+
+            if (value.merge()) {
+                batch.merge(handle, key.bytes(), value.bytes());
+            } else {
+                batch.put(handle, key.bytes(), value.bytes());
+            }
+            if (referenceHandle != null) {
+                batch.put(referenceHandle, key.bytes(), value.metadata());
+            }
         }
+
+        write(batch);
+        return true;
     }
 
     public void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models)
             throws Exception {
         if (CollectionUtils.isNotEmpty(models)) {
-            try (WriteBatch writeBatch = new WriteBatch()) {
-                models.forEach(entry -> {
-                    Indexable indexable = entry.low;
-                    byte[] keyBytes = indexable.bytes();
-                    ColumnFamilyHandle handle = classTreeMap.get(entry.hi);
-                    writeBatch.remove(handle, keyBytes);
-                    ColumnFamilyHandle metadataHandle = metadataReference.get(entry.hi);
-                    if (metadataHandle != null) {
-                        writeBatch.remove(metadataHandle, keyBytes);
-                    }
-                });
-
-                WriteOptions writeOptions = new WriteOptions()
-                        //We are explicit about what happens if the node reboots before a flush to the db
-                        .setDisableWAL(false)
-                        //We want to make sure deleted data was indeed deleted
-                        .setSync(true);
-                db.write(writeOptions, writeBatch);
-            }
+            GroupCommitWriter.Batch batch = new GroupCommitWriter.Batch();
+            models.forEach(entry -> {
+                Indexable indexable = entry.low;
+                byte[] keyBytes = indexable.bytes();
+                ColumnFamilyHandle entryHandle = entryHandle(entry.hi);
+                if (entryHandle != null) {
+                    removeEntries(batch, entryHandle, keyBytes);
+                    return;
+                }
+                ColumnFamilyHandle handle = classTreeMap.get(entry.hi);
+                batch.remove(handle, keyBytes);
+                ColumnFamilyHandle metadataHandle = metadataReference.get(entry.hi);
+                if (metadataHandle != null) {
+                    batch.remove(metadataHandle, keyBytes);
+                }
+            });
+
+            //We want to make sure deleted data was indeed deleted, so we wait for the synced write
+            batch.sync();
+            write(batch).get();
         }
     }
 
     @Override
     public void clear(Class<?> column) throws Exception {
+        awaitPendingWrites();
         log.info("Deleting: {} entries", column.getSimpleName());
         flushHandle(classTreeMap.get(column));
+        ColumnFamilyHandle entryHandle = entryReference.get(column);
+        if (entryHandle != null) {
+            flushHandle(entryHandle);
+        }
     }
 
     @Override
     public void clearMetadata(Class<?> column) throws Exception {
+        awaitPendingWrites();
         log.info("Deleting: {} metadata", column.getSimpleName());
         flushHandle(metadataReference.get(column));
     }
@@ -387,7 +701,9 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     public boolean update(Persistable thing, Indexable index, String item) throws Exception {
         ColumnFamilyHandle referenceHandle = metadataReference.get(thing.getClass());
         if (referenceHandle != null) {
-            db.put(referenceHandle, index.bytes(), thing.metadata());
+            GroupCommitWriter.Batch batch = new GroupCommitWriter.Batch();
+            batch.put(referenceHandle, index.bytes(), thing.metadata());
+            write(batch);
         }
         return false;
     }
@@ -402,6 +718,197 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         }
     }
 
+    /**
+     * Reads an index that is stored with one key per entry.
+     *
+     * @param model the type of the index
+     * @param entryHandle the column family of the index
+     * @param key the key of the index, <tt>null</tt> for none
+     * @return the index, empty if it has no entries
+     */
+    private Persistable readEntries(Class<?> model, ColumnFamilyHandle entryHandle, byte[] key) throws Exception {
+        Hashes hashes = (Hashes) model.newInstance();
+        if (key == null || key.length == 0) {
+            return hashes;
+        }
+        for (byte[] entry : entries(entryHandle, key, key, Integer.MAX_VALUE)) {
+            hashes.set.add(HashFactory.TRANSACTION.create(entry, key.length, Hash.SIZE_IN_BYTES));
+        }
+        return hashes;
+    }
+
+    private boolean hasEntries(ColumnFamilyHandle entryHandle, byte[] key) {
+        return !entries(entryHandle, key, key, 1).isEmpty();
+    }
+
+    /**
+     * Reads the entries of an index without waiting for the pending writes, which the group commit writer merges in.
+     *
+     * @param entryHandle the column family of the index
+     * @param key the key of the index
+     * @param from the first entry to read
+     * @param limit the number of entries to read at most
+     * @return the keys of the entries in the order of the database
+     */
+    private List<byte[]> entries(ColumnFamilyHandle entryHandle, byte[] key, byte[] from, int limit) {
+        if (groupCommitWriter != null) {
+            return groupCommitWriter.keys(entryHandle, key, from, limit);
+        }
+        List<byte[]> entries = new ArrayList<>();
+        try (RocksIterator iterator = db.newIterator(entryHandle)) {
+            for (iterator.seek(from); iterator.isValid() && entries.size() < limit; iterator.next()) {
+                byte[] entry = iterator.key();
+                if (!isEntryOf(key, entry)) {
+                    break;
+                }
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private static void putEntries(GroupCommitWriter.Batch batch, ColumnFamilyHandle entryHandle, byte[] key,
+            Hashes hashes) {
+        for (Hash hash : hashes.set) {
+            batch.put(entryHandle, entryKey(key, hash.bytes()), EMPTY_VALUE);
+        }
+    }
+
+    private void removeEntries(GroupCommitWriter.Batch batch, ColumnFamilyHandle entryHandle, byte[] key) {
+        for (byte[] entry : entries(entryHandle, key, key, Integer.MAX_VALUE)) {
+            batch.remove(entryHandle, entry);
+        }
+    }
+
+    /**
+     * Collects the distinct indexes whose key starts with <tt>value</tt>, skipping over the entries of every index
+     * it found.
+     */
+    private Set<Indexable> indexesStartingWith(Class<?> modelClass, ColumnFamilyHandle entryHandle, byte[] value) {
+        Set<Indexable> keys = null;
+        try (RocksIterator iterator = newIterator(entryHandle)) {
+            iterator.seek(value);
+            byte[] found;
+            while (iterator.isValid() && keyStartsWithValue(value, found = iterator.key())) {
+                byte[] key = indexOf(found);
+                keys = keys == null ? new HashSet<>() : keys;
+                keys.add(HashFactory.GENERIC.create(modelClass, key));
+                seekPastEntries(iterator, key);
+            }
+        }
+        return keys == null ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Moves the iterator to the first entry of the index that follows <tt>key</tt>.
+     */
+    private static void seekPastEntries(RocksIterator iterator, byte[] key) {
+        byte[] upperBound = upperBound(key);
+        if (upperBound == null) {
+            iterator.seekToLast();
+            iterator.next();
+        } else {
+            iterator.seek(upperBound);
+        }
+    }
+
+    /**
+     * @param key the key of an index
+     * @return the smallest key that is larger than all entries of the index, <tt>null</tt> if there is none
+     */
+    private static byte[] upperBound(byte[] key) {
+        byte[] upperBound = key.clone();
+        for (int i = upperBound.length - 1; i >= 0; i--) {
+            if (upperBound[i] != (byte) 0xFF) {
+                upperBound[i]++;
+                return Arrays.copyOf(upperBound, i + 1);
+            }
+        }
+        return null;
+    }
+
+    private static byte[] entryKey(byte[] key, byte[] member) {
+        byte[] entry = Arrays.copyOf(key, key.length + Hash.SIZE_IN_BYTES);
+        System.arraycopy(member, 0, entry, key.length, Hash.SIZE_IN_BYTES);
+        return entry;
+    }
+
+    private static byte[] indexOf(byte[] entry) {
+        return Arrays.copyOf(entry, entry.length - Hash.SIZE_IN_BYTES);
+    }
+
+    private static boolean isEntryOf(byte[] key, byte[] entry) {
+        return entry.length == key.length + Hash.SIZE_IN_BYTES && keyStartsWithValue(key, entry);
+    }
+
+    /**
+     * Moves the indexes that are stored in the layout that is not configured into the configured one. Every batch
+     * adds the moved entries and removes their source atomically, so an interrupted migration resumes on the next
+     * start.
+     */
+    private void migrateIndexes() throws RocksDBException {
+        for (Map.Entry<Class<?>, ColumnFamilyHandle> entry : entryReference.entrySet()) {
+            ColumnFamilyHandle valueHandle = classTreeMap.get(entry.getKey());
+            long migrated = entryIndexes
+                    ? moveToEntries(valueHandle, entry.getValue())
+                    : moveToValues(entry.getValue(), valueHandle);
+            if (migrated > 0) {
+                log.info("Migrated {} {} indexes to the {} layout", migrated, entry.getKey().getSimpleName(),
+                        entryIndexes ? "key per entry" : "single value");
+            }
+        }
+    }
+
+    private long moveToEntries(ColumnFamilyHandle valueHandle, ColumnFamilyHandle entryHandle)
+            throws RocksDBException {
+        long migrated = 0;
+        try (RocksIterator iterator = db.newIterator(valueHandle)) {
+            GroupCommitWriter.Batch batch = new GroupCommitWriter.Batch();
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                Hashes hashes = new Hashes();
+                hashes.read(iterator.value());
+                putEntries(batch, entryHandle, iterator.key(), hashes);
+                batch.remove(valueHandle, iterator.key());
+                if (++migrated % MIGRATION_BATCH_SIZE == 0) {
+                    commit(batch);
+                    batch = new GroupCommitWriter.Batch();
+                }
+            }
+            commit(batch);
+        }
+        return migrated;
+    }
+
+    private long moveToValues(ColumnFamilyHandle entryHandle, ColumnFamilyHandle valueHandle)
+            throws RocksDBException {
+        long migrated = 0;
+        try (RocksIterator iterator = db.newIterator(entryHandle)) {
+            GroupCommitWriter.Batch batch = new GroupCommitWriter.Batch();
+            byte[] key = null;
+            Hashes hashes = new Hashes();
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                byte[] entry = iterator.key();
+                if (key != null && !isEntryOf(key, entry)) {
+                    batch.merge(valueHandle, key, hashes.bytes());
+                    hashes = new Hashes();
+                    if (++migrated % MIGRATION_BATCH_SIZE == 0) {
+                        commit(batch);
+                        batch = new GroupCommitWriter.Batch();
+                    }
+                }
+                key = indexOf(entry);
+                hashes.set.add(HashFactory.TRANSACTION.create(entry, key.length, Hash.SIZE_IN_BYTES));
+                batch.remove(entryHandle, entry);
+            }
+            if (key != null) {
+                batch.merge(valueHandle, key, hashes.bytes());
+                migrated++;
+            }
+            commit(batch);
+        }
+        return migrated;
+    }
+
     // 2018 March 28 - Unused Code
     public void restoreBackup(String path, String logPath) throws Exception {
         try (Env env = Env.getDefault();
@@ -504,6 +1011,11 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         bundleHandle = columnFamilyHandles.get(++i);
         obsoleteTagHandle = columnFamilyHandles.get(++i);
         tagHandle = columnFamilyHandles.get(++i);
+        addressEntriesHandle = columnFamilyHandles.get(++i);
+        approveeEntriesHandle = columnFamilyHandles.get(++i);
+        bundleEntriesHandle = columnFamilyHandles.get(++i);
+        obsoleteTagEntriesHandle = columnFamilyHandles.get(++i);
+        tagEntriesHandle = columnFamilyHandles.get(++i);
 
         for (; ++i < columnFamilyHandles.size(); ) {
             db.dropColumnFamily(columnFamilyHandles.get(i));
@@ -232,6 +232,35 @@ public class Converter {
         return value;
     }
 
+    /**
+     * Parses trits of a bytes array as a long value, like {@link #longValue(byte[], int, int)} but without converting
+     * the whole array to trits first.
+     * @param bytes bytes array encoded with {@link #NUMBER_OF_TRITS_IN_A_BYTE} trits per byte
+     * @param tritOffset index of the first trit to parse
+     * @param size Amount of trits to parse
+     * @return the long value represented by the trits
+     */
+    public static long longValueFromBytes(final byte[] bytes, final int tritOffset, final int size) {
+
+        long value = 0;
+        for (int i = size; i-- > 0; ) {
+            value = value * RADIX + tritFromBytes(bytes, tritOffset + i);
+        }
+        return value;
+    }
+
+    /**
+     * Reads a single trit of a bytes array.
+     * @param bytes bytes array encoded with {@link #NUMBER_OF_TRITS_IN_A_BYTE} trits per byte
+     * @param tritIndex index of the trit
+     * @return the trit
+     */
+    public static byte tritFromBytes(final byte[] bytes, final int tritIndex) {
+        byte value = bytes[tritIndex / NUMBER_OF_TRITS_IN_A_BYTE];
+        return BYTE_TO_TRITS_MAPPINGS[value < 0 ? (value + BYTE_TO_TRITS_MAPPINGS.length) : value]
+                [tritIndex % NUMBER_OF_TRITS_IN_A_BYTE];
+    }
+
     /**
      * fills a trit array with a representation of the {@code value} argument in <i>Balanced ternary</i> arithmetic
 
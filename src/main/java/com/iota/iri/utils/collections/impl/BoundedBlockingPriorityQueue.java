@@ -0,0 +1,204 @@
+package com.iota.iri.utils.collections.impl;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A priority queue that holds at most {@link #getMaxSize()} elements and lets consumers wait for elements.
+ * <br>
+ * Elements are ordered by a {@link Comparator}; the first element is the one with the highest priority. Elements that
+ * compare as equal are only stored once. When an element is offered to a full queue, the element with the lowest
+ * priority is dropped, which may be the offered element itself.
+ * <br>
+ * The size is kept in a volatile field, so {@link #size()} is O(1) and does not take the lock.
+ *
+ * @param <E> the type of the elements
+ */
+public class BoundedBlockingPriorityQueue<E> {
+
+    private final int maxSize;
+    private final TreeSet<E> elements;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    private volatile int size = 0;
+    private final AtomicLong droppedCount = new AtomicLong(0L);
+
+    /**
+     * Instantiates a new bounded blocking priority queue.
+     *
+     * @param maxSize    the max size
+     * @param comparator orders the elements, lower elements have a higher priority
+     */
+    public BoundedBlockingPriorityQueue(int maxSize, Comparator<? super E> comparator) {
+        this.maxSize = maxSize;
+        this.elements = new TreeSet<>(comparator);
+    }
+
+    /**
+     * Inserts an element, dropping the element with the lowest priority if the queue is full.
+     *
+     * @param element the element to insert
+     * @return true if the element is in the queue afterwards, false if it was already queued or it was dropped
+     * because it had the lowest priority
+     */
+    public boolean offer(E element) {
+        lock.lock();
+        try {
+            if (!elements.add(element)) {
+                return false;
+            }
+            boolean kept = true;
+            if (elements.size() > maxSize) {
+                kept = elements.pollLast() != element;
+                droppedCount.incrementAndGet();
+            }
+            size = elements.size();
+            notEmpty.signal();
+            return kept;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves and removes the element with the highest priority, waiting until one is available.
+     *
+     * @return the element with the highest priority
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (elements.isEmpty()) {
+                notEmpty.await();
+            }
+            return pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves and removes the element with the highest priority, waiting up to the given time until one is
+     * available.
+     *
+     * @param timeout how long to wait
+     * @param unit    the unit of <tt>timeout</tt>
+     * @return the element with the highest priority or null if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (elements.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves and removes the element with the highest priority without waiting.
+     *
+     * @return the element with the highest priority or null if the queue is empty
+     */
+    public E poll() {
+        if (size == 0) {
+            return null;
+        }
+        lock.lock();
+        try {
+            return pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes up to <tt>maxElements</tt> elements in order of priority and adds them to the given collection.
+     *
+     * @param target      the collection to add the elements to
+     * @param maxElements the maximal number of elements to remove
+     * @return the number of elements that were moved
+     */
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        if (size == 0) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            int count = 0;
+            E element;
+            while (count < maxElements && (element = elements.pollFirst()) != null) {
+                target.add(element);
+                count++;
+            }
+            size = elements.size();
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all elements.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            elements.clear();
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private E pollFirst() {
+        E element = elements.pollFirst();
+        size = elements.size();
+        if (size > 0) {
+            notEmpty.signal();
+        }
+        return element;
+    }
+
+    /**
+     * @return the number of queued elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if no elements are queued
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the maximal number of elements that the queue can hold
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of elements that were dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
@@ -0,0 +1,272 @@
+package com.iota.iri.utils.collections.impl;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A queue that holds at most {@link #getMaxSize()} elements of several sources and hands them out fairly.
+ * <br>
+ * Every source has its own sub-queue, ordered by a {@link Comparator} like in {@link BoundedBlockingPriorityQueue}.
+ * The sub-queues are served by deficit round robin: a source may take up to <tt>quantum</tt> elements before the
+ * next source gets its turn, so a source that offers many elements can not delay the elements of the others by more
+ * than one round.
+ * <br>
+ * When an element is offered to a full queue, the element with the lowest priority of the largest sub-queue is
+ * dropped. A single source flooding the queue therefore only pushes out its own elements.
+ *
+ * @param <K> the type of the sources
+ * @param <E> the type of the elements
+ */
+public class BoundedFairBlockingQueue<K, E> {
+
+    private final int maxSize;
+    private final int quantum;
+    private final Comparator<? super E> comparator;
+
+    private final Map<K, SubQueue<E>> subQueues = new HashMap<>();
+    /**
+     * Sources with queued elements in the order of their turns; the first one is currently served.
+     */
+    private final ArrayDeque<K> activeSources = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    private volatile int size = 0;
+    private final AtomicLong droppedCount = new AtomicLong(0L);
+
+    private static class SubQueue<E> {
+        private final TreeSet<E> elements;
+        private int deficit = 0;
+
+        private SubQueue(Comparator<? super E> comparator) {
+            this.elements = new TreeSet<>(comparator);
+        }
+    }
+
+    /**
+     * Instantiates a new bounded fair blocking queue.
+     *
+     * @param maxSize    the max size of all sub-queues together
+     * @param quantum    the number of elements a source may take per turn
+     * @param comparator orders the elements of a source, lower elements have a higher priority
+     */
+    public BoundedFairBlockingQueue(int maxSize, int quantum, Comparator<? super E> comparator) {
+        this.maxSize = maxSize;
+        this.quantum = Math.max(1, quantum);
+        this.comparator = comparator;
+    }
+
+    /**
+     * Inserts an element into the sub-queue of its source, dropping the element with the lowest priority of the
+     * largest sub-queue if the queue is full.
+     *
+     * @param source  the source of the element
+     * @param element the element to insert
+     * @return true if the element is in the queue afterwards, false if it was already queued by the same source or it
+     * was dropped right away
+     */
+    public boolean offer(K source, E element) {
+        lock.lock();
+        try {
+            SubQueue<E> subQueue = subQueues.get(source);
+            if (subQueue == null) {
+                subQueue = new SubQueue<>(comparator);
+                subQueues.put(source, subQueue);
+                activeSources.addLast(source);
+            }
+            if (!subQueue.elements.add(element)) {
+                return false;
+            }
+            size++;
+
+            boolean kept = true;
+            if (size > maxSize) {
+                kept = dropFromLargestSubQueue() != element;
+            }
+            notEmpty.signal();
+            return kept;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private E dropFromLargestSubQueue() {
+        K largestSource = null;
+        SubQueue<E> largest = null;
+        for (Map.Entry<K, SubQueue<E>> entry : subQueues.entrySet()) {
+            if (largest == null || entry.getValue().elements.size() > largest.elements.size()) {
+                largestSource = entry.getKey();
+                largest = entry.getValue();
+            }
+        }
+
+        E dropped = largest.elements.pollLast();
+        if (largest.elements.isEmpty()) {
+            subQueues.remove(largestSource);
+            activeSources.remove(largestSource);
+        }
+        size--;
+        droppedCount.incrementAndGet();
+        return dropped;
+    }
+
+    /**
+     * Retrieves and removes the next element, waiting until one is available.
+     *
+     * @return the next element
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return pollNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves and removes the next element, waiting up to the given time until one is available.
+     *
+     * @param timeout how long to wait
+     * @param unit    the unit of <tt>timeout</tt>
+     * @return the next element or null if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return pollNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves and removes the next element without waiting.
+     *
+     * @return the next element or null if the queue is empty
+     */
+    public E poll() {
+        if (size == 0) {
+            return null;
+        }
+        lock.lock();
+        try {
+            return size == 0 ? null : pollNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes up to <tt>maxElements</tt> elements in the order they would be polled and adds them to the given
+     * collection.
+     *
+     * @param target      the collection to add the elements to
+     * @param maxElements the maximal number of elements to remove
+     * @return the number of elements that were moved
+     */
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        if (size == 0) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            int count = 0;
+            while (count < maxElements && size > 0) {
+                target.add(pollNext());
+                count++;
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all elements.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            subQueues.clear();
+            activeSources.clear();
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the first element of the source whose turn it is. Must be called with the lock held and a non-empty queue.
+     */
+    private E pollNext() {
+        K source = activeSources.peekFirst();
+        SubQueue<E> subQueue = subQueues.get(source);
+        if (subQueue.deficit <= 0) {
+            subQueue.deficit = quantum;
+        }
+
+        E element = subQueue.elements.pollFirst();
+        subQueue.deficit--;
+        size--;
+
+        if (subQueue.elements.isEmpty()) {
+            activeSources.pollFirst();
+            subQueues.remove(source);
+        } else if (subQueue.deficit == 0) {
+            activeSources.addLast(activeSources.pollFirst());
+        }
+        if (size > 0) {
+            notEmpty.signal();
+        }
+        return element;
+    }
+
+    /**
+     * @return the number of queued elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if no elements are queued
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the maximal number of elements that the queue can hold
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of elements that were dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
@@ -0,0 +1,123 @@
+package com.iota.iri.utils.collections.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bloom filter that remembers the most recently added keys and forgets older ones.
+ * <br>
+ * The filter consists of two generations. Keys are added to the current generation; once it holds
+ * <tt>capacity</tt> keys the older generation is cleared and becomes the current one. A key is therefore remembered
+ * for at least <tt>capacity</tt> and at most <tt>2 * capacity</tt> additions. Lookups check both generations, so
+ * like every bloom filter it may report keys that were never added, but never misses a remembered key.
+ * <br>
+ * Adding and looking up keys don't lock, only the rotation of the generations does.
+ */
+public class RollingBloomFilter {
+
+    private static final int GENERATIONS = 2;
+
+    private final AtomicLongArray[] generations = new AtomicLongArray[GENERATIONS];
+    private final AtomicInteger currentCount = new AtomicInteger(0);
+    private final int capacity;
+    private final int numberOfHashes;
+    private final int bitMask;
+
+    private volatile int current = 0;
+
+    /**
+     * Instantiates a new rolling bloom filter.
+     *
+     * @param capacity          the number of keys every generation holds
+     * @param falsePositiveRate the targeted probability of reporting a key that was not added
+     */
+    public RollingBloomFilter(int capacity, double falsePositiveRate) {
+        this.capacity = Math.max(1, capacity);
+        double bitsPerKey = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        int bits = Integer.highestOneBit((int) Math.ceil(this.capacity * bitsPerKey) - 1) << 1;
+        bits = Math.max(Long.SIZE, bits);
+        this.bitMask = bits - 1;
+        this.numberOfHashes = Math.max(1, (int) Math.round(bitsPerKey * Math.log(2)));
+        for (int i = 0; i < GENERATIONS; i++) {
+            generations[i] = new AtomicLongArray(bits / Long.SIZE);
+        }
+    }
+
+    /**
+     * Adds a key to the current generation.
+     *
+     * @param key the key to add
+     */
+    public void add(byte[] key) {
+        long hash1 = hash(key, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(key, 0xC2B2AE3D27D4EB4FL) | 1L;
+        AtomicLongArray generation = generations[current];
+        for (int i = 0; i < numberOfHashes; i++) {
+            int bit = (int) (hash1 + i * hash2) & bitMask;
+            setBit(generation, bit);
+        }
+        if (currentCount.incrementAndGet() >= capacity) {
+            rotate(generation);
+        }
+    }
+
+    /**
+     * @param key the key to look up
+     * @return <tt>false</tt> if the key was definitely not added recently, <tt>true</tt> if it probably was
+     */
+    public boolean mightContain(byte[] key) {
+        long hash1 = hash(key, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(key, 0xC2B2AE3D27D4EB4FL) | 1L;
+        for (AtomicLongArray generation : generations) {
+            if (containsAll(generation, hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean containsAll(AtomicLongArray generation, long hash1, long hash2) {
+        for (int i = 0; i < numberOfHashes; i++) {
+            int bit = (int) (hash1 + i * hash2) & bitMask;
+            if ((generation.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void rotate(AtomicLongArray full) {
+        if (generations[current] != full) {
+            return;
+        }
+        int next = (current + 1) % GENERATIONS;
+        AtomicLongArray oldest = generations[next];
+        for (int i = 0; i < oldest.length(); i++) {
+            oldest.set(i, 0L);
+        }
+        currentCount.set(0);
+        current = next;
+    }
+
+    private static void setBit(AtomicLongArray generation, int bit) {
+        int index = bit >>> 6;
+        long mask = 1L << bit;
+        long word;
+        do {
+            word = generation.get(index);
+        } while ((word & mask) == 0 && !generation.compareAndSet(index, word, word | mask));
+    }
+
+    private static long hash(byte[] key, long seed) {
+        long h = seed;
+        for (byte b : key) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -4,10 +4,14 @@ import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.controllers.TransactionViewModelTest;
 import com.iota.iri.crypto.SpongeFactory;
 import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashFactory;
 import com.iota.iri.model.TransactionHash;
+import com.iota.iri.model.persistables.Transaction;
 import com.iota.iri.utils.Converter;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.Arrays;
+
 public class TransactionTestUtils {
 
     public static void setCurrentIndex(TransactionViewModel tx, long currentIndex) {
@@ -54,6 +58,22 @@ public class TransactionTestUtils {
         return new TransactionViewModel(trits, TransactionHash.calculate(SpongeFactory.Mode.CURLP81, trits));
     }
 
+    public static Hash createHash(int value) {
+        byte[] bytes = new byte[Hash.SIZE_IN_BYTES];
+        bytes[0] = (byte) value;
+        bytes[1] = (byte) (value >> 8);
+        return HashFactory.TRANSACTION.create(bytes);
+    }
+
+    public static Transaction createTransaction(byte fill) {
+        Transaction transaction = new Transaction();
+        byte[] bytes = new byte[Transaction.SIZE];
+        Arrays.fill(bytes, fill);
+        transaction.read(bytes);
+        transaction.readMetadata(bytes);
+        return transaction;
+    }
+
     public static String nextWord(String trytes) {
         if ("".equals(trytes)) {
             return "A";
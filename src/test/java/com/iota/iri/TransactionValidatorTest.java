@@ -81,6 +81,47 @@ public class TransactionValidatorTest {
     txValidator.validateBytes(bytes, txValidator.getMinWeightMagnitude(), SpongeFactory.create(SpongeFactory.Mode.CURLP81));
   }
 
+  @Test
+  public void preValidateAcceptsValidBytes() {
+    txValidator.preValidate(toBytes(currentTransactionTrits()));
+  }
+
+  @Test(expected = TransactionValidator.StaleTimestampException.class)
+  public void preValidateRejectsFutureTimestamp() {
+    byte[] trits = new byte[TransactionViewModel.TRINARY_SIZE];
+    Converter.copyTrits(System.currentTimeMillis() + 3 * 60 * 60 * 1000, trits,
+        TransactionViewModel.ATTACHMENT_TIMESTAMP_TRINARY_OFFSET, TransactionViewModel.ATTACHMENT_TIMESTAMP_TRINARY_SIZE);
+    txValidator.preValidate(toBytes(trits));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void preValidateRejectsValueAboveSupply() {
+    byte[] trits = currentTransactionTrits();
+    trits[TransactionViewModel.VALUE_TRINARY_OFFSET + TransactionViewModel.VALUE_USABLE_TRINARY_SIZE + 1] = 1;
+    txValidator.preValidate(toBytes(trits));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void preValidateRejectsValueToInvalidAddress() {
+    byte[] trits = currentTransactionTrits();
+    Converter.copyTrits(1, trits, TransactionViewModel.VALUE_TRINARY_OFFSET, TransactionViewModel.VALUE_USABLE_TRINARY_SIZE);
+    trits[TransactionViewModel.ADDRESS_TRINARY_OFFSET + TransactionViewModel.ADDRESS_TRINARY_SIZE - 1] = 1;
+    txValidator.preValidate(toBytes(trits));
+  }
+
+  private static byte[] currentTransactionTrits() {
+    byte[] trits = new byte[TransactionViewModel.TRINARY_SIZE];
+    Converter.copyTrits(System.currentTimeMillis() / 1000, trits, TransactionViewModel.TIMESTAMP_TRINARY_OFFSET,
+        TransactionViewModel.TIMESTAMP_TRINARY_SIZE);
+    return trits;
+  }
+
+  private static byte[] toBytes(byte[] trits) {
+    byte[] bytes = Converter.allocateBytesForTrits(trits.length);
+    Converter.bytes(trits, 0, bytes, 0, trits.length);
+    return bytes;
+  }
+
   @Test
   public void verifyTxIsSolid() throws Exception {
     TransactionViewModel tx = getTxWithBranchAndTrunk();
@@ -1,8 +1,15 @@
 package com.iota.iri.benchmarks;
 
 import com.iota.iri.benchmarks.dbbenchmark.RocksDbBenchmark;
+import com.iota.iri.benchmarks.network.PacketScratchBenchmark;
+import com.iota.iri.benchmarks.network.simulation.GossipSimulator;
+import com.iota.iri.benchmarks.network.simulation.LinkConditions;
+import com.iota.iri.benchmarks.network.simulation.SimulationReport;
+import com.iota.iri.benchmarks.network.simulation.Topology;
+import org.junit.Assert;
 import org.junit.Test;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -28,4 +35,33 @@ public class BenchmarkRunner {
         //possible to do assertions over run results
         new Runner(opts).run();
     }
+
+    @Test
+    public void launchPacketScratchBenchmarks() throws RunnerException {
+        Options opts = new OptionsBuilder()
+                .include(PacketScratchBenchmark.class.getName() + ".*")
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(5)
+                .forks(1)
+                .measurementIterations(10)
+                .shouldFailOnError(true)
+                .build();
+
+        //gc.alloc.rate.norm is the number of bytes allocated per packet
+        new Runner(opts).run();
+    }
+
+    @Test
+    public void launchGossipSimulation() throws Exception {
+        LinkConditions link = new LinkConditions(20_000, 10_000, 0.01);
+        try (GossipSimulator simulator = new GossipSimulator(8, Topology.RANDOM, 3, link, 42)) {
+            simulator.start();
+            simulator.inject(500, 100);
+            SimulationReport report = simulator.awaitPropagation(60_000);
+            System.out.println(simulator + ": " + report);
+            Assert.assertTrue("transactions were lost: " + report, report.getDeliveryRatio() > 0.99);
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package com.iota.iri.benchmarks.network;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.crypto.Sponge;
+import com.iota.iri.crypto.batched.HashRequest;
+import com.iota.iri.network.PacketScratchPool;
+import com.iota.iri.network.RecentSeenBytesCache;
+import com.iota.iri.utils.Converter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the buffers a received packet needs until its hash is processed, allocated per packet versus taken from a
+ * {@link PacketScratchPool}. Run it with the GC profiler to see the allocated bytes per packet. The hashing itself is
+ * left out, the hash request is answered right away with a fixed hash. The objects the node creates once the hash is
+ * known, the {@link com.iota.iri.model.Hash}, the {@link TransactionViewModel} and the queue entries, are not part of
+ * the comparison.
+ */
+public class PacketScratchBenchmark {
+
+    private static final int REQUEST_HASH_SIZE = 46;
+    private static final int PACKET_SIZE = TransactionViewModel.SIZE + REQUEST_HASH_SIZE;
+
+    @State(Scope.Thread)
+    public static class PacketState {
+        private final byte[] receivedData = new byte[PACKET_SIZE];
+        private final byte[] hashTrits = new byte[Sponge.HASH_LENGTH];
+        private RecentSeenBytesCache recentSeenBytes;
+        private PacketScratchPool pool;
+        private Blackhole blackhole;
+
+        @Setup(Level.Trial)
+        public void setup(Blackhole blackhole) {
+            new Random(42).nextBytes(receivedData);
+            this.blackhole = blackhole;
+            recentSeenBytes = new RecentSeenBytesCache(1000, 0);
+            pool = new PacketScratchPool(64, PACKET_SIZE, TransactionViewModel.TRINARY_SIZE,
+                    (scratch, hash) -> consume(scratch.getPacket(), scratch.getDigest(), hash));
+        }
+
+        private void consume(byte[] packet, RecentSeenBytesCache.Key digest, byte[] hash) {
+            blackhole.consume(packet);
+            blackhole.consume(digest);
+            blackhole.consume(hash);
+        }
+    }
+
+    @Benchmark
+    public void allocatePerPacket(PacketState state) {
+        RecentSeenBytesCache.Key digest = state.recentSeenBytes.key(state.receivedData, TransactionViewModel.SIZE);
+        byte[] packet = Arrays.copyOf(state.receivedData, PACKET_SIZE);
+        byte[] trits = new byte[TransactionViewModel.TRINARY_SIZE];
+        Converter.getTrits(packet, trits);
+        HashRequest request = new HashRequest(trits, hashTrits -> state.consume(packet, digest, hashTrits));
+        request.getCallback().process(state.hashTrits);
+    }
+
+    @Benchmark
+    public void pooledScratch(PacketState state) {
+        RecentSeenBytesCache.Key digest = state.recentSeenBytes.key(state.receivedData, TransactionViewModel.SIZE);
+        PacketScratchPool.Scratch scratch = state.pool.acquire(state.receivedData, digest, null);
+        Converter.getTrits(scratch.getPacket(), scratch.getTrits());
+        scratch.getHashRequest().getCallback().process(state.hashTrits);
+    }
+}
@@ -0,0 +1,148 @@
+package com.iota.iri.benchmarks.network.simulation;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.PersistenceProvider;
+import com.iota.iri.utils.Pair;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persistence provider that stores nothing but remembers when the transactions received from neighbors were stored.
+ * The node marks them by updating their sender, which is where the ZMQ provider publishes new transactions as well.
+ */
+class ArrivalRecorder implements PersistenceProvider {
+
+    private final Map<Hash, Long> arrivals = new ConcurrentHashMap<>();
+
+    /**
+     * @return the time the received transactions were stored at in nanoseconds, by their hash
+     */
+    Map<Hash, Long> getArrivals() {
+        return arrivals;
+    }
+
+    @Override
+    public boolean update(Persistable model, Indexable index, String item) {
+        if (model instanceof Transaction && item.contains("sender")) {
+            arrivals.putIfAbsent((Hash) index, System.nanoTime());
+        }
+        return false;
+    }
+
+    @Override
+    public void init() {
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return false;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public boolean save(Persistable model, Indexable index) {
+        return false;
+    }
+
+    @Override
+    public void delete(Class<?> model, Indexable index) {
+    }
+
+    @Override
+    public boolean exists(Class<?> model, Indexable key) {
+        return false;
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel) {
+        return null;
+    }
+
+    @Override
+    public Set<Indexable> keysWithMissingReferences(Class<?> modelClass, Class<?> otherClass) {
+        return null;
+    }
+
+    @Override
+    public Persistable get(Class<?> model, Indexable index) {
+        return null;
+    }
+
+    @Override
+    public List<Persistable> multiGet(Class<?> model, List<? extends Indexable> indexes) {
+        return null;
+    }
+
+    @Override
+    public List<Hash> indexPage(Class<?> model, Indexable index, Hash from, int limit) {
+        return null;
+    }
+
+    @Override
+    public boolean mayExist(Class<?> model, Indexable index) {
+        return false;
+    }
+
+    @Override
+    public long count(Class<?> model) {
+        return 0;
+    }
+
+    @Override
+    public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
+        return null;
+    }
+
+    @Override
+    public Persistable seek(Class<?> model, byte[] key) {
+        return null;
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) {
+        return null;
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> previous(Class<?> model, Indexable index) {
+        return null;
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> first(Class<?> model, Class<?> indexModel) {
+        return null;
+    }
+
+    @Override
+    public boolean saveBatch(List<Pair<Indexable, Persistable>> models) {
+        return false;
+    }
+
+    @Override
+    public void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models) {
+    }
+
+    @Override
+    public void clear(Class<?> column) {
+    }
+
+    @Override
+    public void clearMetadata(Class<?> column) {
+    }
+
+    @Override
+    public CompletableFuture<Void> pendingWrites() {
+        return null;
+    }
+}
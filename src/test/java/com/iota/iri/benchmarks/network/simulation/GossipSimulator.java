@@ -0,0 +1,284 @@
+package com.iota.iri.benchmarks.network.simulation;
+
+import com.iota.iri.MilestoneTracker;
+import com.iota.iri.TransactionValidator;
+import com.iota.iri.conf.TestnetConfig;
+import com.iota.iri.controllers.TipsViewModel;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.crypto.SpongeFactory;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.TransactionHash;
+import com.iota.iri.network.Node;
+import com.iota.iri.network.TransactionRequester;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import com.iota.iri.utils.Converter;
+import com.iota.iri.zmq.MessageQ;
+import org.apache.commons.io.FileUtils;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs several nodes in one JVM to measure how fast transactions spread through the gossip network.
+ * <br>
+ * Every simulated node has its own {@link Tangle} in a temporary RocksDB directory, its own
+ * {@link TransactionValidator}, {@link TransactionRequester} and {@link Node}. The nodes are connected by
+ * {@link SimulatedNeighbor}s in the chosen {@link Topology}, which hand the packets to the receiving node after the
+ * latency of the {@link LinkConditions} instead of sending them over a socket. Milestones are not simulated.
+ * <br>
+ * Transactions are injected at random nodes like through the <tt>storeTransactions</tt> and
+ * <tt>broadcastTransactions</tt> API calls. The {@link SimulationReport} tells how long they took to reach the other
+ * nodes.
+ */
+public class GossipSimulator implements AutoCloseable {
+
+    private static final int MWM = 1;
+    private static final int NONCE_TRINARY_SIZE = 81;
+    private static final int PORT = 14600;
+    private static final long POLL_INTERVAL_MS = 10;
+
+    private final int nodeCount;
+    private final Topology topology;
+    private final int degree;
+    private final LinkConditions link;
+    private final Random random;
+
+    private final List<SimulatedNode> nodes = new ArrayList<>();
+    private final ScheduledExecutorService network;
+    private final Map<Hash, Long> injectionTimes = new ConcurrentHashMap<>();
+    private final Map<Hash, SimulatedNode> origins = new ConcurrentHashMap<>();
+
+    private static class SimulatedNode {
+        private final File directory;
+        private final InetSocketAddress address;
+        private final ArrivalRecorder recorder = new ArrivalRecorder();
+        private final Tangle tangle = new Tangle();
+        private final MessageQ messageQ;
+        private final TransactionValidator transactionValidator;
+        private final TransactionRequester transactionRequester;
+        private final Node node;
+
+        private SimulatedNode(int index) throws Exception {
+            TestnetConfig config = new TestnetConfig();
+            directory = Files.createTempDirectory("gossip-node-" + index).toFile();
+            address = new InetSocketAddress(InetAddress.getByAddress(
+                    new byte[]{127, 1, (byte) (index >> 8), (byte) index}), PORT);
+
+            tangle.addPersistenceProvider(new RocksDBPersistenceProvider(new File(directory, "db").getPath(),
+                    new File(directory, "log").getPath(), config.getDbCacheSize()));
+            tangle.addPersistenceProvider(recorder);
+            messageQ = MessageQ.createWith(config);
+            TipsViewModel tipsViewModel = new TipsViewModel();
+            transactionRequester = new TransactionRequester(tangle, messageQ);
+            transactionValidator = new TransactionValidator(tangle, tipsViewModel, transactionRequester, config);
+            MilestoneTracker milestoneTracker = Mockito.mock(MilestoneTracker.class);
+            milestoneTracker.latestMilestone = Hash.NULL_HASH;
+            milestoneTracker.latestSolidSubtangleMilestone = Hash.NULL_HASH;
+            node = new Node(tangle, transactionValidator, transactionRequester, tipsViewModel, milestoneTracker,
+                    messageQ, config);
+
+            tangle.init();
+            transactionValidator.init(true, MWM);
+            transactionRequester.init(config.getpRemoveRequest());
+            node.init();
+        }
+
+        private void shutdown() {
+            try {
+                node.shutdown();
+                transactionValidator.shutdown();
+                tangle.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                throw new IllegalStateException("could not shut down simulated node " + address, e);
+            } finally {
+                messageQ.shutdown();
+                FileUtils.deleteQuietly(directory);
+            }
+        }
+    }
+
+    /**
+     * @param nodeCount the number of nodes
+     * @param topology how the nodes are connected
+     * @param degree the wanted number of neighbors per node for {@link Topology#RANDOM}
+     * @param link the latency and loss of every link
+     * @param seed the seed of the topology and of the transactions
+     */
+    public GossipSimulator(int nodeCount, Topology topology, int degree, LinkConditions link, long seed) {
+        this.nodeCount = nodeCount;
+        this.topology = topology;
+        this.degree = degree;
+        this.link = link;
+        this.random = new Random(seed);
+        this.network = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Simulated network");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Starts the nodes and connects them.
+     *
+     * @throws Exception if a node can not be started
+     */
+    public void start() throws Exception {
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new SimulatedNode(i));
+        }
+        for (int[] pair : topology.links(nodeCount, degree, random)) {
+            SimulatedNode a = nodes.get(pair[0]);
+            SimulatedNode b = nodes.get(pair[1]);
+            a.node.addNeighbor(new SimulatedNeighbor(b.address, b.node, a.address, link, network));
+            b.node.addNeighbor(new SimulatedNeighbor(a.address, a.node, b.address, link, network));
+        }
+    }
+
+    /**
+     * Creates transactions and injects them at random nodes at a steady rate. The transactions are created up front,
+     * so their proof of work doesn't slow the injection down.
+     *
+     * @param count the number of transactions
+     * @param perSecond the injection rate
+     * @throws Exception if a transaction can not be stored
+     */
+    public void inject(int count, int perSecond) throws Exception {
+        List<TransactionViewModel> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transactions.add(createTransaction());
+        }
+
+        long start = System.nanoTime();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, perSecond);
+        for (int i = 0; i < count; i++) {
+            long due = start + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+
+            TransactionViewModel transactionViewModel = transactions.get(i);
+            SimulatedNode origin = nodes.get(random.nextInt(nodes.size()));
+            origin.transactionValidator.runValidation(transactionViewModel, MWM);
+            origins.put(transactionViewModel.getHash(), origin);
+            injectionTimes.put(transactionViewModel.getHash(), System.nanoTime());
+            if (transactionViewModel.store(origin.tangle)) {
+                origin.transactionValidator.updateStatus(transactionViewModel);
+                origin.node.broadcast(transactionViewModel);
+            }
+        }
+    }
+
+    /**
+     * Waits until every injected transaction reached every node or the timeout expired.
+     *
+     * @param timeoutMs the maximum time to wait
+     * @return the propagation statistics of the transactions injected so far
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public SimulationReport awaitPropagation(long timeoutMs) throws InterruptedException {
+        long expected = (long) injectionTimes.size() * (nodeCount - 1);
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (deliveries() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+        return report();
+    }
+
+    private long deliveries() {
+        long deliveries = 0;
+        for (SimulatedNode node : nodes) {
+            deliveries += node.recorder.getArrivals().size();
+        }
+        return deliveries;
+    }
+
+    private SimulationReport report() {
+        long firstInjection = Long.MAX_VALUE;
+        for (long injectionTime : injectionTimes.values()) {
+            firstInjection = Math.min(firstInjection, injectionTime);
+        }
+        long lastArrival = firstInjection;
+        List<Long> latencies = new ArrayList<>();
+        Map<Hash, Integer> reached = new HashMap<>();
+        for (SimulatedNode node : nodes) {
+            for (Map.Entry<Hash, Long> arrival : node.recorder.getArrivals().entrySet()) {
+                Long injectionTime = injectionTimes.get(arrival.getKey());
+                if (injectionTime == null || origins.get(arrival.getKey()) == node) {
+                    continue;
+                }
+                latencies.add(TimeUnit.NANOSECONDS.toMicros(arrival.getValue() - injectionTime));
+                lastArrival = Math.max(lastArrival, arrival.getValue());
+                reached.merge(arrival.getKey(), 1, Integer::sum);
+            }
+        }
+
+        int fullyPropagated = (int) reached.values().stream().filter(count -> count == nodeCount - 1).count();
+        if (nodeCount == 1) {
+            fullyPropagated = injectionTimes.size();
+        }
+        return new SimulationReport(injectionTimes.size(), nodeCount,
+                latencies.stream().mapToLong(Long::longValue).toArray(), fullyPropagated,
+                injectionTimes.isEmpty() ? 0 : lastArrival - firstInjection);
+    }
+
+    /**
+     * Creates a transaction with random content that passes the validation of the simulated nodes.
+     */
+    private TransactionViewModel createTransaction() {
+        byte[] trits = new byte[TransactionViewModel.TRINARY_SIZE];
+        for (int i = 0; i < TransactionViewModel.SIGNATURE_MESSAGE_FRAGMENT_TRINARY_SIZE; i++) {
+            trits[i] = (byte) (random.nextInt(3) - 1);
+        }
+        Converter.copyTrits(System.currentTimeMillis() / 1000, trits, TransactionViewModel.TIMESTAMP_TRINARY_OFFSET,
+                TransactionViewModel.TIMESTAMP_TRINARY_SIZE);
+
+        TransactionHash hash;
+        do {
+            for (int i = trits.length - NONCE_TRINARY_SIZE; i < trits.length; i++) {
+                trits[i] = (byte) (random.nextInt(3) - 1);
+            }
+            hash = TransactionHash.calculate(SpongeFactory.Mode.CURLP81, trits);
+        } while (hash.trailingZeros() < MWM);
+        return new TransactionViewModel(trits, hash);
+    }
+
+    /**
+     * Shuts all nodes down in parallel and deletes their databases.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        network.shutdownNow();
+        List<Thread> stopping = new ArrayList<>();
+        for (SimulatedNode node : nodes) {
+            Thread thread = new Thread(node::shutdown, "Simulated node shutdown");
+            thread.start();
+            stopping.add(thread);
+        }
+        for (Thread thread : stopping) {
+            thread.join();
+        }
+        nodes.clear();
+    }
+
+    @Override
+    public String toString() {
+        return nodeCount + " nodes, " + topology + ", " + link;
+    }
+}
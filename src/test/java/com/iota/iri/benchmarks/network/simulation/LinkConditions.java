@@ -0,0 +1,37 @@
+package com.iota.iri.benchmarks.network.simulation;
+
+import java.util.Random;
+
+/**
+ * The latency and the loss of the links between simulated nodes.
+ */
+public class LinkConditions {
+
+    private final long latencyMicros;
+    private final long jitterMicros;
+    private final double lossRate;
+
+    /**
+     * @param latencyMicros the minimal one way delay of a packet
+     * @param jitterMicros the maximal random delay that is added to the latency
+     * @param lossRate the probability that a packet is lost
+     */
+    public LinkConditions(long latencyMicros, long jitterMicros, double lossRate) {
+        this.latencyMicros = latencyMicros;
+        this.jitterMicros = jitterMicros;
+        this.lossRate = lossRate;
+    }
+
+    long nextDelayMicros(Random random) {
+        return jitterMicros > 0 ? latencyMicros + (long) (random.nextDouble() * jitterMicros) : latencyMicros;
+    }
+
+    public double getLossRate() {
+        return lossRate;
+    }
+
+    @Override
+    public String toString() {
+        return "latency " + latencyMicros + "us + " + jitterMicros + "us jitter, loss " + lossRate;
+    }
+}
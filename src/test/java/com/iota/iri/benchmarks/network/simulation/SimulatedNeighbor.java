@@ -0,0 +1,62 @@
+package com.iota.iri.benchmarks.network.simulation;
+
+import com.iota.iri.network.Neighbor;
+import com.iota.iri.network.Node;
+
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A neighbor that delivers the packets sent to it straight to another {@link Node} of the same JVM, after the latency
+ * of the link and unless the link loses them.
+ */
+class SimulatedNeighbor extends Neighbor {
+
+    private final Node target;
+    private final InetSocketAddress senderAddress;
+    private final LinkConditions link;
+    private final ScheduledExecutorService network;
+
+    /**
+     * @param address the address of the target node
+     * @param target the node the packets are delivered to
+     * @param senderAddress the address of the sending node, which the target knows it by
+     * @param link the latency and loss of the link
+     * @param network the threads that deliver the packets
+     */
+    SimulatedNeighbor(InetSocketAddress address, Node target, InetSocketAddress senderAddress, LinkConditions link,
+                      ScheduledExecutorService network) {
+        super(address, true);
+        this.target = target;
+        this.senderAddress = senderAddress;
+        this.link = link;
+        this.network = network;
+    }
+
+    @Override
+    public void send(DatagramPacket packet) {
+        incSentTransactions();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < link.getLossRate()) {
+            return;
+        }
+        byte[] data = Arrays.copyOfRange(packet.getData(), packet.getOffset(), packet.getOffset() + packet.getLength());
+        long delayMicros = link.nextDelayMicros(random);
+        network.schedule(() -> target.preProcessReceivedData(data, senderAddress, "udp"), delayMicros,
+                TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    public int getPort() {
+        return getAddress().getPort();
+    }
+
+    @Override
+    public String connectionType() {
+        return "udp";
+    }
+}
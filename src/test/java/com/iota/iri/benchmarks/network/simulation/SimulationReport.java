@@ -0,0 +1,74 @@
+package com.iota.iri.benchmarks.network.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a {@link GossipSimulator} run.
+ */
+public class SimulationReport {
+
+    private final int transactions;
+    private final int nodes;
+    private final long[] latenciesMicros;
+    private final long expectedDeliveries;
+    private final int fullyPropagated;
+    private final long elapsedNanos;
+
+    /**
+     * @param transactions the number of injected transactions
+     * @param nodes the number of nodes
+     * @param latenciesMicros the time from the injection of a transaction until a node stored it, for every delivery
+     * @param fullyPropagated the number of transactions every node stored
+     * @param elapsedNanos the time from the first injection until the last delivery
+     */
+    SimulationReport(int transactions, int nodes, long[] latenciesMicros, int fullyPropagated, long elapsedNanos) {
+        this.transactions = transactions;
+        this.nodes = nodes;
+        this.latenciesMicros = latenciesMicros.clone();
+        Arrays.sort(this.latenciesMicros);
+        this.expectedDeliveries = (long) transactions * (nodes - 1);
+        this.fullyPropagated = fullyPropagated;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the propagation latency in milliseconds that the given percentage of the deliveries stayed below
+     */
+    public double latencyPercentileMs(double percentile) {
+        if (latenciesMicros.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile / 100 * latenciesMicros.length) - 1;
+        return latenciesMicros[Math.max(0, Math.min(latenciesMicros.length - 1, index))] / 1000.0;
+    }
+
+    /**
+     * @return the share of the expected deliveries that happened
+     */
+    public double getDeliveryRatio() {
+        return expectedDeliveries == 0 ? 1 : (double) latenciesMicros.length / expectedDeliveries;
+    }
+
+    /**
+     * @return the number of transactions every node stored
+     */
+    public int getFullyPropagated() {
+        return fullyPropagated;
+    }
+
+    /**
+     * @return the number of transactions that reached every node per second of the run
+     */
+    public double getTransactionsPerSecond() {
+        return elapsedNanos <= 0 ? 0 : fullyPropagated * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d transactions over %d nodes: %.1f tx/s, delivered %.2f%%, %d fully propagated, "
+                        + "latency p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms",
+                transactions, nodes, getTransactionsPerSecond(), getDeliveryRatio() * 100, fullyPropagated,
+                latencyPercentileMs(50), latencyPercentileMs(90), latencyPercentileMs(99), latencyPercentileMs(100));
+    }
+}
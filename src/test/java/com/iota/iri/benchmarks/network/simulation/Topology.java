@@ -0,0 +1,82 @@
+package com.iota.iri.benchmarks.network.simulation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The ways the nodes of a {@link GossipSimulator} are connected. Every link is bidirectional.
+ */
+public enum Topology {
+
+    /**
+     * Every node is a neighbor of every other node.
+     */
+    FULL_MESH {
+        @Override
+        List<int[]> links(int nodeCount, int degree, Random random) {
+            List<int[]> links = new ArrayList<>();
+            for (int i = 0; i < nodeCount; i++) {
+                for (int j = i + 1; j < nodeCount; j++) {
+                    links.add(new int[]{i, j});
+                }
+            }
+            return links;
+        }
+    },
+
+    /**
+     * Every node is a neighbor of the next one, the last node of the first one.
+     */
+    RING {
+        @Override
+        List<int[]> links(int nodeCount, int degree, Random random) {
+            List<int[]> links = new ArrayList<>();
+            for (int i = 0; i < nodeCount && nodeCount > 1; i++) {
+                int next = (i + 1) % nodeCount;
+                if (nodeCount > 2 || i < next) {
+                    links.add(new int[]{i, next});
+                }
+            }
+            return links;
+        }
+    },
+
+    /**
+     * A ring, so the network is connected, plus random links until every node has about <tt>degree</tt> neighbors,
+     * like the manually peered mainnet.
+     */
+    RANDOM {
+        @Override
+        List<int[]> links(int nodeCount, int degree, Random random) {
+            List<int[]> links = RING.links(nodeCount, degree, random);
+            Set<Long> linked = new HashSet<>();
+            for (int[] link : links) {
+                linked.add(key(link[0], link[1]));
+            }
+            int wanted = Math.min(nodeCount * (nodeCount - 1) / 2, nodeCount * degree / 2);
+            while (links.size() < wanted) {
+                int a = random.nextInt(nodeCount);
+                int b = random.nextInt(nodeCount);
+                if (a != b && linked.add(key(a, b))) {
+                    links.add(new int[]{a, b});
+                }
+            }
+            return links;
+        }
+
+        private long key(int a, int b) {
+            return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+        }
+    };
+
+    /**
+     * @param nodeCount the number of nodes
+     * @param degree the wanted number of neighbors per node, only used by {@link #RANDOM}
+     * @param random the source of randomness
+     * @return the pairs of node indexes that are neighbors
+     */
+    abstract List<int[]> links(int nodeCount, int degree, Random random);
+}
@@ -8,6 +8,10 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.junit.Assert.*;
 
 /**
@@ -112,4 +116,76 @@ public class TransactionRequesterTest {
         assertEquals(capacity + capacity * 2, txReq.numberOfTransactionsToRequest());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void requestIsRepeatedOnlyAfterBackoff() throws Exception {
+        TransactionRequester txReq = new TransactionRequester(tangle, mq);
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+        txReq.requestTransaction(hash, true);
+
+        assertEquals(hash, txReq.transactionToRequest(true));
+        assertNull("request should wait for its backoff", txReq.transactionToRequest(true));
+        assertEquals(1, txReq.getAttempts(hash));
+
+        Thread.sleep(TransactionRequester.INITIAL_BACKOFF_MS + 20);
+        assertEquals(hash, txReq.transactionToRequest(true));
+        assertEquals(2, txReq.getAttempts(hash));
+    }
+
+    @Test
+    public void milestoneRequestsArePreferred() throws Exception {
+        TransactionRequester txReq = new TransactionRequester(tangle, mq);
+        Hash normal = TransactionViewModelTest.getRandomTransactionHash();
+        Hash milestone = TransactionViewModelTest.getRandomTransactionHash();
+        txReq.requestTransaction(normal, false);
+        txReq.requestTransaction(milestone, true);
+
+        assertEquals(milestone, txReq.transactionToRequest(true));
+        assertEquals("falls back to the other class", normal, txReq.transactionToRequest(true));
+    }
+
+    @Test
+    public void normalRequestCanBeUpgradedToMilestone() throws Exception {
+        TransactionRequester txReq = new TransactionRequester(tangle, mq);
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+        txReq.requestTransaction(hash, false);
+        assertFalse(txReq.isTransactionRequested(hash, true));
+
+        txReq.requestTransaction(hash, true);
+        assertTrue(txReq.isTransactionRequested(hash, true));
+        assertEquals(1, txReq.numberOfTransactionsToRequest());
+
+        assertTrue(txReq.clearTransactionRequest(hash));
+        assertFalse(txReq.isTransactionRequested(hash, false));
+        assertEquals(0, txReq.numberOfTransactionsToRequest());
+        assertNull(txReq.transactionToRequest(false));
+    }
+
+    @Test
+    public void reRequestedHashIsQueuedOnce() throws Exception {
+        TransactionRequester txReq = new TransactionRequester(tangle, mq);
+        Hash repeated = TransactionViewModelTest.getRandomTransactionHash();
+        Hash other = TransactionViewModelTest.getRandomTransactionHash();
+        for (int i = 0; i < 40; i++) {
+            txReq.requestTransaction(repeated, true);
+            txReq.clearTransactionRequest(repeated);
+        }
+        txReq.requestTransaction(repeated, true);
+        txReq.requestTransaction(other, true);
+
+        Set<Hash> requested = new HashSet<>();
+        for (int i = 0; i < 10 && requested.size() < 2; i++) {
+            Hash hash = txReq.transactionToRequest(true);
+            if (hash != null) {
+                requested.add(hash);
+            }
+        }
+        assertEquals(new HashSet<>(Arrays.asList(repeated, other)), requested);
+
+        // the entries of the cleared requests are gone, so the retries aren't hidden behind them
+        Thread.sleep(TransactionRequester.INITIAL_BACKOFF_MS + 20);
+        assertEquals(requested, new HashSet<>(Arrays.asList(txReq.transactionToRequest(true),
+                txReq.transactionToRequest(true))));
+        assertEquals(2, txReq.getAttempts(repeated));
+    }
+
+}
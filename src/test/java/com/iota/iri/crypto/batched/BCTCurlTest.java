@@ -0,0 +1,102 @@
+package com.iota.iri.crypto.batched;
+
+import com.iota.iri.crypto.Sponge;
+import com.iota.iri.crypto.SpongeFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BCTCurlTest {
+
+    private static final Random seed = new Random();
+    private static final int TRANSACTION_LENGTH = 8019;
+
+    @Test
+    public void fullBatchMatchesCurl() {
+        assertBatchMatchesCurl(SpongeFactory.Mode.CURLP81, BCTCurl.MAX_BATCH_SIZE, TRANSACTION_LENGTH);
+    }
+
+    @Test
+    public void partialBatchMatchesCurl() {
+        assertBatchMatchesCurl(SpongeFactory.Mode.CURLP81, 1, TRANSACTION_LENGTH);
+        assertBatchMatchesCurl(SpongeFactory.Mode.CURLP81, 17, TRANSACTION_LENGTH);
+    }
+
+    @Test
+    public void incompleteLastBlockMatchesCurl() {
+        assertBatchMatchesCurl(SpongeFactory.Mode.CURLP27, 5, Sponge.HASH_LENGTH * 2 + 13);
+    }
+
+    @Test
+    public void batchedHasherCallsBackWithCurlHash() throws InterruptedException {
+        BatchedHasher hasher = new BatchedHasherImpl(SpongeFactory.Mode.CURLP81, TRANSACTION_LENGTH, 2, 5);
+        hasher.init();
+        try {
+            int count = 100;
+            byte[][] inputs = randomTrits(count, TRANSACTION_LENGTH);
+            byte[][] hashes = new byte[count][];
+            CountDownLatch latch = new CountDownLatch(count);
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                hasher.submitHashingRequest(new HashRequest(inputs[i], hashTrits -> {
+                    hashes[index] = hashTrits.clone();
+                    latch.countDown();
+                }));
+            }
+
+            Assert.assertTrue("expected all callbacks", latch.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < count; i++) {
+                Assert.assertArrayEquals(curlHash(SpongeFactory.Mode.CURLP81, inputs[i], TRANSACTION_LENGTH),
+                        hashes[i]);
+            }
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    public void batchedHasherDropsRequestsWhenFull() {
+        int threads = 2;
+        // not started, so nothing takes requests from the queue
+        BatchedHasherImpl hasher = new BatchedHasherImpl(SpongeFactory.Mode.CURLP81, TRANSACTION_LENGTH, threads, 5);
+        byte[] input = new byte[TRANSACTION_LENGTH];
+        int capacity = BCTCurl.MAX_BATCH_SIZE * 4 * threads;
+        for (int i = 0; i < capacity; i++) {
+            Assert.assertTrue(hasher.submitHashingRequest(new HashRequest(input, hashTrits -> { })));
+        }
+
+        Assert.assertFalse(hasher.submitHashingRequest(new HashRequest(input, hashTrits -> { })));
+        Assert.assertEquals(1, hasher.getDroppedCount());
+    }
+
+    private static void assertBatchMatchesCurl(SpongeFactory.Mode mode, int count, int length) {
+        byte[][] inputs = randomTrits(count, length);
+        byte[][] hashes = new byte[count][Sponge.HASH_LENGTH];
+        new BCTCurl(mode).hash(inputs, count, length, hashes);
+
+        for (int i = 0; i < count; i++) {
+            Assert.assertArrayEquals("lane " + i, curlHash(mode, inputs[i], length), hashes[i]);
+        }
+    }
+
+    private static byte[] curlHash(SpongeFactory.Mode mode, byte[] trits, int length) {
+        byte[] hash = new byte[Sponge.HASH_LENGTH];
+        Sponge curl = SpongeFactory.create(mode);
+        curl.absorb(trits, 0, length);
+        curl.squeeze(hash, 0, Sponge.HASH_LENGTH);
+        return hash;
+    }
+
+    private static byte[][] randomTrits(int count, int length) {
+        byte[][] trits = new byte[count][length];
+        for (byte[] input : trits) {
+            for (int i = 0; i < length; i++) {
+                input[i] = (byte) (seed.nextInt(3) - 1);
+            }
+        }
+        return trits;
+    }
+}
@@ -0,0 +1,73 @@
+package com.iota.iri.network;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class AdmissionControllerTest {
+
+    private static final int CAPACITY = 100;
+
+    @Test
+    public void queueOccupancyRaisesAndLowersTheState() {
+        List<AdmissionController.State> changes = new ArrayList<>();
+        AdmissionController controller = new AdmissionController(CAPACITY, changes::add);
+
+        controller.updateQueueSize(49);
+        Assert.assertEquals(AdmissionController.State.NORMAL, controller.getState());
+        controller.updateQueueSize(50);
+        Assert.assertEquals(AdmissionController.State.THROTTLED, controller.getState());
+        controller.updateQueueSize(95);
+        Assert.assertEquals(AdmissionController.State.SHEDDING, controller.getState());
+
+        //still above 80% of the shedding threshold
+        controller.updateQueueSize(75);
+        Assert.assertEquals(AdmissionController.State.SHEDDING, controller.getState());
+        controller.updateQueueSize(60);
+        Assert.assertEquals(AdmissionController.State.THROTTLED, controller.getState());
+        controller.updateQueueSize(0);
+        Assert.assertEquals(AdmissionController.State.NORMAL, controller.getState());
+
+        Assert.assertEquals(Arrays.asList(AdmissionController.State.THROTTLED, AdmissionController.State.SHEDDING,
+                AdmissionController.State.THROTTLED, AdmissionController.State.NORMAL), changes);
+    }
+
+    @Test
+    public void slowStorageShedsUntilItIsIdle() {
+        AdmissionController controller = new AdmissionController(CAPACITY, null);
+
+        for (int i = 0; i < 50 && controller.getState() != AdmissionController.State.SHEDDING; i++) {
+            controller.recordStorageLatency(5_000);
+        }
+        Assert.assertEquals(AdmissionController.State.SHEDDING, controller.getState());
+        Assert.assertFalse(controller.admit());
+        Assert.assertEquals(1, controller.getShedCount());
+
+        for (int i = 0; i < 50 && controller.getState() != AdmissionController.State.NORMAL; i++) {
+            controller.storageIdle();
+        }
+        Assert.assertEquals(AdmissionController.State.NORMAL, controller.getState());
+        Assert.assertTrue(controller.admit());
+        Assert.assertEquals(1, controller.getAdmittedCount());
+    }
+
+    @Test
+    public void throttledStateAdmitsAShareOfThePackets() {
+        AdmissionController controller = new AdmissionController(CAPACITY, null);
+        controller.updateQueueSize(60);
+
+        int admitted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (controller.admit()) {
+                admitted++;
+            }
+        }
+
+        Assert.assertEquals(admitted, controller.getAdmittedCount());
+        Assert.assertEquals(10_000 - admitted, controller.getThrottledCount());
+        Assert.assertEquals(AdmissionController.THROTTLED_ADMIT_RATIO, admitted / 10_000.0, 0.05);
+    }
+}
@@ -0,0 +1,67 @@
+package com.iota.iri.network;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class HotPacketCacheTest {
+
+    private static final int KEY_SIZE = 46;
+    private static final int PAYLOAD_SIZE = 1604;
+
+    private static byte[] hash(int i) {
+        byte[] hash = new byte[49];
+        hash[0] = (byte) i;
+        hash[1] = (byte) (i >> 8);
+        hash[48] = 1;
+        return hash;
+    }
+
+    private static byte[] payload(int i) {
+        byte[] payload = new byte[PAYLOAD_SIZE];
+        Arrays.fill(payload, (byte) i);
+        return payload;
+    }
+
+    @Test
+    public void cachedTransactionIsCopied() {
+        HotPacketCache cache = new HotPacketCache(16, KEY_SIZE, PAYLOAD_SIZE);
+        cache.put(hash(1), payload(1));
+
+        byte[] request = hash(1);
+        // a request only carries the first key bytes of the hash
+        request[48] = 0;
+        Assert.assertTrue(cache.contains(request));
+        byte[] target = new byte[PAYLOAD_SIZE + KEY_SIZE];
+        Assert.assertTrue(cache.copyTo(request, target));
+        Assert.assertArrayEquals(payload(1), Arrays.copyOf(target, PAYLOAD_SIZE));
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void unknownTransactionIsMissed() {
+        HotPacketCache cache = new HotPacketCache(16, KEY_SIZE, PAYLOAD_SIZE);
+        cache.put(hash(1), payload(1));
+
+        Assert.assertFalse(cache.contains(hash(2)));
+        Assert.assertFalse(cache.copyTo(hash(2), new byte[PAYLOAD_SIZE]));
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void oldestTransactionsAreOverwritten() {
+        HotPacketCache cache = new HotPacketCache(10, KEY_SIZE, PAYLOAD_SIZE);
+        Assert.assertEquals(16, cache.getCapacity());
+        for (int i = 0; i < 20; i++) {
+            cache.put(hash(i), payload(i));
+        }
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertFalse("transaction " + i + " should be overwritten", cache.contains(hash(i)));
+        }
+        byte[] target = new byte[PAYLOAD_SIZE];
+        Assert.assertTrue(cache.copyTo(hash(19), target));
+        Assert.assertArrayEquals(payload(19), target);
+    }
+}
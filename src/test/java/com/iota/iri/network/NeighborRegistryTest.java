@@ -0,0 +1,64 @@
+package com.iota.iri.network;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NeighborRegistryTest {
+
+    private final NeighborRegistry registry = new NeighborRegistry();
+
+    @Test
+    public void findsNeighborByIpAddressOnAnyPort() {
+        UDPNeighbor neighbor = new UDPNeighbor(address("127.0.0.1", 14600), null, true);
+        assertTrue(registry.add(neighbor));
+        assertFalse("equal neighbor should not be added twice",
+                registry.add(new UDPNeighbor(address("127.0.0.1", 14600), null, true)));
+
+        assertSame(neighbor, registry.find(address("127.0.0.1", 14600), "udp"));
+        assertSame(neighbor, registry.find(address("127.0.0.1", 40000), "udp"));
+        assertNull(registry.find(address("8.8.8.8", 14600), "udp"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void prefersNeighborOfTheSameConnectionType() {
+        UDPNeighbor udpNeighbor = new UDPNeighbor(address("127.0.0.1", 14600), null, true);
+        TCPNeighbor tcpNeighbor = new TCPNeighbor(address("127.0.0.1", 15600), true);
+        registry.add(udpNeighbor);
+        assertSame("other connection types should still match", udpNeighbor,
+                registry.find(address("127.0.0.1", 15600), "tcp"));
+
+        registry.add(tcpNeighbor);
+        assertSame(tcpNeighbor, registry.find(address("127.0.0.1", 15600), "tcp"));
+        assertSame(udpNeighbor, registry.find(address("127.0.0.1", 14600), "udp"));
+        assertSame(tcpNeighbor, registry.findTcpNeighbor(address("127.0.0.1", 1).getAddress()));
+    }
+
+    @Test
+    public void removedNeighborIsReplacedBySameAddress() {
+        UDPNeighbor first = new UDPNeighbor(address("127.0.0.1", 14600), null, true);
+        UDPNeighbor second = new UDPNeighbor(address("127.0.0.1", 14601), null, true);
+        registry.add(first);
+        registry.add(second);
+        assertSame(first, registry.find(address("127.0.0.1", 14601), "udp"));
+
+        assertTrue(registry.remove(first));
+        assertFalse(registry.remove(first));
+        assertSame(second, registry.find(address("127.0.0.1", 14600), "udp"));
+
+        assertTrue(registry.remove(second));
+        assertNull(registry.find(address("127.0.0.1", 14600), "udp"));
+        assertTrue(registry.getNeighbors().isEmpty());
+    }
+
+    private InetSocketAddress address(String ip, int port) {
+        return new InetSocketAddress(ip, port);
+    }
+}
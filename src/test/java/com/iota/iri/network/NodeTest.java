@@ -0,0 +1,142 @@
+package com.iota.iri.network;
+
+import com.iota.iri.MilestoneTracker;
+import com.iota.iri.TransactionValidator;
+import com.iota.iri.conf.TestnetConfig;
+import com.iota.iri.controllers.TipsViewModel;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.controllers.TransactionViewModelTest;
+import com.iota.iri.crypto.SpongeFactory;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashFactory;
+import com.iota.iri.model.TransactionHash;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.Converter;
+import com.iota.iri.zmq.MessageQ;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class NodeTest {
+    private static final InetSocketAddress NEIGHBOR_ADDRESS = new InetSocketAddress("127.0.0.1", 14600);
+
+    private final TestnetConfig config = new TestnetConfig() {
+        {
+            setpPropagateRequest(1);
+        }
+    };
+    private final Tangle tangle = new Tangle();
+    private MessageQ messageQ;
+    private TransactionRequester transactionRequester;
+    private TransactionValidator transactionValidator;
+    private Node node;
+    private Neighbor neighbor;
+
+    @Before
+    public void setUp() throws Exception {
+        messageQ = MessageQ.createWith(config);
+        TipsViewModel tipsViewModel = new TipsViewModel();
+        transactionRequester = Mockito.spy(new TransactionRequester(tangle, messageQ));
+        transactionValidator = new TransactionValidator(tangle, tipsViewModel, transactionRequester, config);
+        MilestoneTracker milestoneTracker = Mockito.mock(MilestoneTracker.class);
+        milestoneTracker.latestMilestone = Hash.NULL_HASH;
+        node = new Node(tangle, transactionValidator, transactionRequester, tipsViewModel, milestoneTracker,
+                messageQ, config);
+        node.init();
+        neighbor = new UDPNeighbor(NEIGHBOR_ADDRESS, null, false);
+        node.addNeighbor(neighbor);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        node.shutdown();
+        messageQ.shutdown();
+    }
+
+    @Test
+    public void staleTransactionRequestingItselfIsNotRequested() throws Exception {
+        byte[] trits = staleTransactionTrits();
+        Hash hash = TransactionHash.calculate(SpongeFactory.Mode.CURLP81, trits);
+
+        node.preProcessReceivedData(packet(trits, hash), NEIGHBOR_ADDRESS, "udp");
+        Thread.sleep(500);
+
+        assertEquals(1, neighbor.getNumberOfStaleTransactions());
+        assertFalse(transactionRequester.isTransactionRequested(hash, false));
+        assertEquals(0, transactionRequester.numberOfTransactionsToRequest());
+    }
+
+    @Test
+    public void requestOfStaleTransactionIsCleared() throws Exception {
+        byte[] trits = staleTransactionTrits();
+        Hash hash = TransactionHash.calculate(SpongeFactory.Mode.CURLP81, trits);
+        transactionRequester.requestTransaction(hash, false);
+
+        node.preProcessReceivedData(packet(trits, hash), NEIGHBOR_ADDRESS, "udp");
+        for (int i = 0; i < 50 && transactionRequester.isTransactionRequested(hash, false); i++) {
+            Thread.sleep(20);
+        }
+
+        assertFalse(transactionRequester.isTransactionRequested(hash, false));
+        assertEquals(1, neighbor.getNumberOfStaleTransactions());
+    }
+
+    @Test
+    public void requestOfStalePacketIsAnsweredButNotPropagated() throws Exception {
+        byte[] trits = staleTransactionTrits();
+        Hash requested = TransactionViewModelTest.getRandomTransactionHash();
+        Hash requestedPrefix = HashFactory.TRANSACTION.create(requested.bytes(), 0, config.getRequestHashSize());
+
+        node.preProcessReceivedData(packet(trits, requested), NEIGHBOR_ADDRESS, "udp");
+
+        Mockito.verify(transactionRequester, Mockito.timeout(1000)).markLacking(requestedPrefix, neighbor);
+        Mockito.verify(transactionRequester, Mockito.never()).requestTransaction(requestedPrefix, false);
+        assertEquals(1, neighbor.getNumberOfStaleTransactions());
+    }
+
+    @Test
+    public void requestIsAnsweredWhileShedding() throws Exception {
+        AdmissionController admissionController = node.getAdmissionController();
+        // decays far too slowly to leave the state during the test
+        admissionController.recordStorageLatency(TimeUnit.DAYS.toMillis(365));
+        assertEquals(AdmissionController.State.SHEDDING, admissionController.getState());
+        Hash requested = TransactionViewModelTest.getRandomTransactionHash();
+        Hash requestedPrefix = HashFactory.TRANSACTION.create(requested.bytes(), 0, config.getRequestHashSize());
+
+        node.preProcessReceivedData(packet(TransactionViewModelTest.getRandomTransactionTrits(), requested),
+                NEIGHBOR_ADDRESS, "udp");
+
+        Mockito.verify(transactionRequester, Mockito.timeout(1000)).markLacking(requestedPrefix, neighbor);
+        assertEquals(1, admissionController.getShedCount());
+        assertEquals(0, admissionController.getAdmittedCount());
+    }
+
+    private static byte[] staleTransactionTrits() {
+        byte[] trits = TransactionViewModelTest.getRandomTransactionTrits();
+        Arrays.fill(trits, TransactionViewModel.VALUE_TRINARY_OFFSET,
+                TransactionViewModel.VALUE_TRINARY_OFFSET + TransactionViewModel.VALUE_TRINARY_SIZE, (byte) 0);
+        Arrays.fill(trits, TransactionViewModel.TIMESTAMP_TRINARY_OFFSET,
+                TransactionViewModel.TIMESTAMP_TRINARY_OFFSET + TransactionViewModel.TIMESTAMP_TRINARY_SIZE, (byte) 0);
+        Arrays.fill(trits, TransactionViewModel.ATTACHMENT_TIMESTAMP_TRINARY_OFFSET,
+                TransactionViewModel.ATTACHMENT_TIMESTAMP_TRINARY_OFFSET
+                        + TransactionViewModel.ATTACHMENT_TIMESTAMP_TRINARY_SIZE, (byte) 0);
+        return trits;
+    }
+
+    /**
+     * @return a packet of the transaction that requests the given hash
+     */
+    private byte[] packet(byte[] trits, Hash requested) {
+        byte[] packet = new byte[TransactionViewModel.SIZE + config.getRequestHashSize()];
+        Converter.bytes(trits, 0, packet, 0, trits.length);
+        System.arraycopy(requested.bytes(), 0, packet, TransactionViewModel.SIZE, config.getRequestHashSize());
+        return packet;
+    }
+}
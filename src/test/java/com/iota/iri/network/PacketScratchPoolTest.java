@@ -0,0 +1,60 @@
+package com.iota.iri.network;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PacketScratchPoolTest {
+
+    private static final int PACKET_SIZE = 8;
+    private static final int TRITS_SIZE = 16;
+
+    @Test
+    public void hashedScratchIsReused() {
+        List<byte[]> processed = new ArrayList<>();
+        PacketScratchPool pool = new PacketScratchPool(1, PACKET_SIZE, TRITS_SIZE,
+                (scratch, hashTrits) -> processed.add(scratch.getPacket().clone()));
+
+        PacketScratchPool.Scratch first = pool.acquire(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9}, null, null);
+        first.getHashRequest().getCallback().process(new byte[0]);
+        PacketScratchPool.Scratch second = pool.acquire(new byte[]{8, 7, 6, 5, 4, 3, 2, 1, 0}, null, null);
+
+        Assert.assertSame(first, second);
+        Assert.assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}, processed.get(0));
+        Assert.assertArrayEquals(new byte[]{8, 7, 6, 5, 4, 3, 2, 1}, second.getPacket());
+        Assert.assertSame(second.getTrits(), second.getHashRequest().getInput());
+        Assert.assertEquals(1, pool.getAllocationCount());
+    }
+
+    @Test
+    public void scratchIsReleasedWhenProcessingFails() {
+        PacketScratchPool pool = new PacketScratchPool(1, PACKET_SIZE, TRITS_SIZE, (scratch, hashTrits) -> {
+            throw new IllegalStateException("invalid");
+        });
+
+        PacketScratchPool.Scratch first = pool.acquire(new byte[PACKET_SIZE], null, null);
+        try {
+            first.getHashRequest().getCallback().process(new byte[0]);
+            Assert.fail("expected the processing error");
+        } catch (IllegalStateException e) {
+            Assert.assertSame(first, pool.acquire(new byte[PACKET_SIZE], null, null));
+        }
+    }
+
+    @Test
+    public void emptyPoolAllocatesAndDiscardsSurplus() {
+        PacketScratchPool pool = new PacketScratchPool(1, PACKET_SIZE, TRITS_SIZE, (scratch, hashTrits) -> { });
+
+        PacketScratchPool.Scratch first = pool.acquire(new byte[PACKET_SIZE], null, null);
+        PacketScratchPool.Scratch second = pool.acquire(new byte[PACKET_SIZE], null, null);
+        Assert.assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+
+        Assert.assertSame(first, pool.acquire(new byte[PACKET_SIZE], null, null));
+        Assert.assertNotSame(second, pool.acquire(new byte[PACKET_SIZE], null, null));
+        Assert.assertEquals(3, pool.getAllocationCount());
+    }
+}
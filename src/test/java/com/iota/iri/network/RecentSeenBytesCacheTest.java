@@ -0,0 +1,89 @@
+package com.iota.iri.network;
+
+import com.iota.iri.controllers.TransactionViewModelTest;
+import com.iota.iri.model.Hash;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RecentSeenBytesCacheTest {
+
+    private static final int PACKET_SIZE = 1650;
+    private static final int TRANSACTION_SIZE = 1604;
+    private static final Random random = new Random();
+
+    @Test
+    public void putThenGetReturnsHash() {
+        RecentSeenBytesCache cache = new RecentSeenBytesCache(1000, 0);
+        byte[] packet = randomPacket();
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+
+        assertNull(cache.get(cache.key(packet, TRANSACTION_SIZE)));
+        cache.put(cache.key(packet, TRANSACTION_SIZE), hash);
+        assertEquals(hash, cache.get(cache.key(packet, TRANSACTION_SIZE)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void requestHashDoesNotChangeKey() {
+        RecentSeenBytesCache cache = new RecentSeenBytesCache(1000, 0);
+        byte[] packet = randomPacket();
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+        cache.put(cache.key(packet, TRANSACTION_SIZE), hash);
+
+        packet[PACKET_SIZE - 1] ^= 1;
+        assertEquals(hash, cache.get(cache.key(packet, TRANSACTION_SIZE)));
+
+        packet[TRANSACTION_SIZE - 1] ^= 1;
+        assertNull(cache.get(cache.key(packet, TRANSACTION_SIZE)));
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        int capacity = 1024;
+        RecentSeenBytesCache cache = new RecentSeenBytesCache(capacity, 0);
+        byte[][] packets = new byte[capacity * 4][];
+        for (int i = 0; i < packets.length; i++) {
+            packets[i] = randomPacket();
+            cache.put(cache.key(packets[i], TRANSACTION_SIZE), TransactionViewModelTest.getRandomTransactionHash());
+        }
+
+        int found = 0;
+        for (byte[] packet : packets) {
+            if (cache.get(cache.key(packet, TRANSACTION_SIZE)) != null) {
+                found++;
+            }
+        }
+        assertTrue("cache holds more entries than its capacity: " + found, found <= capacity);
+        assertTrue("expected evictions", cache.getEvictionCount() >= packets.length - capacity);
+    }
+
+    @Test
+    public void capacityIsRoundedUpToTheShards() {
+        assertEquals(16384, new RecentSeenBytesCache(15000, 0).getCapacity());
+        assertEquals(1024, new RecentSeenBytesCache(1024, 0).getCapacity());
+        assertEquals(2048, new RecentSeenBytesCache(1025, 0).getCapacity());
+        assertEquals(128, new RecentSeenBytesCache(1, 0).getCapacity());
+    }
+
+    @Test
+    public void dropRateRemovesEntries() {
+        RecentSeenBytesCache cache = new RecentSeenBytesCache(1000, 1);
+        byte[] packet = randomPacket();
+        cache.put(cache.key(packet, TRANSACTION_SIZE), TransactionViewModelTest.getRandomTransactionHash());
+
+        assertNull(cache.get(cache.key(packet, TRANSACTION_SIZE)));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    private static byte[] randomPacket() {
+        byte[] packet = new byte[PACKET_SIZE];
+        random.nextBytes(packet);
+        return packet;
+    }
+}
@@ -0,0 +1,100 @@
+package com.iota.iri.network;
+
+import com.iota.iri.controllers.TransactionViewModelTest;
+import com.iota.iri.model.Hash;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.zmq.MessageQ;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.Assert.*;
+
+public class RequestRoutingTest {
+    private static Tangle tangle = new Tangle();
+    private MessageQ mq;
+    private long now = 1_000_000L;
+
+    @Test
+    public void askedNeighborIsNotAskedAgainRightAway() throws Exception {
+        TransactionRequester txReq = new TransactionRequester(tangle, mq, () -> now);
+        Neighbor first = neighbor("127.0.0.1");
+        Neighbor second = neighbor("127.0.0.2");
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+        txReq.requestTransaction(hash, true);
+
+        assertEquals(hash, txReq.transactionToRequest(true, first));
+        now += TransactionRequester.INITIAL_BACKOFF_MS;
+        assertNull("the first neighbor was just asked", txReq.transactionToRequest(true, first));
+        assertEquals(hash, txReq.transactionToRequest(true, second));
+        assertTrue(txReq.wasAsked(hash, first));
+        assertTrue(txReq.wasAsked(hash, second));
+    }
+
+    @Test
+    public void lackingNeighborIsNotAsked() throws Exception {
+        TransactionRequester txReq = new TransactionRequester(tangle, mq, () -> now);
+        Neighbor neighbor = neighbor("127.0.0.1");
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+        txReq.requestTransaction(hash, false);
+
+        txReq.markLacking(hash, neighbor);
+        assertNull(txReq.transactionToRequest(false, neighbor));
+    }
+
+    @Test
+    public void answeringNeighborIsScoredUp() throws Exception {
+        TransactionRequester txReq = new TransactionRequester(tangle, mq, () -> now);
+        Neighbor asked = neighbor("127.0.0.1");
+        Neighbor other = neighbor("127.0.0.2");
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+        txReq.requestTransaction(hash, true);
+        txReq.transactionToRequest(true, asked);
+        double initialScore = asked.getRequestScore();
+
+        txReq.recordReceived(hash, other);
+        assertEquals("an unasked neighbor isn't credited", initialScore, other.getRequestScore(), 0);
+        txReq.recordReceived(hash, asked);
+        assertTrue(asked.getRequestScore() > initialScore);
+    }
+
+    @Test
+    public void silentNeighborIsScoredDown() throws Exception {
+        TransactionRequester txReq = new TransactionRequester(tangle, mq, () -> now);
+        Neighbor silent = neighbor("127.0.0.1");
+        Neighbor other = neighbor("127.0.0.2");
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+        txReq.requestTransaction(hash, true);
+        txReq.transactionToRequest(true, silent);
+        double initialScore = silent.getRequestScore();
+
+        now += TransactionRequester.MISS_TIMEOUT_MS;
+        assertEquals(hash, txReq.transactionToRequest(true, other));
+        assertTrue(silent.getRequestScore() < initialScore);
+    }
+
+    @Test
+    public void neighborIsNotScoredDownWithinTheMissTimeout() throws Exception {
+        TransactionRequester txReq = new TransactionRequester(tangle, mq, () -> now);
+        Neighbor slow = neighbor("127.0.0.1");
+        Neighbor second = neighbor("127.0.0.2");
+        Neighbor third = neighbor("127.0.0.3");
+        Hash hash = TransactionViewModelTest.getRandomTransactionHash();
+        txReq.requestTransaction(hash, true);
+        txReq.transactionToRequest(true, slow);
+        double initialScore = slow.getRequestScore();
+
+        now += TransactionRequester.INITIAL_BACKOFF_MS;
+        assertEquals("the backoff passed", hash, txReq.transactionToRequest(true, second));
+        assertEquals("the answer may still be on its way", initialScore, slow.getRequestScore(), 0);
+
+        now += TransactionRequester.MISS_TIMEOUT_MS - TransactionRequester.INITIAL_BACKOFF_MS;
+        assertEquals(hash, txReq.transactionToRequest(true, third));
+        assertTrue(slow.getRequestScore() < initialScore);
+        assertEquals("the second neighbor was asked later", initialScore, second.getRequestScore(), 0);
+    }
+
+    private static Neighbor neighbor(String host) {
+        return new UDPNeighbor(new InetSocketAddress(host, 14600), null, false);
+    }
+}
@@ -0,0 +1,59 @@
+package com.iota.iri.network;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TipRequestSchedulerTest {
+
+    private final TipRequestScheduler scheduler = new TipRequestScheduler();
+
+    @Test
+    public void syncedNodeRequestsRarely() {
+        assertTrue(scheduler.isSynced(0, 1));
+        assertEquals(TipRequestScheduler.SYNCED_INTERVAL_MS, scheduler.interval(0, 1));
+    }
+
+    @Test
+    public void intervalShrinksWithLagAndBacklog() {
+        long lagging = scheduler.interval(0, 2);
+        long furtherBehind = scheduler.interval(0, 5);
+        long withBacklog = scheduler.interval(3 * TipRequestScheduler.BACKLOG_PER_STEP, 5);
+
+        assertFalse(scheduler.isSynced(0, 2));
+        assertTrue(lagging < TipRequestScheduler.SYNCED_INTERVAL_MS);
+        assertTrue(furtherBehind < lagging);
+        assertTrue(withBacklog < furtherBehind);
+        assertEquals(TipRequestScheduler.MIN_INTERVAL_MS, scheduler.interval(0, 1_000));
+    }
+
+    @Test
+    public void backlogAloneMeansNotSynced() {
+        assertFalse(scheduler.isSynced(TipRequestScheduler.BACKLOG_PER_STEP, 0));
+        assertEquals(TipRequestScheduler.BASE_INTERVAL_MS, scheduler.interval(TipRequestScheduler.BACKLOG_PER_STEP, 0));
+    }
+
+    @Test
+    public void onlyIdleNeighborsGetTipRequests() {
+        Neighbor busy = neighbor("10.0.0.1");
+        Neighbor idle = neighbor("10.0.0.2");
+        List<Neighbor> neighbors = Arrays.asList(busy, idle);
+
+        assertEquals(neighbors, scheduler.idleNeighbors(neighbors));
+
+        //both were sent their tip request, the busy one also got another packet
+        idle.incSentTransactions();
+        busy.incSentTransactions();
+        busy.incSentTransactions();
+        assertEquals(Collections.singletonList(idle), scheduler.idleNeighbors(neighbors));
+    }
+
+    private static Neighbor neighbor(String host) {
+        return new UDPNeighbor(new InetSocketAddress(host, 14600), null, false);
+    }
+}
@@ -0,0 +1,55 @@
+package com.iota.iri.network;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+
+    @Test
+    public void unlimitedBucketNeverDelays() {
+        TokenBucket bucket = new TokenBucket(-1);
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0, bucket.nanosUntilAvailable());
+            bucket.consume();
+        }
+    }
+
+    @Test
+    public void burstIsLimitedToOneSecond() {
+        TokenBucket bucket = new TokenBucket(100);
+        int sent = 0;
+        while (bucket.nanosUntilAvailable() == 0) {
+            bucket.consume();
+            sent++;
+        }
+        assertTrue("sent " + sent + " packets in a burst", sent >= 100 && sent <= 101);
+        long delay = bucket.nanosUntilAvailable();
+        assertTrue("next token should be available within 10ms, was " + delay,
+                delay > 0 && delay <= TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void zeroLimitSendsOnePacketPerSecond() {
+        TokenBucket bucket = new TokenBucket(0);
+        assertEquals(0, bucket.nanosUntilAvailable());
+        bucket.consume();
+
+        long delay = bucket.nanosUntilAvailable();
+        assertTrue("next token should be available within a second, was " + delay,
+                delay > 0 && delay <= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void bucketRefillsOverTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000);
+        while (bucket.nanosUntilAvailable() == 0) {
+            bucket.consume();
+        }
+        Thread.sleep(20);
+        assertEquals(0, bucket.nanosUntilAvailable());
+    }
+}
@@ -1,15 +1,22 @@
 package com.iota.iri.network;
 
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
 import org.junit.Test;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class UDPNeighborTest {
 
+    private static final int[] WEIGHTS = {4, 2, 1};
+
     private final UDPNeighbor neighbor = new UDPNeighbor(address("localhost", 42), null, false);
 
     @Test
@@ -28,6 +35,52 @@ public class UDPNeighborTest {
         assertFalse("expected no match", neighbor.matches(new SocketAddress() {}));
     }
 
+    @Test
+    public void queueOutboundSchedulesNeighborOnlyOnce() {
+        TransactionViewModel transaction = transaction();
+        assertTrue("first transaction should schedule the neighbor",
+                neighbor.queueOutbound(transaction, TrafficClass.BROADCAST));
+        assertFalse("neighbor is already scheduled", neighbor.queueOutbound(transaction, TrafficClass.BROADCAST));
+        assertEquals(2, neighbor.getOutboundQueueSize());
+
+        assertSame(transaction, neighbor.pollOutbound(WEIGHTS).getTransactionViewModel());
+        assertTrue("queued transaction should reschedule the neighbor", neighbor.finishWrite());
+        assertSame(transaction, neighbor.pollOutbound(WEIGHTS).getTransactionViewModel());
+        assertNull(neighbor.pollOutbound(WEIGHTS));
+        assertFalse("empty queue should not reschedule the neighbor", neighbor.finishWrite());
+        assertTrue("neighbor should be schedulable again", neighbor.queueOutbound(transaction, TrafficClass.REPLY));
+    }
+
+    @Test
+    public void fullOutboundQueueDropsTransactions() {
+        TransactionViewModel transaction = transaction();
+        int queued = 0;
+        while (neighbor.getNumberOfDroppedSentTransactions() == 0) {
+            neighbor.queueOutbound(transaction, TrafficClass.BROADCAST);
+            queued++;
+        }
+        assertEquals(queued - 1, neighbor.getOutboundQueueSize());
+    }
+
+    @Test
+    public void trafficClassesAreServedByWeight() {
+        for (int i = 0; i < 100; i++) {
+            neighbor.queueOutbound(transaction(), TrafficClass.REPLY);
+            neighbor.queueOutbound(transaction(), TrafficClass.BROADCAST);
+        }
+        int replies = 0;
+        for (int i = 0; i < 50; i++) {
+            if (neighbor.pollOutbound(WEIGHTS).getTrafficClass() == TrafficClass.REPLY) {
+                replies++;
+            }
+        }
+        assertEquals("replies should get 4 of every 5 packets", 40, replies);
+    }
+
+    private static TransactionViewModel transaction() {
+        return new TransactionViewModel(new byte[TransactionViewModel.SIZE], Hash.NULL_HASH);
+    }
+
     private InetSocketAddress address(String hostOrIp, int port) {
         return new InetSocketAddress(hostOrIp, port);
     }
@@ -0,0 +1,64 @@
+package com.iota.iri.network.replicator;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Crc32HexTest {
+
+    private static final Random random = new Random(42);
+
+    @Test
+    public void encodeMatchesZeroPaddedHexString() {
+        for (int i = 0; i < 1000; i++) {
+            long checksum = checksumOfRandomPacket();
+            byte[] encoded = new byte[Crc32Hex.CRC32_BYTES];
+            Crc32Hex.encode(checksum, encoded, 0);
+            assertArrayEquals(hexString(checksum), encoded);
+        }
+    }
+
+    @Test
+    public void encodedChecksumMatches() {
+        long checksum = checksumOfRandomPacket();
+        byte[] frame = new byte[Crc32Hex.CRC32_BYTES + 3];
+        Crc32Hex.encode(checksum, frame, 3);
+        assertTrue("expected match", Crc32Hex.matches(checksum, frame, 3));
+        assertTrue("expected match of legacy encoding", Crc32Hex.matches(checksum, hexString(checksum), 0));
+    }
+
+    @Test
+    public void corruptedChecksumDoesNotMatch() {
+        long checksum = checksumOfRandomPacket();
+        byte[] encoded = hexString(checksum);
+        encoded[Crc32Hex.CRC32_BYTES - 1] ^= 1;
+        assertFalse("expected no match", Crc32Hex.matches(checksum, encoded, 0));
+        assertFalse("expected no match of uppercase digits",
+                Crc32Hex.matches(0xABCDEFL, "0000000000ABCDEF".getBytes(StandardCharsets.US_ASCII), 0));
+    }
+
+    private static long checksumOfRandomPacket() {
+        byte[] packet = new byte[1650];
+        random.nextBytes(packet);
+        CRC32 crc32 = new CRC32();
+        crc32.update(packet);
+        return crc32.getValue();
+    }
+
+    /**
+     * The encoding that was used by the original blocking replicator.
+     */
+    private static byte[] hexString(long checksum) {
+        String crc32String = Long.toHexString(checksum);
+        while (crc32String.length() < Crc32Hex.CRC32_BYTES) {
+            crc32String = "0" + crc32String;
+        }
+        return crc32String.getBytes(StandardCharsets.US_ASCII);
+    }
+}
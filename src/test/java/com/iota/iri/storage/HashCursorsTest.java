@@ -0,0 +1,120 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Address;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import com.iota.iri.utils.Pair;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.iota.iri.TransactionTestUtils.createHash;
+
+public class HashCursorsTest {
+    private final TemporaryFolder dbFolder = new TemporaryFolder();
+    private final TemporaryFolder logFolder = new TemporaryFolder();
+    private Tangle tangle;
+
+    @After
+    public void tearDown() throws Exception {
+        if (tangle != null) {
+            tangle.shutdown();
+        }
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @Test
+    public void unionMergesAndRemovesDuplicates() throws Exception {
+        HashCursor union = HashCursors.union(Arrays.asList(cursor(1, 4, 7), cursor(2, 4, 9), cursor()));
+        Assert.assertEquals(Arrays.asList(1, 2, 4, 7, 9), drain(union));
+    }
+
+    @Test
+    public void intersectionKeepsCommonHashes() throws Exception {
+        HashCursor intersection = HashCursors.intersection(Arrays.asList(
+                cursor(1, 3, 5, 7, 9, 11), cursor(3, 4, 7, 11, 12), cursor(0, 3, 6, 7, 8, 11)));
+        Assert.assertEquals(Arrays.asList(3, 7, 11), drain(intersection));
+
+        HashCursor disjoint = HashCursors.intersection(Arrays.asList(cursor(1, 2), cursor(3, 4)));
+        Assert.assertNull(disjoint.current());
+    }
+
+    @Test
+    public void indexCursorPagesThroughBothLayouts() throws Exception {
+        for (boolean entryIndexes : new boolean[]{false, true}) {
+            dbFolder.create();
+            logFolder.create();
+            AtomicInteger loads = new AtomicInteger();
+            tangle = new Tangle() {
+                @Override
+                public List<Hash> indexPage(Class<?> model, Indexable index, Hash from, int limit) throws Exception {
+                    loads.incrementAndGet();
+                    return super.indexPage(model, index, from, limit);
+                }
+            };
+            tangle.addPersistenceProvider(new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                    logFolder.getRoot().getAbsolutePath(), 1000, entryIndexes));
+            tangle.init();
+
+            Hash address = createHash(100);
+            List<Pair<Indexable, Persistable>> batch = new ArrayList<>();
+            for (int i : new int[]{9, 2, 7, 4, 5}) {
+                batch.add(new Pair<>(address, new Address(createHash(i))));
+            }
+            tangle.saveBatch(batch);
+
+            HashCursor cursor = new IndexCursor(tangle, Address.class, address, 2);
+            Assert.assertEquals(Arrays.asList(2, 4, 5, 7, 9), drain(cursor));
+            // a single value is read once, entries a page of two at a time
+            Assert.assertEquals(entryIndexes ? 5 : 1, loads.get());
+
+            cursor = new IndexCursor(tangle, Address.class, address, 2);
+            cursor.seek(createHash(6));
+            Assert.assertEquals(7, cursor.current().bytes()[0]);
+
+            tangle.shutdown();
+            tangle = null;
+            dbFolder.delete();
+            logFolder.delete();
+        }
+    }
+
+    private static List<Integer> drain(HashCursor cursor) throws Exception {
+        List<Integer> values = new ArrayList<>();
+        for (Hash hash = cursor.current(); hash != null; hash = cursor.current()) {
+            values.add((int) hash.bytes()[0]);
+            cursor.advance();
+        }
+        return values;
+    }
+
+    private static HashCursor cursor(int... values) {
+        return new HashCursor() {
+            private int position = 0;
+
+            @Override
+            public Hash current() {
+                return position < values.length ? createHash(values[position]) : null;
+            }
+
+            @Override
+            public void advance() {
+                position++;
+            }
+
+            @Override
+            public void seek(Hash target) {
+                while (current() != null && HashCursors.compare(current(), target) < 0) {
+                    position++;
+                }
+            }
+        };
+    }
+}
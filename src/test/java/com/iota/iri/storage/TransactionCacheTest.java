@@ -0,0 +1,114 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.crypto.SpongeFactory;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashFactory;
+import com.iota.iri.model.TransactionHash;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.iota.iri.TransactionTestUtils.createHash;
+import static com.iota.iri.storage.TangleTest.getRandomTransactionTrits;
+
+public class TransactionCacheTest {
+    private final TemporaryFolder dbFolder = new TemporaryFolder();
+    private final TemporaryFolder logFolder = new TemporaryFolder();
+    private final Tangle tangle = new Tangle(100);
+
+    @Before
+    public void setUp() throws Exception {
+        dbFolder.create();
+        logFolder.create();
+        tangle.addPersistenceProvider(new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000));
+        tangle.init();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tangle.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedTransaction() {
+        TransactionCache cache = new TransactionCache(2);
+        Hash first = createHash(1);
+        Hash second = createHash(2);
+        cache.put(first, filledTransaction(), cache.generation(first));
+        cache.put(second, filledTransaction(), cache.generation(second));
+        Assert.assertNotNull(cache.get(first));
+
+        Hash third = createHash(3);
+        cache.put(third, filledTransaction(), cache.generation(third));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertNotNull("recently used transaction should be kept", cache.get(first));
+        Assert.assertNull("least recently used transaction should be evicted", cache.get(second));
+    }
+
+    @Test
+    public void handsOutCopies() {
+        TransactionCache cache = new TransactionCache(10);
+        Hash hash = createHash(1);
+        cache.put(hash, filledTransaction(), cache.generation(hash));
+
+        cache.get(hash).validity = 1;
+
+        Assert.assertEquals(0, cache.get(hash).validity);
+        Assert.assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void ignoresLoadThatRacedWithWrite() {
+        TransactionCache cache = new TransactionCache(10);
+        Hash hash = createHash(1);
+        long generation = cache.generation(hash);
+        cache.invalidate(hash);
+        cache.put(hash, filledTransaction(), generation);
+
+        Assert.assertNull(cache.get(hash));
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void tangleStaysCoherentWithUpdatesAndDeletes() throws Exception {
+        byte[] trits = getRandomTransactionTrits();
+        TransactionHash hash = TransactionHash.calculate(SpongeFactory.Mode.CURLP81, trits);
+        new TransactionViewModel(trits, hash).store(tangle);
+
+        TransactionViewModel loaded = TransactionViewModel.fromHash(tangle, hash);
+        Assert.assertEquals(0, loaded.getValidity());
+        Assert.assertEquals(1, tangle.getTransactionCache().size());
+
+        loaded.setValidity(tangle, 1);
+        Assert.assertEquals(1, TransactionViewModel.fromHash(tangle, hash).getValidity());
+        Hash sameBytes = HashFactory.GENERIC.create(Transaction.class, hash.bytes());
+        Assert.assertEquals(1, ((Transaction) tangle.load(Transaction.class, sameBytes)).validity);
+
+        List<Persistable> transactions = tangle.multiGet(Transaction.class, Arrays.asList(hash, createHash(7)));
+        Assert.assertEquals(1, ((Transaction) transactions.get(0)).validity);
+        Assert.assertNotEquals(TransactionViewModel.FILLED_SLOT, ((Transaction) transactions.get(1)).type);
+
+        loaded.delete(tangle);
+        Assert.assertEquals(TransactionViewModel.PREFILLED_SLOT, TransactionViewModel.fromHash(tangle, hash).getType());
+        Assert.assertTrue(tangle.getTransactionCache().getHitCount() > 0);
+    }
+
+    private static Transaction filledTransaction() {
+        Transaction transaction = new Transaction();
+        transaction.type = TransactionViewModel.FILLED_SLOT;
+        return transaction;
+    }
+}
@@ -0,0 +1,169 @@
+package com.iota.iri.storage.rocksDB;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.StringAppendOperator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+public class GroupCommitWriterTest {
+    private final TemporaryFolder dbFolder = new TemporaryFolder();
+    private StringAppendOperator mergeOperator;
+    private Options options;
+    private RocksDB db;
+    private ColumnFamilyHandle handle;
+    private GroupCommitWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        RocksDB.loadLibrary();
+        dbFolder.create();
+        mergeOperator = new StringAppendOperator();
+        options = new Options().setCreateIfMissing(true).setMergeOperator(mergeOperator);
+        db = RocksDB.open(options, dbFolder.getRoot().getAbsolutePath());
+        handle = db.getDefaultColumnFamily();
+        // long enough to read the writes from the overlay before they are committed
+        writer = new GroupCommitWriter(db, 1000);
+    }
+
+    @After
+    public void tearDown() {
+        writer.shutdown();
+        db.close();
+        options.close();
+        mergeOperator.close();
+        dbFolder.delete();
+    }
+
+    @Test
+    public void appliesPendingMergesLikeTheDatabase() throws Exception {
+        db.put(handle, bytes("committed"), bytes("a"));
+        db.put(handle, bytes("replaced"), bytes("a"));
+
+        writer.submit(batch(merge("committed", "b"), merge("committed", "c")));
+        writer.submit(batch(merge("replaced", "b")));
+        writer.submit(batch(put("replaced", "c"), merge("replaced", "d")));
+        writer.submit(batch(merge("replaced", "e")));
+        writer.submit(batch(put("removed", "a"), remove("removed")));
+        writer.submit(batch(merge("new", "a")));
+
+        Assert.assertTrue(writer.isPending(handle, bytes("replaced")));
+        Assert.assertEquals("a,b,c", string(writer.get(handle, bytes("committed"))));
+        Assert.assertEquals("c,d,e", string(writer.get(handle, bytes("replaced"))));
+        Assert.assertNull(writer.get(handle, bytes("removed")));
+        Assert.assertEquals("a", string(writer.get(handle, bytes("new"))));
+
+        writer.pendingWrites().get();
+        Assert.assertFalse(writer.isPending(handle, bytes("replaced")));
+        Assert.assertEquals("a,b,c", string(db.get(handle, bytes("committed"))));
+        Assert.assertEquals("c,d,e", string(db.get(handle, bytes("replaced"))));
+        Assert.assertNull(db.get(handle, bytes("removed")));
+        Assert.assertEquals("a", string(db.get(handle, bytes("new"))));
+    }
+
+    @Test
+    public void readsPendingKeysWithoutWaiting() throws Exception {
+        db.put(handle, bytes("index-a"), bytes(""));
+        db.put(handle, bytes("index-c"), bytes(""));
+        db.put(handle, bytes("index-e"), bytes(""));
+        db.put(handle, bytes("other"), bytes(""));
+        // keys are ordered by their unsigned bytes like in the database
+        byte[] high = bytes("index-\u00ff");
+
+        writer.submit(batch(put("index-b", ""), remove("index-c"), put("index-d", ""), put("other-b", "")));
+        writer.submit(batch(batch -> batch.put(handle, high, bytes(""))));
+
+        Assert.assertTrue(writer.isPending(handle, bytes("index-b")));
+        Assert.assertEquals(Arrays.asList("index-a", "index-b", "index-d", "index-e", string(high)),
+                strings(writer.keys(handle, bytes("index-"), bytes("index-"), 10)));
+        Assert.assertEquals(Arrays.asList("index-b", "index-d"),
+                strings(writer.keys(handle, bytes("index-"), bytes("index-b"), 2)));
+        Assert.assertEquals(Collections.emptyList(),
+                strings(writer.keys(handle, bytes("none"), bytes("none"), 10)));
+        Assert.assertTrue(writer.isPending(handle, bytes("index-b")));
+    }
+
+    @Test
+    public void failedCommitRejectsLaterWrites() throws Exception {
+        ColumnFamilyHandle dropped = db.createColumnFamily(new ColumnFamilyDescriptor(bytes("dropped")));
+        db.dropColumnFamily(dropped);
+        try {
+            GroupCommitWriter.Batch batch = new GroupCommitWriter.Batch();
+            // the database rejects the batch at its first write
+            batch.put(dropped, bytes("key"), bytes("a"));
+            batch.put(handle, bytes("key"), bytes("a"));
+            CompletableFuture<Void> committed = writer.submit(batch);
+
+            try {
+                writer.pendingWrites().get();
+                Assert.fail("the commit should fail");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof RocksDBException);
+            }
+            Assert.assertTrue(committed.isCompletedExceptionally());
+            // the overlay doesn't keep the writes of the failed group
+            Assert.assertFalse(writer.isPending(handle, bytes("key")));
+            Assert.assertNull(writer.get(handle, bytes("key")));
+
+            // later writes could build on the lost ones, so the writer takes none
+            try {
+                writer.submit(batch(put("other", "a")));
+                Assert.fail("the writer should reject writes after a failed commit");
+            } catch (RocksDBException e) {
+                Assert.assertFalse(writer.isPending(handle, bytes("other")));
+            }
+        } finally {
+            dropped.close();
+        }
+    }
+
+    private GroupCommitWriter.Batch batch(Write... writes) {
+        GroupCommitWriter.Batch batch = new GroupCommitWriter.Batch();
+        for (Write write : writes) {
+            write.addTo(batch);
+        }
+        return batch;
+    }
+
+    private Write put(String key, String value) {
+        return batch -> batch.put(handle, bytes(key), bytes(value));
+    }
+
+    private Write merge(String key, String value) {
+        return batch -> batch.merge(handle, bytes(key), bytes(value));
+    }
+
+    private Write remove(String key) {
+        return batch -> batch.remove(handle, bytes(key));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<byte[]> values) {
+        return values.stream().map(GroupCommitWriterTest::string).collect(Collectors.toList());
+    }
+
+    private static String string(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private interface Write {
+        void addTo(GroupCommitWriter.Batch batch);
+    }
+}
@@ -0,0 +1,145 @@
+package com.iota.iri.storage.rocksDB;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.persistables.Address;
+import com.iota.iri.model.persistables.Hashes;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.utils.Pair;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.iota.iri.TransactionTestUtils.createHash;
+import static com.iota.iri.TransactionTestUtils.createTransaction;
+
+
+public class RocksDBGroupCommitTest {
+    private final TemporaryFolder dbFolder = new TemporaryFolder();
+    private final TemporaryFolder logFolder = new TemporaryFolder();
+    private RocksDBPersistenceProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        dbFolder.create();
+        logFolder.create();
+        provider = new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000, false, 50);
+        provider.init();
+    }
+
+    @After
+    public void tearDown() {
+        provider.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @Test
+    public void readsWritesBeforeTheyAreCommitted() throws Exception {
+        Hash address = createHash(100);
+        Hash hash = createHash(1);
+        provider.saveBatch(Arrays.asList(new Pair<>(hash, createTransaction((byte) 1)), addressEntry(address, 1)));
+        provider.pendingWrites().get();
+
+        provider.saveBatch(Arrays.asList(addressEntry(address, 2), addressEntry(address, 3)));
+        Transaction updated = createTransaction((byte) 1);
+        updated.validity = 1;
+        provider.update(updated, hash, "validity");
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList(createHash(1), createHash(2), createHash(3))),
+                ((Hashes) provider.get(Address.class, address)).set);
+        Assert.assertEquals(1, ((Transaction) provider.get(Transaction.class, hash)).validity);
+        Assert.assertEquals(1, ((Transaction) provider.multiGet(Transaction.class, Arrays.asList(hash, createHash(2)))
+                .get(0)).validity);
+        Assert.assertEquals(Arrays.asList(createHash(1), createHash(2), createHash(3)),
+                provider.indexPage(Address.class, address, null, 10));
+
+        provider.delete(Transaction.class, hash);
+        Assert.assertFalse(provider.exists(Transaction.class, hash));
+
+        provider.pendingWrites().get();
+        Assert.assertEquals(3, ((Hashes) provider.get(Address.class, address)).set.size());
+        Assert.assertFalse(provider.exists(Transaction.class, hash));
+    }
+
+    @Test
+    public void readsEntryIndexesWithoutWaiting() throws Exception {
+        TemporaryFolder entryDbFolder = new TemporaryFolder();
+        TemporaryFolder entryLogFolder = new TemporaryFolder();
+        entryDbFolder.create();
+        entryLogFolder.create();
+        // long enough that a read waiting for the commit would be noticed
+        RocksDBPersistenceProvider entryProvider = new RocksDBPersistenceProvider(
+                entryDbFolder.getRoot().getAbsolutePath(), entryLogFolder.getRoot().getAbsolutePath(), 1000, true,
+                2_000);
+        try {
+            entryProvider.init();
+            Hash address = createHash(100);
+            entryProvider.saveBatch(Arrays.asList(addressEntry(address, 1), addressEntry(address, 2)));
+            // replacing the index reads the entries it removes
+            entryProvider.save(new Address(createHash(3)), address);
+
+            Assert.assertEquals(new HashSet<>(Arrays.asList(createHash(3))),
+                    ((Hashes) entryProvider.get(Address.class, address)).set);
+            Assert.assertEquals(Arrays.asList(createHash(3)),
+                    entryProvider.indexPage(Address.class, address, null, 10));
+            Assert.assertTrue(entryProvider.exists(Address.class, address));
+            entryProvider.delete(Address.class, address);
+            Assert.assertFalse(entryProvider.exists(Address.class, address));
+            Assert.assertFalse(entryProvider.pendingWrites().isDone());
+
+            entryProvider.pendingWrites().get();
+            Assert.assertFalse(entryProvider.exists(Address.class, address));
+        } finally {
+            entryProvider.shutdown();
+            entryDbFolder.delete();
+            entryLogFolder.delete();
+        }
+    }
+
+    @Test
+    public void commitsConcurrentWritesTogether() throws Exception {
+        int threads = 8;
+        int writes = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < writes; i++) {
+                        provider.save(createTransaction((byte) thread), createHash(thread * writes + i + 1));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        provider.pendingWrites().get();
+
+        GroupCommitWriter writer = provider.getGroupCommitWriter();
+        Assert.assertEquals(threads * writes, writer.getBatchCount());
+        Assert.assertTrue("writes should share commits", writer.getCommitCount() < writer.getBatchCount());
+        Assert.assertTrue(provider.exists(Transaction.class, createHash(threads * writes)));
+    }
+
+    private static Pair<Indexable, Persistable> addressEntry(Hash address, int transaction) {
+        return new Pair<>(address, new Address(createHash(transaction)));
+    }
+}
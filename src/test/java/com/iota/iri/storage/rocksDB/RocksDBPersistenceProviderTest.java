@@ -1,6 +1,10 @@
 package com.iota.iri.storage.rocksDB;
 
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashFactory;
 import com.iota.iri.model.IntegerIndex;
+import com.iota.iri.model.persistables.Address;
+import com.iota.iri.model.persistables.Hashes;
 import com.iota.iri.model.persistables.Transaction;
 import com.iota.iri.storage.Indexable;
 import com.iota.iri.storage.Persistable;
@@ -11,10 +15,14 @@ import org.junit.runners.MethodSorters;
 
 import java.io.File;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static com.iota.iri.TransactionTestUtils.createHash;
+import static com.iota.iri.TransactionTestUtils.createTransaction;
+
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class RocksDBPersistenceProviderTest {
 
@@ -75,4 +83,88 @@ public class RocksDBPersistenceProviderTest {
                     rocksDBPersistenceProvider.get(Transaction.class, index).bytes());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMultiGet() throws Exception {
+        Transaction first = createTransaction((byte) 1);
+        Transaction second = createTransaction((byte) 2);
+        rocksDBPersistenceProvider.saveBatch(Arrays.asList(
+                new Pair<>(new IntegerIndex(1), first),
+                new Pair<>(new IntegerIndex(2), second)));
+
+        List<Persistable> loaded = rocksDBPersistenceProvider.multiGet(Transaction.class, Arrays.asList(
+                new IntegerIndex(2), new IntegerIndex(3), new IntegerIndex(1), new IntegerIndex(2)));
+
+        Assert.assertEquals(4, loaded.size());
+        Assert.assertArrayEquals(second.bytes(), loaded.get(0).bytes());
+        Assert.assertArrayEquals(second.metadata(), loaded.get(0).metadata());
+        Assert.assertNull("missing value should be empty", loaded.get(1).bytes());
+        Assert.assertArrayEquals(first.bytes(), loaded.get(2).bytes());
+        Assert.assertArrayEquals(first.metadata(), loaded.get(2).metadata());
+        Assert.assertArrayEquals(second.bytes(), loaded.get(3).bytes());
+    }
+
+    @Test
+    public void testEntryIndexes() throws Exception {
+        RocksDBPersistenceProvider provider = new RocksDBPersistenceProvider("tmpentrydb", "tmpentrylogs", 1000, true);
+        provider.init();
+        try {
+            Hash address = createHash(5);
+            Hash otherAddress = createHash(6);
+            provider.saveBatch(Arrays.asList(
+                    new Pair<>(address, new Address(createHash(1))),
+                    new Pair<>(address, new Address(createHash(2))),
+                    new Pair<>(otherAddress, new Address(createHash(3)))));
+
+            Assert.assertEquals(new HashSet<>(Arrays.asList(createHash(1), createHash(2))),
+                    ((Hashes) provider.get(Address.class, address)).set);
+            Assert.assertTrue(provider.exists(Address.class, otherAddress));
+            Assert.assertEquals(new HashSet<>(Arrays.asList(HashFactory.ADDRESS.create(address.bytes()))),
+                    provider.keysStartingWith(Address.class, Arrays.copyOf(address.bytes(), 1)));
+
+            Pair<Indexable, Persistable> first = provider.first(Address.class, Hash.class);
+            Assert.assertArrayEquals(address.bytes(), first.low.bytes());
+            Pair<Indexable, Persistable> next = provider.next(Address.class, first.low);
+            Assert.assertArrayEquals(otherAddress.bytes(), next.low.bytes());
+            Assert.assertEquals(1, ((Hashes) next.hi).set.size());
+            Assert.assertNull(provider.next(Address.class, next.low).low);
+
+            provider.delete(Address.class, address);
+            Assert.assertTrue(((Hashes) provider.get(Address.class, address)).set.isEmpty());
+            Assert.assertFalse(provider.exists(Address.class, address));
+        } finally {
+            provider.shutdown();
+            FileUtils.deleteQuietly(new File("tmpentrydb"));
+            FileUtils.deleteQuietly(new File("tmpentrylogs"));
+        }
+    }
+
+    @Test
+    public void testIndexMigration() throws Exception {
+        Hash address = createHash(5);
+        RocksDBPersistenceProvider provider = new RocksDBPersistenceProvider("tmpmigratedb", "tmpmigratelogs", 1000);
+        try {
+            provider.init();
+            provider.saveBatch(Arrays.asList(
+                    new Pair<>(address, new Address(createHash(1))),
+                    new Pair<>(address, new Address(createHash(2)))));
+            provider.shutdown();
+
+            provider = new RocksDBPersistenceProvider("tmpmigratedb", "tmpmigratelogs", 1000, true);
+            provider.init();
+            Assert.assertEquals(new HashSet<>(Arrays.asList(createHash(1), createHash(2))),
+                    ((Hashes) provider.get(Address.class, address)).set);
+            provider.saveBatch(Arrays.asList(new Pair<>(address, new Address(createHash(3)))));
+            provider.shutdown();
+
+            provider = new RocksDBPersistenceProvider("tmpmigratedb", "tmpmigratelogs", 1000);
+            provider.init();
+            Assert.assertEquals(new HashSet<>(Arrays.asList(createHash(1), createHash(2), createHash(3))),
+                    ((Hashes) provider.get(Address.class, address)).set);
+        } finally {
+            provider.shutdown();
+            FileUtils.deleteQuietly(new File("tmpmigratedb"));
+            FileUtils.deleteQuietly(new File("tmpmigratelogs"));
+        }
+    }
+}
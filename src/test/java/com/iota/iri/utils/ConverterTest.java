@@ -1,6 +1,27 @@
 package com.iota.iri.utils;
 
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
 public class ConverterTest {
 
+    @Test
+    public void tritsAreDecodedStraightFromBytes() {
+        Random random = new Random(42);
+        byte[] trits = new byte[8019];
+        for (int i = 0; i < trits.length; i++) {
+            trits[i] = (byte) (random.nextInt(3) - 1);
+        }
+        byte[] bytes = Converter.allocateBytesForTrits(trits.length);
+        Converter.bytes(trits, 0, bytes, 0, trits.length);
 
-}
\ No newline at end of file
+        for (int i = 0; i < trits.length; i++) {
+            Assert.assertEquals("trit " + i, trits[i], Converter.tritFromBytes(bytes, i));
+        }
+        for (int offset = 0; offset < 100; offset += 7) {
+            Assert.assertEquals(Converter.longValue(trits, offset, 27), Converter.longValueFromBytes(bytes, offset, 27));
+        }
+    }
+}
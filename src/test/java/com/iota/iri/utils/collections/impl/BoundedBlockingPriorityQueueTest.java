@@ -0,0 +1,79 @@
+package com.iota.iri.utils.collections.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BoundedBlockingPriorityQueueTest {
+
+    @Test
+    public void elementsAreTakenInPriorityOrder() throws InterruptedException {
+        BoundedBlockingPriorityQueue<Integer> queue = new BoundedBlockingPriorityQueue<>(10, Comparator.reverseOrder());
+        queue.offer(3);
+        queue.offer(7);
+        queue.offer(5);
+
+        Assert.assertEquals(3, queue.size());
+        Assert.assertEquals(Integer.valueOf(7), queue.take());
+        Assert.assertEquals(Integer.valueOf(5), queue.poll());
+        Assert.assertEquals(Integer.valueOf(3), queue.poll(1, TimeUnit.MILLISECONDS));
+        Assert.assertTrue("queue should be empty", queue.isEmpty());
+    }
+
+    @Test
+    public void fullQueueDropsLowestPriority() {
+        BoundedBlockingPriorityQueue<Integer> queue = new BoundedBlockingPriorityQueue<>(3, Comparator.reverseOrder());
+        Assert.assertTrue(queue.offer(5));
+        Assert.assertTrue(queue.offer(6));
+        Assert.assertTrue(queue.offer(7));
+        Assert.assertTrue("higher priority element should replace the lowest", queue.offer(8));
+        Assert.assertFalse("lowest priority element should be dropped", queue.offer(1));
+
+        List<Integer> drained = new ArrayList<>();
+        Assert.assertEquals(3, queue.drainTo(drained, 10));
+        Assert.assertEquals(Arrays.asList(8, 7, 6), drained);
+        Assert.assertEquals(2, queue.getDroppedCount());
+    }
+
+    @Test
+    public void equalElementsAreStoredOnce() {
+        BoundedBlockingPriorityQueue<Integer> queue = new BoundedBlockingPriorityQueue<>(3, Comparator.naturalOrder());
+        Assert.assertTrue(queue.offer(1));
+        Assert.assertFalse(queue.offer(1));
+        Assert.assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void pollTimesOutOnEmptyQueue() throws InterruptedException {
+        BoundedBlockingPriorityQueue<Integer> queue = new BoundedBlockingPriorityQueue<>(3, Comparator.naturalOrder());
+        Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        Assert.assertNull(queue.poll());
+    }
+
+    @Test
+    public void takeWaitsForOffer() throws InterruptedException {
+        BoundedBlockingPriorityQueue<Integer> queue = new BoundedBlockingPriorityQueue<>(3, Comparator.naturalOrder());
+        AtomicReference<Integer> taken = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread consumer = new Thread(() -> {
+            try {
+                taken.set(queue.take());
+                done.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        queue.offer(42);
+        Assert.assertTrue("consumer was not woken up", done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Integer.valueOf(42), taken.get());
+    }
+}
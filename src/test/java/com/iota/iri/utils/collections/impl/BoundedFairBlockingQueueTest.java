@@ -0,0 +1,67 @@
+package com.iota.iri.utils.collections.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class BoundedFairBlockingQueueTest {
+
+    @Test
+    public void sourcesAreServedInTurnsOfQuantum() {
+        BoundedFairBlockingQueue<String, Integer> queue = new BoundedFairBlockingQueue<>(100, 2,
+                Comparator.naturalOrder());
+        for (int i = 0; i < 6; i++) {
+            queue.offer("spammer", 100 + i);
+        }
+        queue.offer("honest", 1);
+        queue.offer("honest", 2);
+
+        List<Integer> drained = new ArrayList<>();
+        Assert.assertEquals(8, queue.drainTo(drained, 100));
+        Assert.assertEquals(Arrays.asList(100, 101, 1, 2, 102, 103, 104, 105), drained);
+    }
+
+    @Test
+    public void fullQueueDropsFromLargestSource() {
+        BoundedFairBlockingQueue<String, Integer> queue = new BoundedFairBlockingQueue<>(4, 1,
+                Comparator.naturalOrder());
+        Assert.assertTrue(queue.offer("honest", 1));
+        Assert.assertTrue(queue.offer("spammer", 10));
+        Assert.assertTrue(queue.offer("spammer", 11));
+        Assert.assertTrue(queue.offer("spammer", 12));
+        Assert.assertFalse("spammer should only push out its own elements", queue.offer("spammer", 13));
+        Assert.assertTrue(queue.offer("honest", 2));
+
+        Assert.assertEquals(4, queue.size());
+        Assert.assertEquals(2, queue.getDroppedCount());
+
+        List<Integer> drained = new ArrayList<>();
+        queue.drainTo(drained, 100);
+        Assert.assertTrue("honest elements should survive", drained.containsAll(Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void duplicatesOfTheSameSourceAreQueuedOnce() {
+        BoundedFairBlockingQueue<String, Integer> queue = new BoundedFairBlockingQueue<>(10, 1,
+                Comparator.naturalOrder());
+        Assert.assertTrue(queue.offer("a", 1));
+        Assert.assertFalse(queue.offer("a", 1));
+        Assert.assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void pollTimesOutOnEmptyQueue() throws InterruptedException {
+        BoundedFairBlockingQueue<String, Integer> queue = new BoundedFairBlockingQueue<>(10, 1,
+                Comparator.naturalOrder());
+        Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        Assert.assertNull(queue.poll());
+        queue.offer("a", 1);
+        Assert.assertEquals(Integer.valueOf(1), queue.take());
+        Assert.assertTrue(queue.isEmpty());
+    }
+}
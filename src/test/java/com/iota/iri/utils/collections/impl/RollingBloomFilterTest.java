@@ -0,0 +1,52 @@
+package com.iota.iri.utils.collections.impl;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RollingBloomFilterTest {
+
+    private static byte[] key(int i) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(i).array();
+    }
+
+    @Test
+    public void addedKeysAreRemembered() {
+        RollingBloomFilter filter = new RollingBloomFilter(1000, 0.001);
+        for (int i = 0; i < 1000; i++) {
+            filter.add(key(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue("key " + i + " should be remembered", filter.mightContain(key(i)));
+        }
+    }
+
+    @Test
+    public void oldKeysAreForgotten() {
+        RollingBloomFilter filter = new RollingBloomFilter(100, 0.001);
+        filter.add(key(-1));
+        for (int i = 0; i < 200; i++) {
+            filter.add(key(i));
+        }
+        assertFalse("key should have been forgotten after two generations", filter.mightContain(key(-1)));
+        assertTrue("latest key should be remembered", filter.mightContain(key(199)));
+    }
+
+    @Test
+    public void falsePositiveRateIsLow() {
+        RollingBloomFilter filter = new RollingBloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(key(i));
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(key(i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue("too many false positives: " + falsePositives, falsePositives < 500);
+    }
+}